@@ -1,6 +1,6 @@
 package com.kanban.client;
 
-import com.kanban.dto.twse.TwseApiResponse;
+import com.kanban.dto.twse.TwseMarketSnapshot;
 import com.kanban.dto.twse.TwseStockData;
 import com.kanban.exception.StockNotFoundException;
 import com.kanban.exception.TwseMcpException;
@@ -11,29 +11,46 @@ import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * TWSE-MCP API 客戶端
  * 實作斷路器模式、重試機制與超時控制
+ * 全市場資料每個世代只抓取一次，並行請求共用同一個進行中的抓取
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TwseMcpClient {
     
+    private static final String STOCK_DAY_ALL_URI = "/v1/exchangeReport/STOCK_DAY_ALL";
+    
     @Qualifier("twseMcpWebClient")
     private final WebClient webClient;
     
+    @Value("${twse.mcp.market-snapshot.max-age-ms:60000}")
+    private long marketSnapshotMaxAgeMs = 60000;
+    
+    @Value("${twse.mcp.mock.enabled:false}")
+    private boolean mockEnabled;
+    
+    // 目前生效的全市場快照世代
+    private volatile TwseMarketSnapshot currentSnapshot;
+    
+    // 進行中的全市場抓取，供並行呼叫者共用
+    private final AtomicReference<CompletableFuture<TwseMarketSnapshot>> inFlightFetch = new AtomicReference<>();
+    
     /**
      * 取得單一股票即時資料
      */
@@ -44,19 +61,14 @@ public class TwseMcpClient {
     public CompletableFuture<TwseStockData> getStockData(String stockCode) {
         log.debug("Fetching stock data for code: {}", stockCode);
         
-        return webClient.get()
-                .uri("/v1/exchangeReport/STOCK_DAY_ALL")
-                .retrieve()
-                .onStatus(httpStatusCode -> httpStatusCode.isError(),
-                    response -> Mono.error(new TwseMcpException(
-                        "TWSE_API_ERROR", 
-                        "TWSE API 回傳錯誤: " + response.statusCode(), 
-                        response.statusCode().value())))
-                .bodyToMono(new ParameterizedTypeReference<TwseApiResponse<List<String>>>() {})
-                .map(response -> parseStockData(response, stockCode))
-                .doOnSuccess(data -> log.debug("Successfully fetched data for {}: {}", stockCode, data))
-                .doOnError(error -> log.error("Error fetching data for {}: {}", stockCode, error.getMessage()))
-                .toFuture();
+        return loadMarketSnapshot()
+                .thenApply(snapshot -> {
+                    TwseStockData data = snapshot.get(stockCode);
+                    if (data == null) {
+                        throw new StockNotFoundException(stockCode);
+                    }
+                    return data;
+                });
     }
     
     /**
@@ -69,19 +81,8 @@ public class TwseMcpClient {
     public CompletableFuture<List<TwseStockData>> getBatchStockData(List<String> stockCodes) {
         log.debug("Fetching batch stock data for {} codes", stockCodes.size());
         
-        return webClient.get()
-                .uri("/v1/exchangeReport/STOCK_DAY_ALL")
-                .retrieve()
-                .onStatus(httpStatusCode -> httpStatusCode.isError(),
-                    response -> Mono.error(new TwseMcpException(
-                        "TWSE_API_ERROR", 
-                        "TWSE API 回傳錯誤: " + response.statusCode(), 
-                        response.statusCode().value())))
-                .bodyToMono(new ParameterizedTypeReference<TwseApiResponse<List<String>>>() {})
-                .map(response -> parseBatchStockData(response, stockCodes))
-                .doOnSuccess(data -> log.debug("Successfully fetched batch data for {} stocks", data.size()))
-                .doOnError(error -> log.error("Error fetching batch data: {}", error.getMessage()))
-                .toFuture();
+        return loadMarketSnapshot()
+                .thenApply(snapshot -> snapshot.getAll(stockCodes));
     }
     
     /**
@@ -92,13 +93,32 @@ public class TwseMcpClient {
     public CompletableFuture<Boolean> validateStockCode(String stockCode) {
         log.debug("Validating stock code: {}", stockCode);
         
-        return webClient.get()
-                .uri("/v1/exchangeReport/STOCK_DAY_ALL")
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<TwseApiResponse<List<String>>>() {})
-                .map(response -> isStockCodeValid(response, stockCode))
-                .onErrorReturn(false)
-                .toFuture();
+        return loadMarketSnapshot()
+                .thenApply(snapshot -> snapshot.contains(stockCode))
+                .exceptionally(ex -> false);
+    }
+    
+    /**
+     * 取得全市場快照，過期時才重新抓取
+     */
+    public CompletableFuture<TwseMarketSnapshot> getMarketSnapshot() {
+        return loadMarketSnapshot().copy();
+    }
+    
+    /**
+     * 定期刷新全市場快照，讓查詢路徑直接命中記憶體索引
+     */
+    @Scheduled(initialDelayString = "${twse.mcp.market-snapshot.refresh-interval-ms:60000}",
+               fixedDelayString = "${twse.mcp.market-snapshot.refresh-interval-ms:60000}")
+    public void refreshMarketSnapshot() {
+        if (mockEnabled) {
+            return;
+        }
+        fetchSharedMarketSnapshot()
+                .exceptionally(ex -> {
+                    log.warn("Scheduled market snapshot refresh failed: {}", ex.getMessage());
+                    return null;
+                });
     }
     
     // Fallback methods
@@ -120,94 +140,78 @@ public class TwseMcpClient {
     }
     
     /**
-     * 解析單一股票資料
+     * 取得目前世代，若不存在或已過期則加入（或發起）共用的抓取
      */
-    private TwseStockData parseStockData(TwseApiResponse<List<String>> response, String stockCode) {
-        if (!response.isSuccess() || response.getData() == null) {
-            throw new TwseMcpException("INVALID_RESPONSE", "TWSE API 回應格式錯誤", 502);
-        }
-        
-        // 尋找指定股票代碼的資料
-        for (List<String> row : response.getData()) {
-            if (row.size() >= 9 && stockCode.equals(row.get(0))) {
-                return buildStockData(row);
-            }
+    private CompletableFuture<TwseMarketSnapshot> loadMarketSnapshot() {
+        TwseMarketSnapshot snapshot = currentSnapshot;
+        if (snapshot != null && !snapshot.isOlderThan(Duration.ofMillis(marketSnapshotMaxAgeMs))) {
+            return CompletableFuture.completedFuture(snapshot);
         }
-        
-        throw new StockNotFoundException(stockCode);
+        return fetchSharedMarketSnapshot();
     }
     
     /**
-     * 解析批次股票資料
+     * 同一時間只允許一個 STOCK_DAY_ALL 請求，其餘呼叫者共用結果
      */
-    private List<TwseStockData> parseBatchStockData(TwseApiResponse<List<String>> response, List<String> stockCodes) {
-        if (!response.isSuccess() || response.getData() == null) {
-            throw new TwseMcpException("INVALID_RESPONSE", "TWSE API 回應格式錯誤", 502);
+    private CompletableFuture<TwseMarketSnapshot> fetchSharedMarketSnapshot() {
+        CompletableFuture<TwseMarketSnapshot> shared;
+        while (true) {
+            CompletableFuture<TwseMarketSnapshot> existing = inFlightFetch.get();
+            if (existing != null) {
+                return existing;
+            }
+            shared = new CompletableFuture<>();
+            if (inFlightFetch.compareAndSet(null, shared)) {
+                break;
+            }
         }
         
-        return response.getData().stream()
-                .filter(row -> row.size() >= 9 && stockCodes.contains(row.get(0)))
-                .map(this::buildStockData)
-                .toList();
+        CompletableFuture<TwseMarketSnapshot> owner = shared;
+        fetchMarketSnapshot().whenComplete((snapshot, error) -> {
+            if (error == null) {
+                // 先發佈新世代再釋放進行中標記，避免後到者重複抓取
+                currentSnapshot = snapshot;
+            }
+            inFlightFetch.compareAndSet(owner, null);
+            if (error != null) {
+                owner.completeExceptionally(error);
+            } else {
+                owner.complete(snapshot);
+            }
+        });
+        return owner;
     }
     
-    /**
-     * 驗證股票代碼
-     */
-    private boolean isStockCodeValid(TwseApiResponse<List<String>> response, String stockCode) {
-        if (!response.isSuccess() || response.getData() == null) {
-            return false;
-        }
+    private CompletableFuture<TwseMarketSnapshot> fetchMarketSnapshot() {
+        log.debug("Fetching market-wide snapshot from STOCK_DAY_ALL");
         
-        return response.getData().stream()
-                .anyMatch(row -> row.size() >= 1 && stockCode.equals(row.get(0)));
+        return webClient.get()
+                .uri(STOCK_DAY_ALL_URI)
+                .retrieve()
+                .onStatus(httpStatusCode -> httpStatusCode.isError(),
+                    response -> Mono.error(new TwseMcpException(
+                        "TWSE_API_ERROR", 
+                        "TWSE API 回傳錯誤: " + response.statusCode(), 
+                        response.statusCode().value())))
+                .bodyToFlux(DataBuffer.class)
+                .reduceWith(TwseStockDayAllParser::new, this::feedParser)
+                .map(TwseStockDayAllParser::finish)
+                .doOnSuccess(snapshot -> log.debug("Loaded market snapshot with {} stocks", snapshot.size()))
+                .doOnError(error -> log.error("Error fetching market snapshot: {}", error.getMessage()))
+                .toFuture();
     }
     
     /**
-     * 建構股票資料物件
+     * 將回應區塊逐一餵入串流解析器，處理完即釋放緩衝
      */
-    private TwseStockData buildStockData(List<String> row) {
-        try {
-            return TwseStockData.builder()
-                    .code(row.get(0))
-                    .name(row.get(1))
-                    .tradeVolume(parseLong(row.get(2)))
-                    .transaction(parseLong(row.get(3)))
-                    .tradeValue(parseBigDecimal(row.get(4)))
-                    .openingPrice(parseBigDecimal(row.get(5)))
-                    .highestPrice(parseBigDecimal(row.get(6)))
-                    .lowestPrice(parseBigDecimal(row.get(7)))
-                    .closingPrice(parseBigDecimal(row.get(8)))
-                    .change(row.size() > 9 ? parseBigDecimal(row.get(9)) : null)
-                    .changePercent(row.size() > 10 ? parseBigDecimal(row.get(10)) : null)
-                    .tradeDate(LocalDateTime.now().toLocalDate().toString())
-                    .tradeTime(LocalDateTime.now().toLocalTime().toString())
-                    .build();
-        } catch (Exception e) {
-            log.error("Error parsing stock data for row: {}", row, e);
-            throw new TwseMcpException("DATA_PARSE_ERROR", "股票資料解析失敗", 502, e);
-        }
-    }
-    
-    private java.math.BigDecimal parseBigDecimal(String value) {
-        if (value == null || value.trim().isEmpty() || "--".equals(value)) {
-            return null;
-        }
-        try {
-            return new java.math.BigDecimal(value.replace(",", ""));
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-    
-    private Long parseLong(String value) {
-        if (value == null || value.trim().isEmpty() || "--".equals(value)) {
-            return null;
-        }
-        try {
-            return Long.parseLong(value.replace(",", ""));
-        } catch (NumberFormatException e) {
-            return null;
+    private TwseStockDayAllParser feedParser(TwseStockDayAllParser parser, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                parser.feed(iterator.next());
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
         }
+        return parser;
     }
-}
\ No newline at end of file
+}
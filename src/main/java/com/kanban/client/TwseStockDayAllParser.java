@@ -0,0 +1,297 @@
+package com.kanban.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.kanban.dto.twse.TwseMarketSnapshot;
+import com.kanban.dto.twse.TwseStockData;
+import com.kanban.exception.TwseMcpException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * STOCK_DAY_ALL 串流解析器
+ * 以 Jackson 非阻塞 token 解析逐塊餵入回應內容，資料列直接解碼為 TwseStockData，
+ * 千分位數值直接由 token 字元緩衝解析，不建立中間字串，也不需將整份回應載入記憶體。
+ * 每個實例只解析一份回應，非執行緒安全。
+ */
+public class TwseStockDayAllParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // 資料列最少欄位數（代號至收盤價）
+    private static final int MIN_ROW_COLUMNS = 9;
+
+    // long 可安全累加的最大位數
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    private final LocalDateTime fetchedAt = LocalDateTime.now();
+    private final String tradeDate = fetchedAt.toLocalDate().toString();
+    private final String tradeTime = fetchedAt.toLocalTime().toString();
+
+    private final Map<String, TwseStockData> stocks = new HashMap<>(4096);
+
+    private String status;
+    private String currentField;
+    private int depth;
+    private boolean inData;
+    private boolean sawData;
+    private int dataDepth;
+
+    // 目前資料列狀態
+    private TwseStockData.TwseStockDataBuilder row;
+    private String rowCode;
+    private int column;
+
+    public TwseStockDayAllParser() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("無法建立 JSON 串流解析器", e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 一次解析完整回應內容
+     */
+    public static TwseMarketSnapshot parse(byte[] payload) {
+        TwseStockDayAllParser parser = new TwseStockDayAllParser();
+        parser.feed(ByteBuffer.wrap(payload));
+        return parser.finish();
+    }
+
+    /**
+     * 餵入下一段回應內容並處理所有已完整的 token
+     */
+    public void feed(ByteBuffer buffer) {
+        try {
+            feeder.feedInput(buffer);
+            drain();
+        } catch (IOException e) {
+            throw new TwseMcpException("DATA_PARSE_ERROR", "股票資料解析失敗", 502, e);
+        }
+    }
+
+    /**
+     * 結束輸入並建立全市場快照
+     */
+    public TwseMarketSnapshot finish() {
+        try {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+        } catch (IOException e) {
+            throw new TwseMcpException("DATA_PARSE_ERROR", "股票資料解析失敗", 502, e);
+        }
+
+        if (!"OK".equals(status) || !sawData) {
+            throw new TwseMcpException("INVALID_RESPONSE", "TWSE API 回應格式錯誤", 502);
+        }
+        return new TwseMarketSnapshot(stocks, tradeDate, fetchedAt);
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handleToken(token);
+        }
+    }
+
+    private void handleToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> {
+                if (depth == 1 && token == JsonToken.START_ARRAY && "data".equals(currentField)) {
+                    inData = true;
+                    sawData = true;
+                    dataDepth = depth + 1;
+                } else if (token == JsonToken.START_ARRAY && isDataRowStart()) {
+                    startRow();
+                } else if (isRowCell()) {
+                    // 巢狀結構視為單一無法解析的欄位
+                    column++;
+                }
+                depth++;
+            }
+            case END_OBJECT, END_ARRAY -> {
+                depth--;
+                if (row != null && depth == dataDepth) {
+                    endRow();
+                } else if (inData && depth == dataDepth - 1) {
+                    inData = false;
+                }
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    currentField = parser.currentName();
+                }
+            }
+            default -> {
+                if (isRowCell()) {
+                    handleCell(token);
+                    column++;
+                } else if (depth == 1 && "stat".equals(currentField) && token == JsonToken.VALUE_STRING) {
+                    status = parser.getText();
+                }
+            }
+        }
+    }
+
+    private boolean isDataRowStart() {
+        return inData && row == null && depth == dataDepth;
+    }
+
+    private boolean isRowCell() {
+        return row != null && depth == dataDepth + 1;
+    }
+
+    private void startRow() {
+        row = TwseStockData.builder()
+                .tradeDate(tradeDate)
+                .tradeTime(tradeTime);
+        rowCode = null;
+        column = 0;
+    }
+
+    private void endRow() {
+        if (column >= MIN_ROW_COLUMNS && rowCode != null) {
+            stocks.put(rowCode, row.build());
+        }
+        row = null;
+        rowCode = null;
+    }
+
+    private void handleCell(JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (column == 0 || column == 1) {
+            String text = parser.getText();
+            if (column == 0) {
+                rowCode = text;
+                row.code(text);
+            } else {
+                row.name(text);
+            }
+            return;
+        }
+
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        switch (column) {
+            case 2 -> row.tradeVolume(parseLong(chars, offset, length));
+            case 3 -> row.transaction(parseLong(chars, offset, length));
+            case 4 -> row.tradeValue(parseDecimal(chars, offset, length));
+            case 5 -> row.openingPrice(parseDecimal(chars, offset, length));
+            case 6 -> row.highestPrice(parseDecimal(chars, offset, length));
+            case 7 -> row.lowestPrice(parseDecimal(chars, offset, length));
+            case 8 -> row.closingPrice(parseDecimal(chars, offset, length));
+            case 9 -> row.change(parseDecimal(chars, offset, length));
+            case 10 -> row.changePercent(parseDecimal(chars, offset, length));
+            default -> {
+                // 其餘欄位不使用
+            }
+        }
+    }
+
+    /**
+     * 解析含千分位的整數，"--"、空白或格式錯誤時回傳 null
+     */
+    static Long parseLong(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && chars[start] <= ' ') start++;
+        while (end > start && chars[end - 1] <= ' ') end--;
+
+        boolean negative = false;
+        if (start < end && (chars[start] == '+' || chars[start] == '-')) {
+            negative = chars[start] == '-';
+            start++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return parseLongSlow(chars, offset, length);
+                }
+                value = value * 10 + (c - '0');
+            } else if (c != ',') {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 解析含千分位的小數，"--"、空白或格式錯誤時回傳 null
+     */
+    static BigDecimal parseDecimal(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && chars[start] <= ' ') start++;
+        while (end > start && chars[end - 1] <= ' ') end--;
+
+        boolean negative = false;
+        if (start < end && (chars[start] == '+' || chars[start] == '-')) {
+            negative = chars[start] == '-';
+            start++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return parseDecimalSlow(chars, offset, length);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c != ',' || fraction) {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static Long parseLongSlow(char[] chars, int offset, int length) {
+        try {
+            return Long.parseLong(new String(chars, offset, length).trim().replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseDecimalSlow(char[] chars, int offset, int length) {
+        try {
+            return new BigDecimal(new String(chars, offset, length).trim().replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.kanban.config;
+
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * 快取資料精簡二進位序列化器
+ * StockSnapshot 與 TechnicalIndicator 以固定小數位的 long（zigzag varint）編碼數值並加上結構版本標頭，
+ * 其他型別與升級前寫入的 JSON 資料交由 GenericJackson2JsonRedisSerializer 處理。
+ *
+ * 格式：MAGIC | 結構版本 | 型別 | 欄位存在遮罩(varint) | 依欄位順序寫入非 null 值
+ * 小數依資料表欄位的 scale 進位，與寫入資料庫後讀回的值一致。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // UTF-8 不會以 0xB1 開頭，可與 JSON 內容區分
+    static final byte MAGIC = (byte) 0xB1;
+
+    static final byte SCHEMA_VERSION = 1;
+
+    static final byte TYPE_STOCK_SNAPSHOT = 1;
+    static final byte TYPE_TECHNICAL_INDICATOR = 2;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final int PRICE_SCALE = 2;
+    private static final int MACD_SCALE = 4;
+
+    private final RedisSerializer<Object> fallback;
+
+    public CompactRedisSerializer() {
+        this(new GenericJackson2JsonRedisSerializer());
+    }
+
+    public CompactRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof StockSnapshot snapshot) {
+            return encodeSnapshot(snapshot);
+        }
+        if (value instanceof TechnicalIndicator indicator) {
+            return encodeIndicator(indicator);
+        }
+        return fallback.serialize(value);
+    }
+
+    /**
+     * 反序列化快取內容，非本格式的資料交由 JSON 處理；
+     * 其他結構版本（例如滾動升級期間新版節點寫入）視為快取未命中
+     */
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != SCHEMA_VERSION) {
+            return null;
+        }
+
+        try {
+            Reader reader = new Reader(bytes, HEADER_LENGTH);
+            return switch (bytes[2]) {
+                case TYPE_STOCK_SNAPSHOT -> decodeSnapshot(reader);
+                case TYPE_TECHNICAL_INDICATOR -> decodeIndicator(reader);
+                default -> null;
+            };
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("快取資料不完整", e);
+        }
+    }
+
+    private byte[] encodeSnapshot(StockSnapshot snapshot) {
+        Writer writer = new Writer(TYPE_STOCK_SNAPSHOT);
+        writer.string(snapshot.getCode());
+        writer.string(snapshot.getName());
+        writer.decimal(snapshot.getCurrentPrice(), PRICE_SCALE);
+        writer.decimal(snapshot.getChangePercent(), PRICE_SCALE);
+        writer.int64(snapshot.getVolume());
+        writer.decimal(snapshot.getOpenPrice(), PRICE_SCALE);
+        writer.decimal(snapshot.getHighPrice(), PRICE_SCALE);
+        writer.decimal(snapshot.getLowPrice(), PRICE_SCALE);
+        writer.decimal(snapshot.getPreviousClose(), PRICE_SCALE);
+        writer.decimal(snapshot.getMa5(), PRICE_SCALE);
+        writer.decimal(snapshot.getMa10(), PRICE_SCALE);
+        writer.decimal(snapshot.getMa20(), PRICE_SCALE);
+        writer.decimal(snapshot.getMa60(), PRICE_SCALE);
+        writer.decimal(snapshot.getRsi(), PRICE_SCALE);
+        writer.decimal(snapshot.getKdK(), PRICE_SCALE);
+        writer.decimal(snapshot.getKdD(), PRICE_SCALE);
+        writer.dateTime(snapshot.getUpdatedAt());
+        writer.string(snapshot.getDataSource());
+        writer.int32(snapshot.getDelayMinutes());
+        return writer.toByteArray();
+    }
+
+    private StockSnapshot decodeSnapshot(Reader reader) {
+        // 逐一設定所有欄位，避免 @Builder.Default 預設值覆蓋原本的 null
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setCode(reader.string());
+        snapshot.setName(reader.string());
+        snapshot.setCurrentPrice(reader.decimal(PRICE_SCALE));
+        snapshot.setChangePercent(reader.decimal(PRICE_SCALE));
+        snapshot.setVolume(reader.int64());
+        snapshot.setOpenPrice(reader.decimal(PRICE_SCALE));
+        snapshot.setHighPrice(reader.decimal(PRICE_SCALE));
+        snapshot.setLowPrice(reader.decimal(PRICE_SCALE));
+        snapshot.setPreviousClose(reader.decimal(PRICE_SCALE));
+        snapshot.setMa5(reader.decimal(PRICE_SCALE));
+        snapshot.setMa10(reader.decimal(PRICE_SCALE));
+        snapshot.setMa20(reader.decimal(PRICE_SCALE));
+        snapshot.setMa60(reader.decimal(PRICE_SCALE));
+        snapshot.setRsi(reader.decimal(PRICE_SCALE));
+        snapshot.setKdK(reader.decimal(PRICE_SCALE));
+        snapshot.setKdD(reader.decimal(PRICE_SCALE));
+        snapshot.setUpdatedAt(reader.dateTime());
+        snapshot.setDataSource(reader.string());
+        snapshot.setDelayMinutes(reader.int32());
+        return snapshot;
+    }
+
+    private byte[] encodeIndicator(TechnicalIndicator indicator) {
+        Writer writer = new Writer(TYPE_TECHNICAL_INDICATOR);
+        writer.string(indicator.getId());
+        writer.string(indicator.getStockCode());
+        writer.dateTime(indicator.getCalculationDate());
+        writer.decimal(indicator.getMa5(), PRICE_SCALE);
+        writer.decimal(indicator.getMa10(), PRICE_SCALE);
+        writer.decimal(indicator.getMa20(), PRICE_SCALE);
+        writer.decimal(indicator.getMa60(), PRICE_SCALE);
+        writer.decimal(indicator.getRsi14(), PRICE_SCALE);
+        writer.decimal(indicator.getKdK(), PRICE_SCALE);
+        writer.decimal(indicator.getKdD(), PRICE_SCALE);
+        writer.decimal(indicator.getMacdLine(), MACD_SCALE);
+        writer.decimal(indicator.getMacdSignal(), MACD_SCALE);
+        writer.decimal(indicator.getMacdHistogram(), MACD_SCALE);
+        writer.int64(indicator.getVolumeMa5());
+        writer.int64(indicator.getVolumeMa20());
+        writer.decimal(indicator.getVolumeRatio(), PRICE_SCALE);
+        writer.dateTime(indicator.getUpdatedAt());
+        writer.int32(indicator.getDataPointsCount());
+        writer.string(indicator.getCalculationSource());
+        return writer.toByteArray();
+    }
+
+    private TechnicalIndicator decodeIndicator(Reader reader) {
+        TechnicalIndicator indicator = new TechnicalIndicator();
+        indicator.setId(reader.string());
+        indicator.setStockCode(reader.string());
+        indicator.setCalculationDate(reader.dateTime());
+        indicator.setMa5(reader.decimal(PRICE_SCALE));
+        indicator.setMa10(reader.decimal(PRICE_SCALE));
+        indicator.setMa20(reader.decimal(PRICE_SCALE));
+        indicator.setMa60(reader.decimal(PRICE_SCALE));
+        indicator.setRsi14(reader.decimal(PRICE_SCALE));
+        indicator.setKdK(reader.decimal(PRICE_SCALE));
+        indicator.setKdD(reader.decimal(PRICE_SCALE));
+        indicator.setMacdLine(reader.decimal(MACD_SCALE));
+        indicator.setMacdSignal(reader.decimal(MACD_SCALE));
+        indicator.setMacdHistogram(reader.decimal(MACD_SCALE));
+        indicator.setVolumeMa5(reader.int64());
+        indicator.setVolumeMa20(reader.int64());
+        indicator.setVolumeRatio(reader.decimal(PRICE_SCALE));
+        indicator.setUpdatedAt(reader.dateTime());
+        indicator.setDataPointsCount(reader.int32());
+        indicator.setCalculationSource(reader.string());
+        return indicator;
+    }
+
+    /**
+     * 依欄位順序寫入，null 欄位只記錄在存在遮罩中
+     */
+    private static final class Writer {
+
+        private final byte type;
+        private byte[] buffer = new byte[96];
+        private int position;
+        private int field;
+        private int presence;
+
+        Writer(byte type) {
+            this.type = type;
+        }
+
+        void string(String value) {
+            if (present(value)) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        void decimal(BigDecimal value, int scale) {
+            if (present(value)) {
+                signed(unscaled(value, scale));
+            }
+        }
+
+        void int64(Long value) {
+            if (present(value)) {
+                signed(value);
+            }
+        }
+
+        void int32(Integer value) {
+            if (present(value)) {
+                signed(value);
+            }
+        }
+
+        void dateTime(LocalDateTime value) {
+            if (present(value)) {
+                signed(value.toEpochSecond(ZoneOffset.UTC));
+                varint(value.getNano());
+            }
+        }
+
+        byte[] toByteArray() {
+            int presenceLength = varintLength(presence);
+            byte[] result = new byte[HEADER_LENGTH + presenceLength + position];
+            result[0] = MAGIC;
+            result[1] = SCHEMA_VERSION;
+            result[2] = type;
+            int offset = HEADER_LENGTH;
+            long remaining = presence & 0xFFFFFFFFL;
+            while ((remaining & ~0x7FL) != 0) {
+                result[offset++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            result[offset++] = (byte) remaining;
+            System.arraycopy(buffer, 0, result, offset, position);
+            return result;
+        }
+
+        private boolean present(Object value) {
+            int bit = 1 << field++;
+            if (value == null) {
+                return false;
+            }
+            presence |= bit;
+            return true;
+        }
+
+        private void signed(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        private void varint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+
+        private static int varintLength(int value) {
+            long remaining = value & 0xFFFFFFFFL;
+            int length = 1;
+            while ((remaining & ~0x7FL) != 0) {
+                remaining >>>= 7;
+                length++;
+            }
+            return length;
+        }
+
+        private static long unscaled(BigDecimal value, int scale) {
+            BigInteger unscaled = value.setScale(scale, RoundingMode.HALF_UP).unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw new SerializationException("數值超出定點編碼範圍: " + value);
+            }
+            return unscaled.longValue();
+        }
+    }
+
+    /**
+     * 依存在遮罩讀回欄位，缺少的欄位回傳 null
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+        private final int presence;
+        private int field;
+
+        Reader(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.presence = (int) varint();
+        }
+
+        String string() {
+            if (!present()) {
+                return null;
+            }
+            int length = (int) varint();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal decimal(int scale) {
+            return present() ? BigDecimal.valueOf(signed(), scale) : null;
+        }
+
+        Long int64() {
+            return present() ? signed() : null;
+        }
+
+        Integer int32() {
+            return present() ? Math.toIntExact(signed()) : null;
+        }
+
+        LocalDateTime dateTime() {
+            if (!present()) {
+                return null;
+            }
+            long epochSecond = signed();
+            int nano = (int) varint();
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+
+        private boolean present() {
+            return (presence & (1 << field++)) != 0;
+        }
+
+        private long signed() {
+            long raw = varint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        private long varint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("快取資料 varint 格式錯誤");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.kanban.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 技術指標運算執行緒池配置
+ * 全歷史重算與冷啟動回補使用獨立且有上限的 ForkJoinPool，不與 common pool 共用
+ */
+@Configuration
+public class IndicatorComputeConfig {
+
+    @Value("${kanban.indicators.compute-parallelism:4}")
+    private int parallelism;
+
+    @Bean(name = "indicatorComputePool", destroyMethod = "shutdown")
+    public ForkJoinPool indicatorComputePool() {
+        return new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("indicator-compute-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
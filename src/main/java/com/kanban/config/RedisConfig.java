@@ -1,5 +1,7 @@
 package com.kanban.config;
 
+import com.kanban.service.StockCacheService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,16 +9,34 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
 public class RedisConfig {
     
+    // Stock snapshot L2 entries written through RedisTemplate
+    @Value("${kanban.cache.compact-serializer.template-enabled:true}")
+    private boolean compactTemplateValues = true;
+    
+    // Spring Cache names stored with the compact binary codec
+    @Value("${kanban.cache.compact-serializer.cache-names:stock-snapshot,stock-snapshot-afterhours,technical-indicators}")
+    private List<String> compactCacheNames = List.of("stock-snapshot", "stock-snapshot-afterhours", "technical-indicators");
+    
+    @Bean
+    public CompactRedisSerializer compactRedisSerializer() {
+        return new CompactRedisSerializer();
+    }
+    
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -26,9 +46,12 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // Use JSON serializer for values
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        // Use compact binary serializer for snapshots (JSON for everything else), or plain JSON
+        RedisSerializer<Object> valueSerializer = compactTemplateValues
+                ? compactRedisSerializer()
+                : new GenericJackson2JsonRedisSerializer();
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         
         template.afterPropertiesSet();
         return template;
@@ -62,9 +85,28 @@ public class RedisConfig {
         // Historical data - 24 hours (historical data is stable)
         cacheConfigurations.put("historical-data", defaultConfig.entryTtl(Duration.ofHours(24)));
         
+        // Value codec per cache name - compact binary for snapshot / indicator payloads
+        RedisSerializationContext.SerializationPair<Object> compactValues =
+                RedisSerializationContext.SerializationPair.fromSerializer(compactRedisSerializer());
+        for (String cacheName : compactCacheNames) {
+            RedisCacheConfiguration config = cacheConfigurations.getOrDefault(cacheName, defaultConfig);
+            cacheConfigurations.put(cacheName, config.serializeValuesWith(compactValues));
+        }
+        
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
     }
-}
\ No newline at end of file
+    
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       StockCacheService stockCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        
+        // Near-cache (L1) invalidation across nodes
+        container.addMessageListener(stockCacheService, new ChannelTopic(StockCacheService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
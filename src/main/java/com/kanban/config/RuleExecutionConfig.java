@@ -0,0 +1,39 @@
+package com.kanban.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 規則執行執行緒池配置
+ * 依使用者分區的規則評估在固定大小且佇列有上限的執行緒池執行，
+ * 佇列滿時由送出的執行緒自行執行，形成背壓
+ */
+@Configuration
+public class RuleExecutionConfig {
+
+    @Value("${kanban.rules.execution-parallelism:4}")
+    private int parallelism;
+
+    @Value("${kanban.rules.execution-queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean(name = "ruleExecutionPool", destroyMethod = "shutdown")
+    public ThreadPoolExecutor ruleExecutionPool() {
+        AtomicInteger index = new AtomicInteger();
+        int threads = Math.max(1, parallelism);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rule-exec-" + index.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,34 @@
+package com.kanban.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 送出執行緒池配置
+ * 每條連線同時最多只排入一個送出任務，佇列長度不會超過連線數
+ */
+@Configuration
+public class SseWriterConfig {
+
+    @Value("${sse.writer.threads:4}")
+    private int threads;
+
+    @Bean(name = "sseWriterPool", destroyMethod = "shutdown")
+    public ThreadPoolExecutor sseWriterPool() {
+        AtomicInteger index = new AtomicInteger();
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-writer-" + index.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -43,7 +43,7 @@ public class TwseMcpConfig {
         return WebClient.builder()
                 .baseUrl(baseUrl)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
+                // STOCK_DAY_ALL 以 DataBuffer 串流解析，不需放大記憶體緩衝上限
                 .build();
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.kanban.domain.entity.StockSnapshot;
 import com.kanban.dto.ChartDataDto;
 import com.kanban.dto.OhlcDataDto;
 import com.kanban.security.UserPrincipal;
+import com.kanban.service.ChartIndicatorService;
 import com.kanban.service.HistoricalDataService;
 import com.kanban.service.InfluxDBService;
 import com.kanban.service.SseConnectionManager;
@@ -18,7 +19,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +38,7 @@ public class ChartController {
     private final StockDataService stockDataService;
     private final InfluxDBService influxDBService;
     private final SseConnectionManager sseConnectionManager;
+    private final ChartIndicatorService chartIndicatorService;
 
     /**
      * 取得股票圖表資料
@@ -154,29 +155,33 @@ public class ChartController {
             ohlcData = aggregateData(historicalPrices, interval);
         }
         
-        // 計算技術指標（如果有要求）
-        if (indicators != null && !indicators.isEmpty()) {
-            ohlcData = addTechnicalIndicators(ohlcData, indicators);
-        }
-
         ChartDataDto chartData = ChartDataDto.builder()
                 .stockCode(stockCode)
                 .data(ohlcData)
                 .period(period)
                 .build();
 
+        // 計算技術指標（如果有要求）
+        if (indicators != null && !indicators.isEmpty()) {
+            addTechnicalIndicators(chartData, interval, indicators);
+        }
+
         return ResponseEntity.ok(chartData);
     }
 
     /**
      * 即時資料串流 - Server-Sent Events
+     * 訂閱時送出完整快照（snapshot），之後只送有變動欄位的增量（delta）；
+     * 重連時依 Last-Event-ID 補送遺漏的變動
      * @param stockCode 股票代碼
      * @param intervalMs 更新間隔（毫秒，最小 1000ms）
+     * @param lastEventId 瀏覽器重連時帶上的最後事件 id
      */
     @GetMapping(value = "/stocks/{stockCode}/realtime", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter getRealTimeData(
             @PathVariable String stockCode,
             @RequestParam(defaultValue = "5000") int intervalMs,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
             Authentication authentication) {
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -186,31 +191,26 @@ public class ChartController {
                 stockCode, userId, intervalMs);
 
         // 使用 SseConnectionManager 建立連線
-        SseEmitter emitter = sseConnectionManager.createConnection(userId, "stock:" + stockCode, intervalMs);
+        String topic = "stock:" + stockCode;
+        SseEmitter emitter = sseConnectionManager.createConnection(userId, topic, intervalMs);
 
-        // 立即發送初始資料
-        try {
-            var initialData = stockDataService.getSnapshot(stockCode);
-            if (initialData != null) {
-                emitter.send(SseEmitter.event()
-                    .name("stock-update")
-                    .data(convertSnapshotToOhlc(initialData))
-                    .id(String.valueOf(System.currentTimeMillis())));
-            }
-        } catch (IOException e) {
-            log.error("Failed to send initial data for stock {}: {}", stockCode, e.getMessage());
-        }
+        // 立即發送初始快照，或自 Last-Event-ID 補送遺漏的變動
+        StockSnapshot initialData = stockDataService.getSnapshot(stockCode);
+        Map<String, StockSnapshot> snapshots = initialData != null ? Map.of(stockCode, initialData) : Map.of();
+        sseConnectionManager.sendInitialSnapshots(userId, topic, snapshots, lastEventId);
 
         return emitter;
     }
 
     /**
      * 訂閱多檔股票即時資料
+     * 每檔股票各自送出完整快照與後續增量；Last-Event-ID 只屬於其中一檔，其餘股票重連時送完整快照
      */
     @GetMapping(value = "/stocks/batch/realtime", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter getBatchRealTimeData(
             @RequestParam List<String> stockCodes,
             @RequestParam(defaultValue = "5000") int intervalMs,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
             Authentication authentication) {
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -218,32 +218,16 @@ public class ChartController {
         
         log.info("Creating batch SSE connection for {} stocks, user: {}", stockCodes.size(), userId);
 
-        // 建立批次連線
-        SseEmitter emitter = sseConnectionManager.createConnection(userId, "batch-stocks", intervalMs);
+        List<String> validCodes = stockCodes.stream()
+                .filter(code -> code != null && !code.isEmpty())
+                .toList();
 
-        // 立即發送初始資料
-        try {
-            Map<String, OhlcDataDto> initialData = stockCodes.stream()
-                    .filter(code -> code != null && !code.isEmpty())
-                    .collect(Collectors.toMap(
-                        code -> code,
-                        code -> {
-                            var snapshot = stockDataService.getSnapshot(code);
-                            return snapshot != null ? convertSnapshotToOhlc(snapshot) : null;
-                        }
-                    ));
-            
-            // Remove null values
-            initialData.entrySet().removeIf(entry -> entry.getValue() == null);
-
-            emitter.send(SseEmitter.event()
-                .name("batch-update")
-                .data(initialData)
-                .id(String.valueOf(System.currentTimeMillis())));
-                
-        } catch (IOException e) {
-            log.error("Failed to send initial batch data: {}", e.getMessage());
-        }
+        // 建立批次連線，各檔股票的更新由 stock:{code} Topic 推送
+        SseEmitter emitter = sseConnectionManager.createConnection(userId, "batch-stocks", intervalMs, validCodes);
+
+        // 立即發送各檔股票的初始快照
+        sseConnectionManager.sendInitialSnapshots(userId, "batch-stocks",
+                stockDataService.getSnapshots(validCodes), lastEventId);
 
         return emitter;
     }
@@ -274,12 +258,8 @@ public class ChartController {
 
         Map<String, OhlcDataDto> result = new java.util.HashMap<>();
         
-        for (String code : stockCodes) {
-            var snapshot = stockDataService.getSnapshot(code);
-            if (snapshot != null) {
-                result.put(code, convertSnapshotToOhlc(snapshot));
-            }
-        }
+        stockDataService.getSnapshots(stockCodes)
+                .forEach((code, snapshot) -> result.put(code, convertSnapshotToOhlc(snapshot)));
 
         return ResponseEntity.ok(result);
     }
@@ -317,12 +297,11 @@ public class ChartController {
     }
 
     /**
-     * 添加技術指標到 OHLC 資料
+     * 添加技術指標序列到圖表資料（逐 K 棒對齊 data）
      */
-    private List<OhlcDataDto> addTechnicalIndicators(List<OhlcDataDto> ohlcData, String indicators) {
-        // TODO: 實作技術指標計算邏輯
-        // 目前先返回原始資料
-        return ohlcData;
+    private void addTechnicalIndicators(ChartDataDto chartData, String interval, String indicators) {
+        chartData.setIndicators(chartIndicatorService.getIndicatorSeries(
+                chartData.getStockCode(), chartData.getPeriod(), interval, chartData.getData(), indicators));
     }
 
     /**
@@ -2,10 +2,13 @@ package com.kanban.controller;
 
 import com.kanban.dto.PagedResponse;
 import com.kanban.dto.SuccessResponse;
+import com.kanban.dto.rule.RuleBacktestRequest;
+import com.kanban.dto.rule.RuleBacktestResult;
 import com.kanban.dto.rule.RuleCreateRequest;
 import com.kanban.dto.rule.RuleDto;
 import com.kanban.dto.rule.RuleUpdateRequest;
 import com.kanban.security.UserPrincipal;
+import com.kanban.service.RuleBacktestService;
 import com.kanban.service.RuleService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +28,7 @@ import java.util.List;
 public class RuleController {
 
     private final RuleService ruleService;
+    private final RuleBacktestService ruleBacktestService;
 
     /**
      * 建立新規則
@@ -124,6 +128,18 @@ public class RuleController {
         return ResponseEntity.ok(rule);
     }
 
+    /**
+     * 以歷史價格回測規則
+     */
+    @PostMapping("/{ruleId}/backtest")
+    public ResponseEntity<RuleBacktestResult> backtestRule(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable String ruleId,
+            @Valid @RequestBody RuleBacktestRequest request) {
+        RuleBacktestResult result = ruleBacktestService.backtest(userPrincipal.getId(), ruleId, request);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 取得預設規則模板
      */
@@ -0,0 +1,42 @@
+package com.kanban.controller;
+
+import com.kanban.dto.market.ScreenRequest;
+import com.kanban.dto.market.ScreenResult;
+import com.kanban.dto.market.ScreenRuleRequest;
+import com.kanban.dto.rule.RuleDto;
+import com.kanban.security.UserPrincipal;
+import com.kanban.service.ScreenerService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/screener")
+@RequiredArgsConstructor
+public class ScreenerController {
+
+    private final ScreenerService screenerService;
+
+    /**
+     * 以規則條件篩選全市場股票
+     */
+    @PostMapping
+    public ResponseEntity<ScreenResult> screen(@Valid @RequestBody ScreenRequest request) {
+        ScreenResult result = screenerService.screen(request);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 將篩選條件建立為規則
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<RuleDto> createRuleFromScreen(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @Valid @RequestBody ScreenRuleRequest request) {
+        RuleDto rule = screenerService.createRuleFromScreen(userPrincipal.getId(), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(rule);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kanban.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 技術指標滾動狀態檢查點
+ * 保存 IndicatorState 的編碼內容，重新啟動後不需回讀歷史價格即可接續增量計算
+ */
+@Entity
+@Table(name = "indicator_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndicatorCheckpoint {
+    
+    @Id
+    @Column(name = "stock_code", length = 10)
+    private String stockCode;
+    
+    @Column(name = "last_trade_date")
+    private LocalDate lastTradeDate;
+    
+    @Column(name = "bar_count", nullable = false)
+    private Integer barCount;
+    
+    @Column(name = "state_version", nullable = false)
+    private Integer stateVersion;
+    
+    @Column(name = "state_data", nullable = false)
+    private byte[] stateData;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,8 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 圖表資料傳輸物件
@@ -42,4 +44,9 @@ public class ChartDataDto {
      * 結束日期（當 period 為 custom 時使用）
      */
     private LocalDate endDate;
+
+    /**
+     * 技術指標序列（如 "ma5"、"kdK"），與 data 等長且同序，資料不足的位置為 null
+     */
+    private Map<String, List<BigDecimal>> indicators;
 }
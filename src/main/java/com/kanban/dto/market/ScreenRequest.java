@@ -0,0 +1,35 @@
+package com.kanban.dto.market;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenRequest {
+
+    /**
+     * 篩選條件，語法與規則 DSL 相同，例如 "rsi14 < 30 && volumeRatio > 2"
+     */
+    @NotBlank(message = "篩選條件不能為空")
+    private String condition;
+
+    /**
+     * 排序欄位（規則 DSL 的欄位名稱），未指定時依股票代碼排序
+     */
+    private String sortBy;
+
+    @Builder.Default
+    private boolean descending = true;
+
+    @Builder.Default
+    @Min(value = 1, message = "筆數必須大於0")
+    @Max(value = 500, message = "筆數不能超過500")
+    private int limit = 50;
+}
@@ -0,0 +1,21 @@
+package com.kanban.dto.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenResult {
+
+    private String condition;
+    private int totalStocks;
+    private int matchCount;
+    private long elapsedMicros;
+    private List<ScreenRow> rows;
+}
@@ -0,0 +1,23 @@
+package com.kanban.dto.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenRow {
+
+    private String stockCode;
+    private String stockName;
+
+    /**
+     * 欄位名稱 → 數值，只包含條件引用、排序與基本行情欄位，缺值不列出
+     */
+    private Map<String, Double> values;
+}
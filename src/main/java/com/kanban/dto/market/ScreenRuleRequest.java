@@ -0,0 +1,38 @@
+package com.kanban.dto.market;
+
+import com.kanban.domain.entity.Card;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenRuleRequest {
+
+    @NotBlank(message = "規則名稱不能為空")
+    @Size(max = 200, message = "規則名稱不能超過200個字元")
+    private String name;
+
+    @Size(max = 1000, message = "描述不能超過1000個字元")
+    private String description;
+
+    @NotBlank(message = "篩選條件不能為空")
+    private String condition;
+
+    @NotNull(message = "目標狀態不能為空")
+    private Card.CardStatus targetStatus;
+
+    @Builder.Default
+    @Min(value = 60, message = "冷卻時間不能少於60秒")
+    private Integer cooldownSeconds = 3600;
+
+    @Builder.Default
+    private Boolean sendNotification = true;
+}
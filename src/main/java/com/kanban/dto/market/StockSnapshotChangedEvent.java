@@ -0,0 +1,23 @@
+package com.kanban.dto.market;
+
+import com.kanban.domain.entity.StockSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 股票快照更新事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshotChangedEvent {
+
+    private String stockCode;
+    private StockSnapshot snapshot;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,23 @@
+package com.kanban.dto.market;
+
+import com.kanban.domain.entity.TechnicalIndicator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 技術指標更新事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TechnicalIndicatorChangedEvent {
+
+    private String stockCode;
+    private TechnicalIndicator indicator;
+    private LocalDateTime occurredAt;
+}
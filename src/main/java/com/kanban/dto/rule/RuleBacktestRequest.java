@@ -0,0 +1,35 @@
+package com.kanban.dto.rule;
+
+import com.kanban.domain.entity.Card;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestRequest {
+
+    /**
+     * 回測的股票代碼，未指定時使用所有有歷史價格的股票
+     */
+    private List<String> stockCodes;
+
+    @NotNull(message = "開始日期不能為空")
+    private LocalDate startDate;
+
+    @NotNull(message = "結束日期不能為空")
+    private LocalDate endDate;
+
+    /**
+     * 模擬卡片的初始狀態
+     */
+    @Builder.Default
+    private Card.CardStatus initialStatus = Card.CardStatus.WATCH;
+}
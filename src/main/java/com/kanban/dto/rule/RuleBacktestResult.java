@@ -0,0 +1,33 @@
+package com.kanban.dto.rule;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestResult {
+
+    private String ruleId;
+    private String ruleName;
+    private String conditionExpression;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int stockCount;
+    private long barCount;
+    private long matchCount;
+    private long signalCount;
+    private long moveCount;
+    private long elapsedMs;
+
+    /**
+     * 條件曾成立的股票，依股票代碼排序
+     */
+    private List<RuleBacktestStockResult> stocks;
+}
@@ -0,0 +1,27 @@
+package com.kanban.dto.rule;
+
+import com.kanban.domain.entity.Card;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestSignal {
+
+    private LocalDate tradeDate;
+    private BigDecimal closePrice;
+
+    /**
+     * 卡片是否因此移動；已在目標狀態時為 false
+     */
+    private boolean moved;
+    private Card.CardStatus previousStatus;
+    private Card.CardStatus newStatus;
+}
@@ -0,0 +1,27 @@
+package com.kanban.dto.rule;
+
+import com.kanban.domain.entity.Card;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestStockResult {
+
+    private String stockCode;
+    private int barCount;
+    private int matchCount;
+    private LocalDate firstMatchDate;
+    private LocalDate lastMatchDate;
+    private Card.CardStatus finalStatus;
+    private int signalCount;
+    private int moveCount;
+    private List<RuleBacktestSignal> signals;
+}
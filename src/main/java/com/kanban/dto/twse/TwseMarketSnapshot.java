@@ -0,0 +1,66 @@
+package com.kanban.dto.twse;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TWSE 全市場快照
+ * 單次 STOCK_DAY_ALL 回應解析後的不可變索引，單檔與批次查詢共用同一世代
+ */
+@Getter
+public class TwseMarketSnapshot {
+
+    private final Map<String, TwseStockData> stocks;
+
+    private final String tradeDate;
+
+    private final LocalDateTime fetchedAt;
+
+    public TwseMarketSnapshot(Map<String, TwseStockData> stocks, String tradeDate, LocalDateTime fetchedAt) {
+        this.stocks = Map.copyOf(stocks);
+        this.tradeDate = tradeDate;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * 取得單檔股票資料，不存在時回傳 null
+     */
+    public TwseStockData get(String stockCode) {
+        return stockCode != null ? stocks.get(stockCode) : null;
+    }
+
+    /**
+     * 依請求順序取得多檔股票資料，略過不存在的代碼
+     */
+    public List<TwseStockData> getAll(Collection<String> stockCodes) {
+        List<TwseStockData> result = new ArrayList<>(stockCodes.size());
+        for (String stockCode : stockCodes) {
+            TwseStockData data = get(stockCode);
+            if (data != null) {
+                result.add(data);
+            }
+        }
+        return result;
+    }
+
+    public boolean contains(String stockCode) {
+        return stockCode != null && stocks.containsKey(stockCode);
+    }
+
+    public int size() {
+        return stocks.size();
+    }
+
+    /**
+     * 快照是否已超過允許的存活時間
+     */
+    public boolean isOlderThan(Duration maxAge) {
+        return fetchedAt.plus(maxAge).isBefore(LocalDateTime.now());
+    }
+}
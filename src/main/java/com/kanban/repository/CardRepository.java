@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,10 @@ public interface CardRepository extends JpaRepository<Card, String> {
 
     List<Card> findByUser(User user);
 
+    List<Card> findByUserIdIn(Collection<String> userIds);
+
+    List<Card> findByUserIdInAndStockCodeIn(Collection<String> userIds, Collection<String> stockCodes);
+
     Page<Card> findByUserId(String userId, Pageable pageable);
     
     Page<Card> findByUserIdAndStatus(String userId, Card.CardStatus status, Pageable pageable);
@@ -37,6 +37,14 @@ public interface HistoricalPriceRepository extends JpaRepository<HistoricalPrice
      */
     @Query("SELECT h FROM HistoricalPrice h WHERE h.stockCode = :stockCode ORDER BY h.tradeDate DESC LIMIT :limit")
     List<HistoricalPrice> findRecentByStockCode(@Param("stockCode") String stockCode, @Param("limit") int limit);
+
+    /**
+     * 查詢指定股票自某日（含）起的歷史價格，依交易日由舊到新，最多 N 筆
+     */
+    @Query("SELECT h FROM HistoricalPrice h WHERE h.stockCode = :stockCode AND h.tradeDate >= :fromDate ORDER BY h.tradeDate ASC LIMIT :limit")
+    List<HistoricalPrice> findSinceByStockCode(@Param("stockCode") String stockCode,
+                                               @Param("fromDate") LocalDate fromDate,
+                                               @Param("limit") int limit);
     
     /**
      * 查詢指定股票的最新價格
@@ -0,0 +1,38 @@
+package com.kanban.repository;
+
+import com.kanban.domain.entity.IndicatorCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 技術指標狀態檢查點存取層
+ */
+@Repository
+public interface IndicatorCheckpointRepository extends JpaRepository<IndicatorCheckpoint, String> {
+    
+    /**
+     * 新增或覆寫檢查點（單一敘述，不需先查詢是否存在）
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO indicator_checkpoints " +
+                   "(stock_code, last_trade_date, bar_count, state_version, state_data, updated_at) " +
+                   "VALUES (:stockCode, :lastTradeDate, :barCount, :stateVersion, :stateData, :updatedAt) " +
+                   "ON CONFLICT (stock_code) DO UPDATE SET last_trade_date = EXCLUDED.last_trade_date, " +
+                   "bar_count = EXCLUDED.bar_count, state_version = EXCLUDED.state_version, " +
+                   "state_data = EXCLUDED.state_data, updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int upsert(@Param("stockCode") String stockCode,
+               @Param("lastTradeDate") LocalDate lastTradeDate,
+               @Param("barCount") int barCount,
+               @Param("stateVersion") int stateVersion,
+               @Param("stateData") byte[] stateData,
+               @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -37,6 +37,13 @@ public interface RuleExecutionRepository extends JpaRepository<RuleExecution, St
      */
     Optional<RuleExecution> findFirstByRuleAndCardOrderByExecutedAtDesc(Rule rule, Card card);
 
+    /**
+     * 查詢每組 (規則, 卡片) 最後一次成功執行的時間
+     */
+    @Query("SELECT e.rule.id AS ruleId, e.card.id AS cardId, MAX(e.executedAt) AS lastFiredAt " +
+           "FROM RuleExecution e WHERE e.status = 'SUCCESS' GROUP BY e.rule.id, e.card.id")
+    List<LastSuccessfulExecution> findLastSuccessfulExecutions();
+
     /**
      * 查詢規則在特定時間後的執行記錄
      */
@@ -76,4 +83,15 @@ public interface RuleExecutionRepository extends JpaRepository<RuleExecution, St
      * 刪除舊的執行記錄
      */
     void deleteByExecutedAtBefore(LocalDateTime before);
+
+    /**
+     * (規則, 卡片) 最後一次成功執行時間
+     */
+    interface LastSuccessfulExecution {
+        String getRuleId();
+
+        String getCardId();
+
+        LocalDateTime getLastFiredAt();
+    }
 }
@@ -6,6 +6,7 @@ import com.kanban.domain.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,6 +28,11 @@ public interface RuleRepository extends JpaRepository<Rule, String> {
      */
     List<Rule> findByUserAndEnabledTrue(User user);
 
+    /**
+     * 查詢所有啟用規則
+     */
+    List<Rule> findByEnabledTrue();
+
     /**
      * 查詢特定類型和觸發事件的啟用規則
      */
@@ -64,4 +70,14 @@ public interface RuleRepository extends JpaRepository<Rule, String> {
      * 統計使用者的啟用規則數量
      */
     long countByUserAndEnabledTrue(User user);
+
+    /**
+     * 累加規則觸發次數並更新上次執行時間，不經過實體合併，也不變更 updatedAt
+     */
+    @Modifying
+    @Query("UPDATE Rule r SET r.triggerCount = r.triggerCount + :count, r.lastExecutedAt = :executedAt " +
+           "WHERE r.id = :ruleId")
+    int incrementTriggerCount(@Param("ruleId") String ruleId,
+                              @Param("count") long count,
+                              @Param("executedAt") LocalDateTime executedAt);
 }
@@ -6,9 +6,14 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * 技術指標資料存取層
@@ -45,6 +50,31 @@ public interface TechnicalIndicatorRepository extends JpaRepository<TechnicalInd
            "AND t.calculationDate = (SELECT MAX(t2.calculationDate) FROM TechnicalIndicator t2 WHERE t2.stockCode = t.stockCode)")
     List<TechnicalIndicator> findLatestByStockCodes(@Param("stockCodes") List<String> stockCodes);
     
+    /**
+     * 查詢指定股票代碼列表在指定時間之前的最後一筆技術指標
+     */
+    @Query("SELECT t FROM TechnicalIndicator t WHERE t.stockCode IN :stockCodes " +
+           "AND t.calculationDate = (SELECT MAX(t2.calculationDate) FROM TechnicalIndicator t2 " +
+           "WHERE t2.stockCode = t.stockCode AND t2.calculationDate < :before)")
+    List<TechnicalIndicator> findLatestBeforeByStockCodes(@Param("stockCodes") List<String> stockCodes,
+                                                          @Param("before") LocalDateTime before);
+    
+    /**
+     * 查詢前一個交易日的技術指標：各股票最新一筆所在日期之前的最後一筆
+     * 技術指標隨每次快照更新寫入，同一交易日有多筆；前一期以交易日為單位，與快照的前收盤價同屬前一根日 K 棒
+     * @param latestIndicators 各股票的最新技術指標
+     */
+    default List<TechnicalIndicator> findPreviousDayByLatest(Collection<TechnicalIndicator> latestIndicators) {
+        Map<LocalDate, List<String>> codesByDay = latestIndicators.stream()
+                .filter(indicator -> indicator.getCalculationDate() != null)
+                .collect(Collectors.groupingBy(indicator -> indicator.getCalculationDate().toLocalDate(),
+                        Collectors.mapping(TechnicalIndicator::getStockCode, Collectors.toList())));
+        List<TechnicalIndicator> previous = new ArrayList<>();
+        codesByDay.forEach((day, stockCodes) ->
+                previous.addAll(findLatestBeforeByStockCodes(stockCodes, day.atStartOfDay())));
+        return previous;
+    }
+    
     /**
      * 刪除指定日期之前的舊資料
      */
@@ -14,6 +14,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -28,32 +29,26 @@ public class AuditLogService {
                                    Card.CardStatus toStatus, String reason) {
         log.debug("Logging card status change: user={}, card={}, {}→{}", userId, cardId, fromStatus, toStatus);
         
-        AuditLog auditLog = AuditLog.builder()
-                .userId(userId)
-                .cardId(cardId)
-                .action("CARD_STATUS_CHANGE")
-                .fromStatus(fromStatus != null ? fromStatus.name() : null)
-                .toStatus(toStatus != null ? toStatus.name() : null)
-                .reason(reason)
-                .traceId(UUID.randomUUID().toString())
-                .build();
-        
-        // Try to get request context for IP and User-Agent
-        try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                auditLog.setIpAddress(getClientIpAddress(request));
-                auditLog.setUserAgent(request.getHeader("User-Agent"));
-            }
-        } catch (Exception e) {
-            log.debug("Could not get request context for audit log: {}", e.getMessage());
-        }
-        
+        AuditLog auditLog = buildCardStatusChange(new CardStatusChange(userId, cardId, fromStatus, toStatus, reason));
         auditLogRepository.save(auditLog);
         log.info("Logged audit event: {}", auditLog.getId());
     }
     
+    /**
+     * Batch version of logCardStatusChange, written with a single saveAll
+     */
+    @Transactional
+    public void logCardStatusChanges(List<CardStatusChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<AuditLog> auditLogs = changes.stream()
+                .map(this::buildCardStatusChange)
+                .toList();
+        auditLogRepository.saveAll(auditLogs);
+        log.info("Logged {} card status change audit events", auditLogs.size());
+    }
+    
     @Transactional
     public void logWatchlistChange(String userId, String action, String stockCode, String reason) {
         log.debug("Logging watchlist change: user={}, action={}, stock={}", userId, action, stockCode);
@@ -98,6 +93,31 @@ public class AuditLogService {
         log.info("Archived {} audit log entries", archivedCount);
     }
     
+    private AuditLog buildCardStatusChange(CardStatusChange change) {
+        AuditLog auditLog = AuditLog.builder()
+                .userId(change.userId())
+                .cardId(change.cardId())
+                .action("CARD_STATUS_CHANGE")
+                .fromStatus(change.fromStatus() != null ? change.fromStatus().name() : null)
+                .toStatus(change.toStatus() != null ? change.toStatus().name() : null)
+                .reason(change.reason())
+                .traceId(UUID.randomUUID().toString())
+                .build();
+        
+        // Try to get request context for IP and User-Agent
+        try {
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+            if (attributes != null) {
+                HttpServletRequest request = attributes.getRequest();
+                auditLog.setIpAddress(getClientIpAddress(request));
+                auditLog.setUserAgent(request.getHeader("User-Agent"));
+            }
+        } catch (Exception e) {
+            log.debug("Could not get request context for audit log: {}", e.getMessage());
+        }
+        return auditLog;
+    }
+    
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -111,4 +131,11 @@ public class AuditLogService {
         
         return request.getRemoteAddr();
     }
-}
\ No newline at end of file
+    
+    /**
+     * A card status change to be written to the audit log
+     */
+    public record CardStatusChange(String userId, String cardId, Card.CardStatus fromStatus,
+                                   Card.CardStatus toStatus, String reason) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.HistoricalPrice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 欄式 K 棒序列
+ * 以基本型別陣列保存由舊到新的 OHLCV，供 IndicatorKernels 以索引迴圈直接運算；
+ * BigDecimal 只在由實體建立序列時轉換一次。陣列直接對外提供，呼叫端不可修改。
+ */
+public final class BarSeries {
+
+    private final String stockCode;
+    private final long[] epochDays;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+
+    public BarSeries(String stockCode, long[] epochDays, double[] open, double[] high,
+                     double[] low, double[] close, long[] volume) {
+        int size = epochDays.length;
+        if (open.length != size || high.length != size || low.length != size
+                || close.length != size || volume.length != size) {
+            throw new IllegalArgumentException("K 棒欄位長度不一致");
+        }
+        this.stockCode = stockCode;
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    /**
+     * 由歷史價格建立序列；輸入可為新到舊（repository 預設排序）或舊到新，輸出一律由舊到新
+     * 缺少的開高低價以收盤價代替，缺少的成交量視為 0
+     */
+    public static BarSeries fromHistoricalPrices(String stockCode, List<HistoricalPrice> prices) {
+        int size = prices.size();
+        boolean descending = size > 1
+                && prices.get(0).getTradeDate().isAfter(prices.get(size - 1).getTradeDate());
+
+        long[] epochDays = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            HistoricalPrice price = prices.get(descending ? size - 1 - i : i);
+            double closePrice = price.getClosePrice().doubleValue();
+            epochDays[i] = price.getTradeDate().toEpochDay();
+            close[i] = closePrice;
+            open[i] = valueOrDefault(price.getOpenPrice(), closePrice);
+            high[i] = valueOrDefault(price.getHighPrice(), closePrice);
+            low[i] = valueOrDefault(price.getLowPrice(), closePrice);
+            volume[i] = price.getVolume() != null ? price.getVolume() : 0L;
+        }
+        return new BarSeries(stockCode, epochDays, open, high, low, close, volume);
+    }
+
+    public String getStockCode() {
+        return stockCode;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public LocalDate getTradeDate(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public long[] getEpochDays() {
+        return epochDays;
+    }
+
+    public double[] getOpen() {
+        return open;
+    }
+
+    public double[] getHigh() {
+        return high;
+    }
+
+    public double[] getLow() {
+        return low;
+    }
+
+    public double[] getClose() {
+        return close;
+    }
+
+    public long[] getVolume() {
+        return volume;
+    }
+
+    private static double valueOrDefault(BigDecimal value, double defaultValue) {
+        return value != null ? value.doubleValue() : defaultValue;
+    }
+}
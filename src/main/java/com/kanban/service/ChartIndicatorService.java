@@ -0,0 +1,212 @@
+package com.kanban.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kanban.dto.OhlcDataDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 圖表技術指標序列服務
+ * 對圖表的 OHLC 區間一次算出每根 K 棒的指標值，依股票、期間與指標組合快取；
+ * 該股票出現新的 K 棒，或盤中最新一根 K 棒的價量變動時重新計算
+ */
+@Slf4j
+@Service
+public class ChartIndicatorService {
+
+    /** 支援的指標參數 */
+    public static final Set<String> SUPPORTED_INDICATORS =
+            Set.of("ma5", "ma10", "ma20", "ma60", "rsi", "kd", "macd", "volume");
+
+    /** 未指定期間時的預設值，與 ChartController 相同 */
+    private static final String DEFAULT_PERIOD = "3M";
+
+    private static final long MAXIMUM_SIZE = 5_000;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofHours(24);
+
+    private final Cache<String, CachedSeries> cache = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+            .build();
+
+    // 每檔股票已知的最新 K 棒日期 (epoch day)
+    private final Map<String, Long> latestBarDays = new ConcurrentHashMap<>();
+
+    /**
+     * 取得 OHLC 區間的技術指標序列，每個序列與 ohlcData 等長且同序，資料不足的位置為 null
+     * @param period 時間範圍，null 時視為 3M
+     * @param interval 資料間隔，可為 null
+     * @param indicators 以逗號分隔的指標參數，未支援的項目忽略
+     */
+    public Map<String, List<BigDecimal>> getIndicatorSeries(String stockCode, String period, String interval,
+                                                            List<OhlcDataDto> ohlcData, String indicators) {
+        Set<String> requested = parseIndicators(indicators);
+        if (requested.isEmpty() || ohlcData.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        LatestBar latestBar = LatestBar.of(ohlcData);
+        String cacheKey = stockCode + ":" + (period != null ? period : DEFAULT_PERIOD).toUpperCase()
+                + ":" + (interval != null ? interval : "1d") + ":" + String.join(",", requested);
+        CachedSeries cached = cache.getIfPresent(cacheKey);
+        if (cached != null && cached.latestBar().equals(latestBar) && cached.size() == ohlcData.size()) {
+            return cached.series();
+        }
+
+        Map<String, List<BigDecimal>> series = compute(stockCode, ohlcData, requested);
+        cache.put(cacheKey, new CachedSeries(latestBar, ohlcData.size(), series));
+        log.debug("Computed chart indicators {} for {} over {} bars", requested, stockCode, ohlcData.size());
+        return series;
+    }
+
+    /**
+     * 新 K 棒寫入時呼叫；只有交易日期晚於已知最新 K 棒時才清除該股票的快取
+     */
+    public void onNewBar(String stockCode, LocalDate tradeDate) {
+        long tradeDay = tradeDate.toEpochDay();
+        Long previous = latestBarDays.get(stockCode);
+        if (previous != null && previous >= tradeDay) {
+            return;
+        }
+        latestBarDays.merge(stockCode, tradeDay, Math::max);
+
+        String prefix = stockCode + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 解析指標參數，排序並去除重複，作為快取鍵的一部分
+     */
+    static Set<String> parseIndicators(String indicators) {
+        Set<String> result = new TreeSet<>();
+        if (indicators == null) {
+            return result;
+        }
+        for (String token : indicators.split(",")) {
+            String name = token.trim().toLowerCase();
+            if (SUPPORTED_INDICATORS.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, List<BigDecimal>> compute(String stockCode, List<OhlcDataDto> ohlcData, Set<String> requested) {
+        int size = ohlcData.size();
+        boolean descending = size > 1 && ohlcData.get(0).getDate().isAfter(ohlcData.get(size - 1).getDate());
+        BarSeries bars = toBarSeries(stockCode, ohlcData, descending);
+        double[] close = bars.getClose();
+
+        Map<String, List<BigDecimal>> result = new LinkedHashMap<>();
+        for (String name : requested) {
+            switch (name) {
+                case "ma5" -> result.put("ma5", toList(IndicatorKernels.sma(close, 5), 2, descending));
+                case "ma10" -> result.put("ma10", toList(IndicatorKernels.sma(close, 10), 2, descending));
+                case "ma20" -> result.put("ma20", toList(IndicatorKernels.sma(close, 20), 2, descending));
+                case "ma60" -> result.put("ma60", toList(IndicatorKernels.sma(close, 60), 2, descending));
+                case "rsi" -> result.put("rsi", toList(IndicatorKernels.rsi(close, 14), 2, descending));
+                case "kd" -> {
+                    double[][] kd = IndicatorKernels.stochastic(bars.getHigh(), bars.getLow(), close, 9);
+                    result.put("kdK", toList(kd[0], 2, descending));
+                    result.put("kdD", toList(kd[1], 2, descending));
+                }
+                case "macd" -> {
+                    double[][] macd = IndicatorKernels.macd(close, 12, 26, 9);
+                    result.put("macd", toList(macd[0], 4, descending));
+                    result.put("macdSignal", toList(macd[1], 4, descending));
+                    result.put("macdHistogram", toList(macd[2], 4, descending));
+                }
+                case "volume" -> {
+                    result.put("volumeMa5", toList(IndicatorKernels.sma(bars.getVolume(), 5), 0, descending));
+                    result.put("volumeMa20", toList(IndicatorKernels.sma(bars.getVolume(), 20), 0, descending));
+                }
+                default -> { }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 轉為由舊到新的欄式序列；缺少收盤價的 K 棒沿用前一根收盤價，缺少的開高低價以收盤價代替
+     */
+    private BarSeries toBarSeries(String stockCode, List<OhlcDataDto> ohlcData, boolean descending) {
+        int size = ohlcData.size();
+        long[] epochDays = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+
+        double previousClose = firstClose(ohlcData, descending);
+        for (int i = 0; i < size; i++) {
+            OhlcDataDto bar = ohlcData.get(descending ? size - 1 - i : i);
+            double closePrice = bar.getClose() != null ? bar.getClose().doubleValue() : previousClose;
+            epochDays[i] = bar.getDate().toEpochDay();
+            close[i] = closePrice;
+            open[i] = bar.getOpen() != null ? bar.getOpen().doubleValue() : closePrice;
+            high[i] = bar.getHigh() != null ? bar.getHigh().doubleValue() : closePrice;
+            low[i] = bar.getLow() != null ? bar.getLow().doubleValue() : closePrice;
+            volume[i] = bar.getVolume() != null ? bar.getVolume() : 0L;
+            previousClose = closePrice;
+        }
+        return new BarSeries(stockCode, epochDays, open, high, low, close, volume);
+    }
+
+    private static double firstClose(List<OhlcDataDto> ohlcData, boolean descending) {
+        int size = ohlcData.size();
+        for (int i = 0; i < size; i++) {
+            OhlcDataDto bar = ohlcData.get(descending ? size - 1 - i : i);
+            if (bar.getClose() != null) {
+                return bar.getClose().doubleValue();
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * 轉為 BigDecimal 列表並還原為輸入資料的順序
+     */
+    private static List<BigDecimal> toList(double[] values, int scale, boolean descending) {
+        List<BigDecimal> result = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            result.add(IndicatorSeries.decimal(values[descending ? values.length - 1 - i : i], scale));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private record CachedSeries(LatestBar latestBar, int size, Map<String, List<BigDecimal>> series) {
+    }
+
+    /**
+     * 最新一根 K 棒的日期與價量；盤中更新只改變這根 K 棒，價量不同時快取的序列即已過時
+     */
+    private record LatestBar(long epochDay, double open, double high, double low, double close, long volume) {
+
+        static LatestBar of(List<OhlcDataDto> ohlcData) {
+            OhlcDataDto first = ohlcData.get(0);
+            OhlcDataDto last = ohlcData.get(ohlcData.size() - 1);
+            OhlcDataDto bar = first.getDate().isAfter(last.getDate()) ? first : last;
+            return new LatestBar(bar.getDate().toEpochDay(), toDouble(bar.getOpen()), toDouble(bar.getHigh()),
+                    toDouble(bar.getLow()), toDouble(bar.getClose()), bar.getVolume() != null ? bar.getVolume() : -1L);
+        }
+
+        private static double toDouble(BigDecimal value) {
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+    }
+}
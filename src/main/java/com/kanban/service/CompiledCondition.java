@@ -0,0 +1,69 @@
+package com.kanban.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 已編譯的規則條件
+ * 由 RuleDslCompiler 產生的 lambda 節點樹，直接讀取 double[] 評估框架，評估時不配置物件
+ */
+public final class CompiledCondition {
+
+    /**
+     * 數值節點：以當期與前一期框架求值，缺值傳遞為 NaN
+     */
+    @FunctionalInterface
+    interface NumberNode {
+        double eval(double[] current, double[] previous);
+    }
+
+    /**
+     * 條件節點
+     */
+    @FunctionalInterface
+    interface PredicateNode {
+        boolean test(double[] current, double[] previous);
+    }
+
+    private final String source;
+    private final PredicateNode root;
+    private final Set<RuleField> referencedFields;
+    private final boolean usesPrevious;
+
+    CompiledCondition(String source, PredicateNode root, Set<RuleField> referencedFields, boolean usesPrevious) {
+        this.source = source;
+        this.root = root;
+        this.referencedFields = referencedFields.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(referencedFields));
+        this.usesPrevious = usesPrevious;
+    }
+
+    /**
+     * 評估條件
+     * @param current 當期框架（RuleField.frame）
+     * @param previous 前一期框架，可為 null
+     */
+    public boolean test(double[] current, double[] previous) {
+        return root.test(current, previous);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 條件引用的欄位
+     */
+    public Set<RuleField> getReferencedFields() {
+        return referencedFields;
+    }
+
+    /**
+     * 條件是否使用 crossesAbove / crossesBelow 而需要前一期框架
+     */
+    public boolean usesPrevious() {
+        return usesPrevious;
+    }
+}
@@ -0,0 +1,171 @@
+package com.kanban.service;
+
+/**
+ * (規則 ID, 卡片 ID) → 最後觸發時間（epoch 毫秒）的索引
+ * 分段的開放定址雜湊表，鍵以兩個平行字串陣列保存、值為 long[]，查詢時不建立複合鍵也不裝箱
+ */
+final class CooldownIndex {
+
+    /** 查無記錄 */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final int SEGMENTS = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    CooldownIndex() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return 最後觸發時間，查無記錄時回傳 MISSING
+     */
+    long get(String ruleId, String cardId) {
+        int hash = hash(ruleId, cardId);
+        return segments[hash & (SEGMENTS - 1)].get(ruleId, cardId, hash >>> 4);
+    }
+
+    /**
+     * 寫入觸發時間，只保留較新的值
+     */
+    void put(String ruleId, String cardId, long millis) {
+        int hash = hash(ruleId, cardId);
+        segments[hash & (SEGMENTS - 1)].put(ruleId, cardId, hash >>> 4, millis);
+    }
+
+    /**
+     * 移除符合條件的記錄
+     * @return 移除的記錄數
+     */
+    int removeIf(EntryFilter filter) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            removed += segment.removeIf(filter);
+        }
+        return removed;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryFilter {
+        boolean test(String ruleId, String cardId, long millis);
+    }
+
+    private static int hash(String ruleId, String cardId) {
+        int h = ruleId.hashCode() * 31 + cardId.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Segment {
+
+        private String[] ruleIds = new String[INITIAL_CAPACITY];
+        private String[] cardIds = new String[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized long get(String ruleId, String cardId, int hash) {
+            int mask = ruleIds.length - 1;
+            for (int slot = hash & mask; ruleIds[slot] != null; slot = (slot + 1) & mask) {
+                if (ruleIds[slot].equals(ruleId) && cardIds[slot].equals(cardId)) {
+                    return values[slot];
+                }
+            }
+            return MISSING;
+        }
+
+        synchronized void put(String ruleId, String cardId, int hash, long millis) {
+            int mask = ruleIds.length - 1;
+            int slot = hash & mask;
+            for (; ruleIds[slot] != null; slot = (slot + 1) & mask) {
+                if (ruleIds[slot].equals(ruleId) && cardIds[slot].equals(cardId)) {
+                    values[slot] = Math.max(values[slot], millis);
+                    return;
+                }
+            }
+            ruleIds[slot] = ruleId;
+            cardIds[slot] = cardId;
+            values[slot] = millis;
+            if (++size * 2 > ruleIds.length) {
+                resize();
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            ruleIds = new String[INITIAL_CAPACITY];
+            cardIds = new String[INITIAL_CAPACITY];
+            values = new long[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        /**
+         * 開放定址無法直接清空槽位，移除時以剩餘記錄重建
+         */
+        synchronized int removeIf(EntryFilter filter) {
+            int survivors = 0;
+            for (int i = 0; i < ruleIds.length; i++) {
+                if (ruleIds[i] != null && !filter.test(ruleIds[i], cardIds[i], values[i])) {
+                    survivors++;
+                }
+            }
+            int removed = size - survivors;
+            if (removed == 0) {
+                return 0;
+            }
+            int capacity = INITIAL_CAPACITY;
+            while (survivors * 2 > capacity) {
+                capacity *= 2;
+            }
+            rehash(capacity, filter);
+            size = survivors;
+            return removed;
+        }
+
+        private void resize() {
+            rehash(ruleIds.length * 2, null);
+        }
+
+        private void rehash(int capacity, EntryFilter remove) {
+            String[] oldRuleIds = ruleIds;
+            String[] oldCardIds = cardIds;
+            long[] oldValues = values;
+            int mask = capacity - 1;
+
+            ruleIds = new String[capacity];
+            cardIds = new String[capacity];
+            values = new long[capacity];
+            for (int i = 0; i < oldRuleIds.length; i++) {
+                if (oldRuleIds[i] == null
+                        || remove != null && remove.test(oldRuleIds[i], oldCardIds[i], oldValues[i])) {
+                    continue;
+                }
+                int slot = (hash(oldRuleIds[i], oldCardIds[i]) >>> 4) & mask;
+                while (ruleIds[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                ruleIds[slot] = oldRuleIds[i];
+                cardIds[slot] = oldCardIds[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
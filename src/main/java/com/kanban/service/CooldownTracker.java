@@ -0,0 +1,183 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.repository.RuleExecutionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 規則對卡片的冷卻時間追蹤
+ * 以記憶體中的 CooldownIndex 取代逐一查詢最近一次執行記錄；
+ * 啟動時由 rule_executions 的成功記錄預熱，每次觸發成功後更新。
+ * 多節點部署時可啟用 Redis 共用觸發時間：執行前以 prefetch 一次取回整批本機已過冷卻的組合，
+ * isReady 本身只查詢記憶體。規則被刪除或冷卻已過的記錄由 prune 移除
+ */
+@Service
+@Slf4j
+public class CooldownTracker {
+
+    private static final String KEY_PREFIX = "rule:cooldown:";
+
+    private final RuleExecutionRepository executionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+
+    private final CooldownIndex index = new CooldownIndex();
+    private volatile boolean warmedUp;
+
+    public CooldownTracker(RuleExecutionRepository executionRepository,
+                           StringRedisTemplate redisTemplate,
+                           @Value("${kanban.rules.cooldown.redis-enabled:false}") boolean redisEnabled) {
+        this.executionRepository = executionRepository;
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = redisEnabled;
+    }
+
+    /**
+     * 以每組 (規則, 卡片) 最後一次成功執行的時間預熱索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        int count = 0;
+        for (RuleExecutionRepository.LastSuccessfulExecution row : executionRepository.findLastSuccessfulExecutions()) {
+            index.put(row.getRuleId(), row.getCardId(), row.getLastFiredAt().atZone(zone).toInstant().toEpochMilli());
+            count++;
+        }
+        warmedUp = true;
+        log.info("冷卻索引預熱完成: 記錄數量={}", count);
+    }
+
+    /**
+     * 規則對卡片是否已過冷卻時間；只查詢本機索引，啟用 Redis 時須先以 prefetch 同步其他節點的觸發時間
+     */
+    public boolean isReady(Rule rule, Card card, long nowMillis) {
+        if (!warmedUp) {
+            warmUp();
+        }
+        return isReady(index.get(rule.getId(), card.getId()), nowMillis, rule.getCooldownSeconds() * 1000L);
+    }
+
+    /**
+     * 啟用 Redis 時以一次 MGET 取回本機已過冷卻的 (規則, 卡片) 組合在其他節點的觸發時間
+     */
+    public void prefetch(Collection<Rule> rules, Collection<Card> cards, long nowMillis) {
+        if (!redisEnabled || rules.isEmpty() || cards.isEmpty()) {
+            return;
+        }
+        if (!warmedUp) {
+            warmUp();
+        }
+
+        List<Rule> pairRules = new ArrayList<>();
+        List<Card> pairCards = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.getCooldownSeconds() <= 0) {
+                continue;
+            }
+            for (Card card : cards) {
+                if (isReady(rule, card, nowMillis)) {
+                    pairRules.add(rule);
+                    pairCards.add(card);
+                    keys.add(key(rule, card));
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return;
+            }
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    index.put(pairRules.get(i).getId(), pairCards.get(i).getId(), Long.parseLong(values.get(i)));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("批次讀取 Redis 冷卻時間失敗，改用本機記錄: 數量={}, error={}", keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 移除規則已不存在或已過冷卻時間的記錄；移除後查詢結果與查無記錄相同
+     * @param cooldownMillisByRule 所有現存規則 ID → 冷卻時間（毫秒）
+     * @return 移除的記錄數
+     */
+    public int prune(Map<String, Long> cooldownMillisByRule, long nowMillis) {
+        int removed = index.removeIf((ruleId, cardId, firedAt) -> {
+            Long cooldownMillis = cooldownMillisByRule.get(ruleId);
+            return cooldownMillis == null || isReady(firedAt, nowMillis, cooldownMillis);
+        });
+        if (removed > 0) {
+            log.debug("移除過期冷卻記錄: 數量={}, 剩餘={}", removed, index.size());
+        }
+        return removed;
+    }
+
+    /**
+     * 記錄規則對卡片觸發成功；在交易中呼叫時於提交後才寫入
+     */
+    public void recordFire(Rule rule, Card card, long firedAtMillis) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(rule, card, firedAtMillis);
+                }
+            });
+        } else {
+            store(rule, card, firedAtMillis);
+        }
+    }
+
+    /**
+     * 索引中的 (規則, 卡片) 數量
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private void store(Rule rule, Card card, long firedAtMillis) {
+        index.put(rule.getId(), card.getId(), firedAtMillis);
+        if (!redisEnabled || rule.getCooldownSeconds() <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(key(rule, card), Long.toString(firedAtMillis),
+                    Duration.ofSeconds(rule.getCooldownSeconds()));
+        } catch (Exception e) {
+            log.warn("寫入 Redis 冷卻時間失敗: ruleId={}, cardId={}, error={}",
+                    rule.getId(), card.getId(), e.getMessage());
+        }
+    }
+
+    private static boolean isReady(long firedAt, long nowMillis, long cooldownMillis) {
+        return firedAt == CooldownIndex.MISSING || nowMillis - firedAt >= cooldownMillis;
+    }
+
+    private static String key(Rule rule, Card card) {
+        return KEY_PREFIX + rule.getId() + ":" + card.getId();
+    }
+}
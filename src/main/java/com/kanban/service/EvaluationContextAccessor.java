@@ -0,0 +1,105 @@
+package com.kanban.service;
+
+import org.springframework.asm.MethodVisitor;
+import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 規則評估上下文的唯讀屬性存取器
+ * 啟動時為 com.kanban.service.EvaluationContext 的每個屬性預先解析 getter，
+ * 每個屬性各一個可編譯存取器，讓 SpEL 編譯器能直接產生 getter 呼叫的位元碼
+ */
+final class EvaluationContextAccessor implements CompilablePropertyAccessor {
+
+    private static final Class<?>[] TARGET_CLASSES = {com.kanban.service.EvaluationContext.class};
+
+    private final String propertyName;
+    private final Method getter;
+
+    private EvaluationContextAccessor(String propertyName, Method getter) {
+        this.propertyName = propertyName;
+        this.getter = getter;
+    }
+
+    /**
+     * 為所有具 getter 的屬性建立存取器
+     */
+    static List<EvaluationContextAccessor> forAllProperties() {
+        Class<?> type = com.kanban.service.EvaluationContext.class;
+        List<EvaluationContextAccessor> accessors = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                Method getter = type.getMethod("get" + StringUtils.capitalize(field.getName()));
+                accessors.add(new EvaluationContextAccessor(field.getName(), getter));
+            } catch (NoSuchMethodException e) {
+                // 沒有 getter 的欄位不開放給規則
+            }
+        }
+        return accessors;
+    }
+
+    @Override
+    public Class<?>[] getSpecificTargetClasses() {
+        return TARGET_CLASSES;
+    }
+
+    @Override
+    public boolean canRead(EvaluationContext context, Object target, String name) {
+        return target instanceof com.kanban.service.EvaluationContext && propertyName.equals(name);
+    }
+
+    @Override
+    public TypedValue read(EvaluationContext context, Object target, String name) throws AccessException {
+        try {
+            return new TypedValue(getter.invoke(target));
+        } catch (Exception e) {
+            throw new AccessException("無法讀取規則變數: " + name, e);
+        }
+    }
+
+    @Override
+    public boolean canWrite(EvaluationContext context, Object target, String name) {
+        return false;
+    }
+
+    @Override
+    public void write(EvaluationContext context, Object target, String name, Object newValue) throws AccessException {
+        throw new AccessException("規則變數為唯讀: " + name);
+    }
+
+    @Override
+    public boolean isCompilable() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getPropertyType() {
+        return getter.getReturnType();
+    }
+
+    @Override
+    public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+        String classDesc = getter.getDeclaringClass().getName().replace('.', '/');
+        String lastDesc = cf.lastDescriptor();
+        if (lastDesc == null) {
+            cf.loadTarget(mv);
+        }
+        if (lastDesc == null || !classDesc.equals(lastDesc.substring(1))) {
+            mv.visitTypeInsn(CHECKCAST, classDesc);
+        }
+        mv.visitMethodInsn(INVOKEVIRTUAL, classDesc, getter.getName(), CodeFlow.createSignatureDescriptor(getter), false);
+    }
+}
@@ -25,6 +25,7 @@ public class HistoricalDataService {
     
     private final HistoricalPriceRepository historicalPriceRepository;
     private final StockCacheService stockCacheService;
+    private final ChartIndicatorService chartIndicatorService;
     
     /**
      * 儲存股票的歷史價格資料
@@ -56,6 +57,7 @@ public class HistoricalDataService {
                 .build();
         
         historicalPriceRepository.save(historicalPrice);
+        chartIndicatorService.onNewBar(stockCode, tradeDate);
         log.debug("Saved historical price for {} on {}", stockCode, tradeDate);
     }
     
@@ -88,6 +90,7 @@ public class HistoricalDataService {
                 .build();
         
         historicalPriceRepository.save(historicalPrice);
+        chartIndicatorService.onNewBar(snapshot.getCode(), tradeDate);
         log.debug("Saved historical price from snapshot for {}", snapshot.getCode());
     }
     
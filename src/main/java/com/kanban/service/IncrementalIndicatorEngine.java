@@ -0,0 +1,302 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.HistoricalPrice;
+import com.kanban.domain.entity.IndicatorCheckpoint;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.repository.HistoricalPriceRepository;
+import com.kanban.repository.IndicatorCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 增量技術指標引擎
+ * 每檔股票保留一份 IndicatorState，新報價以 O(1) 更新；
+ * 狀態定期寫入檢查點，重新啟動後由檢查點接續並重播檢查點之後的歷史價格，
+ * 沒有檢查點或落後超過 WARM_UP_BARS 根 K 棒的股票才整段回補；
+ * 回補與全歷史重算在 indicatorComputePool 上跨股票平行執行；
+ * 重算以新狀態取代原狀態時持有原狀態的鎖，報價套用一律作用在目前登記的狀態，不會遺失重算期間的報價
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IncrementalIndicatorEngine {
+
+    // 沒有檢查點時回補的歷史 K 棒數
+    static final int WARM_UP_BARS = 100;
+
+    private final HistoricalPriceRepository historicalPriceRepository;
+    private final IndicatorCheckpointRepository indicatorCheckpointRepository;
+    private final ForkJoinPool indicatorComputePool;
+
+    private final Map<String, IndicatorState> states = new ConcurrentHashMap<>();
+
+    // 自上次檢查點後有變動的股票
+    private final Set<String> dirtyStockCodes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 取得單檔股票的指標狀態，依序從記憶體、檢查點（補上之後的歷史價格）、歷史價格載入
+     */
+    public IndicatorState getState(String stockCode) {
+        IndicatorState state = states.get(stockCode);
+        if (state != null) {
+            return state;
+        }
+
+        state = indicatorCheckpointRepository.findById(stockCode)
+                .map(this::resume)
+                .orElseGet(() -> warmUp(stockCode));
+        return register(state);
+    }
+
+    /**
+     * 批次取得指標狀態：缺少者以單次查詢載入檢查點，檢查點的補齊與沒有檢查點者的回補平行執行
+     */
+    public Map<String, IndicatorState> getStates(Collection<String> stockCodes) {
+        Map<String, IndicatorState> result = new HashMap<>();
+        List<String> missingCodes = new ArrayList<>();
+        for (String stockCode : stockCodes) {
+            IndicatorState state = states.get(stockCode);
+            if (state != null) {
+                result.put(stockCode, state);
+            } else {
+                missingCodes.add(stockCode);
+            }
+        }
+        if (missingCodes.isEmpty()) {
+            return result;
+        }
+
+        Map<String, ForkJoinTask<IndicatorState>> loads = new HashMap<>();
+        for (IndicatorCheckpoint checkpoint : indicatorCheckpointRepository.findAllById(missingCodes)) {
+            loads.put(checkpoint.getStockCode(), indicatorComputePool.submit(() -> resume(checkpoint)));
+        }
+        for (String stockCode : missingCodes) {
+            if (!loads.containsKey(stockCode)) {
+                loads.put(stockCode, indicatorComputePool.submit(() -> warmUp(stockCode)));
+            }
+        }
+        loads.forEach((stockCode, task) -> result.put(stockCode, register(task.join())));
+
+        log.debug("Loaded indicator state for {} stocks", missingCodes.size());
+        return result;
+    }
+
+    /**
+     * 套用最新快照並回傳當下的技術指標
+     * 傳入的狀態已被重算取代時改套用到目前登記的狀態
+     */
+    public TechnicalIndicator apply(IndicatorState state, StockSnapshot snapshot) {
+        LocalDate tradeDate = snapshot.getUpdatedAt() != null ?
+                snapshot.getUpdatedAt().toLocalDate() : LocalDate.now();
+
+        IndicatorState target = state;
+        while (true) {
+            IndicatorState replacement;
+            synchronized (target) {
+                replacement = states.get(target.getStockCode());
+                if (replacement == null || replacement == target) {
+                    boolean changed = target.apply(tradeDate, snapshot.getHighPrice(), snapshot.getLowPrice(),
+                            snapshot.getCurrentPrice(), snapshot.getVolume());
+                    if (changed) {
+                        dirtyStockCodes.add(target.getStockCode());
+                    }
+                    return target.toIndicator(LocalDateTime.now());
+                }
+            }
+            target = replacement;
+        }
+    }
+
+    /**
+     * 以目前狀態建立技術指標
+     */
+    public TechnicalIndicator currentIndicator(IndicatorState state) {
+        synchronized (state) {
+            return state.toIndicator(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 以完整歷史價格重算單檔股票的指標序列，並以同一段歷史重建滾動狀態
+     * 取代原狀態（含以 WARM_UP_BARS 回補時 EMA 與 KD 的起算誤差）；
+     * 取代時持有原狀態的鎖並帶入其當日盤中 K 棒，重算期間套用的報價不會遺失
+     */
+    public IndicatorSeries recompute(String stockCode) {
+        List<HistoricalPrice> prices = historicalPriceRepository.findByStockCodeOrderByTradeDateDesc(stockCode);
+        BarSeries bars = BarSeries.fromHistoricalPrices(stockCode, prices);
+
+        IndicatorState rebuilt = new IndicatorState(stockCode);
+        rebuilt.replay(bars);
+        replaceState(stockCode, rebuilt);
+        if (bars.size() > 0) {
+            dirtyStockCodes.add(stockCode);
+        }
+
+        log.debug("Recomputed indicators for {} from {} historical prices", stockCode, bars.size());
+        return IndicatorSeries.compute(bars);
+    }
+
+    /**
+     * 跨股票平行重算完整歷史，失敗的股票略過並記錄
+     */
+    public Map<String, IndicatorSeries> recomputeAll(Collection<String> stockCodes) {
+        Map<String, ForkJoinTask<IndicatorSeries>> tasks = new HashMap<>();
+        for (String stockCode : stockCodes) {
+            tasks.put(stockCode, indicatorComputePool.submit(() -> recompute(stockCode)));
+        }
+
+        Map<String, IndicatorSeries> result = new HashMap<>();
+        tasks.forEach((stockCode, task) -> {
+            try {
+                result.put(stockCode, task.join());
+            } catch (Exception e) {
+                log.error("Error recomputing indicators for {}: {}", stockCode, e.getMessage());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 有歷史價格的所有股票代碼
+     */
+    public List<String> getHistoryStockCodes() {
+        return historicalPriceRepository.findAllStockCodes();
+    }
+
+    /**
+     * 將有變動的狀態寫入檢查點
+     */
+    @Scheduled(initialDelayString = "${kanban.indicators.checkpoint-interval-ms:300000}",
+               fixedDelayString = "${kanban.indicators.checkpoint-interval-ms:300000}")
+    @PreDestroy
+    public void checkpoint() {
+        if (dirtyStockCodes.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int written = 0;
+        for (String stockCode : List.copyOf(dirtyStockCodes)) {
+            dirtyStockCodes.remove(stockCode);
+            IndicatorState state = states.get(stockCode);
+            if (state == null) {
+                continue;
+            }
+
+            byte[] data;
+            LocalDate lastTradeDate;
+            int barCount;
+            synchronized (state) {
+                data = state.toBytes();
+                lastTradeDate = state.getLastTradeDate();
+                barCount = state.getBarCount();
+            }
+
+            try {
+                indicatorCheckpointRepository.upsert(stockCode, lastTradeDate, barCount,
+                        IndicatorState.SCHEMA_VERSION, data, now);
+                written++;
+            } catch (Exception e) {
+                dirtyStockCodes.add(stockCode);
+                log.error("Error writing indicator checkpoint for {}: {}", stockCode, e.getMessage());
+            }
+        }
+        log.debug("Wrote {} indicator checkpoints", written);
+    }
+
+    /**
+     * 以歷史價格轉成的欄式序列重播建立狀態
+     */
+    private IndicatorState warmUp(String stockCode) {
+        List<HistoricalPrice> prices = historicalPriceRepository.findRecentByStockCode(stockCode, WARM_UP_BARS);
+
+        IndicatorState state = new IndicatorState(stockCode);
+        state.replay(BarSeries.fromHistoricalPrices(stockCode, prices));
+        if (!prices.isEmpty()) {
+            dirtyStockCodes.add(stockCode);
+        }
+
+        log.debug("Warmed up indicator state for {} from {} historical prices", stockCode, prices.size());
+        return state;
+    }
+
+    /**
+     * 由檢查點接續狀態，並重播檢查點最後交易日（含，覆寫當時未收盤的 K 棒）之後的歷史價格；
+     * 檢查點無法使用或落後超過 WARM_UP_BARS 根 K 棒時改為整段回補
+     */
+    private IndicatorState resume(IndicatorCheckpoint checkpoint) {
+        String stockCode = checkpoint.getStockCode();
+        IndicatorState state = restore(checkpoint);
+        LocalDate lastTradeDate = state != null ? state.getLastTradeDate() : null;
+        if (lastTradeDate == null) {
+            return warmUp(stockCode);
+        }
+        if (!lastTradeDate.isBefore(LocalDate.now())) {
+            return state;
+        }
+
+        List<HistoricalPrice> prices =
+                historicalPriceRepository.findSinceByStockCode(stockCode, lastTradeDate, WARM_UP_BARS + 1);
+        if (prices.size() > WARM_UP_BARS) {
+            log.info("Indicator checkpoint for {} is stale since {}, warming up from history", stockCode, lastTradeDate);
+            return warmUp(stockCode);
+        }
+        if (!prices.isEmpty()) {
+            state.replay(BarSeries.fromHistoricalPrices(stockCode, prices));
+            dirtyStockCodes.add(stockCode);
+        }
+
+        log.debug("Resumed indicator state for {} from checkpoint {} with {} newer prices",
+                stockCode, lastTradeDate, prices.size());
+        return state;
+    }
+
+    private IndicatorState restore(IndicatorCheckpoint checkpoint) {
+        IndicatorState state = IndicatorState.fromBytes(checkpoint.getStockCode(), checkpoint.getStateData());
+        if (state == null) {
+            log.warn("Discarding incompatible indicator checkpoint for {} (version {})",
+                    checkpoint.getStockCode(), checkpoint.getStateVersion());
+        }
+        return state;
+    }
+
+    /**
+     * 以重算結果取代目前登記的狀態；在原狀態的鎖內帶入其當日 K 棒後才登記，
+     * 之後對原狀態的 apply 會轉向新狀態
+     */
+    private void replaceState(String stockCode, IndicatorState rebuilt) {
+        while (true) {
+            IndicatorState current = states.putIfAbsent(stockCode, rebuilt);
+            if (current == null) {
+                return;
+            }
+            synchronized (current) {
+                rebuilt.applyPending(current);
+                if (states.replace(stockCode, current, rebuilt)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private IndicatorState register(IndicatorState state) {
+        IndicatorState existing = states.putIfAbsent(state.getStockCode(), state);
+        return existing != null ? existing : state;
+    }
+}
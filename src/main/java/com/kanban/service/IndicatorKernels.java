@@ -0,0 +1,212 @@
+package com.kanban.service;
+
+import java.util.Arrays;
+
+/**
+ * 技術指標核心函式
+ * 輸入與輸出皆為由舊到新的基本型別陣列，資料不足的位置為 NaN。
+ * 逐元素運算（漲跌、RSV、柱狀體）寫成無分支的單純迴圈，可由 JIT 自動向量化；
+ * 滑動加總、Wilder 平滑、EMA 與 KD 遞迴本質上依賴前值，以單次線性掃描完成。
+ * 定義與 IndicatorState 相同（EMA 以首 N 筆 SMA 起算、KD 起始 50）。
+ */
+public final class IndicatorKernels {
+
+    private IndicatorKernels() {
+    }
+
+    /**
+     * 簡單移動平均
+     */
+    public static double[] sma(double[] values, int period) {
+        double[] result = nanArray(values.length);
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= period) {
+                sum -= values[i - period];
+            }
+            if (i >= period - 1) {
+                result[i] = sum / period;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 成交量移動平均（整數除法，與既有 volumeMa 定義一致）
+     */
+    public static double[] sma(long[] values, int period) {
+        double[] result = nanArray(values.length);
+        long sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= period) {
+                sum -= values[i - period];
+            }
+            if (i >= period - 1) {
+                result[i] = sum / period;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指數移動平均，以第一段連續 N 筆有效值的 SMA 起算，之前的 NaN 保留
+     */
+    public static double[] ema(double[] values, int period) {
+        double[] result = nanArray(values.length);
+        int start = 0;
+        while (start < values.length && Double.isNaN(values[start])) {
+            start++;
+        }
+        int seedEnd = start + period - 1;
+        if (seedEnd >= values.length) {
+            return result;
+        }
+
+        double sum = 0;
+        for (int i = start; i <= seedEnd; i++) {
+            sum += values[i];
+        }
+        double alpha = 2.0 / (period + 1);
+        double ema = sum / period;
+        result[seedEnd] = ema;
+        for (int i = seedEnd + 1; i < values.length; i++) {
+            ema += (values[i] - ema) * alpha;
+            result[i] = ema;
+        }
+        return result;
+    }
+
+    /**
+     * Wilder RSI
+     */
+    public static double[] rsi(double[] close, int period) {
+        int size = close.length;
+        double[] result = nanArray(size);
+        if (size <= period) {
+            return result;
+        }
+
+        double[] gains = new double[size];
+        double[] losses = new double[size];
+        for (int i = 1; i < size; i++) {
+            double change = close[i] - close[i - 1];
+            gains[i] = Math.max(change, 0);
+            losses[i] = Math.max(-change, 0);
+        }
+
+        double avgGain = 0;
+        double avgLoss = 0;
+        for (int i = 1; i <= period; i++) {
+            avgGain += gains[i];
+            avgLoss += losses[i];
+        }
+        avgGain /= period;
+        avgLoss /= period;
+        result[period] = rsiValue(avgGain, avgLoss);
+        for (int i = period + 1; i < size; i++) {
+            avgGain = (avgGain * (period - 1) + gains[i]) / period;
+            avgLoss = (avgLoss * (period - 1) + losses[i]) / period;
+            result[i] = rsiValue(avgGain, avgLoss);
+        }
+        return result;
+    }
+
+    /**
+     * KD 隨機指標，回傳 {K, D}；K、D 以前一日值遞迴平滑，起始 50
+     */
+    public static double[][] stochastic(double[] high, double[] low, double[] close, int period) {
+        int size = close.length;
+        double[] k = nanArray(size);
+        double[] d = nanArray(size);
+        if (size < period) {
+            return new double[][] {k, d};
+        }
+
+        double[] highest = rollingMax(high, period);
+        double[] lowest = rollingMin(low, period);
+        double[] rsv = new double[size];
+        for (int i = period - 1; i < size; i++) {
+            double range = highest[i] - lowest[i];
+            rsv[i] = range == 0 ? 50 : (close[i] - lowest[i]) * 100 / range;
+        }
+
+        double prevK = 50;
+        double prevD = 50;
+        for (int i = period - 1; i < size; i++) {
+            prevK = (2 * prevK + rsv[i]) / 3;
+            prevD = (2 * prevD + prevK) / 3;
+            k[i] = prevK;
+            d[i] = prevD;
+        }
+        return new double[][] {k, d};
+    }
+
+    /**
+     * MACD，回傳 {MACD 線, Signal 線, 柱狀體}
+     */
+    public static double[][] macd(double[] close, int fastPeriod, int slowPeriod, int signalPeriod) {
+        double[] fast = ema(close, fastPeriod);
+        double[] slow = ema(close, slowPeriod);
+        double[] line = subtract(fast, slow);
+        double[] signal = ema(line, signalPeriod);
+        double[] histogram = subtract(line, signal);
+        return new double[][] {line, signal, histogram};
+    }
+
+    /**
+     * 逐元素相減，任一側為 NaN 時結果為 NaN
+     */
+    public static double[] subtract(double[] left, double[] right) {
+        double[] result = new double[left.length];
+        for (int i = 0; i < left.length; i++) {
+            result[i] = left[i] - right[i];
+        }
+        return result;
+    }
+
+    /**
+     * 滑動視窗最大值（單調佇列，O(n)）
+     */
+    public static double[] rollingMax(double[] values, int period) {
+        return rollingExtreme(values, period, true);
+    }
+
+    /**
+     * 滑動視窗最小值（單調佇列，O(n)）
+     */
+    public static double[] rollingMin(double[] values, int period) {
+        return rollingExtreme(values, period, false);
+    }
+
+    private static double[] rollingExtreme(double[] values, int period, boolean max) {
+        double[] result = nanArray(values.length);
+        int[] deque = new int[values.length];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < values.length; i++) {
+            while (tail > head && (max ? values[deque[tail - 1]] <= values[i] : values[deque[tail - 1]] >= values[i])) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - period) {
+                head++;
+            }
+            if (i >= period - 1) {
+                result[i] = values[deque[head]];
+            }
+        }
+        return result;
+    }
+
+    private static double rsiValue(double avgGain, double avgLoss) {
+        return avgLoss == 0 ? 100 : 100 - 100 / (1 + avgGain / avgLoss);
+    }
+
+    private static double[] nanArray(int size) {
+        double[] result = new double[size];
+        Arrays.fill(result, Double.NaN);
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kanban.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 收盤後全市場技術指標重算排程
+ * 經由 TechnicalIndicatorService 的代理呼叫使 @Async 生效，重算與寫入不佔用共用的排程執行緒
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndicatorRecomputeScheduler {
+
+    private final TechnicalIndicatorService technicalIndicatorService;
+    private final IncrementalIndicatorEngine indicatorEngine;
+
+    @Scheduled(cron = "${kanban.indicators.recompute-cron:0 0 15 * * MON-FRI}")
+    public void recalculateAllFullHistory() {
+        technicalIndicatorService.recalculateFullHistory(indicatorEngine.getHistoryStockCodes())
+                .whenComplete((saved, error) -> {
+                    if (error != null) {
+                        log.error("Full-history recompute failed: {}", error.getMessage(), error);
+                    }
+                });
+    }
+}
@@ -0,0 +1,161 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.TechnicalIndicator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * 整段 K 棒序列的技術指標序列
+ * 以 IndicatorKernels 一次算出每根 K 棒的指標值，只有輸出為實體時才轉為 BigDecimal
+ */
+public final class IndicatorSeries {
+
+    private final BarSeries bars;
+    private final double[] ma5;
+    private final double[] ma10;
+    private final double[] ma20;
+    private final double[] ma60;
+    private final double[] rsi14;
+    private final double[] kdK;
+    private final double[] kdD;
+    private final double[] macdLine;
+    private final double[] macdSignal;
+    private final double[] macdHistogram;
+    private final double[] volumeMa5;
+    private final double[] volumeMa20;
+
+    private IndicatorSeries(BarSeries bars) {
+        double[] close = bars.getClose();
+        this.bars = bars;
+        this.ma5 = IndicatorKernels.sma(close, 5);
+        this.ma10 = IndicatorKernels.sma(close, 10);
+        this.ma20 = IndicatorKernels.sma(close, 20);
+        this.ma60 = IndicatorKernels.sma(close, 60);
+        this.rsi14 = IndicatorKernels.rsi(close, 14);
+
+        double[][] kd = IndicatorKernels.stochastic(bars.getHigh(), bars.getLow(), close, 9);
+        this.kdK = kd[0];
+        this.kdD = kd[1];
+
+        double[][] macd = IndicatorKernels.macd(close, 12, 26, 9);
+        this.macdLine = macd[0];
+        this.macdSignal = macd[1];
+        this.macdHistogram = macd[2];
+
+        this.volumeMa5 = IndicatorKernels.sma(bars.getVolume(), 5);
+        this.volumeMa20 = IndicatorKernels.sma(bars.getVolume(), 20);
+    }
+
+    /**
+     * 計算整段序列的所有指標
+     */
+    public static IndicatorSeries compute(BarSeries bars) {
+        return new IndicatorSeries(bars);
+    }
+
+    public BarSeries getBars() {
+        return bars;
+    }
+
+    public int size() {
+        return bars.size();
+    }
+
+    public double[] getMa5() {
+        return ma5;
+    }
+
+    public double[] getMa10() {
+        return ma10;
+    }
+
+    public double[] getMa20() {
+        return ma20;
+    }
+
+    public double[] getMa60() {
+        return ma60;
+    }
+
+    public double[] getRsi14() {
+        return rsi14;
+    }
+
+    public double[] getKdK() {
+        return kdK;
+    }
+
+    public double[] getKdD() {
+        return kdD;
+    }
+
+    public double[] getMacdLine() {
+        return macdLine;
+    }
+
+    public double[] getMacdSignal() {
+        return macdSignal;
+    }
+
+    public double[] getMacdHistogram() {
+        return macdHistogram;
+    }
+
+    public double[] getVolumeMa5() {
+        return volumeMa5;
+    }
+
+    public double[] getVolumeMa20() {
+        return volumeMa20;
+    }
+
+    /**
+     * 最新一根 K 棒的技術指標
+     */
+    public TechnicalIndicator latest(LocalDateTime calculationDate) {
+        return toIndicator(size() - 1, calculationDate);
+    }
+
+    /**
+     * 指定 K 棒的技術指標，數值於此轉為 BigDecimal
+     */
+    public TechnicalIndicator toIndicator(int index, LocalDateTime calculationDate) {
+        TechnicalIndicator indicator = TechnicalIndicator.builder()
+                .stockCode(bars.getStockCode())
+                .calculationDate(calculationDate)
+                .dataPointsCount(index + 1)
+                .ma5(decimal(ma5[index], 2))
+                .ma10(decimal(ma10[index], 2))
+                .ma20(decimal(ma20[index], 2))
+                .ma60(decimal(ma60[index], 2))
+                .rsi14(decimal(rsi14[index], 2))
+                .kdK(decimal(kdK[index], 2))
+                .kdD(decimal(kdD[index], 2))
+                .macdLine(decimal(macdLine[index], 4))
+                .macdSignal(decimal(macdSignal[index], 4))
+                .macdHistogram(decimal(macdHistogram[index], 4))
+                .build();
+
+        if (!Double.isNaN(volumeMa5[index])) {
+            indicator.setVolumeMa5((long) volumeMa5[index]);
+        }
+        if (!Double.isNaN(volumeMa20[index])) {
+            long average = (long) volumeMa20[index];
+            indicator.setVolumeMa20(average);
+            if (average > 0) {
+                indicator.setVolumeRatio(BigDecimal.valueOf(bars.getVolume()[index])
+                        .divide(BigDecimal.valueOf(average), 2, RoundingMode.HALF_UP));
+            }
+        }
+        return indicator;
+    }
+
+    /**
+     * 轉為 BigDecimal，NaN 視為無值
+     */
+    static BigDecimal decimal(double value, int scale) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
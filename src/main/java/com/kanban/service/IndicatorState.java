@@ -0,0 +1,434 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.TechnicalIndicator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 單檔股票的滾動技術指標狀態
+ * 已收盤的日 K 以固定大小環狀緩衝累積（價格以「分」為單位的 long，加總不會累積誤差），
+ * 當日尚未收盤的 K 棒保留為 pending，每次報價只重算 pending 對應的指標值；
+ * 交易日前進時才將 pending 併入狀態。每次更新皆為 O(1)。
+ *
+ * 指標定義：SMA 5/10/20/60、Wilder RSI(14)、KD(9) 以前一日 K/D 遞迴平滑（起始 50）、
+ * MACD(12, 26, 9) 的 EMA 以首 N 筆 SMA 起算。非執行緒安全，由 IncrementalIndicatorEngine 同步存取。
+ */
+public final class IndicatorState {
+
+    static final int SCHEMA_VERSION = 1;
+
+    private static final int PRICE_WINDOW = 60;
+    private static final int VOLUME_WINDOW = 20;
+    private static final int RSI_PERIOD = 14;
+    private static final int KD_PERIOD = 9;
+    private static final int EMA_FAST = 12;
+    private static final int EMA_SLOW = 26;
+    private static final int SIGNAL_PERIOD = 9;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final String stockCode;
+
+    // 已收盤 K 棒
+    private int count;
+    private long lastTradeDay = NO_DATE;
+    private final long[] closes = new long[PRICE_WINDOW];
+    private final long[] highs = new long[KD_PERIOD];
+    private final long[] lows = new long[KD_PERIOD];
+    private final long[] volumes = new long[VOLUME_WINDOW];
+    private long sum5;
+    private long sum10;
+    private long sum20;
+    private long sum60;
+    private long volumeSum5;
+    private long volumeSum20;
+    // RSI 起算期間為漲跌幅加總，之後為 Wilder 平均
+    private double avgGain;
+    private double avgLoss;
+    private double k = 50;
+    private double d = 50;
+    private double emaFast;
+    private double emaSlow;
+    // Signal 起算期間為 MACD 加總，之後為 EMA
+    private double signal;
+
+    // 當日尚未收盤的 K 棒
+    private boolean hasPending;
+    private long pendingDay = NO_DATE;
+    private long pendingHigh;
+    private long pendingLow;
+    private long pendingClose;
+    private long pendingVolume;
+
+    public IndicatorState(String stockCode) {
+        this.stockCode = stockCode;
+    }
+
+    public String getStockCode() {
+        return stockCode;
+    }
+
+    /**
+     * 已套用的 K 棒數（含當日）
+     */
+    public int getBarCount() {
+        return hasPending ? count + 1 : count;
+    }
+
+    public LocalDate getLastTradeDate() {
+        return toDate(hasPending ? pendingDay : lastTradeDay);
+    }
+
+    /**
+     * 套用一筆報價；同一交易日覆寫當日 K 棒，較新的交易日先將前一日收盤併入狀態
+     * 早於目前交易日的報價會被忽略
+     */
+    public boolean apply(LocalDate tradeDate, BigDecimal high, BigDecimal low, BigDecimal close, Long volume) {
+        if (tradeDate == null || close == null) {
+            return false;
+        }
+        long closeCents = toCents(close);
+        return apply(tradeDate.toEpochDay(),
+                high != null ? toCents(high) : closeCents,
+                low != null ? toCents(low) : closeCents,
+                closeCents,
+                volume != null ? volume : 0L);
+    }
+
+    /**
+     * 以基本型別套用一筆 K 棒（價格單位為分）
+     */
+    public boolean apply(long epochDay, long highCents, long lowCents, long closeCents, long volume) {
+        if (hasPending && epochDay < pendingDay) {
+            return false;
+        }
+        if (!hasPending && lastTradeDay != NO_DATE && epochDay <= lastTradeDay) {
+            return false;
+        }
+        if (hasPending && epochDay > pendingDay) {
+            commit(step(pendingClose, pendingHigh, pendingLow, pendingVolume));
+        }
+
+        hasPending = true;
+        pendingDay = epochDay;
+        pendingClose = closeCents;
+        pendingHigh = highCents;
+        pendingLow = lowCents;
+        pendingVolume = volume;
+        return true;
+    }
+
+    /**
+     * 套用另一份狀態中尚未收盤的當日 K 棒，規則與 apply 相同；呼叫端須持有 other 的鎖
+     * @return 有套用時為 true
+     */
+    public boolean applyPending(IndicatorState other) {
+        return other.hasPending && apply(other.pendingDay, other.pendingHigh, other.pendingLow,
+                other.pendingClose, other.pendingVolume);
+    }
+
+    /**
+     * 依序重播整段 K 棒序列
+     */
+    public void replay(BarSeries series) {
+        long[] epochDays = series.getEpochDays();
+        double[] high = series.getHigh();
+        double[] low = series.getLow();
+        double[] close = series.getClose();
+        long[] volume = series.getVolume();
+        for (int i = 0; i < series.size(); i++) {
+            apply(epochDays[i], Math.round(high[i] * 100), Math.round(low[i] * 100),
+                    Math.round(close[i] * 100), volume[i]);
+        }
+    }
+
+    /**
+     * 以目前狀態（含當日 K 棒）建立技術指標，數值於此轉為 BigDecimal
+     */
+    public TechnicalIndicator toIndicator(LocalDateTime calculationDate) {
+        TechnicalIndicator indicator = TechnicalIndicator.builder()
+                .stockCode(stockCode)
+                .calculationDate(calculationDate)
+                .dataPointsCount(getBarCount())
+                .build();
+        if (!hasPending) {
+            return indicator;
+        }
+
+        Step s = step(pendingClose, pendingHigh, pendingLow, pendingVolume);
+        int bars = s.bars;
+
+        if (bars >= 5) {
+            indicator.setMa5(average(s.sum5, 5));
+        }
+        if (bars >= 10) {
+            indicator.setMa10(average(s.sum10, 10));
+        }
+        if (bars >= 20) {
+            indicator.setMa20(average(s.sum20, 20));
+        }
+        if (bars >= 60) {
+            indicator.setMa60(average(s.sum60, 60));
+        }
+
+        if (bars > RSI_PERIOD) {
+            if (s.avgLoss == 0) {
+                indicator.setRsi14(HUNDRED);
+            } else {
+                double rsi = 100 - 100 / (1 + s.avgGain / s.avgLoss);
+                indicator.setRsi14(decimal(rsi, 2));
+            }
+        }
+
+        if (bars >= KD_PERIOD) {
+            indicator.setKdK(decimal(s.k, 2));
+            indicator.setKdD(decimal(s.d, 2));
+        }
+
+        if (bars >= EMA_SLOW) {
+            double macd = (s.emaFast - s.emaSlow) / 100;
+            indicator.setMacdLine(decimal(macd, 4));
+            if (bars >= EMA_SLOW + SIGNAL_PERIOD - 1) {
+                double signalLine = s.signal / 100;
+                indicator.setMacdSignal(decimal(signalLine, 4));
+                indicator.setMacdHistogram(decimal(macd - signalLine, 4));
+            }
+        }
+
+        if (bars >= 5) {
+            indicator.setVolumeMa5(s.volumeSum5 / 5);
+        }
+        if (bars >= 20) {
+            long volumeMa20 = s.volumeSum20 / 20;
+            indicator.setVolumeMa20(volumeMa20);
+            if (volumeMa20 > 0) {
+                indicator.setVolumeRatio(BigDecimal.valueOf(pendingVolume)
+                        .divide(BigDecimal.valueOf(volumeMa20), 2, RoundingMode.HALF_UP));
+            }
+        }
+        return indicator;
+    }
+
+    /**
+     * 計算加入一根 K 棒後的各項累計值，不修改狀態
+     */
+    private Step step(long close, long high, long low, long volume) {
+        int n = count;
+        Step s = new Step();
+        s.bars = n + 1;
+
+        s.sum5 = sum5 + close - droppedClose(n, 5);
+        s.sum10 = sum10 + close - droppedClose(n, 10);
+        s.sum20 = sum20 + close - droppedClose(n, 20);
+        s.sum60 = sum60 + close - droppedClose(n, 60);
+        s.volumeSum5 = volumeSum5 + volume - (n >= 5 ? volumes[(n - 5) % VOLUME_WINDOW] : 0);
+        s.volumeSum20 = volumeSum20 + volume - (n >= 20 ? volumes[(n - 20) % VOLUME_WINDOW] : 0);
+
+        s.avgGain = avgGain;
+        s.avgLoss = avgLoss;
+        if (n >= 1) {
+            double change = close - closes[(n - 1) % PRICE_WINDOW];
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+            if (n < RSI_PERIOD) {
+                s.avgGain = avgGain + gain;
+                s.avgLoss = avgLoss + loss;
+            } else if (n == RSI_PERIOD) {
+                s.avgGain = (avgGain + gain) / RSI_PERIOD;
+                s.avgLoss = (avgLoss + loss) / RSI_PERIOD;
+            } else {
+                s.avgGain = (avgGain * (RSI_PERIOD - 1) + gain) / RSI_PERIOD;
+                s.avgLoss = (avgLoss * (RSI_PERIOD - 1) + loss) / RSI_PERIOD;
+            }
+        }
+
+        s.k = k;
+        s.d = d;
+        if (s.bars >= KD_PERIOD) {
+            long highest = high;
+            long lowest = low;
+            for (int i = 1; i < KD_PERIOD; i++) {
+                int index = (n - i) % KD_PERIOD;
+                highest = Math.max(highest, highs[index]);
+                lowest = Math.min(lowest, lows[index]);
+            }
+            double rsv = highest == lowest ? 50 : (close - lowest) * 100.0 / (highest - lowest);
+            s.k = (2 * k + rsv) / 3;
+            s.d = (2 * d + s.k) / 3;
+        }
+
+        s.emaFast = nextEma(emaFast, close, s.bars, EMA_FAST);
+        s.emaSlow = nextEma(emaSlow, close, s.bars, EMA_SLOW);
+        s.signal = signal;
+        if (s.bars >= EMA_SLOW) {
+            double macd = s.emaFast - s.emaSlow;
+            int macdCount = s.bars - EMA_SLOW + 1;
+            if (macdCount < SIGNAL_PERIOD) {
+                s.signal = signal + macd;
+            } else if (macdCount == SIGNAL_PERIOD) {
+                s.signal = (signal + macd) / SIGNAL_PERIOD;
+            } else {
+                s.signal = signal + (macd - signal) * 2.0 / (SIGNAL_PERIOD + 1);
+            }
+        }
+        return s;
+    }
+
+    private void commit(Step s) {
+        int n = count;
+        closes[n % PRICE_WINDOW] = pendingClose;
+        highs[n % KD_PERIOD] = pendingHigh;
+        lows[n % KD_PERIOD] = pendingLow;
+        volumes[n % VOLUME_WINDOW] = pendingVolume;
+        sum5 = s.sum5;
+        sum10 = s.sum10;
+        sum20 = s.sum20;
+        sum60 = s.sum60;
+        volumeSum5 = s.volumeSum5;
+        volumeSum20 = s.volumeSum20;
+        avgGain = s.avgGain;
+        avgLoss = s.avgLoss;
+        k = s.k;
+        d = s.d;
+        emaFast = s.emaFast;
+        emaSlow = s.emaSlow;
+        signal = s.signal;
+        count = s.bars;
+        lastTradeDay = pendingDay;
+        hasPending = false;
+    }
+
+    private long droppedClose(int n, int period) {
+        return n >= period ? closes[(n - period) % PRICE_WINDOW] : 0;
+    }
+
+    private double nextEma(double ema, long close, int bars, int period) {
+        if (bars < period) {
+            return 0;
+        }
+        if (bars == period) {
+            long sum = close;
+            for (int i = 1; i < period; i++) {
+                sum += closes[(count - i) % PRICE_WINDOW];
+            }
+            return (double) sum / period;
+        }
+        return ema + (close - ema) * 2.0 / (period + 1);
+    }
+
+    /**
+     * 編碼為檢查點資料
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedLength());
+        buffer.putInt(SCHEMA_VERSION);
+        buffer.putInt(count);
+        buffer.putLong(lastTradeDay);
+        for (long value : closes) buffer.putLong(value);
+        for (long value : highs) buffer.putLong(value);
+        for (long value : lows) buffer.putLong(value);
+        for (long value : volumes) buffer.putLong(value);
+        buffer.putLong(sum5).putLong(sum10).putLong(sum20).putLong(sum60);
+        buffer.putLong(volumeSum5).putLong(volumeSum20);
+        buffer.putDouble(avgGain).putDouble(avgLoss);
+        buffer.putDouble(k).putDouble(d);
+        buffer.putDouble(emaFast).putDouble(emaSlow).putDouble(signal);
+        buffer.put((byte) (hasPending ? 1 : 0));
+        buffer.putLong(pendingDay);
+        buffer.putLong(pendingHigh).putLong(pendingLow).putLong(pendingClose).putLong(pendingVolume);
+        return buffer.array();
+    }
+
+    /**
+     * 由檢查點資料還原，版本不符或資料不完整時回傳 null
+     */
+    public static IndicatorState fromBytes(String stockCode, byte[] data) {
+        if (data == null || data.length != encodedLength()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.getInt() != SCHEMA_VERSION) {
+                return null;
+            }
+            IndicatorState state = new IndicatorState(stockCode);
+            state.count = buffer.getInt();
+            state.lastTradeDay = buffer.getLong();
+            for (int i = 0; i < PRICE_WINDOW; i++) state.closes[i] = buffer.getLong();
+            for (int i = 0; i < KD_PERIOD; i++) state.highs[i] = buffer.getLong();
+            for (int i = 0; i < KD_PERIOD; i++) state.lows[i] = buffer.getLong();
+            for (int i = 0; i < VOLUME_WINDOW; i++) state.volumes[i] = buffer.getLong();
+            state.sum5 = buffer.getLong();
+            state.sum10 = buffer.getLong();
+            state.sum20 = buffer.getLong();
+            state.sum60 = buffer.getLong();
+            state.volumeSum5 = buffer.getLong();
+            state.volumeSum20 = buffer.getLong();
+            state.avgGain = buffer.getDouble();
+            state.avgLoss = buffer.getDouble();
+            state.k = buffer.getDouble();
+            state.d = buffer.getDouble();
+            state.emaFast = buffer.getDouble();
+            state.emaSlow = buffer.getDouble();
+            state.signal = buffer.getDouble();
+            state.hasPending = buffer.get() == 1;
+            state.pendingDay = buffer.getLong();
+            state.pendingHigh = buffer.getLong();
+            state.pendingLow = buffer.getLong();
+            state.pendingClose = buffer.getLong();
+            state.pendingVolume = buffer.getLong();
+            return state;
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static int encodedLength() {
+        int longs = 1 + PRICE_WINDOW + KD_PERIOD * 2 + VOLUME_WINDOW + 6 + 1 + 4;
+        int doubles = 7;
+        return Integer.BYTES * 2 + Long.BYTES * longs + Double.BYTES * doubles + 1;
+    }
+
+    private static LocalDate toDate(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal average(long sumCents, int period) {
+        return BigDecimal.valueOf(sumCents, 2).divide(BigDecimal.valueOf(period), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal decimal(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 加入一根 K 棒後的累計值
+     */
+    private static final class Step {
+        int bars;
+        long sum5;
+        long sum10;
+        long sum20;
+        long sum60;
+        long volumeSum5;
+        long volumeSum20;
+        double avgGain;
+        double avgLoss;
+        double k;
+        double d;
+        double emaFast;
+        double emaSlow;
+        double signal;
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -56,9 +57,10 @@ public class KanbanService {
             cardPage = cardRepository.findByUserIdAndStatusNot(userId, Card.CardStatus.ARCHIVED, pageable);
         }
         
-        // Convert to DTOs with stock data
+        // Convert to DTOs with stock data (one batch lookup for the whole page)
+        Map<String, StockSnapshot> snapshots = loadSnapshots(cardPage.getContent());
         List<CardDto> cardDtos = cardPage.getContent().stream()
-                .map(this::convertToDto)
+                .map(card -> convertToDto(card, snapshots.get(card.getStockCode())))
                 .collect(Collectors.toList());
         
         // Create pagination info
@@ -142,7 +144,32 @@ public class KanbanService {
         return cardRepository.countByUserIdAndStatus(userId, status);
     }
     
+    private Map<String, StockSnapshot> loadSnapshots(List<Card> cards) {
+        try {
+            List<String> stockCodes = cards.stream()
+                    .map(Card::getStockCode)
+                    .distinct()
+                    .toList();
+            return stockDataService.getSnapshots(stockCodes);
+        } catch (Exception e) {
+            log.warn("Failed to get stock data for {} cards: {}", cards.size(), e.getMessage());
+            // Continue without stock data
+            return Map.of();
+        }
+    }
+    
     private CardDto convertToDto(Card card) {
+        StockSnapshot snapshot = null;
+        try {
+            snapshot = stockDataService.getSnapshot(card.getStockCode());
+        } catch (Exception e) {
+            log.warn("Failed to get stock data for {}: {}", card.getStockCode(), e.getMessage());
+            // Continue without stock data
+        }
+        return convertToDto(card, snapshot);
+    }
+    
+    private CardDto convertToDto(Card card, StockSnapshot snapshot) {
         CardDto.CardDtoBuilder builder = CardDto.builder()
                 .id(card.getId())
                 .stockCode(card.getStockCode())
@@ -153,26 +180,20 @@ public class KanbanService {
                 .updatedAt(card.getUpdatedAt());
         
         // Enrich with stock data if available
-        try {
-            StockSnapshot snapshot = stockDataService.getSnapshot(card.getStockCode());
-            if (snapshot != null) {
-                builder.currentPrice(snapshot.getCurrentPrice())
-                       .changePercent(snapshot.getChangePercent())
-                       .volume(snapshot.getVolume())
-                       .ma20(snapshot.getMa20())
-                       .rsi(snapshot.getRsi())
-                       .dataUpdatedAt(snapshot.getUpdatedAt())
-                       .dataSource(snapshot.getDataSource())
-                       .delayMinutes(snapshot.getDelayMinutes());
-                
-                // Update stock name if it's different
-                if (snapshot.getName() != null && !snapshot.getName().equals(card.getStockName())) {
-                    builder.stockName(snapshot.getName());
-                }
+        if (snapshot != null) {
+            builder.currentPrice(snapshot.getCurrentPrice())
+                   .changePercent(snapshot.getChangePercent())
+                   .volume(snapshot.getVolume())
+                   .ma20(snapshot.getMa20())
+                   .rsi(snapshot.getRsi())
+                   .dataUpdatedAt(snapshot.getUpdatedAt())
+                   .dataSource(snapshot.getDataSource())
+                   .delayMinutes(snapshot.getDelayMinutes());
+            
+            // Update stock name if it's different
+            if (snapshot.getName() != null && !snapshot.getName().equals(card.getStockName())) {
+                builder.stockName(snapshot.getName());
             }
-        } catch (Exception e) {
-            log.warn("Failed to get stock data for {}: {}", card.getStockCode(), e.getMessage());
-            // Continue without stock data
         }
         
         return builder.build();
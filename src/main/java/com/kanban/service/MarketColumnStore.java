@@ -0,0 +1,212 @@
+package com.kanban.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 全市場欄式快照
+ * 每個 RuleField 一個 double[] 欄位，以股票序號索引，缺值為 NaN；
+ * 指標欄位另保留前一個交易日的值，供 crossesAbove / crossesBelow 使用。
+ * 寫入為單檔股票的整列更新，掃描以讀鎖保護，同一檔股票的欄位不會讀到一半
+ */
+final class MarketColumnStore {
+
+    private static final int INITIAL_CAPACITY = 2048;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private final double[][] columns = new double[RuleField.FRAME_SIZE][];
+    private final double[][] previousColumns = new double[RuleField.FRAME_SIZE][];
+    /** 各股票當期指標所屬交易日（epoch day），尚無指標時為 Long.MIN_VALUE */
+    private long[] indicatorDays = emptyDays(INITIAL_CAPACITY);
+    private int size;
+
+    MarketColumnStore() {
+        for (int field = 0; field < RuleField.FRAME_SIZE; field++) {
+            columns[field] = emptyColumn(INITIAL_CAPACITY);
+            previousColumns[field] = emptyColumn(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * 以評估框架更新單檔股票的快照欄位
+     * @param frame RuleField.frame 建立的框架
+     */
+    void updateSnapshot(String stockCode, String stockName, double[] frame) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(stockCode);
+            if (stockName != null) {
+                names[ordinal] = stockName;
+            }
+            write(ordinal, frame, RuleField.Source.SNAPSHOT, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以評估框架更新單檔股票的指標欄位
+     * 前一期以交易日為單位：換日時原值移入前一期欄位，同一交易日內的更新只覆寫當期值
+     * @param frame RuleField.frame 建立的框架
+     * @param tradingDay 指標所屬交易日（epoch day）
+     */
+    void updateIndicator(String stockCode, double[] frame, long tradingDay) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(stockCode);
+            boolean newDay = tradingDay > indicatorDays[ordinal];
+            if (tradingDay >= indicatorDays[ordinal]) {
+                write(ordinal, frame, RuleField.Source.INDICATOR, newDay);
+                indicatorDays[ordinal] = tradingDay;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(int ordinal, double[] frame, RuleField.Source source, boolean shiftPrevious) {
+        for (RuleField field : RuleField.values()) {
+            if (field.getSource() != source) {
+                continue;
+            }
+            int slot = field.ordinal();
+            if (shiftPrevious) {
+                previousColumns[slot][ordinal] = columns[slot][ordinal];
+            }
+            columns[slot][ordinal] = frame[slot];
+        }
+    }
+
+    /**
+     * 以條件掃描所有股票
+     * 只複製條件引用的欄位到重複使用的框架，前一期框架的價格取前收盤價、指標取前一個交易日的值，與 RuleField.previousFrame 相同
+     * @return 符合條件的股票序號
+     */
+    int[] filter(CompiledCondition condition) {
+        int[] referenced = condition.getReferencedFields().stream().mapToInt(Enum::ordinal).toArray();
+        boolean usesPrevious = condition.usesPrevious();
+        double[] current = emptyColumn(RuleField.FRAME_SIZE);
+        double[] previous = emptyColumn(RuleField.FRAME_SIZE);
+        int previousClose = RuleField.PREVIOUS_CLOSE.ordinal();
+        int price = RuleField.PRICE.ordinal();
+
+        lock.readLock().lock();
+        try {
+            int[] matches = new int[size];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                for (int slot : referenced) {
+                    current[slot] = columns[slot][row];
+                    if (usesPrevious) {
+                        previous[slot] = slot == price ? columns[previousClose][row] : previousColumns[slot][row];
+                    }
+                }
+                if (condition.test(current, usesPrevious ? previous : null)) {
+                    matches[count++] = row;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 一次讀取多檔股票的欄位值；序號來自 filter 的結果
+     */
+    double[] values(RuleField field, int[] rows) {
+        double[] result = new double[rows.length];
+        lock.readLock().lock();
+        try {
+            double[] column = columns[field.ordinal()];
+            for (int i = 0; i < rows.length; i++) {
+                result[i] = column[rows[i]];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    String[] codes(int[] rows) {
+        return select(rows, false);
+    }
+
+    String[] names(int[] rows) {
+        return select(rows, true);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String[] select(int[] rows, boolean stockNames) {
+        String[] result = new String[rows.length];
+        lock.readLock().lock();
+        try {
+            String[] column = stockNames ? names : codes;
+            for (int i = 0; i < rows.length; i++) {
+                result[i] = column[rows[i]];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int ordinalOf(String stockCode) {
+        Integer ordinal = ordinals.get(stockCode);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (size == codes.length) {
+            grow();
+        }
+        codes[size] = stockCode;
+        ordinals.put(stockCode, size);
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = codes.length * 2;
+        codes = Arrays.copyOf(codes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        long[] days = emptyDays(capacity);
+        System.arraycopy(indicatorDays, 0, days, 0, indicatorDays.length);
+        indicatorDays = days;
+        for (int field = 0; field < RuleField.FRAME_SIZE; field++) {
+            columns[field] = growColumn(columns[field], capacity);
+            previousColumns[field] = growColumn(previousColumns[field], capacity);
+        }
+    }
+
+    private static double[] growColumn(double[] column, int capacity) {
+        double[] grown = Arrays.copyOf(column, capacity);
+        Arrays.fill(grown, column.length, capacity, Double.NaN);
+        return grown;
+    }
+
+    private static long[] emptyDays(int length) {
+        long[] days = new long[length];
+        Arrays.fill(days, Long.MIN_VALUE);
+        return days;
+    }
+
+    private static double[] emptyColumn(int length) {
+        double[] column = new double[length];
+        Arrays.fill(column, Double.NaN);
+        return column;
+    }
+}
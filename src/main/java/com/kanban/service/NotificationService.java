@@ -1,5 +1,6 @@
 package com.kanban.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kanban.domain.entity.Notification;
 import com.kanban.domain.entity.User;
@@ -18,7 +19,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,31 +46,7 @@ public class NotificationService {
             User user = userRepository.findById(event.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("使用者不存在"));
 
-            String title = String.format("規則觸發: %s", event.getRuleName());
-            String message = String.format(
-                "股票 %s (%s) 觸發規則 '%s'，狀態從 %s 變更為 %s",
-                event.getStockName(),
-                event.getStockCode(),
-                event.getRuleName(),
-                event.getPreviousStatus() != null ? event.getPreviousStatus().getDisplayName() : "無",
-                event.getNewStatus().getDisplayName()
-            );
-
-            String metadata = objectMapper.writeValueAsString(event);
-
-            Notification notification = Notification.builder()
-                .user(user)
-                .title(title)
-                .message(message)
-                .type(Notification.NotificationType.RULE_TRIGGERED)
-                .ruleId(event.getRuleId())
-                .cardId(event.getCardId())
-                .stockCode(event.getStockCode())
-                .metadata(metadata)
-                .isRead(false)
-                .build();
-
-            Notification savedNotification = notificationRepository.save(notification);
+            Notification savedNotification = notificationRepository.save(buildRuleTriggeredNotification(event, user));
 
             log.info("建立規則觸發通知: userId={}, ruleId={}, notificationId={}",
                     event.getUserId(), event.getRuleId(), savedNotification.getId());
@@ -82,6 +63,44 @@ public class NotificationService {
         }
     }
 
+    /**
+     * 批次建立規則觸發通知：使用者一次查出、通知以單次 saveAll 寫入，再逐一推送 WebSocket
+     */
+    @Transactional
+    @Async
+    public void createRuleTriggeredNotifications(List<RuleNotificationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            Set<String> userIds = events.stream()
+                .map(RuleNotificationEvent::getUserId)
+                .collect(Collectors.toSet());
+            Map<String, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+            List<Notification> notifications = new ArrayList<>(events.size());
+            for (RuleNotificationEvent event : events) {
+                User user = users.get(event.getUserId());
+                if (user == null) {
+                    log.warn("建立規則觸發通知失敗，使用者不存在: userId={}, ruleId={}",
+                            event.getUserId(), event.getRuleId());
+                    continue;
+                }
+                notifications.add(buildRuleTriggeredNotification(event, user));
+            }
+
+            List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
+            log.info("批次建立規則觸發通知: 數量={}", savedNotifications.size());
+
+            for (Notification notification : savedNotifications) {
+                webSocketService.sendNotificationToUser(notification.getUser().getId(), convertToDto(notification));
+            }
+        } catch (Exception e) {
+            log.error("批次建立規則觸發通知失敗: 數量={}, error={}", events.size(), e.getMessage(), e);
+        }
+    }
+
     /**
      * 建立一般通知
      */
@@ -224,6 +243,33 @@ public class NotificationService {
         log.info("刪除通知: userId={}, notificationId={}", userId, notificationId);
     }
 
+    /**
+     * 建立規則觸發通知實體
+     */
+    private Notification buildRuleTriggeredNotification(RuleNotificationEvent event, User user) throws JsonProcessingException {
+        String title = String.format("規則觸發: %s", event.getRuleName());
+        String message = String.format(
+            "股票 %s (%s) 觸發規則 '%s'，狀態從 %s 變更為 %s",
+            event.getStockName(),
+            event.getStockCode(),
+            event.getRuleName(),
+            event.getPreviousStatus() != null ? event.getPreviousStatus().getDisplayName() : "無",
+            event.getNewStatus().getDisplayName()
+        );
+
+        return Notification.builder()
+            .user(user)
+            .title(title)
+            .message(message)
+            .type(Notification.NotificationType.RULE_TRIGGERED)
+            .ruleId(event.getRuleId())
+            .cardId(event.getCardId())
+            .stockCode(event.getStockCode())
+            .metadata(objectMapper.writeValueAsString(event))
+            .isRead(false)
+            .build();
+    }
+
     /**
      * 轉換為 DTO
      */
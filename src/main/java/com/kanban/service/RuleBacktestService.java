@@ -0,0 +1,296 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.dto.rule.RuleBacktestRequest;
+import com.kanban.dto.rule.RuleBacktestResult;
+import com.kanban.dto.rule.RuleBacktestSignal;
+import com.kanban.dto.rule.RuleBacktestStockResult;
+import com.kanban.exception.ResourceNotFoundException;
+import com.kanban.repository.RuleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * 規則回測
+ * 以單一查詢依股票代碼與日期排序串流讀取 historical_prices，逐列填入基本型別陣列；
+ * 每讀完一檔股票就送到 indicatorComputePool，以 IndicatorSeries 算出整段指標後逐根 K 棒評估規則 DSL，
+ * 讀取與運算重疊進行，不建立 HistoricalPrice 實體
+ */
+@Service
+@Slf4j
+public class RuleBacktestService {
+
+    private static final String SELECT_PRICES =
+            "SELECT stock_code, trade_date, open_price, high_price, low_price, close_price, volume " +
+            "FROM historical_prices WHERE trade_date BETWEEN :from AND :to";
+
+    private static final String ORDER_BY = " ORDER BY stock_code, trade_date";
+
+    private final RuleRepository ruleRepository;
+    private final RuleEvaluationService evaluationService;
+    private final ForkJoinPool indicatorComputePool;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int warmUpDays;
+    private final int maxSignals;
+
+    public RuleBacktestService(RuleRepository ruleRepository,
+                               RuleEvaluationService evaluationService,
+                               ForkJoinPool indicatorComputePool,
+                               DataSource dataSource,
+                               @Value("${kanban.rules.backtest.fetch-size:5000}") int fetchSize,
+                               @Value("${kanban.rules.backtest.warm-up-days:180}") int warmUpDays,
+                               @Value("${kanban.rules.backtest.max-signals-per-stock:100}") int maxSignals) {
+        this.ruleRepository = ruleRepository;
+        this.evaluationService = evaluationService;
+        this.indicatorComputePool = indicatorComputePool;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+        this.warmUpDays = warmUpDays;
+        this.maxSignals = maxSignals;
+    }
+
+    /**
+     * 以歷史價格回測規則條件
+     * 開始日期前另讀取 warm-up-days 的 K 棒讓均線與 MACD 收斂，但只評估區間內的 K 棒
+     */
+    @Transactional(readOnly = true)
+    public RuleBacktestResult backtest(String userId, String ruleId, RuleBacktestRequest request) {
+        Rule rule = ruleRepository.findById(ruleId)
+            .orElseThrow(() -> new ResourceNotFoundException("規則不存在"));
+        if (!rule.getUser().getId().equals(userId)) {
+            throw new AccessDeniedException("無權限存取此規則");
+        }
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("結束日期不能早於開始日期");
+        }
+
+        CompiledCondition condition;
+        try {
+            condition = evaluationService.compileCondition(rule.getConditionExpression());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("回測僅支援規則 DSL 條件: " + e.getMessage(), e);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        Card.CardStatus initialStatus = request.getInitialStatus() != null
+                ? request.getInitialStatus() : Card.CardStatus.WATCH;
+        long fromEpochDay = request.getStartDate().toEpochDay();
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Date.valueOf(request.getStartDate().minusDays(warmUpDays)))
+                .addValue("to", Date.valueOf(request.getEndDate()));
+        String sql = SELECT_PRICES;
+        if (request.getStockCodes() != null && !request.getStockCodes().isEmpty()) {
+            sql += " AND stock_code IN (:stockCodes)";
+            params.addValue("stockCodes", request.getStockCodes());
+        }
+
+        List<ForkJoinTask<RuleBacktestStockResult>> tasks = new ArrayList<>();
+        SeriesReader reader = new SeriesReader(bars -> tasks.add(indicatorComputePool.submit(
+                () -> simulate(condition, rule, bars, fromEpochDay, initialStatus))));
+        jdbcTemplate.query(sql + ORDER_BY, params, reader);
+        reader.emit();
+
+        long barCount = 0;
+        long matchCount = 0;
+        long signalCount = 0;
+        long moveCount = 0;
+        List<RuleBacktestStockResult> stocks = new ArrayList<>();
+        for (ForkJoinTask<RuleBacktestStockResult> task : tasks) {
+            RuleBacktestStockResult stock = task.join();
+            barCount += stock.getBarCount();
+            matchCount += stock.getMatchCount();
+            signalCount += stock.getSignalCount();
+            moveCount += stock.getMoveCount();
+            if (stock.getMatchCount() > 0) {
+                stocks.add(stock);
+            }
+        }
+        stocks.sort(Comparator.comparing(RuleBacktestStockResult::getStockCode));
+
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        log.info("規則回測完成: ruleId={}, 股票數={}, K棒數={}, 成立次數={}, 耗時={}ms",
+                ruleId, tasks.size(), barCount, matchCount, elapsedMs);
+
+        return RuleBacktestResult.builder()
+                .ruleId(rule.getId())
+                .ruleName(rule.getName())
+                .conditionExpression(rule.getConditionExpression())
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .stockCount(tasks.size())
+                .barCount(barCount)
+                .matchCount(matchCount)
+                .signalCount(signalCount)
+                .moveCount(moveCount)
+                .elapsedMs(elapsedMs)
+                .stocks(stocks)
+                .build();
+    }
+
+    /**
+     * 模擬單檔股票的卡片：條件成立且距上次移動卡片已過冷卻時間即為一次觸發訊號，
+     * 卡片狀態不同於目標時移動卡片並開始冷卻，已是目標狀態時不開始冷卻，與 RuleExecutionService 的判斷相同；
+     * 冷卻時間以兩根 K 棒日期相差的日曆天數換算，與即時執行以實際經過時間計算相同
+     */
+    RuleBacktestStockResult simulate(CompiledCondition condition, Rule rule, BarSeries bars,
+                                     long fromEpochDay, Card.CardStatus initialStatus) {
+        IndicatorSeries series = IndicatorSeries.compute(bars);
+        long[] epochDays = bars.getEpochDays();
+        long cooldownSeconds = rule.getCooldownSeconds() != null ? rule.getCooldownSeconds() : 0L;
+        Card.CardStatus targetStatus = rule.getTargetStatus();
+
+        double[] current = new double[RuleField.FRAME_SIZE];
+        double[] previous = new double[RuleField.FRAME_SIZE];
+        Card.CardStatus status = initialStatus;
+        long lastMoveDay = Long.MIN_VALUE;
+        int evaluated = 0;
+        int matchCount = 0;
+        int signalCount = 0;
+        int moveCount = 0;
+        LocalDate firstMatch = null;
+        LocalDate lastMatch = null;
+        List<RuleBacktestSignal> signals = new ArrayList<>();
+
+        for (int i = 0; i < series.size(); i++) {
+            RuleField.fill(current, series, i, status);
+            if (epochDays[i] >= fromEpochDay) {
+                evaluated++;
+                if (condition.test(current, i > 0 ? previous : null)) {
+                    matchCount++;
+                    lastMatch = bars.getTradeDate(i);
+                    if (firstMatch == null) {
+                        firstMatch = lastMatch;
+                    }
+                    if (lastMoveDay == Long.MIN_VALUE
+                            || (epochDays[i] - lastMoveDay) * 86_400L >= cooldownSeconds) {
+                        boolean moved = status != targetStatus;
+                        signalCount++;
+                        if (moved) {
+                            moveCount++;
+                            lastMoveDay = epochDays[i];
+                        }
+                        if (signals.size() < maxSignals) {
+                            signals.add(RuleBacktestSignal.builder()
+                                    .tradeDate(lastMatch)
+                                    .closePrice(IndicatorSeries.decimal(bars.getClose()[i], 2))
+                                    .moved(moved)
+                                    .previousStatus(status)
+                                    .newStatus(targetStatus)
+                                    .build());
+                        }
+                        status = targetStatus;
+                    }
+                }
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return RuleBacktestStockResult.builder()
+                .stockCode(bars.getStockCode())
+                .barCount(evaluated)
+                .matchCount(matchCount)
+                .firstMatchDate(firstMatch)
+                .lastMatchDate(lastMatch)
+                .finalStatus(status)
+                .signalCount(signalCount)
+                .moveCount(moveCount)
+                .signals(signals)
+                .build();
+    }
+
+    /**
+     * 依股票代碼排序的結果集逐列累積為欄式陣列，換股時交出一個 BarSeries
+     */
+    static final class SeriesReader implements RowCallbackHandler {
+
+        private final Consumer<BarSeries> sink;
+
+        private String stockCode;
+        private int size;
+        private long[] epochDays = new long[256];
+        private double[] open = new double[256];
+        private double[] high = new double[256];
+        private double[] low = new double[256];
+        private double[] close = new double[256];
+        private long[] volume = new long[256];
+
+        SeriesReader(Consumer<BarSeries> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String code = rs.getString(1);
+            if (!code.equals(stockCode)) {
+                emit();
+                stockCode = code;
+            }
+            if (size == epochDays.length) {
+                grow();
+            }
+
+            double closePrice = rs.getDouble(6);
+            epochDays[size] = rs.getDate(2).toLocalDate().toEpochDay();
+            close[size] = closePrice;
+            open[size] = valueOrDefault(rs, 3, closePrice);
+            high[size] = valueOrDefault(rs, 4, closePrice);
+            low[size] = valueOrDefault(rs, 5, closePrice);
+            volume[size] = rs.getLong(7);
+            size++;
+        }
+
+        /**
+         * 交出目前累積的股票；結果集結束時由呼叫端再呼叫一次以送出最後一檔
+         */
+        void emit() {
+            if (stockCode == null || size == 0) {
+                return;
+            }
+            sink.accept(new BarSeries(stockCode,
+                    Arrays.copyOf(epochDays, size), Arrays.copyOf(open, size), Arrays.copyOf(high, size),
+                    Arrays.copyOf(low, size), Arrays.copyOf(close, size), Arrays.copyOf(volume, size)));
+            stockCode = null;
+            size = 0;
+        }
+
+        private void grow() {
+            int capacity = epochDays.length * 2;
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+
+        private static double valueOrDefault(ResultSet rs, int column, double defaultValue) throws SQLException {
+            double value = rs.getDouble(column);
+            return rs.wasNull() ? defaultValue : value;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Rule;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
+import com.kanban.repository.RuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 規則事件分派器
+ * 依觸發事件與條件引用欄位索引啟用中的規則，收到快照或技術指標變動事件時
+ * 只挑出受影響的規則，累積後以短週期批次交給 RuleExecutionService 評估；
+ * TIME_BASED 規則不由事件觸發，仍由定時全量評估處理；定時全量評估也涵蓋事件觸發的規則，
+ * 補上事件到達時仍在冷卻、新增或修改的規則、新加入的卡片與卡片狀態變更等資料未再變動的情況；
+ * 評估失敗的批次放回待評估，於下次分派重試；
+ * 分派與定時全量評估各自佔用排程執行緒，排程池大小見 spring.task.scheduling.pool.size
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RuleDispatcher {
+
+    /** 各資料來源變動時會觸發的規則事件類型 */
+    private static final Map<RuleField.Source, Set<Rule.TriggerEvent>> TRIGGERS = Map.of(
+        RuleField.Source.SNAPSHOT, EnumSet.of(
+            Rule.TriggerEvent.PRICE_CHANGE, Rule.TriggerEvent.PRICE_ALERT, Rule.TriggerEvent.VOLUME_SPIKE),
+        RuleField.Source.INDICATOR, EnumSet.of(Rule.TriggerEvent.TECHNICAL_INDICATOR)
+    );
+
+    private final RuleRepository ruleRepository;
+    private final RuleEvaluationService evaluationService;
+    private final RuleExecutionService ruleExecutionService;
+
+    /** 觸發事件 → 規則索引，null 表示需要重建 */
+    private volatile Map<Rule.TriggerEvent, List<IndexedRule>> index;
+
+    /** 各股票最近一次的快照與技術指標框架，用來比對變動欄位 */
+    private final Map<String, double[]> lastSnapshotFrames = new ConcurrentHashMap<>();
+    private final Map<String, double[]> lastIndicatorFrames = new ConcurrentHashMap<>();
+
+    /** 待評估：股票代碼 → 規則 ID */
+    private final Map<String, Set<String>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 索引中的規則，只保留 ID 與引用欄位
+     * @param fields 引用欄位，null 表示無法得知（SpEL 條件）
+     */
+    record IndexedRule(String ruleId, Set<RuleField> fields, Set<RuleField.Source> sources) {
+
+        /**
+         * 變動欄位是否可能影響條件結果；條件未引用該來源的欄位時無法判斷，一律視為受影響
+         */
+        boolean affectedBy(Set<RuleField> changed, RuleField.Source source) {
+            return fields == null
+                || !sources.contains(source)
+                || !Collections.disjoint(fields, changed);
+        }
+    }
+
+    @EventListener
+    public void onSnapshotChanged(StockSnapshotChangedEvent event) {
+        double[] frame = RuleField.frame(null, event.getSnapshot(), null);
+        double[] before = lastSnapshotFrames.put(event.getStockCode(), frame);
+        enqueue(event.getStockCode(), RuleField.Source.SNAPSHOT,
+                RuleField.changedFields(before, frame, RuleField.Source.SNAPSHOT));
+    }
+
+    @EventListener
+    public void onIndicatorChanged(TechnicalIndicatorChangedEvent event) {
+        double[] frame = RuleField.frame(null, null, event.getIndicator());
+        double[] before = lastIndicatorFrames.put(event.getStockCode(), frame);
+        enqueue(event.getStockCode(), RuleField.Source.INDICATOR,
+                RuleField.changedFields(before, frame, RuleField.Source.INDICATOR));
+    }
+
+    /**
+     * 規則是否由快照或技術指標變動事件觸發；只有這類規則納入事件索引
+     */
+    static boolean isEventTriggered(Rule rule) {
+        Rule.TriggerEvent trigger = rule.getTriggerEvent();
+        return trigger != null && TRIGGERS.values().stream().anyMatch(events -> events.contains(trigger));
+    }
+
+    /**
+     * 評估累積的受影響規則
+     */
+    @Scheduled(fixedDelayString = "${kanban.rules.dispatch-interval-ms:1000}")
+    public void dispatchPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Set<String>> batch = new HashMap<>();
+        for (String stockCode : pending.keySet()) {
+            Set<String> ruleIds = pending.remove(stockCode);
+            if (ruleIds != null) {
+                batch.put(stockCode, ruleIds);
+            }
+        }
+
+        log.debug("分派規則評估: 股票數量={}", batch.size());
+        try {
+            ruleExecutionService.executeRulesForStocks(batch);
+        } catch (Exception e) {
+            log.error("分派規則評估失敗，下次分派重試: 股票數量={}, error={}", batch.size(), e.getMessage(), e);
+            requeue(batch);
+        }
+    }
+
+    /**
+     * 把未完成的批次併回待評估，期間新累積的規則一併保留
+     */
+    private void requeue(Map<String, Set<String>> batch) {
+        batch.forEach((stockCode, ruleIds) -> pending.compute(stockCode, (code, queued) -> {
+            Set<String> merged = queued != null ? queued : new HashSet<>();
+            merged.addAll(ruleIds);
+            return merged;
+        }));
+    }
+
+    /**
+     * 規則新增、修改、刪除或啟用狀態變更時呼叫，下次事件到達時重建索引
+     */
+    public void invalidateIndex() {
+        index = null;
+    }
+
+    /**
+     * 定期重建索引，涵蓋未經 RuleService 的規則異動
+     */
+    @Scheduled(fixedDelayString = "${kanban.rules.index-refresh-ms:60000}")
+    public void refreshIndex() {
+        index = buildIndex();
+    }
+
+    private void enqueue(String stockCode, RuleField.Source source, Set<RuleField> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Map<Rule.TriggerEvent, List<IndexedRule>> current = getIndex();
+        List<String> affected = new ArrayList<>();
+        for (Rule.TriggerEvent trigger : TRIGGERS.get(source)) {
+            for (IndexedRule rule : current.getOrDefault(trigger, List.of())) {
+                if (rule.affectedBy(changed, source)) {
+                    affected.add(rule.ruleId());
+                }
+            }
+        }
+
+        if (!affected.isEmpty()) {
+            pending.compute(stockCode, (code, ruleIds) -> {
+                Set<String> merged = ruleIds != null ? ruleIds : new HashSet<>();
+                merged.addAll(affected);
+                return merged;
+            });
+        }
+    }
+
+    private Map<Rule.TriggerEvent, List<IndexedRule>> getIndex() {
+        Map<Rule.TriggerEvent, List<IndexedRule>> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = buildIndex();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Map<Rule.TriggerEvent, List<IndexedRule>> buildIndex() {
+        Map<Rule.TriggerEvent, List<IndexedRule>> built = new EnumMap<>(Rule.TriggerEvent.class);
+        int count = 0;
+        for (Rule rule : ruleRepository.findByEnabledTrue()) {
+            if (!isEventTriggered(rule)) {
+                continue;
+            }
+            Set<RuleField> fields;
+            try {
+                fields = evaluationService.getReferencedFields(rule);
+            } catch (Exception e) {
+                log.warn("規則條件無法編譯，不納入事件索引: ruleId={}, error={}", rule.getId(), e.getMessage());
+                continue;
+            }
+            Set<RuleField.Source> sources = EnumSet.noneOf(RuleField.Source.class);
+            if (fields != null) {
+                fields.forEach(field -> sources.add(field.getSource()));
+            }
+            built.computeIfAbsent(rule.getTriggerEvent(), trigger -> new ArrayList<>())
+                .add(new IndexedRule(rule.getId(), fields, sources));
+            count++;
+        }
+        log.debug("重建規則事件索引: 規則數量={}", count);
+        return built;
+    }
+}
@@ -0,0 +1,491 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.service.CompiledCondition.NumberNode;
+import com.kanban.service.CompiledCondition.PredicateNode;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 規則條件 DSL 編譯器
+ * 語法為 SpEL 的子集：比較 (&gt; &gt;= &lt; &lt;= == != 及 gt ge lt le eq ne)、布林運算 (&amp;&amp; || ! 及 and or not)、
+ * 四則運算 (+ - * / %)、括號、數字與 true/false 常數，以及 crossesAbove(a, b) / crossesBelow(a, b)；
+ * 變數為 RuleField 的名稱，cardStatus 只能與字串常數比較是否相等。
+ * 比較運算的任一邊缺值 (NaN) 時結果為 false。無法編譯的表達式拋出 IllegalArgumentException，由呼叫端改用 SpEL
+ */
+final class RuleDslCompiler {
+
+    private RuleDslCompiler() {
+    }
+
+    /**
+     * 編譯條件表達式
+     * @throws IllegalArgumentException 表達式不在 DSL 語法內
+     */
+    static CompiledCondition compile(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("條件表達式不能為空");
+        }
+        Parser parser = new Parser(source);
+        Operand result = parser.parseOr();
+        parser.expectEnd();
+        PredicateNode root = parser.asPredicate(result, 0);
+        return new CompiledCondition(source, root, parser.fields, parser.usesPrevious);
+    }
+
+    // ==================== Tokenizer ====================
+
+    private enum TokenType {
+        NUMBER,
+        IDENTIFIER,
+        STRING,
+        SYMBOL,
+        END
+    }
+
+    private record Token(TokenType type, String text, int position) {
+
+        boolean is(String symbol) {
+            return (type == TokenType.SYMBOL || type == TokenType.IDENTIFIER)
+                    && text.equalsIgnoreCase(symbol);
+        }
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char ch = source.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (Character.isDigit(ch) || (ch == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                int start = i;
+                while (i < length && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                if (i < length && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+                    i++;
+                    if (i < length && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < length && Character.isDigit(source.charAt(i))) {
+                        i++;
+                    }
+                }
+                String number = source.substring(start, i);
+                // 與 SpEL 相容的型別後綴
+                if (i < length && "lLdDfF".indexOf(source.charAt(i)) >= 0) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, number, start));
+            } else if (Character.isLetter(ch) || ch == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, source.substring(start, i), start));
+            } else if (ch == '\'' || ch == '"') {
+                int start = i;
+                int end = source.indexOf(ch, i + 1);
+                if (end < 0) {
+                    throw error(start, "字串未結束");
+                }
+                tokens.add(new Token(TokenType.STRING, source.substring(i + 1, end), start));
+                i = end + 1;
+            } else {
+                String two = i + 1 < length ? source.substring(i, i + 2) : "";
+                if (two.equals(">=") || two.equals("<=") || two.equals("==") || two.equals("!=")
+                        || two.equals("&&") || two.equals("||")) {
+                    tokens.add(new Token(TokenType.SYMBOL, two, i));
+                    i += 2;
+                } else if ("()<>!+-*/%,".indexOf(ch) >= 0) {
+                    tokens.add(new Token(TokenType.SYMBOL, String.valueOf(ch), i));
+                    i++;
+                } else {
+                    throw error(i, "不支援的字元 '" + ch + "'");
+                }
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", length));
+        return tokens;
+    }
+
+    private static IllegalArgumentException error(int position, String message) {
+        return new IllegalArgumentException(String.format("規則條件語法錯誤（位置 %d）：%s", position, message));
+    }
+
+    // ==================== Operand ====================
+
+    /**
+     * 編譯中的運算元：數值、條件、字串常數或卡片狀態其中之一
+     */
+    private static final class Operand {
+        private final NumberNode number;
+        private final PredicateNode predicate;
+        private final String text;
+        private final boolean status;
+        private final int fieldIndex;
+        private final boolean constant;
+        private final double value;
+
+        private Operand(NumberNode number, PredicateNode predicate, String text, boolean status,
+                        int fieldIndex, boolean constant, double value) {
+            this.number = number;
+            this.predicate = predicate;
+            this.text = text;
+            this.status = status;
+            this.fieldIndex = fieldIndex;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        static Operand number(NumberNode node) {
+            return new Operand(node, null, null, false, -1, false, Double.NaN);
+        }
+
+        static Operand constant(double value) {
+            return new Operand((c, p) -> value, null, null, false, -1, true, value);
+        }
+
+        static Operand field(int index) {
+            return new Operand((c, p) -> c[index], null, null, false, index, false, Double.NaN);
+        }
+
+        static Operand predicate(PredicateNode node) {
+            return new Operand(null, node, null, false, -1, false, Double.NaN);
+        }
+
+        static Operand string(String text) {
+            return new Operand(null, null, text, false, -1, false, Double.NaN);
+        }
+
+        static Operand status() {
+            return new Operand(null, null, null, true, RuleField.CARD_STATUS.ordinal(), false, Double.NaN);
+        }
+    }
+
+    // ==================== Parser ====================
+
+    private static final class Parser {
+
+        private final List<Token> tokens;
+        private final Set<RuleField> fields = EnumSet.noneOf(RuleField.class);
+        private boolean usesPrevious;
+        private int index;
+
+        Parser(String source) {
+            this.tokens = tokenize(source);
+        }
+
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        private Token next() {
+            return tokens.get(index++);
+        }
+
+        private boolean accept(String... symbols) {
+            Token token = peek();
+            for (String symbol : symbols) {
+                if (token.is(symbol)) {
+                    index++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            Token token = next();
+            if (!token.is(symbol)) {
+                throw error(token.position(), "預期 '" + symbol + "'");
+            }
+        }
+
+        void expectEnd() {
+            Token token = peek();
+            if (token.type() != TokenType.END) {
+                throw error(token.position(), "多餘的內容 '" + token.text() + "'");
+            }
+        }
+
+        Operand parseOr() {
+            Operand left = parseAnd();
+            while (true) {
+                int position = peek().position();
+                if (!accept("||", "or")) {
+                    return left;
+                }
+                PredicateNode l = asPredicate(left, position);
+                PredicateNode r = asPredicate(parseAnd(), position);
+                left = Operand.predicate((c, p) -> l.test(c, p) || r.test(c, p));
+            }
+        }
+
+        private Operand parseAnd() {
+            Operand left = parseComparison();
+            while (true) {
+                int position = peek().position();
+                if (!accept("&&", "and")) {
+                    return left;
+                }
+                PredicateNode l = asPredicate(left, position);
+                PredicateNode r = asPredicate(parseComparison(), position);
+                left = Operand.predicate((c, p) -> l.test(c, p) && r.test(c, p));
+            }
+        }
+
+        private Operand parseComparison() {
+            Operand left = parseAdditive();
+            Token token = peek();
+            String operator = comparisonOperator(token);
+            if (operator == null) {
+                return left;
+            }
+            index++;
+            Operand right = parseAdditive();
+            return compare(operator, left, right, token.position());
+        }
+
+        private static String comparisonOperator(Token token) {
+            if (token.type() != TokenType.SYMBOL && token.type() != TokenType.IDENTIFIER) {
+                return null;
+            }
+            return switch (token.text().toLowerCase(Locale.ROOT)) {
+                case ">", "gt" -> ">";
+                case ">=", "ge" -> ">=";
+                case "<", "lt" -> "<";
+                case "<=", "le" -> "<=";
+                case "==", "eq" -> "==";
+                case "!=", "ne" -> "!=";
+                default -> null;
+            };
+        }
+
+        private Operand parseAdditive() {
+            Operand left = parseMultiplicative();
+            while (true) {
+                Token token = peek();
+                if (!accept("+", "-")) {
+                    return left;
+                }
+                left = arithmetic(token.text().charAt(0), left, parseMultiplicative(), token.position());
+            }
+        }
+
+        private Operand parseMultiplicative() {
+            Operand left = parseUnary();
+            while (true) {
+                Token token = peek();
+                if (!accept("*", "/", "%")) {
+                    return left;
+                }
+                left = arithmetic(token.text().charAt(0), left, parseUnary(), token.position());
+            }
+        }
+
+        private Operand parseUnary() {
+            Token token = peek();
+            if (accept("!", "not")) {
+                PredicateNode operand = asPredicate(parseUnary(), token.position());
+                return Operand.predicate((c, p) -> !operand.test(c, p));
+            }
+            if (accept("-")) {
+                Operand operand = parseUnary();
+                if (operand.constant) {
+                    return Operand.constant(-operand.value);
+                }
+                NumberNode node = asNumber(operand, token.position());
+                return Operand.number((c, p) -> -node.eval(c, p));
+            }
+            if (accept("+")) {
+                Operand operand = parseUnary();
+                asNumber(operand, token.position());
+                return operand;
+            }
+            return parsePrimary();
+        }
+
+        private Operand parsePrimary() {
+            Token token = next();
+            switch (token.type()) {
+                case NUMBER -> {
+                    try {
+                        return Operand.constant(Double.parseDouble(token.text()));
+                    } catch (NumberFormatException e) {
+                        throw error(token.position(), "無效的數字 '" + token.text() + "'");
+                    }
+                }
+                case STRING -> {
+                    return Operand.string(token.text());
+                }
+                case IDENTIFIER -> {
+                    if (peek().is("(")) {
+                        return parseFunction(token);
+                    }
+                    return identifier(token);
+                }
+                case SYMBOL -> {
+                    if (token.is("(")) {
+                        Operand inner = parseOr();
+                        expect(")");
+                        return inner;
+                    }
+                    throw error(token.position(), "非預期的符號 '" + token.text() + "'");
+                }
+                default -> throw error(token.position(), "表達式不完整");
+            }
+        }
+
+        private Operand identifier(Token token) {
+            String name = token.text();
+            if (name.equalsIgnoreCase("true")) {
+                return Operand.predicate((c, p) -> true);
+            }
+            if (name.equalsIgnoreCase("false")) {
+                return Operand.predicate((c, p) -> false);
+            }
+            RuleField field = RuleField.byName(name);
+            if (field == null) {
+                throw error(token.position(), "未知的變數 '" + name + "'");
+            }
+            fields.add(field);
+            int slot = field.ordinal();
+            return switch (field.getKind()) {
+                case NUMBER -> Operand.field(slot);
+                case FLAG -> Operand.predicate((c, p) -> c[slot] == 1.0);
+                case STATUS -> Operand.status();
+            };
+        }
+
+        private Operand parseFunction(Token token) {
+            String name = token.text();
+            boolean above = name.equals("crossesAbove");
+            if (!above && !name.equals("crossesBelow")) {
+                throw error(token.position(), "未知的函式 '" + name + "'");
+            }
+            expect("(");
+            NumberNode a = asNumber(parseAdditive(), token.position());
+            expect(",");
+            NumberNode b = asNumber(parseAdditive(), token.position());
+            expect(")");
+            usesPrevious = true;
+
+            // 前一期以前一期框架求值；沒有前一期資料時不成立
+            if (above) {
+                return Operand.predicate((c, p) -> p != null
+                        && a.eval(p, p) <= b.eval(p, p)
+                        && a.eval(c, p) > b.eval(c, p));
+            }
+            return Operand.predicate((c, p) -> p != null
+                    && a.eval(p, p) >= b.eval(p, p)
+                    && a.eval(c, p) < b.eval(c, p));
+        }
+
+        private Operand arithmetic(char operator, Operand left, Operand right, int position) {
+            NumberNode l = asNumber(left, position);
+            NumberNode r = asNumber(right, position);
+            if (left.constant && right.constant) {
+                return Operand.constant(apply(operator, left.value, right.value));
+            }
+            return Operand.number(switch (operator) {
+                case '+' -> (c, p) -> l.eval(c, p) + r.eval(c, p);
+                case '-' -> (c, p) -> l.eval(c, p) - r.eval(c, p);
+                case '*' -> (c, p) -> l.eval(c, p) * r.eval(c, p);
+                case '/' -> (c, p) -> l.eval(c, p) / r.eval(c, p);
+                default -> (c, p) -> l.eval(c, p) % r.eval(c, p);
+            });
+        }
+
+        private static double apply(char operator, double a, double b) {
+            return switch (operator) {
+                case '+' -> a + b;
+                case '-' -> a - b;
+                case '*' -> a * b;
+                case '/' -> a / b;
+                default -> a % b;
+            };
+        }
+
+        private Operand compare(String operator, Operand left, Operand right, int position) {
+            if (left.status || right.status) {
+                return compareStatus(operator, left.status ? right : left, position);
+            }
+            if (left.predicate != null || right.predicate != null) {
+                PredicateNode l = asPredicate(left, position);
+                PredicateNode r = asPredicate(right, position);
+                return switch (operator) {
+                    case "==" -> Operand.predicate((c, p) -> l.test(c, p) == r.test(c, p));
+                    case "!=" -> Operand.predicate((c, p) -> l.test(c, p) != r.test(c, p));
+                    default -> throw error(position, "布林值不能以 " + operator + " 比較");
+                };
+            }
+
+            NumberNode l = asNumber(left, position);
+            NumberNode r = asNumber(right, position);
+
+            // 最常見的「欄位 對 常數」形式直接讀取框架，省去一層呼叫
+            if (left.fieldIndex >= 0 && right.constant) {
+                int slot = left.fieldIndex;
+                double k = right.value;
+                return Operand.predicate(switch (operator) {
+                    case ">" -> (c, p) -> c[slot] > k;
+                    case ">=" -> (c, p) -> c[slot] >= k;
+                    case "<" -> (c, p) -> c[slot] < k;
+                    case "<=" -> (c, p) -> c[slot] <= k;
+                    case "==" -> (c, p) -> c[slot] == k;
+                    default -> (c, p) -> c[slot] != k && !Double.isNaN(c[slot]);
+                });
+            }
+            return Operand.predicate(switch (operator) {
+                case ">" -> (c, p) -> l.eval(c, p) > r.eval(c, p);
+                case ">=" -> (c, p) -> l.eval(c, p) >= r.eval(c, p);
+                case "<" -> (c, p) -> l.eval(c, p) < r.eval(c, p);
+                case "<=" -> (c, p) -> l.eval(c, p) <= r.eval(c, p);
+                case "==" -> (c, p) -> l.eval(c, p) == r.eval(c, p);
+                default -> (c, p) -> {
+                    double a = l.eval(c, p);
+                    double b = r.eval(c, p);
+                    return a != b && !Double.isNaN(a) && !Double.isNaN(b);
+                };
+            });
+        }
+
+        private Operand compareStatus(String operator, Operand other, int position) {
+            if (other.text == null || !(operator.equals("==") || operator.equals("!="))) {
+                throw error(position, "cardStatus 只能以 == 或 != 與字串比較");
+            }
+            double ordinal;
+            try {
+                ordinal = Card.CardStatus.valueOf(other.text).ordinal();
+            } catch (IllegalArgumentException e) {
+                throw error(position, "未知的卡片狀態 '" + other.text + "'");
+            }
+            int slot = RuleField.CARD_STATUS.ordinal();
+            if (operator.equals("==")) {
+                return Operand.predicate((c, p) -> c[slot] == ordinal);
+            }
+            return Operand.predicate((c, p) -> c[slot] != ordinal && !Double.isNaN(c[slot]));
+        }
+
+        private NumberNode asNumber(Operand operand, int position) {
+            if (operand.number == null) {
+                throw error(position, "此處需要數值");
+            }
+            return operand.number;
+        }
+
+        PredicateNode asPredicate(Operand operand, int position) {
+            if (operand.predicate == null) {
+                throw error(position, "此處需要條件");
+            }
+            return operand.predicate;
+        }
+    }
+}
@@ -1,36 +1,135 @@
 package com.kanban.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
 import com.kanban.domain.entity.StockSnapshot;
 import com.kanban.domain.entity.TechnicalIndicator;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
- * 規則評估服務 - 使用 SpEL 評估規則條件
+ * 規則評估服務 - 評估規則條件
+ * 條件優先以 RuleDslCompiler 編譯為直接讀取 double[] 框架的節點樹；DSL 無法編譯的既有規則改用 SpEL，
+ * 並以 SpEL 編譯器將常用規則編譯為位元碼，評估共用同一個唯讀 SimpleEvaluationContext。
+ * 編譯結果依規則 ID 與版本 (updatedAt) 快取
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RuleEvaluationService {
 
-    private final ExpressionParser parser = new SpelExpressionParser();
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
+
+    private final ExpressionParser parser;
+    private final SimpleEvaluationContext spelContext;
+    private final Cache<String, CompiledRule> expressionCache;
     private final ObjectMapper objectMapper;
+    private final boolean nativeDslEnabled;
+
+    public RuleEvaluationService(ObjectMapper objectMapper) {
+        this(objectMapper, SpelCompilerMode.MIXED, DEFAULT_CACHE_SIZE, true);
+    }
+
+    @Autowired
+    public RuleEvaluationService(
+            ObjectMapper objectMapper,
+            @Value("${kanban.rules.spel-compiler-mode:MIXED}") SpelCompilerMode compilerMode,
+            @Value("${kanban.rules.expression-cache-size:10000}") long expressionCacheSize,
+            @Value("${kanban.rules.native-dsl-enabled:true}") boolean nativeDslEnabled) {
+        this.objectMapper = objectMapper;
+        this.nativeDslEnabled = nativeDslEnabled;
+        this.parser = new SpelExpressionParser(
+                new SpelParserConfiguration(compilerMode, getClass().getClassLoader()));
+        this.spelContext = SimpleEvaluationContext
+                .forPropertyAccessors(EvaluationContextAccessor.forAllProperties().toArray(PropertyAccessor[]::new))
+                .withInstanceMethods()
+                .build();
+        this.expressionCache = Caffeine.newBuilder()
+                .maximumSize(expressionCacheSize)
+                .build();
+    }
+
+    /**
+     * 評估規則條件（使用快取的編譯結果）
+     */
+    public EvaluationResult evaluateRule(
+            Rule rule,
+            Card card,
+            StockSnapshot stockSnapshot,
+            TechnicalIndicator technicalIndicator) {
+        return evaluateRule(rule, card, stockSnapshot, technicalIndicator, null);
+    }
+
+    /**
+     * 評估規則條件（使用快取的編譯結果）
+     * @param previousIndicator 前一個交易日的技術指標，供 crossesAbove / crossesBelow 使用，可為 null
+     */
+    public EvaluationResult evaluateRule(
+            Rule rule,
+            Card card,
+            StockSnapshot stockSnapshot,
+            TechnicalIndicator technicalIndicator,
+            TechnicalIndicator previousIndicator) {
+        return evaluateRule(rule, card,
+            StockEvaluationContext.of(stockSnapshot, technicalIndicator, previousIndicator));
+    }
+
+    /**
+     * 以共用的股票評估資料評估規則條件（使用快取的編譯結果）
+     */
+    public EvaluationResult evaluateRule(Rule rule, Card card, StockEvaluationContext stock) {
+        String conditionExpression = rule.getConditionExpression();
+        try {
+            return evaluate(getCompiledRule(rule), card, stock);
+        } catch (Exception e) {
+            return failure(conditionExpression, e);
+        }
+    }
+
+    /**
+     * 規則條件是否使用 crossesAbove / crossesBelow 而需要前一期技術指標
+     */
+    public boolean requiresPreviousIndicator(Rule rule) {
+        try {
+            CompiledCondition condition = getCompiledRule(rule).condition();
+            return condition != null && condition.usesPrevious();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 規則條件引用的欄位；以 SpEL 執行的條件無法得知引用欄位，回傳 null
+     * @throws IllegalArgumentException 條件無法編譯
+     */
+    public Set<RuleField> getReferencedFields(Rule rule) {
+        CompiledCondition condition = getCompiledRule(rule).condition();
+        return condition != null ? condition.getReferencedFields() : null;
+    }
 
     /**
      * 評估規則條件
      *
-     * @param conditionExpression SpEL 條件表達式
+     * @param conditionExpression 條件表達式（DSL 或 SpEL）
      * @param card 卡片資料
      * @param stockSnapshot 股票快照
      * @param technicalIndicator 技術指標
@@ -43,41 +142,123 @@ public class RuleEvaluationService {
             TechnicalIndicator technicalIndicator) {
 
         try {
-            // 準備評估上下文
-            EvaluationContext evalContext = prepareEvaluationContext(
-                card, stockSnapshot, technicalIndicator
-            );
+            return evaluate(parse(conditionExpression, null), card,
+                StockEvaluationContext.of(stockSnapshot, technicalIndicator, null));
+        } catch (Exception e) {
+            return failure(conditionExpression, e);
+        }
+    }
 
-            // 建立 SpEL 評估上下文
-            StandardEvaluationContext context = new StandardEvaluationContext(evalContext);
+    /**
+     * 編譯規則條件並放入快取（規則建立或更新時呼叫）
+     * @throws IllegalArgumentException DSL 與 SpEL 皆無法解析
+     */
+    public void compile(Rule rule) {
+        CompiledRule compiled = parse(rule.getConditionExpression(), rule.getUpdatedAt());
+        expressionCache.put(rule.getId(), compiled);
+        log.debug("編譯規則條件: ruleId={}, engine={}", rule.getId(), compiled.condition() != null ? "DSL" : "SpEL");
+    }
 
-            // 解析並評估表達式
-            Expression expression = parser.parseExpression(conditionExpression);
-            Boolean result = expression.getValue(context, Boolean.class);
+    /**
+     * 以 DSL 編譯條件表達式
+     * @throws IllegalArgumentException 表達式不在 DSL 語法內
+     */
+    public CompiledCondition compileCondition(String conditionExpression) {
+        return RuleDslCompiler.compile(conditionExpression);
+    }
 
-            log.debug("規則評估: expression={}, result={}", conditionExpression, result);
+    /**
+     * 清除規則的快取表達式（規則刪除時呼叫）
+     */
+    public void invalidate(String ruleId) {
+        expressionCache.invalidate(ruleId);
+    }
 
-            // 將評估上下文轉為 Map 用於返回
-            Map<String, Object> variables = convertContextToMap(evalContext);
+    /**
+     * 取得規則的編譯結果，版本或內容不同時重新編譯
+     */
+    private CompiledRule getCompiledRule(Rule rule) {
+        String source = rule.getConditionExpression();
+        CompiledRule cached = expressionCache.getIfPresent(rule.getId());
+        if (cached != null && Objects.equals(cached.version(), rule.getUpdatedAt()) && cached.source().equals(source)) {
+            return cached;
+        }
 
-            return EvaluationResult.builder()
-                .success(true)
-                .matched(Boolean.TRUE.equals(result))
-                .variables(variables)
-                .expression(conditionExpression)
-                .build();
+        CompiledRule compiled = parse(source, rule.getUpdatedAt());
+        expressionCache.put(rule.getId(), compiled);
+        return compiled;
+    }
 
-        } catch (Exception e) {
-            log.error("規則評估失敗: expression={}, error={}",
-                     conditionExpression, e.getMessage(), e);
+    /**
+     * 先以 DSL 編譯，不在 DSL 語法內的表達式改以 SpEL 解析
+     */
+    private CompiledRule parse(String source, LocalDateTime version) {
+        IllegalArgumentException dslError = null;
+        if (nativeDslEnabled) {
+            try {
+                return new CompiledRule(version, source, RuleDslCompiler.compile(source), null);
+            } catch (IllegalArgumentException e) {
+                dslError = e;
+            }
+        }
+        try {
+            return new CompiledRule(version, source, null, parser.parseExpression(source));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(dslError != null ? dslError.getMessage() : e.getMessage(), e);
+        }
+    }
+
+    private EvaluationResult evaluate(CompiledRule compiled, Card card, StockEvaluationContext stock) {
+        String conditionExpression = compiled.source();
+        StockSnapshot stockSnapshot = stock.getStockSnapshot();
+        TechnicalIndicator technicalIndicator = stock.getTechnicalIndicator();
+        CompiledCondition condition = compiled.condition();
+        if (condition != null) {
+            // 只有引用卡片狀態的條件需要複製框架，其餘直接共用股票的框架
+            double[] current = condition.getReferencedFields().contains(RuleField.CARD_STATUS)
+                ? stock.frameFor(card)
+                : stock.getFrame();
+            boolean matched = condition.test(current, stock.getPreviousFrame());
+
+            log.debug("規則評估: expression={}, result={}", conditionExpression, matched);
 
             return EvaluationResult.builder()
-                .success(false)
-                .matched(false)
-                .errorMessage(e.getMessage())
+                .success(true)
+                .matched(matched)
+                .lazyVariables(() -> convertContextToMap(
+                    prepareEvaluationContext(card, stockSnapshot, technicalIndicator)))
                 .expression(conditionExpression)
                 .build();
         }
+
+        // 準備評估上下文
+        EvaluationContext evalContext = prepareEvaluationContext(
+            card, stockSnapshot, technicalIndicator
+        );
+
+        // 以共用的唯讀上下文評估，evalContext 作為根物件
+        Boolean result = compiled.expression().getValue(spelContext, evalContext, Boolean.class);
+
+        log.debug("規則評估: expression={}, result={}", conditionExpression, result);
+
+        return EvaluationResult.builder()
+            .success(true)
+            .matched(Boolean.TRUE.equals(result))
+            .lazyVariables(() -> convertContextToMap(evalContext))
+            .expression(conditionExpression)
+            .build();
+    }
+
+    private EvaluationResult failure(String conditionExpression, Exception e) {
+        log.error("規則評估失敗: expression={}, error={}",
+                 conditionExpression, e.getMessage(), e);
+
+        return EvaluationResult.builder()
+            .success(false)
+            .matched(false)
+            .errorMessage(e.getMessage())
+            .expression(conditionExpression)
+            .build();
     }
 
     /**
@@ -195,26 +376,35 @@ public class RuleEvaluationService {
     }
 
     /**
-     * 驗證 SpEL 表達式語法
+     * 驗證表達式語法（DSL 或 SpEL）
      */
     public boolean validateExpression(String expression) {
         try {
-            parser.parseExpression(expression);
+            parse(expression, null);
             return true;
         } catch (Exception e) {
-            log.warn("SpEL 表達式驗證失敗: expression={}, error={}",
+            log.warn("表達式驗證失敗: expression={}, error={}",
                     expression, e.getMessage());
             return false;
         }
     }
 
+    /**
+     * 編譯結果：condition 與 expression 其中之一不為 null
+     */
+    private record CompiledRule(LocalDateTime version, String source, CompiledCondition condition, Expression expression) {
+    }
+
     /**
      * 評估結果
      */
     public static class EvaluationResult {
+        private static final ObjectMapper JSON = new ObjectMapper();
+
         private boolean success;
         private boolean matched;
         private Map<String, Object> variables;
+        private Supplier<Map<String, Object>> variablesSupplier;
         private String expression;
         private String errorMessage;
 
@@ -231,6 +421,10 @@ public class RuleEvaluationService {
         }
 
         public Map<String, Object> getVariables() {
+            if (variables == null && variablesSupplier != null) {
+                variables = variablesSupplier.get();
+                variablesSupplier = null;
+            }
             return variables;
         }
 
@@ -244,7 +438,7 @@ public class RuleEvaluationService {
 
         public String toJson() {
             try {
-                return new ObjectMapper().writeValueAsString(this);
+                return JSON.writeValueAsString(this);
             } catch (Exception e) {
                 return "{}";
             }
@@ -254,6 +448,7 @@ public class RuleEvaluationService {
             private boolean success;
             private boolean matched;
             private Map<String, Object> variables;
+            private Supplier<Map<String, Object>> variablesSupplier;
             private String expression;
             private String errorMessage;
 
@@ -272,6 +467,14 @@ public class RuleEvaluationService {
                 return this;
             }
 
+            /**
+             * 變數在第一次讀取時才建立
+             */
+            public EvaluationResultBuilder lazyVariables(Supplier<Map<String, Object>> variablesSupplier) {
+                this.variablesSupplier = variablesSupplier;
+                return this;
+            }
+
             public EvaluationResultBuilder expression(String expression) {
                 this.expression = expression;
                 return this;
@@ -287,6 +490,7 @@ public class RuleEvaluationService {
                 result.success = this.success;
                 result.matched = this.matched;
                 result.variables = this.variables;
+                result.variablesSupplier = this.variablesSupplier;
                 result.expression = this.expression;
                 result.errorMessage = this.errorMessage;
                 return result;
@@ -1,6 +1,5 @@
 package com.kanban.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kanban.domain.entity.*;
 import com.kanban.dto.PagedResponse;
 import com.kanban.dto.notification.RuleNotificationEvent;
@@ -13,15 +12,26 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * 規則執行服務 - 執行規則評估和卡片狀態更新
+ * 批次執行依使用者分區，交由 RulePartitionExecutor 平行執行，每個分區一個短交易
  */
 @Service
 @RequiredArgsConstructor
@@ -36,34 +46,42 @@ public class RuleExecutionService {
     private final RuleEvaluationService evaluationService;
     private final AuditLogService auditLogService;
     private final NotificationService notificationService;
-    private final ObjectMapper objectMapper;
+    private final RulePartitionExecutor partitionExecutor;
+    private final CooldownTracker cooldownTracker;
+    private final RuleExecutionWriter executionWriter;
+
+    /** 同一使用者的規則依優先級（數字越小越優先）與建立時間排序 */
+    private static final Comparator<Rule> PRIORITY_ORDER = Comparator
+        .comparing(Rule::getPriority, Comparator.nullsLast(Comparator.<Integer>naturalOrder()))
+        .thenComparing(Rule::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()));
 
     /**
      * 定時執行所有啟用的規則
      * 每5分鐘執行一次
      */
     @Scheduled(fixedRate = 300000) // 5 minutes
-    @Transactional
     public void executeAllActiveRules() {
         log.info("開始執行定時規則評估");
 
         LocalDateTime now = LocalDateTime.now();
+        List<Rule> allRules = ruleRepository.findAll();
 
-        // 查詢所有需要執行的規則（排除冷卻期內的規則）
-        List<Rule> rules = ruleRepository.findAll().stream()
+        // 移除已刪除規則與已過冷卻時間的冷卻記錄
+        cooldownTracker.prune(allRules.stream()
+            .collect(Collectors.toMap(Rule::getId, rule -> rule.getCooldownSeconds() * 1000L, (a, b) -> a)),
+            System.currentTimeMillis());
+
+        // 查詢所有需要執行的規則（排除冷卻期內的規則）；
+        // 事件觸發的規則也一併評估，涵蓋事件到達時仍在冷卻、規則或卡片異動後市場資料未再變動的情況
+        List<Rule> rules = allRules.stream()
             .filter(Rule::getEnabled)
             .filter(rule -> isRuleReadyForExecution(rule, now))
             .collect(Collectors.toList());
 
         log.info("找到 {} 條待執行規則", rules.size());
 
-        for (Rule rule : rules) {
-            try {
-                executeRuleForAllCards(rule);
-            } catch (Exception e) {
-                log.error("執行規則失敗: ruleId={}, ruleName={}, error={}",
-                         rule.getId(), rule.getName(), e.getMessage(), e);
-            }
+        if (!rules.isEmpty()) {
+            executeRules(rules);
         }
 
         log.info("定時規則評估完成");
@@ -72,36 +90,134 @@ public class RuleExecutionService {
     /**
      * 執行規則對所有相關卡片
      */
-    @Transactional
     public void executeRuleForAllCards(Rule rule) {
-        // 取得使用者的所有卡片
-        List<Card> cards = cardRepository.findByUser(rule.getUser());
+        executeRules(List.of(rule));
+    }
 
-        log.info("執行規則: ruleId={}, ruleName={}, 卡片數量={}",
-                rule.getId(), rule.getName(), cards.size());
+    /**
+     * 以股票為中心執行一批規則
+     * 規則擁有者的卡片一次查出，每檔股票的快照與技術指標只載入一次並建立共用的評估資料，
+     * 再展開到引用該股票的每個 (規則, 卡片) 組合；資料存取次數與股票數相關，與規則數 × 卡片數無關
+     */
+    public void executeRules(List<Rule> rules) {
+        Map<String, List<Rule>> rulesByUser = groupByUser(rules);
+        executeRules(rules, rulesByUser, cardRepository.findByUserIdIn(rulesByUser.keySet()), null);
+    }
 
-        int successCount = 0;
-        int failedCount = 0;
-        int skippedCount = 0;
+    /**
+     * 只執行受市場資料變動影響的規則
+     * @param ruleIdsByStock 股票代碼 → 受該股票變動影響的規則 ID
+     */
+    public void executeRulesForStocks(Map<String, Set<String>> ruleIdsByStock) {
+        if (ruleIdsByStock.isEmpty()) {
+            return;
+        }
 
-        for (Card card : cards) {
-            try {
-                RuleExecution.ExecutionStatus status = executeRuleForCard(rule, card);
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> ruleIds = ruleIdsByStock.values().stream()
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
+        List<Rule> rules = ruleRepository.findAllById(ruleIds).stream()
+            .filter(Rule::getEnabled)
+            .filter(rule -> isRuleReadyForExecution(rule, now))
+            .collect(Collectors.toList());
+
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Rule>> rulesByUser = groupByUser(rules);
+        List<Card> cards = cardRepository.findByUserIdInAndStockCodeIn(rulesByUser.keySet(), ruleIdsByStock.keySet());
+        executeRules(rules, rulesByUser, cards, ruleIdsByStock);
+    }
+
+    /**
+     * 依使用者分區執行 (規則, 卡片) 組合
+     * 市場資料一次載入後由所有分區共用；分區內依卡片逐一套用該使用者的規則，規則依優先級排序
+     * @param ruleIdsByStock 非 null 時每檔股票只執行列出的規則
+     */
+    private void executeRules(List<Rule> rules,
+                              Map<String, List<Rule>> rulesByUser,
+                              List<Card> cards,
+                              Map<String, Set<String>> ruleIdsByStock) {
+        Map<String, List<Card>> cardsByUser = cards.stream()
+            .collect(Collectors.groupingBy(card -> card.getUser().getId(), LinkedHashMap::new, Collectors.toList()));
+        Set<String> stockCodes = cards.stream()
+            .map(Card::getStockCode)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        boolean loadPrevious = rules.stream().anyMatch(evaluationService::requiresPreviousIndicator);
+        Map<String, StockEvaluationContext> stocks = loadStockContexts(stockCodes, loadPrevious);
+
+        log.info("執行規則: 規則數量={}, 股票數量={}, 分區數量={}", rules.size(), stockCodes.size(), cardsByUser.size());
+
+        // 每條規則的 成功 / 失敗 / 跳過 次數；規則只屬於一個分區，計數不會被多個執行緒同時修改
+        Map<String, int[]> counts = new ConcurrentHashMap<>();
+        Map<String, Runnable> partitions = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Card>> entry : cardsByUser.entrySet()) {
+            List<Rule> userRules = rulesByUser.getOrDefault(entry.getKey(), List.of()).stream()
+                .sorted(PRIORITY_ORDER)
+                .collect(Collectors.toList());
+            if (!userRules.isEmpty()) {
+                partitions.put(entry.getKey(),
+                    () -> executePartition(userRules, entry.getValue(), stocks, ruleIdsByStock, counts));
+            }
+        }
+        partitionExecutor.executeAll(partitions);
+
+        for (Rule rule : rules) {
+            int[] count = counts.getOrDefault(rule.getId(), new int[3]);
+            log.info("規則執行完成: ruleId={}, 成功={}, 失敗={}, 跳過={}",
+                    rule.getId(), count[0], count[1], count[2]);
+        }
+    }
 
-                switch (status) {
-                    case SUCCESS -> successCount++;
-                    case FAILED -> failedCount++;
-                    case SKIPPED, COOLDOWN -> skippedCount++;
+    /**
+     * 執行單一使用者分區
+     * 每張卡片的規則評估完後解決衝突，整個分區的卡片狀態變更最後一次寫入
+     */
+    private void executePartition(List<Rule> rules,
+                                  List<Card> cards,
+                                  Map<String, StockEvaluationContext> stocks,
+                                  Map<String, Set<String>> ruleIdsByStock,
+                                  Map<String, int[]> counts) {
+        cooldownTracker.prefetch(rules, cards, System.currentTimeMillis());
+        CardTransitions transitions = new CardTransitions();
+        for (Card card : cards) {
+            StockEvaluationContext stock = stocks.get(card.getStockCode());
+            Set<String> affectedRuleIds = ruleIdsByStock != null
+                ? ruleIdsByStock.getOrDefault(card.getStockCode(), Set.of())
+                : null;
+
+            List<Rule> readyRules = new ArrayList<>(rules.size());
+            for (Rule rule : rules) {
+                if (affectedRuleIds != null && !affectedRuleIds.contains(rule.getId())) {
+                    continue;
                 }
-            } catch (Exception e) {
-                log.error("執行規則失敗: ruleId={}, cardId={}, error={}",
-                         rule.getId(), card.getId(), e.getMessage(), e);
-                failedCount++;
+                if (isCardReadyForRuleExecution(rule, card)) {
+                    readyRules.add(rule);
+                } else {
+                    log.debug("卡片在冷卻期內: ruleId={}, cardId={}", rule.getId(), card.getId());
+                    count(counts, rule, RuleExecution.ExecutionStatus.COOLDOWN);
+                }
+            }
+
+            RuleExecution.ExecutionStatus[] statuses = resolveCard(readyRules, card, stock, transitions);
+            for (int i = 0; i < statuses.length; i++) {
+                count(counts, readyRules.get(i), statuses[i]);
             }
         }
+        applyTransitions(transitions);
+    }
 
-        log.info("規則執行完成: ruleId={}, 成功={}, 失敗={}, 跳過={}",
-                rule.getId(), successCount, failedCount, skippedCount);
+    private void count(Map<String, int[]> counts, Rule rule, RuleExecution.ExecutionStatus status) {
+        int[] count = counts.computeIfAbsent(rule.getId(), id -> new int[3]);
+        partitionExecutor.recordEvaluation(status);
+        switch (status) {
+            case SUCCESS -> count[0]++;
+            case FAILED -> count[1]++;
+            case SKIPPED, COOLDOWN -> count[2]++;
+        }
     }
 
     /**
@@ -109,9 +225,8 @@ public class RuleExecutionService {
      */
     @Transactional
     public RuleExecution.ExecutionStatus executeRuleForCard(Rule rule, Card card) {
-        long startTime = System.currentTimeMillis();
-
         // 檢查冷卻時間
+        cooldownTracker.prefetch(List.of(rule), List.of(card), System.currentTimeMillis());
         if (!isCardReadyForRuleExecution(rule, card)) {
             log.debug("卡片在冷卻期內: ruleId={}, cardId={}", rule.getId(), card.getId());
             return RuleExecution.ExecutionStatus.COOLDOWN;
@@ -122,45 +237,123 @@ public class RuleExecutionService {
             .findLatestByCode(card.getStockCode())
             .orElse(null);
 
-        if (stockSnapshot == null) {
+        StockEvaluationContext stock = null;
+        if (stockSnapshot != null) {
+            // 取得技術指標
+            TechnicalIndicator technicalIndicator = technicalIndicatorRepository
+                .findLatestByStockCode(card.getStockCode())
+                .orElse(null);
+            TechnicalIndicator previousIndicator =
+                evaluationService.requiresPreviousIndicator(rule) && technicalIndicator != null
+                    ? technicalIndicatorRepository.findPreviousDayByLatest(List.of(technicalIndicator))
+                        .stream().findFirst().orElse(null)
+                    : null;
+            stock = StockEvaluationContext.of(stockSnapshot, technicalIndicator, previousIndicator);
+        }
+
+        CardTransitions transitions = new CardTransitions();
+        RuleExecution.ExecutionStatus status = resolveCard(List.of(rule), card, stock, transitions)[0];
+        applyTransitions(transitions);
+        return status;
+    }
+
+    /**
+     * 評估同一張卡片已過冷卻時間的規則並解決衝突
+     * 規則依優先級排序，全部以卡片本輪開始時的狀態評估；條件成立的規則中優先級最高者決定卡片的最終狀態，
+     * 其餘成立的規則記為跳過，卡片在同一輪內最多移動一次
+     * @return 與 rules 位置對應的執行結果
+     */
+    private RuleExecution.ExecutionStatus[] resolveCard(List<Rule> rules,
+                                                       Card card,
+                                                       StockEvaluationContext stock,
+                                                       CardTransitions transitions) {
+        RuleExecution.ExecutionStatus[] statuses = new RuleExecution.ExecutionStatus[rules.size()];
+        int winner = -1;
+        RuleEvaluationService.EvaluationResult winnerResult = null;
+        long winnerStartTime = 0;
+
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            long startTime = System.currentTimeMillis();
+            try {
+                RuleEvaluationService.EvaluationResult result = evaluate(rule, card, stock, startTime);
+                if (result == null || !result.isSuccess()) {
+                    statuses[i] = result == null
+                        ? RuleExecution.ExecutionStatus.SKIPPED
+                        : RuleExecution.ExecutionStatus.FAILED;
+                } else if (!result.isMatched()) {
+                    log.debug("規則條件不匹配: ruleId={}, cardId={}", rule.getId(), card.getId());
+                    recordExecution(rule, card, RuleExecution.ExecutionStatus.SKIPPED,
+                                  result, stock.getStockSnapshot(), "條件不匹配", startTime);
+                    statuses[i] = RuleExecution.ExecutionStatus.SKIPPED;
+                } else if (winner < 0) {
+                    winner = i;
+                    winnerResult = result;
+                    winnerStartTime = startTime;
+                } else {
+                    log.debug("規則由優先級較高的規則取代: ruleId={}, winnerRuleId={}, cardId={}",
+                             rule.getId(), rules.get(winner).getId(), card.getId());
+                    recordExecution(rule, card, RuleExecution.ExecutionStatus.SKIPPED,
+                                  result, stock.getStockSnapshot(),
+                                  String.format("由優先級較高的規則 '%s' 決定狀態", rules.get(winner).getName()),
+                                  startTime);
+                    statuses[i] = RuleExecution.ExecutionStatus.SKIPPED;
+                }
+            } catch (Exception e) {
+                log.error("執行規則失敗: ruleId={}, cardId={}, error={}",
+                         rule.getId(), card.getId(), e.getMessage(), e);
+                statuses[i] = RuleExecution.ExecutionStatus.FAILED;
+            }
+        }
+
+        if (winner >= 0) {
+            statuses[winner] = applyTransition(rules.get(winner), card, stock.getStockSnapshot(),
+                                               winnerResult, winnerStartTime, transitions);
+        }
+        return statuses;
+    }
+
+    /**
+     * 評估規則條件；沒有股票資料或評估失敗時記錄執行結果
+     * @return 評估結果，沒有股票資料時回傳 null
+     */
+    private RuleEvaluationService.EvaluationResult evaluate(
+            Rule rule,
+            Card card,
+            StockEvaluationContext stock,
+            long startTime) {
+
+        if (stock == null || stock.getStockSnapshot() == null) {
             log.warn("找不到股票快照: stockCode={}", card.getStockCode());
             recordExecution(rule, card, RuleExecution.ExecutionStatus.SKIPPED,
                           null, null, "找不到股票資料", startTime);
-            return RuleExecution.ExecutionStatus.SKIPPED;
+            return null;
         }
 
-        // 取得技術指標
-        TechnicalIndicator technicalIndicator = technicalIndicatorRepository
-            .findLatestByStockCode(card.getStockCode())
-            .orElse(null);
-
-        // 評估規則條件
         RuleEvaluationService.EvaluationResult evaluationResult =
-            evaluationService.evaluate(
-                rule.getConditionExpression(),
-                card,
-                stockSnapshot,
-                technicalIndicator
-            );
+            evaluationService.evaluateRule(rule, card, stock);
 
         if (!evaluationResult.isSuccess()) {
             log.error("規則評估失敗: ruleId={}, cardId={}, error={}",
                      rule.getId(), card.getId(), evaluationResult.getErrorMessage());
             recordExecution(rule, card, RuleExecution.ExecutionStatus.FAILED,
-                          evaluationResult, stockSnapshot,
+                          evaluationResult, stock.getStockSnapshot(),
                           "評估失敗: " + evaluationResult.getErrorMessage(), startTime);
-            return RuleExecution.ExecutionStatus.FAILED;
         }
+        return evaluationResult;
+    }
 
-        // 如果條件不匹配，跳過
-        if (!evaluationResult.isMatched()) {
-            log.debug("規則條件不匹配: ruleId={}, cardId={}", rule.getId(), card.getId());
-            recordExecution(rule, card, RuleExecution.ExecutionStatus.SKIPPED,
-                          evaluationResult, stockSnapshot, "條件不匹配", startTime);
-            return RuleExecution.ExecutionStatus.SKIPPED;
-        }
+    /**
+     * 套用勝出規則的狀態轉換：更新記憶體中的卡片並加入待寫入的批次
+     */
+    private RuleExecution.ExecutionStatus applyTransition(
+            Rule rule,
+            Card card,
+            StockSnapshot stockSnapshot,
+            RuleEvaluationService.EvaluationResult evaluationResult,
+            long startTime,
+            CardTransitions transitions) {
 
-        // 更新卡片狀態
         Card.CardStatus previousStatus = card.getStatus();
         Card.CardStatus newStatus = rule.getTargetStatus();
 
@@ -172,23 +365,9 @@ public class RuleExecutionService {
             return RuleExecution.ExecutionStatus.SKIPPED;
         }
 
-        // 執行狀態更新
         card.setStatus(newStatus);
-        cardRepository.save(card);
-
-        // 更新規則執行資訊
-        rule.setLastExecutedAt(LocalDateTime.now());
-        rule.setTriggerCount(rule.getTriggerCount() + 1);
-        ruleRepository.save(rule);
-
-        // 記錄稽核日誌
-        auditLogService.logCardStatusChange(
-            card.getUser().getId(),
-            card.getId(),
-            previousStatus,
-            newStatus,
-            String.format("規則 '%s' 觸發", rule.getName())
-        );
+        cooldownTracker.recordFire(rule, card, System.currentTimeMillis());
+        transitions.add(rule, card, previousStatus, newStatus);
 
         // 記錄執行成功
         String message = String.format("規則觸發成功: %s -> %s",
@@ -200,13 +379,49 @@ public class RuleExecutionService {
 
         log.info("規則執行成功: ruleId={}, cardId={}, {} -> {}",
                 rule.getId(), card.getId(), previousStatus, newStatus);
+        return RuleExecution.ExecutionStatus.SUCCESS;
+    }
+
+    /**
+     * 一次寫入批次中的卡片狀態、規則觸發次數、稽核日誌與通知
+     */
+    private void applyTransitions(CardTransitions transitions) {
+        if (transitions.cards.isEmpty()) {
+            return;
+        }
 
-        // 發送通知
-        if (rule.getSendNotification()) {
-            sendRuleTriggeredNotification(rule, card, previousStatus, newStatus);
+        LocalDateTime now = LocalDateTime.now();
+        cardRepository.saveAll(transitions.cards);
+        transitions.fireCounts.forEach((ruleId, count) -> {
+            ruleRepository.incrementTriggerCount(ruleId, count, now);
+            Rule rule = transitions.rules.get(ruleId);
+            rule.setTriggerCount((rule.getTriggerCount() != null ? rule.getTriggerCount() : 0L) + count);
+            rule.setLastExecutedAt(now);
+        });
+        auditLogService.logCardStatusChanges(transitions.auditLogs);
+        if (!transitions.notifications.isEmpty()) {
+            sendNotifications(transitions.notifications);
         }
 
-        return RuleExecution.ExecutionStatus.SUCCESS;
+        log.debug("寫入卡片狀態變更: 卡片數量={}, 規則數量={}, 通知數量={}",
+                transitions.cards.size(), transitions.fireCounts.size(), transitions.notifications.size());
+    }
+
+    /**
+     * 發送規則觸發通知；在交易中呼叫時於提交後才交給非同步的 NotificationService，
+     * 分區交易回滾時不會送出通知
+     */
+    private void sendNotifications(List<RuleNotificationEvent> notifications) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificationService.createRuleTriggeredNotifications(notifications);
+                }
+            });
+        } else {
+            notificationService.createRuleTriggeredNotifications(notifications);
+        }
     }
 
     /**
@@ -267,6 +482,37 @@ public class RuleExecutionService {
 
     // ==================== Private Methods ====================
 
+    private Map<String, List<Rule>> groupByUser(List<Rule> rules) {
+        return rules.stream()
+            .collect(Collectors.groupingBy(rule -> rule.getUser().getId(), LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * 批次載入股票的快照與技術指標，每檔股票建立一份共用的評估資料；沒有快照的股票不放入結果
+     */
+    private Map<String, StockEvaluationContext> loadStockContexts(Collection<String> stockCodes, boolean loadPrevious) {
+        if (stockCodes.isEmpty()) {
+            return Map.of();
+        }
+        List<String> codes = new ArrayList<>(stockCodes);
+
+        Map<String, TechnicalIndicator> indicators = technicalIndicatorRepository.findLatestByStockCodes(codes).stream()
+            .collect(Collectors.toMap(TechnicalIndicator::getStockCode, Function.identity(), (a, b) -> a));
+        Map<String, TechnicalIndicator> previousIndicators = loadPrevious
+            ? technicalIndicatorRepository.findPreviousDayByLatest(indicators.values()).stream()
+                .collect(Collectors.toMap(TechnicalIndicator::getStockCode, Function.identity(), (a, b) -> a))
+            : Map.of();
+
+        Map<String, StockEvaluationContext> contexts = new HashMap<>();
+        for (StockSnapshot snapshot : stockSnapshotRepository.findByCodeIn(codes)) {
+            contexts.put(snapshot.getCode(), StockEvaluationContext.of(
+                snapshot,
+                indicators.get(snapshot.getCode()),
+                previousIndicators.get(snapshot.getCode())));
+        }
+        return contexts;
+    }
+
     /**
      * 檢查規則是否準備好執行（檢查冷卻時間）
      */
@@ -280,15 +526,10 @@ public class RuleExecutionService {
     }
 
     /**
-     * 檢查卡片是否準備好執行規則（檢查該規則對該卡片的冷卻時間）
+     * 檢查卡片是否準備好執行規則（該規則對該卡片上次觸發成功後是否已過冷卻時間）
      */
     private boolean isCardReadyForRuleExecution(Rule rule, Card card) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime cooldownThreshold = now.minusSeconds(rule.getCooldownSeconds());
-
-        return executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(rule, card)
-            .map(lastExecution -> lastExecution.getExecutedAt().isBefore(cooldownThreshold))
-            .orElse(true);
+        return cooldownTracker.isReady(rule, card, System.currentTimeMillis());
     }
 
     /**
@@ -307,7 +548,7 @@ public class RuleExecutionService {
     }
 
     /**
-     * 記錄執行結果（完整版本）
+     * 記錄執行結果（完整版本），由 RuleExecutionWriter 非同步批次寫入
      */
     private void recordExecution(
             Rule rule,
@@ -321,56 +562,20 @@ public class RuleExecutionService {
             Card.CardStatus newStatus) {
 
         long executionTime = System.currentTimeMillis() - startTime;
-
-        String conditionResult = evaluationResult != null
-            ? evaluationResult.toJson()
-            : null;
-
-        String stockSnapshotJson = null;
-        if (stockSnapshot != null) {
-            try {
-                Map<String, Object> snapshotData = new HashMap<>();
-                snapshotData.put("stockCode", stockSnapshot.getCode());
-                snapshotData.put("stockName", stockSnapshot.getName());
-                snapshotData.put("currentPrice", stockSnapshot.getCurrentPrice());
-                snapshotData.put("volume", stockSnapshot.getVolume());
-                snapshotData.put("changePercent", stockSnapshot.getChangePercent());
-                snapshotData.put("openPrice", stockSnapshot.getOpenPrice());
-                snapshotData.put("highPrice", stockSnapshot.getHighPrice());
-                snapshotData.put("lowPrice", stockSnapshot.getLowPrice());
-                snapshotData.put("updatedAt", stockSnapshot.getUpdatedAt());
-                stockSnapshotJson = objectMapper.writeValueAsString(snapshotData);
-            } catch (Exception e) {
-                log.warn("無法序列化股票快照: {}", e.getMessage());
-            }
-        }
-
-        RuleExecution execution = RuleExecution.builder()
-            .rule(rule)
-            .card(card)
-            .status(status)
-            .previousStatus(previousStatus)
-            .newStatus(newStatus)
-            .conditionResult(conditionResult)
-            .stockSnapshot(stockSnapshotJson)
-            .message(message)
-            .notificationSent(false)
-            .executionTimeMs(executionTime)
-            .build();
-
-        executionRepository.save(execution);
+        executionWriter.record(rule, card, status, evaluationResult, stockSnapshot,
+                             message, executionTime, previousStatus, newStatus);
     }
 
     /**
-     * 發送規則觸發通知
+     * 建立規則觸發通知事件
      */
-    private void sendRuleTriggeredNotification(
+    private static RuleNotificationEvent buildNotificationEvent(
             Rule rule,
             Card card,
             Card.CardStatus previousStatus,
             Card.CardStatus newStatus) {
 
-        RuleNotificationEvent event = RuleNotificationEvent.builder()
+        return RuleNotificationEvent.builder()
             .userId(card.getUser().getId())
             .ruleId(rule.getId())
             .ruleName(rule.getName())
@@ -384,8 +589,6 @@ public class RuleExecutionService {
                 : String.format("規則 '%s' 已觸發", rule.getName()))
             .triggeredAt(LocalDateTime.now())
             .build();
-
-        notificationService.createRuleTriggeredNotification(event);
     }
 
     /**
@@ -410,4 +613,31 @@ public class RuleExecutionService {
             .executedAt(execution.getExecutedAt())
             .build();
     }
+
+    /**
+     * 一個分區內待寫入的卡片狀態變更
+     */
+    private static final class CardTransitions {
+
+        private final List<Card> cards = new ArrayList<>();
+        private final Map<String, Rule> rules = new HashMap<>();
+        private final Map<String, Long> fireCounts = new LinkedHashMap<>();
+        private final List<AuditLogService.CardStatusChange> auditLogs = new ArrayList<>();
+        private final List<RuleNotificationEvent> notifications = new ArrayList<>();
+
+        void add(Rule rule, Card card, Card.CardStatus previousStatus, Card.CardStatus newStatus) {
+            cards.add(card);
+            rules.putIfAbsent(rule.getId(), rule);
+            fireCounts.merge(rule.getId(), 1L, Long::sum);
+            auditLogs.add(new AuditLogService.CardStatusChange(
+                card.getUser().getId(),
+                card.getId(),
+                previousStatus,
+                newStatus,
+                String.format("規則 '%s' 觸發", rule.getName())));
+            if (Boolean.TRUE.equals(rule.getSendNotification())) {
+                notifications.add(buildNotificationEvent(rule, card, previousStatus, newStatus));
+            }
+        }
+    }
 }
@@ -0,0 +1,373 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.RuleExecution;
+import com.kanban.domain.entity.StockSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 規則執行歷史寫入器
+ * 執行結果先放入有上限的佇列，由排程以 JDBC 批次寫入 rule_executions；
+ * 每條規則的評估次數彙總到 rule_evaluation_stats（每小時一筆），
+ * SKIPPED 結果只依取樣間隔寫入明細，其餘只計數。
+ * 在交易中產生的記錄於交易提交後才放入佇列，回滾的分區不會留下執行記錄。
+ * 佇列滿時由呼叫端先行寫入一批，形成背壓；寫入一律在獨立的新交易中進行，
+ * 批次失敗時改為逐筆寫入，單筆錯誤不影響同批其他記錄
+ */
+@Service
+@Slf4j
+public class RuleExecutionWriter {
+
+    private static final String INSERT_EXECUTION_SQL =
+        "INSERT INTO rule_executions (id, rule_id, card_id, status, previous_status, new_status, " +
+        "condition_result, stock_snapshot, message, notification_sent, execution_time_ms, executed_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_STATS_SQL =
+        "INSERT INTO rule_evaluation_stats (rule_id, bucket_start, evaluation_count, success_count, " +
+        "failed_count, skipped_count, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (rule_id, bucket_start) DO UPDATE SET " +
+        "evaluation_count = rule_evaluation_stats.evaluation_count + EXCLUDED.evaluation_count, " +
+        "success_count = rule_evaluation_stats.success_count + EXCLUDED.success_count, " +
+        "failed_count = rule_evaluation_stats.failed_count + EXCLUDED.failed_count, " +
+        "skipped_count = rule_evaluation_stats.skipped_count + EXCLUDED.skipped_count, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    // 統計陣列位置
+    private static final int EVALUATIONS = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILED = 2;
+    private static final int SKIPPED = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int skippedSampleEvery;
+    private final int retentionDays;
+    private final int skippedRetentionDays;
+
+    private final BlockingQueue<PendingExecution> queue;
+
+    /** 規則 ID → 上次寫入後的 評估 / 成功 / 失敗 / 跳過 次數 */
+    private final Map<String, long[]> stats = new ConcurrentHashMap<>();
+
+    /** 規則 ID → 累計 SKIPPED 次數，用於取樣 */
+    private final Map<String, AtomicLong> skippedSeen = new ConcurrentHashMap<>();
+
+    private final Counter rowsWritten;
+    private final Counter rowsFailed;
+    private final Counter rowsDropped;
+    private final Counter rowsSampledOut;
+
+    /**
+     * 待寫入的執行記錄，JSON 序列化延後到寫入時
+     */
+    private record PendingExecution(
+            String ruleId,
+            String cardId,
+            RuleExecution.ExecutionStatus status,
+            Card.CardStatus previousStatus,
+            Card.CardStatus newStatus,
+            RuleEvaluationService.EvaluationResult evaluationResult,
+            StockSnapshot stockSnapshot,
+            String message,
+            long executionTimeMs,
+            LocalDateTime executedAt) {
+    }
+
+    public RuleExecutionWriter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${kanban.rules.history.queue-capacity:10000}") int queueCapacity,
+                               @Value("${kanban.rules.history.batch-size:500}") int batchSize,
+                               @Value("${kanban.rules.history.skipped-sample-every:100}") int skippedSampleEvery,
+                               @Value("${kanban.rules.history.retention-days:90}") int retentionDays,
+                               @Value("${kanban.rules.history.skipped-retention-days:7}") int skippedRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.skippedSampleEvery = skippedSampleEvery;
+        this.retentionDays = retentionDays;
+        this.skippedRetentionDays = skippedRetentionDays;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        this.rowsWritten = rowCounter(meterRegistry, "written");
+        this.rowsFailed = rowCounter(meterRegistry, "failed");
+        this.rowsDropped = rowCounter(meterRegistry, "dropped");
+        this.rowsSampledOut = rowCounter(meterRegistry, "sampled_out");
+        Gauge.builder("kanban.rules.history.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 記錄一次規則執行結果；在交易中呼叫時於提交後才放入佇列
+     */
+    public void record(Rule rule,
+                       Card card,
+                       RuleExecution.ExecutionStatus status,
+                       RuleEvaluationService.EvaluationResult evaluationResult,
+                       StockSnapshot stockSnapshot,
+                       String message,
+                       long executionTimeMs,
+                       Card.CardStatus previousStatus,
+                       Card.CardStatus newStatus) {
+        count(rule.getId(), status);
+
+        if (status == RuleExecution.ExecutionStatus.SKIPPED && !sampleSkipped(rule.getId())) {
+            rowsSampledOut.increment();
+            return;
+        }
+
+        PendingExecution execution = new PendingExecution(
+            rule.getId(), card.getId(), status, previousStatus, newStatus,
+            evaluationResult, stockSnapshot, message, executionTimeMs, LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(execution);
+                }
+            });
+        } else {
+            enqueue(execution);
+        }
+    }
+
+    /**
+     * 批次寫入佇列中的執行記錄與評估統計
+     */
+    @Scheduled(fixedDelayString = "${kanban.rules.history.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<PendingExecution> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        writeStats();
+    }
+
+    /**
+     * 依保留天數清除執行歷史與評估統計；SKIPPED 取樣記錄的保留期較短
+     */
+    @Scheduled(cron = "${kanban.rules.history.retention-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int skipped = jdbcTemplate.update(
+                "DELETE FROM rule_executions WHERE status = 'SKIPPED' AND executed_at < ?",
+                Timestamp.valueOf(now.minusDays(skippedRetentionDays)));
+            int executions = jdbcTemplate.update(
+                "DELETE FROM rule_executions WHERE executed_at < ?",
+                Timestamp.valueOf(now.minusDays(retentionDays)));
+            int buckets = jdbcTemplate.update(
+                "DELETE FROM rule_evaluation_stats WHERE bucket_start < ?",
+                Timestamp.valueOf(now.minusDays(retentionDays)));
+            log.info("清除過期規則執行歷史: 跳過記錄={}, 執行記錄={}, 統計={}", skipped, executions, buckets);
+        } catch (Exception e) {
+            log.error("清除規則執行歷史失敗: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void enqueue(PendingExecution execution) {
+        if (!queue.offer(execution)) {
+            // 佇列已滿：由呼叫端寫入一批後重試
+            flush();
+            if (!queue.offer(execution)) {
+                rowsDropped.increment();
+                log.warn("規則執行歷史佇列已滿，捨棄記錄: ruleId={}, cardId={}, status={}",
+                        execution.ruleId(), execution.cardId(), execution.status());
+            }
+        }
+    }
+
+    private void count(String ruleId, RuleExecution.ExecutionStatus status) {
+        int slot = switch (status) {
+            case SUCCESS -> SUCCESS;
+            case FAILED -> FAILED;
+            case SKIPPED, COOLDOWN -> SKIPPED;
+        };
+        stats.compute(ruleId, (id, counts) -> {
+            long[] updated = counts != null ? counts : new long[4];
+            updated[EVALUATIONS]++;
+            updated[slot]++;
+            return updated;
+        });
+    }
+
+    /**
+     * 每條規則每 skippedSampleEvery 次 SKIPPED 寫入一筆明細（含第一次）；設為 0 時不寫入
+     */
+    private boolean sampleSkipped(String ruleId) {
+        if (skippedSampleEvery <= 0) {
+            return false;
+        }
+        long seen = skippedSeen.computeIfAbsent(ruleId, id -> new AtomicLong()).getAndIncrement();
+        return seen % skippedSampleEvery == 0;
+    }
+
+    /**
+     * 在新交易中批次寫入；失敗時逐筆各自以新交易重試，只捨棄本身寫入失敗的記錄
+     */
+    private void writeBatch(List<PendingExecution> batch) {
+        try {
+            writeTransaction.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_EXECUTION_SQL, batch, batch.size(), this::bind));
+            rowsWritten.increment(batch.size());
+            return;
+        } catch (Exception e) {
+            log.warn("批次寫入規則執行歷史失敗，改為逐筆寫入: 筆數={}, error={}", batch.size(), e.getMessage());
+        }
+
+        for (PendingExecution execution : batch) {
+            try {
+                writeTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.update(INSERT_EXECUTION_SQL, ps -> bind(ps, execution)));
+                rowsWritten.increment();
+            } catch (Exception e) {
+                rowsFailed.increment();
+                log.error("寫入規則執行歷史失敗: ruleId={}, cardId={}, status={}, error={}",
+                        execution.ruleId(), execution.cardId(), execution.status(), e.getMessage());
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, PendingExecution execution) throws SQLException {
+        ps.setString(1, UUID.randomUUID().toString());
+        ps.setString(2, execution.ruleId());
+        ps.setString(3, execution.cardId());
+        ps.setString(4, execution.status().name());
+        setEnum(ps, 5, execution.previousStatus());
+        setEnum(ps, 6, execution.newStatus());
+        ps.setString(7, toJson(execution.evaluationResult()));
+        ps.setString(8, toJson(execution.stockSnapshot()));
+        ps.setString(9, execution.message());
+        ps.setBoolean(10, false);
+        ps.setLong(11, execution.executionTimeMs());
+        ps.setTimestamp(12, Timestamp.valueOf(execution.executedAt()));
+    }
+
+    private void writeStats() {
+        if (stats.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp bucketStart = Timestamp.valueOf(now.truncatedTo(ChronoUnit.HOURS));
+        Timestamp updatedAt = Timestamp.valueOf(now);
+
+        Map<String, long[]> taken = new LinkedHashMap<>();
+        List<Object[]> rows = new ArrayList<>(stats.size());
+        for (String ruleId : stats.keySet()) {
+            long[] counts = stats.remove(ruleId);
+            if (counts != null) {
+                taken.put(ruleId, counts);
+                rows.add(new Object[]{ruleId, bucketStart,
+                    counts[EVALUATIONS], counts[SUCCESS], counts[FAILED], counts[SKIPPED], updatedAt});
+            }
+        }
+        try {
+            writeTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_STATS_SQL, rows));
+        } catch (Exception e) {
+            // 統計是 SKIPPED 評估唯一的紀錄，失敗時併回待寫入的計數，由下次 flush 重試
+            taken.forEach(this::restoreStats);
+            log.error("寫入規則評估統計失敗，下次 flush 重試: 規則數量={}, error={}", rows.size(), e.getMessage(), e);
+        }
+    }
+
+    private void restoreStats(String ruleId, long[] counts) {
+        stats.merge(ruleId, counts, (pending, failed) -> {
+            for (int i = 0; i < pending.length; i++) {
+                pending[i] += failed[i];
+            }
+            return pending;
+        });
+    }
+
+    private static void setEnum(PreparedStatement ps, int index, Enum<?> value) throws SQLException {
+        if (value != null) {
+            ps.setString(index, value.name());
+        } else {
+            ps.setNull(index, Types.VARCHAR);
+        }
+    }
+
+    private String toJson(RuleEvaluationService.EvaluationResult evaluationResult) {
+        if (evaluationResult == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(evaluationResult);
+        } catch (Exception e) {
+            return "{}";
+        }
+    }
+
+    private String toJson(StockSnapshot stockSnapshot) {
+        if (stockSnapshot == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> snapshotData = new HashMap<>();
+            snapshotData.put("stockCode", stockSnapshot.getCode());
+            snapshotData.put("stockName", stockSnapshot.getName());
+            snapshotData.put("currentPrice", stockSnapshot.getCurrentPrice());
+            snapshotData.put("volume", stockSnapshot.getVolume());
+            snapshotData.put("changePercent", stockSnapshot.getChangePercent());
+            snapshotData.put("openPrice", stockSnapshot.getOpenPrice());
+            snapshotData.put("highPrice", stockSnapshot.getHighPrice());
+            snapshotData.put("lowPrice", stockSnapshot.getLowPrice());
+            snapshotData.put("updatedAt", stockSnapshot.getUpdatedAt());
+            return objectMapper.writeValueAsString(snapshotData);
+        } catch (Exception e) {
+            log.warn("無法序列化股票快照: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Counter rowCounter(MeterRegistry registry, String result) {
+        return Counter.builder("kanban.rules.history.rows")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,247 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 規則 DSL 可用的數值欄位
+ * 每個欄位對應 double[] 評估框架中的一個位置，缺值以 NaN 表示，布林旗標以 1/0 表示；
+ * 名稱與 EvaluationContext 的屬性相同，別名（如 currentPrice、rsi14、kdK）共用同一個位置
+ */
+public enum RuleField {
+
+    PRICE(Kind.NUMBER, Source.SNAPSHOT, "price", "currentPrice"),
+    OPEN_PRICE(Kind.NUMBER, Source.SNAPSHOT, "openPrice"),
+    HIGH_PRICE(Kind.NUMBER, Source.SNAPSHOT, "highPrice"),
+    LOW_PRICE(Kind.NUMBER, Source.SNAPSHOT, "lowPrice"),
+    PREVIOUS_CLOSE(Kind.NUMBER, Source.SNAPSHOT, "previousClose"),
+    CHANGE(Kind.NUMBER, Source.SNAPSHOT, "change"),
+    CHANGE_PERCENT(Kind.NUMBER, Source.SNAPSHOT, "changePercent"),
+    VOLUME(Kind.NUMBER, Source.SNAPSHOT, "volume"),
+    AVG_VOLUME(Kind.NUMBER, Source.SNAPSHOT, "avgVolume"),
+    MA5(Kind.NUMBER, Source.INDICATOR, "ma5"),
+    MA10(Kind.NUMBER, Source.INDICATOR, "ma10"),
+    MA20(Kind.NUMBER, Source.INDICATOR, "ma20"),
+    MA60(Kind.NUMBER, Source.INDICATOR, "ma60"),
+    MA5_MA20_DIFF(Kind.NUMBER, Source.INDICATOR, "ma5_ma20_diff"),
+    RSI(Kind.NUMBER, Source.INDICATOR, "rsi", "rsi14"),
+    MACD(Kind.NUMBER, Source.INDICATOR, "macd", "macdLine"),
+    MACD_SIGNAL(Kind.NUMBER, Source.INDICATOR, "macdSignal"),
+    MACD_HISTOGRAM(Kind.NUMBER, Source.INDICATOR, "macdHistogram"),
+    K_VALUE(Kind.NUMBER, Source.INDICATOR, "kValue", "kdK"),
+    D_VALUE(Kind.NUMBER, Source.INDICATOR, "dValue", "kdD"),
+    VOLUME_RATIO(Kind.NUMBER, Source.INDICATOR, "volumeRatio"),
+    MACD_POSITIVE(Kind.FLAG, Source.INDICATOR, "macd_positive"),
+    MACD_SIGNAL_POSITIVE(Kind.FLAG, Source.INDICATOR, "macd_signal_positive"),
+    CARD_STATUS(Kind.STATUS, Source.CARD, "cardStatus");
+
+    /** 評估框架長度 */
+    public static final int FRAME_SIZE = values().length;
+
+    private static final Map<String, RuleField> BY_NAME;
+
+    static {
+        Map<String, RuleField> byName = new HashMap<>();
+        for (RuleField field : values()) {
+            for (String name : field.names) {
+                byName.put(name, field);
+            }
+        }
+        BY_NAME = Collections.unmodifiableMap(byName);
+    }
+
+    enum Kind {
+        NUMBER,
+        FLAG,
+        STATUS
+    }
+
+    /**
+     * 欄位資料來源
+     */
+    public enum Source {
+        CARD,
+        SNAPSHOT,
+        INDICATOR
+    }
+
+    private final Kind kind;
+    private final Source source;
+    private final String[] names;
+
+    RuleField(Kind kind, Source source, String... names) {
+        this.kind = kind;
+        this.source = source;
+        this.names = names;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * 欄位在規則中的主要名稱
+     */
+    public String getName() {
+        return names[0];
+    }
+
+    /**
+     * 依規則中的變數名稱查詢欄位，找不到時回傳 null
+     */
+    public static RuleField byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * 以卡片、快照與指標建立當期評估框架
+     */
+    public static double[] frame(Card card, StockSnapshot stockSnapshot, TechnicalIndicator technicalIndicator) {
+        double[] frame = emptyFrame();
+        if (card != null && card.getStatus() != null) {
+            frame[CARD_STATUS.ordinal()] = card.getStatus().ordinal();
+        }
+        if (stockSnapshot != null) {
+            fill(frame, stockSnapshot);
+        }
+        if (technicalIndicator != null) {
+            fill(frame, technicalIndicator);
+        }
+        return frame;
+    }
+
+    /**
+     * 建立前一期評估框架：DSL 的前一期為前一根日 K 棒，與回測逐根 K 棒比較相同；
+     * 價格取快照的前收盤價，其餘取前一個交易日最後一筆指標（TechnicalIndicatorRepository.findPreviousDayByLatest），
+     * 不取同一交易日內前一次更新的指標。沒有前一期指標時回傳 null，交叉判斷一律不成立
+     */
+    public static double[] previousFrame(StockSnapshot stockSnapshot, TechnicalIndicator previousIndicator) {
+        if (previousIndicator == null) {
+            return null;
+        }
+        double[] frame = emptyFrame();
+        if (stockSnapshot != null) {
+            frame[PRICE.ordinal()] = toDouble(stockSnapshot.getPreviousClose());
+        }
+        fill(frame, previousIndicator);
+        return frame;
+    }
+
+    /**
+     * 以指標序列第 index 根 K 棒填入評估框架（回測用），重複使用傳入的陣列
+     * 價格欄位取該根 K 棒，前收盤價取前一根，數值與即時評估相同但不經過 BigDecimal
+     */
+    public static void fill(double[] frame, IndicatorSeries series, int index, Card.CardStatus cardStatus) {
+        BarSeries bars = series.getBars();
+        double price = bars.getClose()[index];
+        double previousClose = index > 0 ? bars.getClose()[index - 1] : Double.NaN;
+        long volume = bars.getVolume()[index];
+        frame[PRICE.ordinal()] = price;
+        frame[OPEN_PRICE.ordinal()] = bars.getOpen()[index];
+        frame[HIGH_PRICE.ordinal()] = bars.getHigh()[index];
+        frame[LOW_PRICE.ordinal()] = bars.getLow()[index];
+        frame[PREVIOUS_CLOSE.ordinal()] = previousClose;
+        frame[CHANGE.ordinal()] = price - previousClose;
+        frame[CHANGE_PERCENT.ordinal()] = (price - previousClose) / previousClose * 100;
+        frame[VOLUME.ordinal()] = volume;
+        frame[AVG_VOLUME.ordinal()] = volume;
+
+        double ma5 = series.getMa5()[index];
+        double ma20 = series.getMa20()[index];
+        double macd = series.getMacdLine()[index];
+        double macdSignal = series.getMacdSignal()[index];
+        double volumeMa20 = series.getVolumeMa20()[index];
+        frame[MA5.ordinal()] = ma5;
+        frame[MA10.ordinal()] = series.getMa10()[index];
+        frame[MA20.ordinal()] = ma20;
+        frame[MA60.ordinal()] = series.getMa60()[index];
+        frame[MA5_MA20_DIFF.ordinal()] = ma5 - ma20;
+        frame[RSI.ordinal()] = series.getRsi14()[index];
+        frame[MACD.ordinal()] = macd;
+        frame[MACD_SIGNAL.ordinal()] = macdSignal;
+        frame[MACD_HISTOGRAM.ordinal()] = series.getMacdHistogram()[index];
+        frame[K_VALUE.ordinal()] = series.getKdK()[index];
+        frame[D_VALUE.ordinal()] = series.getKdD()[index];
+        frame[VOLUME_RATIO.ordinal()] = volumeMa20 > 0 ? volume / Math.floor(volumeMa20) : Double.NaN;
+        boolean macdKnown = !Double.isNaN(macd) && !Double.isNaN(macdSignal);
+        frame[MACD_POSITIVE.ordinal()] = macdKnown ? (macd > 0 ? 1 : 0) : Double.NaN;
+        frame[MACD_SIGNAL_POSITIVE.ordinal()] = macdKnown ? (macdSignal > 0 ? 1 : 0) : Double.NaN;
+        frame[CARD_STATUS.ordinal()] = cardStatus != null ? cardStatus.ordinal() : Double.NaN;
+    }
+
+    /**
+     * 比較兩個框架中指定來源的欄位，回傳值有變動的欄位；before 為 null 時該來源的欄位全部視為變動
+     */
+    public static Set<RuleField> changedFields(double[] before, double[] after, Source source) {
+        Set<RuleField> changed = EnumSet.noneOf(RuleField.class);
+        for (RuleField field : values()) {
+            int slot = field.ordinal();
+            if (field.source == source && (before == null || Double.compare(before[slot], after[slot]) != 0)) {
+                changed.add(field);
+            }
+        }
+        return changed;
+    }
+
+    private static double[] emptyFrame() {
+        double[] frame = new double[FRAME_SIZE];
+        Arrays.fill(frame, Double.NaN);
+        return frame;
+    }
+
+    private static void fill(double[] frame, StockSnapshot stockSnapshot) {
+        double price = toDouble(stockSnapshot.getCurrentPrice());
+        double previousClose = toDouble(stockSnapshot.getPreviousClose());
+        frame[PRICE.ordinal()] = price;
+        frame[OPEN_PRICE.ordinal()] = toDouble(stockSnapshot.getOpenPrice());
+        frame[HIGH_PRICE.ordinal()] = toDouble(stockSnapshot.getHighPrice());
+        frame[LOW_PRICE.ordinal()] = toDouble(stockSnapshot.getLowPrice());
+        frame[PREVIOUS_CLOSE.ordinal()] = previousClose;
+        frame[CHANGE.ordinal()] = price - previousClose;
+        frame[CHANGE_PERCENT.ordinal()] = toDouble(stockSnapshot.getChangePercent());
+        if (stockSnapshot.getVolume() != null) {
+            frame[VOLUME.ordinal()] = stockSnapshot.getVolume();
+            frame[AVG_VOLUME.ordinal()] = stockSnapshot.getVolume(); // 與 SpEL 上下文相同的簡化版本
+        }
+    }
+
+    private static void fill(double[] frame, TechnicalIndicator indicator) {
+        double ma5 = toDouble(indicator.getMa5());
+        double ma20 = toDouble(indicator.getMa20());
+        double macd = toDouble(indicator.getMacdLine());
+        double macdSignal = toDouble(indicator.getMacdSignal());
+        frame[MA5.ordinal()] = ma5;
+        frame[MA10.ordinal()] = toDouble(indicator.getMa10());
+        frame[MA20.ordinal()] = ma20;
+        frame[MA60.ordinal()] = toDouble(indicator.getMa60());
+        frame[MA5_MA20_DIFF.ordinal()] = ma5 - ma20;
+        frame[RSI.ordinal()] = toDouble(indicator.getRsi14());
+        frame[MACD.ordinal()] = macd;
+        frame[MACD_SIGNAL.ordinal()] = macdSignal;
+        frame[MACD_HISTOGRAM.ordinal()] = toDouble(indicator.getMacdHistogram());
+        frame[K_VALUE.ordinal()] = toDouble(indicator.getKdK());
+        frame[D_VALUE.ordinal()] = toDouble(indicator.getKdD());
+        frame[VOLUME_RATIO.ordinal()] = toDouble(indicator.getVolumeRatio());
+        if (!Double.isNaN(macd) && !Double.isNaN(macdSignal)) {
+            frame[MACD_POSITIVE.ordinal()] = macd > 0 ? 1 : 0;
+            frame[MACD_SIGNAL_POSITIVE.ordinal()] = macdSignal > 0 ? 1 : 0;
+        }
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+}
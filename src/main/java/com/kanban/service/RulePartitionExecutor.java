@@ -0,0 +1,123 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.RuleExecution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 規則分區執行器
+ * 每個分區（一位使用者的規則與卡片）在 ruleExecutionPool 上以獨立的短交易執行，
+ * 單一分區緩慢或失敗不影響其他使用者，失敗時只回滾該分區
+ *
+ * 指標：
+ * kanban.rules.evaluations{status}：評估吞吐量
+ * kanban.rules.execution.queue：等待執行的分區數
+ * kanban.rules.partition.lag：分區送出到開始執行的延遲
+ * kanban.rules.partition.duration{result}：分區執行時間
+ */
+@Component
+@Slf4j
+public class RulePartitionExecutor {
+
+    private final ThreadPoolExecutor ruleExecutionPool;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<RuleExecution.ExecutionStatus, Counter> evaluations =
+            new EnumMap<>(RuleExecution.ExecutionStatus.class);
+    private final Timer partitionLag;
+    private final Timer partitionCompleted;
+    private final Timer partitionFailed;
+
+    public RulePartitionExecutor(ThreadPoolExecutor ruleExecutionPool,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.ruleExecutionPool = ruleExecutionPool;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (RuleExecution.ExecutionStatus status : RuleExecution.ExecutionStatus.values()) {
+            evaluations.put(status, Counter.builder("kanban.rules.evaluations")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.partitionLag = Timer.builder("kanban.rules.partition.lag").register(meterRegistry);
+        this.partitionCompleted = partitionTimer(meterRegistry, "completed");
+        this.partitionFailed = partitionTimer(meterRegistry, "failed");
+
+        Gauge.builder("kanban.rules.execution.queue", ruleExecutionPool, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("kanban.rules.execution.active", ruleExecutionPool, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 平行執行所有分區並等待完成
+     * @param partitions 分區鍵（使用者 ID）→ 分區工作
+     */
+    public void executeAll(Map<String, Runnable> partitions) {
+        if (ruleExecutionPool.isShutdown()) {
+            log.warn("規則執行緒池已關閉，略過 {} 個分區", partitions.size());
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(partitions.size());
+        List<String> keys = new ArrayList<>(partitions.size());
+        for (Map.Entry<String, Runnable> entry : partitions.entrySet()) {
+            long submittedAt = System.nanoTime();
+            keys.add(entry.getKey());
+            futures.add(ruleExecutionPool.submit(() -> execute(entry.getValue(), submittedAt)));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("等待規則分區完成時被中斷: partition={}", keys.get(i));
+                return;
+            } catch (ExecutionException e) {
+                log.error("規則分區執行失敗: partition={}, error={}",
+                        keys.get(i), e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 記錄一次 (規則, 卡片) 評估結果
+     */
+    public void recordEvaluation(RuleExecution.ExecutionStatus status) {
+        evaluations.get(status).increment();
+    }
+
+    private void execute(Runnable work, long submittedAt) {
+        long startedAt = System.nanoTime();
+        partitionLag.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+            transactionTemplate.executeWithoutResult(status -> work.run());
+            partitionCompleted.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            partitionFailed.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static Timer partitionTimer(MeterRegistry registry, String result) {
+        return Timer.builder("kanban.rules.partition.duration")
+                .tag("result", result)
+                .register(registry);
+    }
+}
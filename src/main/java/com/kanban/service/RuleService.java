@@ -29,6 +29,8 @@ public class RuleService {
 
     private final RuleRepository ruleRepository;
     private final UserRepository userRepository;
+    private final RuleEvaluationService ruleEvaluationService;
+    private final RuleDispatcher ruleDispatcher;
 
     /**
      * 建立新規則
@@ -44,8 +46,8 @@ public class RuleService {
                 throw new IllegalArgumentException("規則名稱已存在");
             });
 
-        // 驗證 SpEL 表達式（基本驗證）
-        validateSpelExpression(request.getConditionExpression());
+        // 驗證條件表達式（基本驗證，語法於編譯時檢查）
+        validateConditionExpression(request.getConditionExpression());
 
         Rule rule = Rule.builder()
             .user(user)
@@ -66,6 +68,8 @@ public class RuleService {
             .build();
 
         Rule savedRule = ruleRepository.save(rule);
+        ruleEvaluationService.compile(savedRule);
+        ruleDispatcher.invalidateIndex();
         log.info("建立規則: userId={}, ruleId={}, name={}", userId, savedRule.getId(), savedRule.getName());
 
         return convertToDto(savedRule);
@@ -92,7 +96,7 @@ public class RuleService {
         }
 
         if (request.getConditionExpression() != null) {
-            validateSpelExpression(request.getConditionExpression());
+            validateConditionExpression(request.getConditionExpression());
             rule.setConditionExpression(request.getConditionExpression());
         }
 
@@ -133,6 +137,8 @@ public class RuleService {
         }
 
         Rule updatedRule = ruleRepository.save(rule);
+        ruleEvaluationService.compile(updatedRule);
+        ruleDispatcher.invalidateIndex();
         log.info("更新規則: ruleId={}, userId={}", ruleId, userId);
 
         return convertToDto(updatedRule);
@@ -145,6 +151,8 @@ public class RuleService {
     public void deleteRule(String userId, String ruleId) {
         Rule rule = getRuleByIdAndValidateOwner(ruleId, userId);
         ruleRepository.delete(rule);
+        ruleEvaluationService.invalidate(ruleId);
+        ruleDispatcher.invalidateIndex();
         log.info("刪除規則: ruleId={}, userId={}", ruleId, userId);
     }
 
@@ -206,6 +214,7 @@ public class RuleService {
         Rule rule = getRuleByIdAndValidateOwner(ruleId, userId);
         rule.setEnabled(enabled);
         Rule updatedRule = ruleRepository.save(rule);
+        ruleDispatcher.invalidateIndex();
         log.info("{}規則: ruleId={}, userId={}", enabled ? "啟用" : "停用", ruleId, userId);
         return convertToDto(updatedRule);
     }
@@ -254,6 +263,8 @@ public class RuleService {
             .build();
 
         Rule savedRule = ruleRepository.save(rule);
+        ruleEvaluationService.compile(savedRule);
+        ruleDispatcher.invalidateIndex();
         log.info("從模板建立規則: userId={}, templateName={}, ruleId={}",
                  userId, templateName, savedRule.getId());
 
@@ -277,14 +288,13 @@ public class RuleService {
     }
 
     /**
-     * 驗證 SpEL 表達式（基本驗證）
+     * 驗證條件表達式（基本驗證）
+     * 完整語法由 RuleEvaluationService.compile 編譯時檢查，DSL 與 SpEL 皆無法解析時拋出 IllegalArgumentException
      */
-    private void validateSpelExpression(String expression) {
+    private void validateConditionExpression(String expression) {
         if (expression == null || expression.trim().isEmpty()) {
             throw new IllegalArgumentException("條件表達式不能為空");
         }
-        // TODO: 實作完整的 SpEL 表達式驗證
-        // 可以使用 SpelExpressionParser 進行解析驗證
     }
 
     /**
@@ -384,7 +394,7 @@ public class RuleService {
             .name("均線黃金交叉")
             .description("當短期均線上穿長期均線時觸發（黃金交叉）")
             .ruleType(Rule.RuleType.TEMPLATE)
-            .conditionExpression("ma5 > ma20 && ma5Previous <= ma20Previous")
+            .conditionExpression("crossesAbove(ma5, ma20)")
             .triggerEvent(Rule.TriggerEvent.TECHNICAL_INDICATOR)
             .targetStatus(Card.CardStatus.READY_TO_BUY)
             .enabled(true)
@@ -0,0 +1,217 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.dto.market.ScreenRequest;
+import com.kanban.dto.market.ScreenResult;
+import com.kanban.dto.market.ScreenRow;
+import com.kanban.dto.market.ScreenRuleRequest;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
+import com.kanban.dto.rule.RuleCreateRequest;
+import com.kanban.dto.rule.RuleDto;
+import com.kanban.repository.StockSnapshotRepository;
+import com.kanban.repository.TechnicalIndicatorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 全市場選股篩選
+ * 以 MarketColumnStore 保存每檔股票的最新快照與技術指標，隨快照與指標變動事件更新；
+ * 篩選條件使用規則 DSL，可直接轉成規則
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScreenerService {
+
+    /** 每筆結果固定列出的欄位 */
+    private static final List<RuleField> BASE_FIELDS =
+            List.of(RuleField.PRICE, RuleField.CHANGE_PERCENT, RuleField.VOLUME);
+
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final TechnicalIndicatorRepository technicalIndicatorRepository;
+    private final RuleEvaluationService evaluationService;
+    private final RuleService ruleService;
+
+    private final MarketColumnStore store = new MarketColumnStore();
+
+    /**
+     * 啟動時以資料庫中的快照與前一個交易日、最新一期技術指標建立欄式資料
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<StockSnapshot> snapshots = stockSnapshotRepository.findAll();
+            snapshots.forEach(this::updateSnapshot);
+
+            List<String> stockCodes = snapshots.stream().map(StockSnapshot::getCode).toList();
+            if (!stockCodes.isEmpty()) {
+                List<TechnicalIndicator> latest = technicalIndicatorRepository.findLatestByStockCodes(stockCodes);
+                technicalIndicatorRepository.findPreviousDayByLatest(latest).forEach(this::updateIndicator);
+                latest.forEach(this::updateIndicator);
+            }
+            log.info("選股資料載入完成: 股票數量={}", store.size());
+        } catch (Exception e) {
+            log.error("選股資料載入失敗，改由後續更新事件建立: {}", e.getMessage(), e);
+        }
+    }
+
+    @EventListener
+    public void onSnapshotChanged(StockSnapshotChangedEvent event) {
+        updateSnapshot(event.getSnapshot());
+    }
+
+    @EventListener
+    public void onIndicatorChanged(TechnicalIndicatorChangedEvent event) {
+        updateIndicator(event.getIndicator());
+    }
+
+    /**
+     * 以 DSL 條件篩選全市場股票
+     * @throws IllegalArgumentException 條件不在 DSL 語法內或排序欄位不存在
+     */
+    public ScreenResult screen(ScreenRequest request) {
+        CompiledCondition condition = evaluationService.compileCondition(request.getCondition());
+        RuleField sortField = null;
+        if (request.getSortBy() != null && !request.getSortBy().isBlank()) {
+            sortField = RuleField.byName(request.getSortBy());
+            if (sortField == null) {
+                throw new IllegalArgumentException("不支援的排序欄位: " + request.getSortBy());
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        int totalStocks = store.size();
+        int[] matches = store.filter(condition);
+        int[] rows = top(matches, sortField, request.isDescending(), request.getLimit());
+
+        Set<RuleField> fields = new LinkedHashSet<>(BASE_FIELDS);
+        fields.addAll(condition.getReferencedFields());
+        if (sortField != null) {
+            fields.add(sortField);
+        }
+        fields.remove(RuleField.CARD_STATUS);
+
+        String[] codes = store.codes(rows);
+        String[] names = store.names(rows);
+        List<Map<String, Double>> values = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            values.add(new LinkedHashMap<>());
+        }
+        for (RuleField field : fields) {
+            double[] column = store.values(field, rows);
+            for (int i = 0; i < rows.length; i++) {
+                if (!Double.isNaN(column[i])) {
+                    values.get(i).put(field.getName(), column[i]);
+                }
+            }
+        }
+        long elapsedMicros = (System.nanoTime() - startedAt) / 1_000;
+
+        List<ScreenRow> result = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            result.add(ScreenRow.builder()
+                    .stockCode(codes[i])
+                    .stockName(names[i])
+                    .values(values.get(i))
+                    .build());
+        }
+
+        log.debug("選股篩選: condition={}, 符合={}/{}, 耗時={}µs",
+                request.getCondition(), matches.length, totalStocks, elapsedMicros);
+        return ScreenResult.builder()
+                .condition(request.getCondition())
+                .totalStocks(totalStocks)
+                .matchCount(matches.length)
+                .elapsedMicros(elapsedMicros)
+                .rows(result)
+                .build();
+    }
+
+    /**
+     * 將篩選條件建立為規則；條件引用技術指標時於指標更新觸發，否則於價格變動觸發
+     */
+    public RuleDto createRuleFromScreen(String userId, ScreenRuleRequest request) {
+        CompiledCondition condition = evaluationService.compileCondition(request.getCondition());
+        boolean usesIndicators = condition.getReferencedFields().stream()
+                .anyMatch(field -> field.getSource() == RuleField.Source.INDICATOR);
+
+        RuleCreateRequest ruleRequest = RuleCreateRequest.builder()
+                .name(request.getName())
+                .description(request.getDescription())
+                .ruleType(Rule.RuleType.CUSTOM)
+                .conditionExpression(condition.getSource())
+                .triggerEvent(usesIndicators ? Rule.TriggerEvent.TECHNICAL_INDICATOR : Rule.TriggerEvent.PRICE_CHANGE)
+                .targetStatus(request.getTargetStatus())
+                .cooldownSeconds(request.getCooldownSeconds())
+                .sendNotification(request.getSendNotification())
+                .build();
+        return ruleService.createRule(userId, ruleRequest);
+    }
+
+    /**
+     * 依排序欄位取前 limit 筆，缺值排在最後；未指定排序欄位時依股票代碼排序
+     */
+    private int[] top(int[] matches, RuleField sortField, boolean descending, int limit) {
+        Integer[] order = new Integer[matches.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        Comparator<Integer> comparator;
+        if (sortField == null) {
+            String[] codes = store.codes(matches);
+            comparator = Comparator.comparing(i -> codes[i]);
+        } else {
+            double[] keys = store.values(sortField, matches);
+            comparator = (a, b) -> {
+                boolean missingA = Double.isNaN(keys[a]);
+                boolean missingB = Double.isNaN(keys[b]);
+                if (missingA || missingB) {
+                    return Boolean.compare(missingA, missingB);
+                }
+                return descending ? Double.compare(keys[b], keys[a]) : Double.compare(keys[a], keys[b]);
+            };
+        }
+        Arrays.sort(order, comparator);
+
+        int[] rows = new int[Math.min(limit, order.length)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = matches[order[i]];
+        }
+        return rows;
+    }
+
+    private void updateSnapshot(StockSnapshot snapshot) {
+        if (snapshot == null || snapshot.getCode() == null) {
+            return;
+        }
+        store.updateSnapshot(snapshot.getCode(), snapshot.getName(), RuleField.frame(null, snapshot, null));
+    }
+
+    private void updateIndicator(TechnicalIndicator indicator) {
+        if (indicator == null || indicator.getStockCode() == null) {
+            return;
+        }
+        LocalDate tradingDay = indicator.getCalculationDate() != null
+                ? indicator.getCalculationDate().toLocalDate()
+                : LocalDate.now();
+        store.updateIndicator(indicator.getStockCode(), RuleField.frame(null, null, indicator),
+                tradingDay.toEpochDay());
+    }
+}
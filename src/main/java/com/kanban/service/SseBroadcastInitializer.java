@@ -16,7 +16,6 @@ import org.springframework.stereotype.Component;
 public class SseBroadcastInitializer implements ApplicationRunner {
 
     private final SseConnectionManager sseConnectionManager;
-    private final StockDataService stockDataService;
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
@@ -24,7 +23,7 @@ public class SseBroadcastInitializer implements ApplicationRunner {
         
         try {
             // 啟動多 Topic 分層廣播
-            sseConnectionManager.startMultiTopicBroadcast(stockDataService);
+            sseConnectionManager.startMultiTopicBroadcast();
             
             log.info("SSE multi-topic broadcast strategy started successfully");
             
@@ -0,0 +1,244 @@
+package com.kanban.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * 單一 SSE 連線與其有上限的送出佇列
+ * 廣播只把事件放進佇列，由 writer 執行緒池送出，慢速連線不會拖住廣播執行緒與同 Topic 的其他連線。
+ * 帶合併鍵（股票代碼）的事件若已在佇列中則以新值取代原位置；佇列滿時丟棄最舊的事件。
+ * 被取代或丟棄的增量事件由同一合併鍵的下一個事件以較舊的基準重建，客戶端不會因此漏掉欄位變動。
+ * 同一條連線同時最多只有一個 writer 任務在送出
+ */
+final class SseConnection {
+
+    /** 每次 writer 任務最多送出的事件數，之後重新排入執行緒池讓其他連線有機會送出 */
+    private static final int DRAIN_BATCH = 32;
+
+    private final String key;
+    private final String topic;
+    /** 訂閱的股票代碼，由 stock:{code} Topic 推送 */
+    private final Set<String> stockCodes;
+    private final SseEmitter emitter;
+    private final Executor writer;
+    private final int capacity;
+    private final BiConsumer<SseConnection, Exception> onWriteFailure;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> pendingByKey = new HashMap<>();
+    /** 佇列滿時被丟棄、尚未由後續事件補上的增量事件 */
+    private final Map<String, SseFrame> lostByKey = new HashMap<>();
+    private boolean draining;
+    private boolean closed;
+    /** 正在送出的事件進入佇列的時間，沒有送出中的事件時為 0 */
+    private long inflightSince;
+    private long sent;
+    private long dropped;
+    private long coalesced;
+    private long droppedSinceWrite;
+    /** 心跳時間輪中的刻度，尚未登記時為 -1 */
+    private volatile int heartbeatSlot = -1;
+
+    SseConnection(String key, String topic, Set<String> stockCodes, SseEmitter emitter, Executor writer,
+                  int capacity, BiConsumer<SseConnection, Exception> onWriteFailure) {
+        this.key = key;
+        this.topic = topic;
+        this.stockCodes = Set.copyOf(stockCodes);
+        this.emitter = emitter;
+        this.writer = writer;
+        this.capacity = Math.max(1, capacity);
+        this.onWriteFailure = onWriteFailure;
+    }
+
+    /**
+     * 放入一個事件
+     * @param coalesceKey 合併鍵，null 表示不合併
+     */
+    void offer(String coalesceKey, SseFrame frame, long nowMillis) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Pending pending = coalesceKey != null ? pendingByKey.get(coalesceKey) : null;
+            if (pending != null) {
+                pending.frame = frame.supersede(pending.frame);
+                coalesced++;
+            } else {
+                if (queue.size() >= capacity) {
+                    Pending oldest = queue.pollFirst();
+                    if (oldest.key != null) {
+                        pendingByKey.remove(oldest.key);
+                        if (oldest.frame.baseSequence() != SseFrame.NO_BASE) {
+                            lostByKey.putIfAbsent(oldest.key, oldest.frame);
+                        }
+                    }
+                    dropped++;
+                    droppedSinceWrite++;
+                }
+                SseFrame lost = coalesceKey != null ? lostByKey.remove(coalesceKey) : null;
+                pending = new Pending(coalesceKey, frame.supersede(lost), nowMillis);
+                queue.addLast(pending);
+                if (coalesceKey != null) {
+                    pendingByKey.put(coalesceKey, pending);
+                }
+            }
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        schedule();
+    }
+
+    /**
+     * 關閉連線並清空佇列
+     * @return 第一次關閉時為 true
+     */
+    synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        queue.clear();
+        pendingByKey.clear();
+        lostByKey.clear();
+        return true;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 最舊的未送達事件已等待的時間（含送出中的事件）
+     */
+    synchronized long lagMillis(long nowMillis) {
+        long oldest = inflightSince;
+        Pending head = queue.peekFirst();
+        if (head != null && (oldest == 0 || head.enqueuedAt < oldest)) {
+            oldest = head.enqueuedAt;
+        }
+        return oldest == 0 ? 0 : Math.max(0, nowMillis - oldest);
+    }
+
+    /**
+     * 連線落後過多時回傳原因，否則回傳 null
+     */
+    synchronized String behindReason(long nowMillis, long maxLagMillis, long maxDropsSinceWrite) {
+        long lag = lagMillis(nowMillis);
+        if (lag > maxLagMillis) {
+            return "lag " + lag + "ms exceeds " + maxLagMillis + "ms";
+        }
+        if (droppedSinceWrite >= maxDropsSinceWrite) {
+            return droppedSinceWrite + " frames dropped since last write";
+        }
+        return null;
+    }
+
+    synchronized SseConnectionManager.ConnectionLag lag(long nowMillis) {
+        return new SseConnectionManager.ConnectionLag(key, topic, queue.size(), lagMillis(nowMillis),
+                sent, dropped, coalesced);
+    }
+
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    Set<String> getStockCodes() {
+        return stockCodes;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    int getHeartbeatSlot() {
+        return heartbeatSlot;
+    }
+
+    void setHeartbeatSlot(int heartbeatSlot) {
+        this.heartbeatSlot = heartbeatSlot;
+    }
+
+    private void drain() {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Pending next;
+            synchronized (this) {
+                next = closed ? null : queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    inflightSince = 0;
+                    return;
+                }
+                if (next.key != null) {
+                    pendingByKey.remove(next.key);
+                }
+                inflightSince = next.enqueuedAt;
+            }
+            try {
+                emitter.send(next.frame);
+            } catch (IOException | IllegalStateException e) {
+                synchronized (this) {
+                    draining = false;
+                    inflightSince = 0;
+                }
+                onWriteFailure.accept(this, e);
+                return;
+            }
+            synchronized (this) {
+                sent++;
+                droppedSinceWrite = 0;
+            }
+        }
+        synchronized (this) {
+            inflightSince = 0;
+            if (closed || queue.isEmpty()) {
+                draining = false;
+                return;
+            }
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                draining = false;
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final String key;
+        private final long enqueuedAt;
+        private SseFrame frame;
+
+        private Pending(String key, SseFrame frame, long enqueuedAt) {
+            this.key = key;
+            this.frame = frame;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -1,31 +1,58 @@
 package com.kanban.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SSE 連線管理服務
  * 負責 Server-Sent Events 連線池管理、負載控制與多 Topic 分層廣播
+ * 股票報價只推送給有人訂閱的 stock:{code} Topic：StockSubscriptionRegistry 依訂閱人數與交易活躍度分層，
+ * 各分層定期經 StockDataService 更新自己訂閱中的股票，只推送有變動的快照，無人訂閱時不推送。
+ * 報價經 StockStreamLog 編成帶序號的事件：訂閱時送完整快照，之後只送有變動的欄位，
+ * 重連時依 Last-Event-ID 補送遺漏的變動。
+ * 廣播只把事件放進每條連線有上限的佇列，由 sseWriterPool 送出；落後過多的連線會被斷開。
+ * 心跳由所有連線共用的 SseHeartbeatWheel 分批送出
  */
 @Service
 @Slf4j
 public class SseConnectionManager {
 
+    private final ObjectMapper objectMapper;
+    private final Executor sseWriterPool;
+    private final StockDataService stockDataService;
+
     // 連線管理
-    private final Map<String, Set<SseEmitter>> topicConnections = new ConcurrentHashMap<>();
-    private final Map<String, SseEmitter> userConnections = new ConcurrentHashMap<>();
+    private final Map<String, Set<SseConnection>> topicConnections = new ConcurrentHashMap<>();
+    private final Map<String, SseConnection> userConnections = new ConcurrentHashMap<>();
     private final AtomicInteger activeConnections = new AtomicInteger(0);
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong closedDropped = new AtomicLong();
+    private final SseHeartbeatWheel heartbeatWheel = new SseHeartbeatWheel(HEARTBEAT_SLOTS);
+    private final StockSubscriptionRegistry subscriptions = new StockSubscriptionRegistry();
+    private final StockStreamLog streamLog;
+    private volatile long lastReclassifiedAt = System.currentTimeMillis();
     
     // 執行緒池
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
@@ -44,12 +71,55 @@ public class SseConnectionManager {
     @Value("${sse.heartbeat.interval:30000}")
     private long heartbeatInterval;
     
+    @Value("${sse.queue.capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${sse.queue.max-lag-ms:10000}")
+    private long maxLagMs;
+    
+    @Value("${sse.queue.max-drops:256}")
+    private long maxDrops;
+    
+    @Value("${sse.tiers.hot-subscribers:10}")
+    private int hotSubscribers;
+    
+    @Value("${sse.tiers.hot-changes-per-minute:20}")
+    private int hotChangesPerMinute;
+    
+    @Value("${sse.tiers.cold-changes-per-minute:2}")
+    private int coldChangesPerMinute;
+    
+    @Value("${sse.stream.ring-size:64}")
+    private int streamRingSize;
+    
+    @Value("${sse.stream.idle-ttl-ms:600000}")
+    private long streamIdleTtlMs;
+    
     private static final int MIN_INTERVAL_MS = 1000;
     
+    /** 心跳時間輪的刻度數，每個刻度間隔 heartbeatInterval / HEARTBEAT_SLOTS */
+    private static final int HEARTBEAT_SLOTS = 30;
+    
+    private static final String STOCK_TOPIC_PREFIX = "stock:";
+    
+    public SseConnectionManager(ObjectMapper objectMapper, Executor sseWriterPool, StockDataService stockDataService) {
+        this.objectMapper = objectMapper;
+        this.sseWriterPool = sseWriterPool;
+        this.stockDataService = stockDataService;
+        this.streamLog = new StockStreamLog(objectMapper);
+    }
+    
     /**
-     * 建立 SSE 連線
+     * 建立 SSE 連線；Topic 為 stock:{code} 時訂閱該檔股票
      */
     public SseEmitter createConnection(String userId, String topic, int intervalMs) {
+        return createConnection(userId, topic, intervalMs, List.of());
+    }
+    
+    /**
+     * 建立訂閱多檔股票的 SSE 連線，各檔股票的更新由對應的 stock:{code} Topic 推送
+     */
+    public SseEmitter createConnection(String userId, String topic, int intervalMs, Collection<String> stockCodes) {
         // 檢查連線數限制
         if (activeConnections.get() >= maxConnections) {
             throw new RuntimeException("超過最大連線數限制: " + maxConnections);
@@ -62,92 +132,144 @@ public class SseConnectionManager {
                 userId, topic, actualInterval);
 
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        String connectionKey = userId + ":" + topic;
         
         // 儲存連線
-        userConnections.put(connectionKey, emitter);
-        topicConnections.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(emitter);
-        activeConnections.incrementAndGet();
+        SseConnection connection = register(userId, topic, stockCodes, emitter);
         
         // 設定連線事件處理
-        setupConnectionHandlers(emitter, connectionKey, topic);
+        setupConnectionHandlers(connection);
         
-        // 發送初始心跳
-        sendHeartbeat(emitter, connectionKey);
-        
-        // 啟動定期心跳
-        startHeartbeat(emitter, connectionKey);
+        // 發送初始心跳，之後由心跳時間輪定期發送
+        sendHeartbeat(connection);
         
         return emitter;
     }
     
+    SseConnection register(String userId, String topic, SseEmitter emitter) {
+        return register(userId, topic, List.of(), emitter);
+    }
+    
+    /**
+     * 登記連線並建立其送出佇列，同時加入訂閱股票的 Topic 並計入訂閱人數
+     */
+    SseConnection register(String userId, String topic, Collection<String> stockCodes, SseEmitter emitter) {
+        Set<String> subscribedCodes = new LinkedHashSet<>();
+        if (topic.startsWith(STOCK_TOPIC_PREFIX)) {
+            subscribedCodes.add(topic.substring(STOCK_TOPIC_PREFIX.length()));
+        }
+        stockCodes.stream()
+                .filter(code -> code != null && !code.isBlank())
+                .forEach(subscribedCodes::add);
+        
+        String connectionKey = userId + ":" + topic;
+        SseConnection connection = new SseConnection(connectionKey, topic, subscribedCodes, emitter, sseWriterPool,
+                queueCapacity, this::onWriteFailure);
+        userConnections.put(connectionKey, connection);
+        for (String connectionTopic : topicsOf(connection)) {
+            topicConnections.computeIfAbsent(connectionTopic, k -> ConcurrentHashMap.newKeySet()).add(connection);
+        }
+        subscribedCodes.forEach(subscriptions::subscribe);
+        heartbeatWheel.add(connection);
+        activeConnections.incrementAndGet();
+        return connection;
+    }
+    
     /**
      * 廣播訊息到指定 Topic
+     * 訊息只序列化一次成 SseFrame，同一份位元組放入 Topic 上每條連線的佇列
      */
     public void broadcastToTopic(String topic, Object data) {
-        Set<SseEmitter> emitters = topicConnections.get(topic);
-        if (emitters == null || emitters.isEmpty()) {
+        broadcastToTopic(topic, null, data);
+    }
+    
+    /**
+     * 廣播訊息到指定 Topic；同一合併鍵尚未送出的舊訊息會被新訊息取代
+     * @param coalesceKey 合併鍵（例如股票代碼），null 表示不合併
+     */
+    public void broadcastToTopic(String topic, String coalesceKey, Object data) {
+        Set<SseConnection> connections = topicConnections.get(topic);
+        if (connections == null || connections.isEmpty()) {
             return;
         }
         
-        log.debug("Broadcasting to topic: {}, connections: {}", topic, emitters.size());
+        SseFrame frame;
+        try {
+            frame = SseFrame.of(objectMapper, "data-update", null, data);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize SSE data for topic {}: {}", topic, e.getMessage());
+            return;
+        }
         
-        emitters.removeIf(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name("data-update")
-                    .data(data)
-                    .id(String.valueOf(System.currentTimeMillis())));
-                return false; // 保留連線
-            } catch (IOException e) {
-                log.debug("Failed to send data to SSE connection: {}", e.getMessage());
-                activeConnections.decrementAndGet();
-                return true; // 移除失效連線
-            }
-        });
+        broadcastFrame(topic, connections, coalesceKey, frame);
+    }
+    
+    private void broadcastFrame(String topic, Set<SseConnection> connections, String coalesceKey, SseFrame frame) {
+        log.debug("Broadcasting to topic: {}, connections: {}, frame: {} bytes", topic, connections.size(), frame.size());
+        
+        long now = System.currentTimeMillis();
+        for (SseConnection connection : connections) {
+            connection.offer(coalesceKey, frame, now);
+            disconnectIfBehind(connection, now);
+        }
     }
     
     /**
      * 多 Topic 分層廣播策略
+     * 依分層定期更新訂閱中的股票並推送有變動的快照，每分鐘依實際需求重新分層
      */
-    public void startMultiTopicBroadcast(StockDataService stockDataService) {
+    public void startMultiTopicBroadcast() {
         log.info("Starting multi-topic broadcast strategy");
+        subscriptions.configure(hotSubscribers, hotChangesPerMinute, coldChangesPerMinute);
+        streamLog.configure(streamRingSize);
         
         // 熱門股票 - 高頻更新 (每秒)
-        scheduler.scheduleAtFixedRate(() -> {
-            broadcastHotStocks(stockDataService);
-        }, 0, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(() -> broadcastTier(StockSubscriptionRegistry.Tier.HOT),
+                1, 1, TimeUnit.SECONDS);
         
         // 一般股票 - 標準頻率 (每5秒)
-        scheduler.scheduleAtFixedRate(() -> {
-            broadcastRegularStocks(stockDataService);
-        }, 0, 5, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(() -> broadcastTier(StockSubscriptionRegistry.Tier.REGULAR),
+                5, 5, TimeUnit.SECONDS);
         
         // 冷門股票 - 低頻更新 (每30秒)
-        scheduler.scheduleAtFixedRate(() -> {
-            broadcastColdStocks(stockDataService);
-        }, 0, 30, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(() -> broadcastTier(StockSubscriptionRegistry.Tier.COLD),
+                30, 30, TimeUnit.SECONDS);
+        
+        // 依訂閱人數與交易活躍度重新分層 (每分鐘)
+        scheduler.scheduleAtFixedRate(this::reclassifyTiers, 1, 1, TimeUnit.MINUTES);
+        
+        // 心跳時間輪 (一圈為一個心跳間隔)
+        long heartbeatTick = Math.max(1, heartbeatInterval / heartbeatWheel.slotCount());
+        scheduler.scheduleAtFixedRate(this::tickHeartbeat, heartbeatTick, heartbeatTick, TimeUnit.MILLISECONDS);
         
         // 連線清理 (每分鐘)
         cleanupScheduler.scheduleAtFixedRate(this::cleanupConnections, 1, 1, TimeUnit.MINUTES);
     }
     
+    /**
+     * 快照更新時記錄待推送的變動；無人訂閱的股票直接略過
+     * 分層推送之間其他請求取得的新快照也由此排入推送
+     */
+    @EventListener
+    public void onSnapshotChanged(StockSnapshotChangedEvent event) {
+        if (event.getSnapshot() != null && event.getSnapshot().getCode() != null) {
+            subscriptions.offer(event.getSnapshot());
+        }
+    }
+    
     /**
      * 發送訊息給特定使用者
      */
     public void sendToUser(String userId, String topic, Object data) {
         String connectionKey = userId + ":" + topic;
-        SseEmitter emitter = userConnections.get(connectionKey);
+        SseConnection connection = userConnections.get(connectionKey);
         
-        if (emitter != null) {
+        if (connection != null) {
             try {
-                emitter.send(SseEmitter.event()
-                    .name("user-message")
-                    .data(data)
-                    .id(String.valueOf(System.currentTimeMillis())));
-            } catch (IOException e) {
-                log.debug("Failed to send message to user {}: {}", userId, e.getMessage());
-                removeConnection(connectionKey, topic, emitter);
+                long now = System.currentTimeMillis();
+                connection.offer(null, SseFrame.of(objectMapper, "user-message", null, data), now);
+                disconnectIfBehind(connection, now);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize SSE message for user {}: {}", userId, e.getMessage());
             }
         }
     }
@@ -156,194 +278,256 @@ public class SseConnectionManager {
      * 取得連線統計資訊
      */
     public ConnectionStats getConnectionStats() {
+        long now = System.currentTimeMillis();
+        List<ConnectionLag> lags = userConnections.values().stream()
+                .map(connection -> connection.lag(now))
+                .sorted(Comparator.comparingLong(ConnectionLag::lagMs).reversed())
+                .toList();
+        
         return ConnectionStats.builder()
                 .activeConnections(activeConnections.get())
                 .maxConnections(maxConnections)
                 .topicCount(topicConnections.size())
                 .utilizationRate((double) activeConnections.get() / maxConnections)
                 .autoScaleEnabled(autoScaleEnabled)
+                .totalDropped(closedDropped.get() + lags.stream().mapToLong(ConnectionLag::dropped).sum())
+                .maxLagMs(lags.isEmpty() ? 0 : lags.get(0).lagMs())
+                .slowConsumerDisconnects(slowConsumerDisconnects.get())
+                .connections(lags)
+                .subscribedStocks(subscriptions.size())
+                .stockTiers(tierCounts())
                 .build();
     }
     
     /**
      * 設定連線事件處理器
      */
-    private void setupConnectionHandlers(SseEmitter emitter, String connectionKey, String topic) {
+    private void setupConnectionHandlers(SseConnection connection) {
+        SseEmitter emitter = connection.getEmitter();
         emitter.onCompletion(() -> {
-            removeConnection(connectionKey, topic, emitter);
-            log.debug("SSE connection completed: {}", connectionKey);
+            removeConnection(connection);
+            log.debug("SSE connection completed: {}", connection.getKey());
         });
         
         emitter.onTimeout(() -> {
-            removeConnection(connectionKey, topic, emitter);
-            log.debug("SSE connection timeout: {}", connectionKey);
+            removeConnection(connection);
+            log.debug("SSE connection timeout: {}", connection.getKey());
         });
         
         emitter.onError((ex) -> {
-            removeConnection(connectionKey, topic, emitter);
-            log.error("SSE connection error for {}: {}", connectionKey, ex.getMessage());
+            removeConnection(connection);
+            log.error("SSE connection error for {}: {}", connection.getKey(), ex.getMessage());
         });
     }
     
     /**
-     * 移除連線
+     * 移除連線；重複呼叫只會生效一次
+     * @return 本次呼叫實際移除連線時為 true
      */
-    private void removeConnection(String connectionKey, String topic, SseEmitter emitter) {
-        userConnections.remove(connectionKey);
-        
-        Set<SseEmitter> topicEmitters = topicConnections.get(topic);
-        if (topicEmitters != null) {
-            topicEmitters.remove(emitter);
-            if (topicEmitters.isEmpty()) {
-                topicConnections.remove(topic);
+    private boolean removeConnection(SseConnection connection) {
+        if (!connection.close()) {
+            return false;
+        }
+        userConnections.remove(connection.getKey(), connection);
+        heartbeatWheel.remove(connection);
+        
+        for (String topic : topicsOf(connection)) {
+            Set<SseConnection> topicConnectionSet = topicConnections.get(topic);
+            if (topicConnectionSet != null) {
+                topicConnectionSet.remove(connection);
+                if (topicConnectionSet.isEmpty()) {
+                    topicConnections.remove(topic);
+                }
             }
         }
+        connection.getStockCodes().forEach(subscriptions::unsubscribe);
         
+        closedDropped.addAndGet(connection.getDropped());
         activeConnections.decrementAndGet();
+        return true;
+    }
+    
+    /**
+     * writer 送出失敗時移除連線
+     */
+    private void onWriteFailure(SseConnection connection, Exception e) {
+        log.debug("Failed to send data to SSE connection {}: {}", connection.getKey(), e.getMessage());
+        removeConnection(connection);
     }
     
     /**
-     * 啟動心跳機制
+     * 連線落後超過上限時斷開，並盡力送出斷線原因
      */
-    private void startHeartbeat(SseEmitter emitter, String connectionKey) {
-        scheduler.scheduleAtFixedRate(() -> {
-            if (userConnections.containsKey(connectionKey)) {
-                sendHeartbeat(emitter, connectionKey);
+    private void disconnectIfBehind(SseConnection connection, long now) {
+        String reason = connection.behindReason(now, maxLagMs, maxDrops);
+        if (reason == null || !removeConnection(connection)) {
+            return;
+        }
+        slowConsumerDisconnects.incrementAndGet();
+        log.warn("Disconnecting slow SSE consumer {}: {}", connection.getKey(), reason);
+        
+        // 在 writer 執行緒關閉，避免卡在慢速連線的寫入鎖上
+        SseEmitter emitter = connection.getEmitter();
+        sseWriterPool.execute(() -> {
+            try {
+                emitter.send(SseFrame.of(objectMapper, "disconnect", null, Map.of("reason", reason)));
+                emitter.complete();
+            } catch (Exception e) {
+                log.debug("Failed to close slow SSE consumer {}: {}", connection.getKey(), e.getMessage());
             }
-        }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        });
     }
     
     /**
-     * 發送心跳
+     * 心跳時間輪前進一格，對該刻度的所有連線送出同一份心跳
+     * 閒置 Topic 上的慢速連線也在此檢查落後程度；心跳不帶 id，不會覆蓋客戶端的 Last-Event-ID
      */
-    private void sendHeartbeat(SseEmitter emitter, String connectionKey) {
+    private void tickHeartbeat() {
+        Set<SseConnection> batch = heartbeatWheel.advance();
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        SseFrame frame;
         try {
-            emitter.send(SseEmitter.event()
-                .name("heartbeat")
-                .data("ping")
-                .id(String.valueOf(System.currentTimeMillis())));
-        } catch (IOException e) {
-            log.debug("Heartbeat failed for connection: {}", connectionKey);
-            // 連線將在下次清理時被移除
+            frame = SseFrame.of(objectMapper, "heartbeat", null, "ping");
+        } catch (JsonProcessingException e) {
+            log.debug("Failed to build heartbeat frame: {}", e.getMessage());
+            return;
+        }
+        
+        for (SseConnection connection : batch) {
+            connection.offer("heartbeat", frame, now);
+            disconnectIfBehind(connection, now);
         }
     }
     
     /**
-     * 廣播熱門股票資料
+     * 發送心跳；同一條連線尚未送出的心跳只保留一個
      */
-    private void broadcastHotStocks(StockDataService stockDataService) {
+    private void sendHeartbeat(SseConnection connection) {
         try {
-            // 熱門股票清單 (台積電、聯發科等)
-            String[] hotStocks = {"2330", "2454", "2317", "2881", "2882"};
-            
-            for (String stockCode : hotStocks) {
-                var snapshot = stockDataService.getSnapshot(stockCode);
-                if (snapshot != null) {
-                    broadcastToTopic("hot-stocks", Map.of(
-                        "stockCode", stockCode,
-                        "data", snapshot,
-                        "updateType", "hot"
-                    ));
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error broadcasting hot stocks: {}", e.getMessage());
+            long now = System.currentTimeMillis();
+            connection.offer("heartbeat", SseFrame.of(objectMapper, "heartbeat", null, "ping"), now);
+        } catch (JsonProcessingException e) {
+            log.debug("Heartbeat failed for connection: {}", connection.getKey());
         }
     }
     
     /**
-     * 廣播一般股票資料
+     * 更新指定分層訂閱中的股票，推送有變動的股票並只送出與上次推送不同的欄位
+     * 快照經 StockDataService 批次取得，快取過期的股票會重新抓取並發布更新事件；報價未變的快照不會推送
      */
-    private void broadcastRegularStocks(StockDataService stockDataService) {
+    private void broadcastTier(StockSubscriptionRegistry.Tier tier) {
         try {
-            // 一般股票清單
-            String[] regularStocks = {"2412", "2303", "1301", "1303", "2002"};
-            
-            for (String stockCode : regularStocks) {
-                var snapshot = stockDataService.getSnapshot(stockCode);
-                if (snapshot != null) {
-                    broadcastToTopic("regular-stocks", Map.of(
-                        "stockCode", stockCode,
-                        "data", snapshot,
-                        "updateType", "regular"
-                    ));
-                }
+            String updateType = tier.name().toLowerCase();
+            List<String> tierCodes = subscriptions.codes(tier);
+            if (!tierCodes.isEmpty()) {
+                stockDataService.getSnapshots(tierCodes).values().forEach(subscriptions::offer);
             }
+            subscriptions.drain(tier).forEach((stockCode, snapshot) -> publishSnapshot(snapshot, updateType));
         } catch (Exception e) {
-            log.error("Error broadcasting regular stocks: {}", e.getMessage());
+            log.error("Error broadcasting {} stocks: {}", tier, e.getMessage());
         }
     }
     
     /**
-     * 廣播冷門股票資料
+     * 把快照套用到股票串流，有欄位變動時推送給 stock:{code} Topic 的所有連線
      */
-    private void broadcastColdStocks(StockDataService stockDataService) {
-        try {
-            // 冷門股票清單
-            String[] coldStocks = {"9910", "9921", "9930", "9940", "9950"};
-            
-            for (String stockCode : coldStocks) {
-                var snapshot = stockDataService.getSnapshot(stockCode);
-                if (snapshot != null) {
-                    broadcastToTopic("cold-stocks", Map.of(
-                        "stockCode", stockCode,
-                        "data", snapshot,
-                        "updateType", "cold"
-                    ));
-                }
+    private void publishSnapshot(StockSnapshot snapshot, String updateType) {
+        String stockCode = snapshot.getCode();
+        streamLog.append(snapshot, updateType, frame -> {
+            Set<SseConnection> connections = topicConnections.get(STOCK_TOPIC_PREFIX + stockCode);
+            if (connections != null && !connections.isEmpty()) {
+                broadcastFrame(STOCK_TOPIC_PREFIX + stockCode, connections, stockCode, frame);
             }
-        } catch (Exception e) {
-            log.error("Error broadcasting cold stocks: {}", e.getMessage());
+        });
+    }
+    
+    /**
+     * 送出連線訂閱股票的初始狀態
+     * 先以最新快照更新各股票串流，再依 Last-Event-ID（{stockCode}:{seq}）補送：
+     * 緩衝仍涵蓋該序號時只送累積增量，已是最新狀態時不送，其餘股票送完整快照
+     * @param snapshots 以股票代碼為鍵的最新快照，缺少的股票沿用串流中既有的狀態
+     * @param lastEventId 瀏覽器重連時帶上的 Last-Event-ID，新訂閱為 null
+     */
+    public void sendInitialSnapshots(String userId, String topic, Map<String, StockSnapshot> snapshots,
+                                     String lastEventId) {
+        SseConnection connection = userConnections.get(userId + ":" + topic);
+        if (connection == null) {
+            return;
         }
+        
+        for (String stockCode : connection.getStockCodes()) {
+            StockSnapshot snapshot = snapshots.get(stockCode);
+            if (snapshot != null && snapshot.getCode() != null) {
+                publishSnapshot(snapshot, "initial");
+            }
+            streamLog.resume(stockCode, lastEventId,
+                    frame -> connection.offer(stockCode, frame, System.currentTimeMillis()));
+        }
+        disconnectIfBehind(connection, System.currentTimeMillis());
+    }
+    
+    /**
+     * 以上次分層後的報價變動次數重新分層
+     */
+    private void reclassifyTiers() {
+        long now = System.currentTimeMillis();
+        subscriptions.reclassify(now - lastReclassifiedAt);
+        lastReclassifiedAt = now;
+        log.debug("Reclassified subscribed stocks: {}", tierCounts());
+    }
+    
+    private Map<String, Integer> tierCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        subscriptions.tierCounts().forEach((tier, count) -> counts.put(tier.name().toLowerCase(), count));
+        return counts;
+    }
+    
+    /**
+     * 連線所在的 Topic：建立時的 Topic 加上每檔訂閱股票的 stock:{code} Topic
+     */
+    private static Set<String> topicsOf(SseConnection connection) {
+        Set<String> topics = new LinkedHashSet<>();
+        topics.add(connection.getTopic());
+        connection.getStockCodes().forEach(code -> topics.add(STOCK_TOPIC_PREFIX + code));
+        return topics;
     }
     
     /**
      * 清理無效連線
+     * 對每條連線排入測試訊息，送出失敗的連線由 writer 移除；落後過多的連線直接斷開
      */
     private void cleanupConnections() {
         log.debug("Starting connection cleanup, active connections: {}", activeConnections.get());
         
-        AtomicInteger cleanedCount = new AtomicInteger(0);
+        int before = activeConnections.get();
+        long now = System.currentTimeMillis();
         
-        // 清理 topic 連線
-        for (Map.Entry<String, Set<SseEmitter>> entry : topicConnections.entrySet()) {
-            Set<SseEmitter> emitters = entry.getValue();
-            int beforeSize = emitters.size();
-            
-            emitters.removeIf(emitter -> {
-                try {
-                    // 嘗試發送測試訊息
-                    emitter.send(SseEmitter.event().name("ping").data("test"));
-                    return false; // 連線正常
-                } catch (IOException e) {
-                    activeConnections.decrementAndGet();
-                    return true; // 移除無效連線
-                }
-            });
-            
-            cleanedCount.addAndGet(beforeSize - emitters.size());
-            
-            // 移除空的 topic
-            if (emitters.isEmpty()) {
-                topicConnections.remove(entry.getKey());
+        for (SseConnection connection : userConnections.values()) {
+            try {
+                connection.offer("ping", SseFrame.of(objectMapper, "ping", null, "test"), now);
+            } catch (JsonProcessingException e) {
+                log.debug("Failed to build ping for connection: {}", connection.getKey());
             }
+            disconnectIfBehind(connection, now);
         }
         
-        // 清理使用者連線
-        userConnections.entrySet().removeIf(entry -> {
-            try {
-                entry.getValue().send(SseEmitter.event().name("ping").data("test"));
-                return false; // 連線正常
-            } catch (IOException e) {
-                activeConnections.decrementAndGet();
-                cleanedCount.incrementAndGet();
-                return true; // 移除無效連線
-            }
-        });
+        // 移除空的 topic
+        topicConnections.entrySet().removeIf(entry -> entry.getValue().isEmpty());
         
-        if (cleanedCount.get() > 0) {
+        // 回收無人訂閱且閒置的股票串流
+        int evicted = streamLog.evictIdle(code -> subscriptions.subscribers(code) > 0, now - streamIdleTtlMs);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle stock streams", evicted);
+        }
+        
+        int cleanedCount = before - activeConnections.get();
+        if (cleanedCount > 0) {
             log.info("Cleaned up {} invalid SSE connections, remaining: {}", 
-                    cleanedCount.get(), activeConnections.get());
+                    cleanedCount, activeConnections.get());
         }
         
         // 檢查是否需要自動擴展
@@ -378,6 +562,12 @@ public class SseConnectionManager {
         private final int topicCount;
         private final double utilizationRate;
         private final boolean autoScaleEnabled;
+        private final long totalDropped;
+        private final long maxLagMs;
+        private final long slowConsumerDisconnects;
+        private final List<ConnectionLag> connections;
+        private final int subscribedStocks;
+        private final Map<String, Integer> stockTiers;
         
         private ConnectionStats(Builder builder) {
             this.activeConnections = builder.activeConnections;
@@ -385,6 +575,12 @@ public class SseConnectionManager {
             this.topicCount = builder.topicCount;
             this.utilizationRate = builder.utilizationRate;
             this.autoScaleEnabled = builder.autoScaleEnabled;
+            this.totalDropped = builder.totalDropped;
+            this.maxLagMs = builder.maxLagMs;
+            this.slowConsumerDisconnects = builder.slowConsumerDisconnects;
+            this.connections = builder.connections;
+            this.subscribedStocks = builder.subscribedStocks;
+            this.stockTiers = builder.stockTiers;
         }
         
         public static Builder builder() {
@@ -397,6 +593,12 @@ public class SseConnectionManager {
         public int getTopicCount() { return topicCount; }
         public double getUtilizationRate() { return utilizationRate; }
         public boolean isAutoScaleEnabled() { return autoScaleEnabled; }
+        public long getTotalDropped() { return totalDropped; }
+        public long getMaxLagMs() { return maxLagMs; }
+        public long getSlowConsumerDisconnects() { return slowConsumerDisconnects; }
+        public List<ConnectionLag> getConnections() { return connections; }
+        public int getSubscribedStocks() { return subscribedStocks; }
+        public Map<String, Integer> getStockTiers() { return stockTiers; }
         
         public static class Builder {
             private int activeConnections;
@@ -404,6 +606,12 @@ public class SseConnectionManager {
             private int topicCount;
             private double utilizationRate;
             private boolean autoScaleEnabled;
+            private long totalDropped;
+            private long maxLagMs;
+            private long slowConsumerDisconnects;
+            private List<ConnectionLag> connections = List.of();
+            private int subscribedStocks;
+            private Map<String, Integer> stockTiers = Map.of();
             
             public Builder activeConnections(int activeConnections) {
                 this.activeConnections = activeConnections;
@@ -430,9 +638,48 @@ public class SseConnectionManager {
                 return this;
             }
             
+            public Builder totalDropped(long totalDropped) {
+                this.totalDropped = totalDropped;
+                return this;
+            }
+            
+            public Builder maxLagMs(long maxLagMs) {
+                this.maxLagMs = maxLagMs;
+                return this;
+            }
+            
+            public Builder slowConsumerDisconnects(long slowConsumerDisconnects) {
+                this.slowConsumerDisconnects = slowConsumerDisconnects;
+                return this;
+            }
+            
+            public Builder connections(List<ConnectionLag> connections) {
+                this.connections = connections;
+                return this;
+            }
+            
+            public Builder subscribedStocks(int subscribedStocks) {
+                this.subscribedStocks = subscribedStocks;
+                return this;
+            }
+            
+            public Builder stockTiers(Map<String, Integer> stockTiers) {
+                this.stockTiers = stockTiers;
+                return this;
+            }
+            
             public ConnectionStats build() {
                 return new ConnectionStats(this);
             }
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 單一連線的送出狀態
+     * @param queued 佇列中尚未送出的事件數
+     * @param lagMs 最舊的未送達事件已等待的時間
+     */
+    public record ConnectionLag(String connectionKey, String topic, int queued, long lagMs,
+                                long sent, long dropped, long coalesced) {
+    }
+}
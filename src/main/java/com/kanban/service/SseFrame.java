@@ -0,0 +1,142 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * 預先序列化的 SSE 事件
+ * 建立時即把 event / id / data 組成完整的位元組，同一個實例可寫入任意多條連線而不再經過 Jackson；
+ * byte[] 由 ByteArrayHttpMessageConverter 原樣寫出。實例不可修改，builder 方法一律拋出例外。
+ * 增量事件帶有基準序號：客戶端必須已套用到該序號才能套用此事件，合併時據此改以較舊的基準重建
+ */
+final class SseFrame implements SseEmitter.SseEventBuilder {
+
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ID = "\nid:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "\ndata:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** 不依賴客戶端先前狀態的一般事件 */
+    static final long NO_BASE = Long.MIN_VALUE;
+    /** 完整快照，客戶端不需要任何先前狀態 */
+    static final long FULL = -1;
+
+    private final byte[] bytes;
+    private final Set<ResponseBodyEmitter.DataWithMediaType> parts;
+    private final long baseSequence;
+    private final LongFunction<SseFrame> rebase;
+
+    private SseFrame(byte[] bytes, long baseSequence, LongFunction<SseFrame> rebase) {
+        this.bytes = bytes;
+        this.parts = Set.of(new ResponseBodyEmitter.DataWithMediaType(bytes, MediaType.TEXT_PLAIN));
+        this.baseSequence = baseSequence;
+        this.rebase = rebase;
+    }
+
+    /**
+     * 序列化一次事件內容；字串原樣輸出（多行拆成多個 data 欄位），其他物件輸出為 JSON
+     * @param id 事件 id，null 時不輸出 id 欄位，客戶端保留原本的 Last-Event-ID
+     */
+    static SseFrame of(ObjectMapper objectMapper, String name, String id, Object data) throws JsonProcessingException {
+        return of(objectMapper, name, id, data, NO_BASE, null);
+    }
+
+    /**
+     * 序列化增量或快照事件
+     * @param baseSequence 客戶端套用此事件前必須具備的序號，完整快照為 FULL
+     * @param rebase 依較舊的基準序號重建事件，回傳 null 表示無法重建
+     */
+    static SseFrame of(ObjectMapper objectMapper, String name, String id, Object data,
+                       long baseSequence, LongFunction<SseFrame> rebase) throws JsonProcessingException {
+        byte[] payload = data instanceof CharSequence text
+                ? text.toString().replace("\n", "\ndata:").getBytes(StandardCharsets.UTF_8)
+                : objectMapper.writeValueAsBytes(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 64);
+        out.writeBytes(EVENT);
+        out.writeBytes(name.getBytes(StandardCharsets.UTF_8));
+        if (id != null) {
+            out.writeBytes(ID);
+            out.writeBytes(id.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeBytes(DATA);
+        out.writeBytes(payload);
+        out.writeBytes(END);
+        return new SseFrame(out.toByteArray(), baseSequence, rebase);
+    }
+
+    /**
+     * 取代同一合併鍵上未送達的舊事件
+     * 舊事件沒送到時客戶端仍停在舊事件的基準，新事件的基準較晚就改以舊事件的基準重建
+     */
+    SseFrame supersede(SseFrame older) {
+        if (older == null || rebase == null || older.baseSequence == NO_BASE
+                || baseSequence <= older.baseSequence) {
+            return this;
+        }
+        SseFrame rebased = rebase.apply(older.baseSequence);
+        return rebased != null ? rebased : this;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * 完整事件的位元組數
+     */
+    int size() {
+        return bytes.length;
+    }
+
+    String asString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Set<ResponseBodyEmitter.DataWithMediaType> build() {
+        return parts;
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder id(String id) {
+        throw immutable();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder name(String eventName) {
+        throw immutable();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder reconnectTime(long reconnectTimeMillis) {
+        throw immutable();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder comment(String comment) {
+        throw immutable();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder data(Object object) {
+        throw immutable();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder data(Object object, MediaType mediaType) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("SseFrame 為預先序列化的事件，不可修改");
+    }
+}
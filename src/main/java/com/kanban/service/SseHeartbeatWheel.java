@@ -0,0 +1,61 @@
+package com.kanban.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 心跳時間輪
+ * 所有連線共用一個排程任務：心跳間隔切成固定數量的刻度，連線登記時依序分配到一個刻度，
+ * 每次 tick 只處理一個刻度的連線，轉完一圈剛好是一個心跳間隔。
+ * 連線關閉時自刻度移除，之後不再佔用任何排程或迭代成本
+ */
+final class SseHeartbeatWheel {
+
+    private final List<Set<SseConnection>> slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private int cursor;
+
+    SseHeartbeatWheel(int slotCount) {
+        int count = Math.max(1, slotCount);
+        slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    void add(SseConnection connection) {
+        int slot = Math.floorMod(nextSlot.getAndIncrement(), slots.size());
+        connection.setHeartbeatSlot(slot);
+        if (slots.get(slot).add(connection)) {
+            size.incrementAndGet();
+        }
+    }
+
+    void remove(SseConnection connection) {
+        int slot = connection.getHeartbeatSlot();
+        if (slot >= 0 && slots.get(slot).remove(connection)) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * 前進一格，回傳該刻度的連線；只由排程執行緒呼叫
+     */
+    Set<SseConnection> advance() {
+        Set<SseConnection> batch = slots.get(cursor);
+        cursor = (cursor + 1) % slots.size();
+        return batch;
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    int size() {
+        return size.get();
+    }
+}
@@ -1,39 +1,121 @@
 package com.kanban.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.kanban.domain.entity.StockSnapshot;
-import com.kanban.dto.twse.TwseStockData;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 股票資料快取服務
  * 實作多層 TTL 策略與盤中/盤後不同更新頻率
+ * 快照採兩層快取：程序內 Caffeine (L1) 在前、Redis (L2) 在後，
+ * 跨節點的 L1 失效透過 Redis pub/sub 廣播
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class StockCacheService {
+public class StockCacheService implements MessageListener {
+    
+    /** L1 失效廣播頻道 */
+    public static final String INVALIDATION_CHANNEL = "kanban:cache:invalidate";
+    
+    private static final String INVALIDATE_ALL = "*";
+    private static final long L1_MAXIMUM_SIZE = 10_000;
+    
+    // 已登記到股票索引集合的快取鍵數，隨 writeIndexed / evictStockCache 增減；
+    // 值已因 TTL 過期但仍留在索引集合內的鍵也會計入，因此是估計值
+    private static final String KEY_COUNT_KEY = "kanban:stats:keys";
+    
+    // 股票索引集合存活時間（與最長的歷史資料快取一致）
+    private static final Duration INDEX_TTL = Duration.ofHours(24);
     
     private final RedisTemplate<String, Object> redisTemplate;
     
+    // 程序內快照快取 (L1)
+    private final Cache<String, StockSnapshot> localSnapshots;
+    
+    // 用於忽略自己發出的失效訊息
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l1Evictions;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Evictions;
+    private final Counter l2Writes;
+    
     // 交易時段定義
     private static final LocalTime MARKET_OPEN = LocalTime.of(9, 0);
     private static final LocalTime MARKET_CLOSE = LocalTime.of(13, 30);
     
+    public StockCacheService(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        
+        this.l1Hits = cacheCounter(meterRegistry, "kanban.cache.gets", "l1", "result", "hit");
+        this.l1Misses = cacheCounter(meterRegistry, "kanban.cache.gets", "l1", "result", "miss");
+        this.l1Evictions = cacheCounter(meterRegistry, "kanban.cache.evictions", "l1", "cache", "snapshot");
+        this.l2Hits = cacheCounter(meterRegistry, "kanban.cache.gets", "l2", "result", "hit");
+        this.l2Misses = cacheCounter(meterRegistry, "kanban.cache.gets", "l2", "result", "miss");
+        this.l2Evictions = cacheCounter(meterRegistry, "kanban.cache.evictions", "l2", "cache", "snapshot");
+        this.l2Writes = cacheCounter(meterRegistry, "kanban.cache.writes", "l2", "cache", "stock");
+        
+        this.localSnapshots = Caffeine.newBuilder()
+                .maximumSize(L1_MAXIMUM_SIZE)
+                .expireAfter(new MarketHoursExpiry())
+                .removalListener((String key, StockSnapshot value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        l1Evictions.increment();
+                    }
+                })
+                .build();
+        
+        Gauge.builder("kanban.cache.size", localSnapshots, Cache::estimatedSize)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+    }
+    
     /**
      * 取得股票快照（根據交易時段使用不同快取策略）
      */
     public StockSnapshot getCachedStockSnapshot(String stockCode) {
+        StockSnapshot local = localSnapshots.getIfPresent(stockCode);
+        if (local != null) {
+            if (!isDataStale(local)) {
+                l1Hits.increment();
+                return local;
+            }
+            localSnapshots.invalidate(stockCode);
+        }
+        l1Misses.increment();
+        
         String cacheKey = getCacheKey("snapshot", stockCode);
         StockSnapshot snapshot = (StockSnapshot) redisTemplate.opsForValue().get(cacheKey);
         
@@ -44,10 +126,15 @@ public class StockCacheService {
             if (isDataStale(snapshot)) {
                 log.debug("Cached data is stale for {}, removing from cache", stockCode);
                 redisTemplate.delete(cacheKey);
+                l2Evictions.increment();
+                l2Misses.increment();
                 return null;
             }
+            l2Hits.increment();
+            localSnapshots.put(stockCode, snapshot);
         } else {
             log.debug("Cache miss for stock snapshot: {}", stockCode);
+            l2Misses.increment();
         }
         
         return snapshot;
@@ -64,12 +151,74 @@ public class StockCacheService {
         String cacheKey = getCacheKey("snapshot", snapshot.getCode());
         Duration ttl = getTtlForMarketHours();
         
-        redisTemplate.opsForValue().set(cacheKey, snapshot, ttl.toSeconds(), TimeUnit.SECONDS);
+        writeIndexed(List.of(new CacheEntry(snapshot.getCode(), cacheKey, snapshot)), ttl);
+        localSnapshots.put(snapshot.getCode(), snapshot);
+        publishInvalidation(snapshot.getCode());
         log.debug("Cached stock snapshot for {} with TTL: {}", snapshot.getCode(), ttl);
     }
     
     /**
-     * 批次快取股票快照
+     * 批次取得股票快照（L1 未命中者以單次 MGET 向 Redis 取得）
+     * 回傳以股票代碼為鍵的 Map，未命中或過時的代碼不包含在內
+     */
+    public Map<String, StockSnapshot> getCachedStockSnapshots(Collection<String> stockCodes) {
+        Map<String, StockSnapshot> result = new LinkedHashMap<>();
+        if (stockCodes == null || stockCodes.isEmpty()) {
+            return result;
+        }
+        
+        List<String> missingCodes = new ArrayList<>();
+        for (String stockCode : stockCodes) {
+            if (stockCode == null || result.containsKey(stockCode)) {
+                continue;
+            }
+            StockSnapshot local = localSnapshots.getIfPresent(stockCode);
+            if (local != null && !isDataStale(local)) {
+                l1Hits.increment();
+                result.put(stockCode, local);
+            } else {
+                l1Misses.increment();
+                missingCodes.add(stockCode);
+            }
+        }
+        
+        if (missingCodes.isEmpty()) {
+            return result;
+        }
+        
+        List<String> cacheKeys = missingCodes.stream()
+                .map(stockCode -> getCacheKey("snapshot", stockCode))
+                .toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(cacheKeys);
+        
+        List<String> staleKeys = new ArrayList<>();
+        for (int i = 0; i < missingCodes.size(); i++) {
+            Object value = values != null && i < values.size() ? values.get(i) : null;
+            if (!(value instanceof StockSnapshot snapshot)) {
+                l2Misses.increment();
+                continue;
+            }
+            if (isDataStale(snapshot)) {
+                staleKeys.add(cacheKeys.get(i));
+                l2Evictions.increment();
+                l2Misses.increment();
+                continue;
+            }
+            l2Hits.increment();
+            localSnapshots.put(missingCodes.get(i), snapshot);
+            result.put(missingCodes.get(i), snapshot);
+        }
+        
+        if (!staleKeys.isEmpty()) {
+            redisTemplate.delete(staleKeys);
+        }
+        
+        log.debug("Batch snapshot lookup: {} requested, {} from cache", stockCodes.size(), result.size());
+        return result;
+    }
+    
+    /**
+     * 批次快取股票快照（單次 pipeline 寫入）
      */
     public void cacheBatchStockSnapshots(List<StockSnapshot> snapshots) {
         if (snapshots == null || snapshots.isEmpty()) {
@@ -77,15 +226,26 @@ public class StockCacheService {
         }
         
         Duration ttl = getTtlForMarketHours();
+        List<StockSnapshot> validSnapshots = snapshots.stream()
+                .filter(snapshot -> snapshot != null && snapshot.getCode() != null)
+                .toList();
         
-        snapshots.forEach(snapshot -> {
-            if (snapshot != null && snapshot.getCode() != null) {
-                String cacheKey = getCacheKey("snapshot", snapshot.getCode());
-                redisTemplate.opsForValue().set(cacheKey, snapshot, ttl.toSeconds(), TimeUnit.SECONDS);
-            }
-        });
+        if (validSnapshots.isEmpty()) {
+            return;
+        }
         
-        log.debug("Cached {} stock snapshots with TTL: {}", snapshots.size(), ttl);
+        writeIndexed(validSnapshots.stream()
+                .map(snapshot -> new CacheEntry(snapshot.getCode(), getCacheKey("snapshot", snapshot.getCode()), snapshot))
+                .toList(), ttl);
+        
+        List<String> stockCodes = new ArrayList<>(validSnapshots.size());
+        for (StockSnapshot snapshot : validSnapshots) {
+            localSnapshots.put(snapshot.getCode(), snapshot);
+            stockCodes.add(snapshot.getCode());
+        }
+        publishInvalidation(String.join(",", stockCodes));
+        
+        log.debug("Cached {} stock snapshots with TTL: {}", validSnapshots.size(), ttl);
     }
     
     /**
@@ -120,7 +280,7 @@ public class StockCacheService {
         String cacheKey = getCacheKey("historical", stockCode, period);
         Duration ttl = Duration.ofHours(24); // 歷史資料快取 24 小時
         
-        redisTemplate.opsForValue().set(cacheKey, data, ttl.toSeconds(), TimeUnit.SECONDS);
+        writeIndexed(List.of(new CacheEntry(stockCode, cacheKey, data)), ttl);
         log.debug("Cached historical data for {} period {}", stockCode, period);
     }
     
@@ -145,9 +305,25 @@ public class StockCacheService {
      */
     @CacheEvict(value = {"stock-snapshot", "stock-snapshot-afterhours", "technical-indicators"}, key = "#stockCode")
     public void evictStockCache(String stockCode) {
-        // 清除所有相關的快取鍵
-        String pattern = "*:" + stockCode + ":*";
-        redisTemplate.delete(redisTemplate.keys(pattern));
+        // 依股票索引集合清除所有相關的快取鍵，避免 KEYS 掃描整個 keyspace
+        String indexKey = getIndexKey(stockCode);
+        Set<Object> ownedKeys = redisTemplate.opsForSet().members(indexKey);
+        
+        List<String> keysToDelete = new ArrayList<>();
+        keysToDelete.add(indexKey);
+        if (ownedKeys != null) {
+            ownedKeys.forEach(key -> keysToDelete.add(String.valueOf(key)));
+        }
+        
+        Long deleted = redisTemplate.delete(keysToDelete);
+        if (deleted != null && deleted > 1) {
+            l2Evictions.increment(deleted - 1);
+        }
+        if (ownedKeys != null && !ownedKeys.isEmpty()) {
+            redisTemplate.opsForValue().decrement(KEY_COUNT_KEY, ownedKeys.size());
+        }
+        localSnapshots.invalidate(stockCode);
+        publishInvalidation(stockCode);
         log.debug("Evicted all cache for stock: {}", stockCode);
     }
     
@@ -156,9 +332,92 @@ public class StockCacheService {
      */
     @CacheEvict(value = {"stock-snapshot", "stock-snapshot-afterhours"}, allEntries = true)
     public void evictAllStockSnapshots() {
+        localSnapshots.invalidateAll();
+        publishInvalidation(INVALIDATE_ALL);
         log.debug("Evicted all stock snapshot cache");
     }
     
+    /**
+     * 在同一個 pipeline 內寫入快取鍵，並登記到所屬股票的索引集合
+     */
+    private void writeIndexed(List<CacheEntry> entries, Duration ttl) {
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                Set<String> indexKeys = new HashSet<>();
+                // SADD 放在最前面，pipeline 結果的前 entries.size() 筆即為各鍵是否為新登記
+                for (CacheEntry entry : entries) {
+                    String indexKey = getIndexKey(entry.stockCode);
+                    redisOperations.opsForSet().add(indexKey, entry.cacheKey);
+                    indexKeys.add(indexKey);
+                }
+                for (CacheEntry entry : entries) {
+                    redisOperations.opsForValue().set(entry.cacheKey, entry.value, ttl.toSeconds(), TimeUnit.SECONDS);
+                }
+                // 索引存活時間取所有擁有鍵中最長者
+                indexKeys.forEach(indexKey -> redisOperations.expire(indexKey, INDEX_TTL));
+                return null;
+            }
+        });
+        
+        long added = 0;
+        for (int i = 0; i < Math.min(entries.size(), results.size()); i++) {
+            if (results.get(i) instanceof Long count) {
+                added += count;
+            }
+        }
+        if (added > 0) {
+            redisTemplate.opsForValue().increment(KEY_COUNT_KEY, added);
+        }
+        l2Writes.increment(entries.size());
+    }
+    
+    /**
+     * 接收其他節點的 L1 失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(payload instanceof String text)) {
+            return;
+        }
+        
+        int separator = text.indexOf('|');
+        if (separator < 0 || nodeId.equals(text.substring(0, separator))) {
+            return;
+        }
+        
+        String stockCodes = text.substring(separator + 1);
+        if (INVALIDATE_ALL.equals(stockCodes)) {
+            localSnapshots.invalidateAll();
+        } else {
+            for (String stockCode : stockCodes.split(",")) {
+                localSnapshots.invalidate(stockCode);
+            }
+        }
+        log.debug("Applied remote L1 invalidation: {}", stockCodes);
+    }
+    
+    /**
+     * 廣播 L1 失效訊息，失敗時僅記錄（L1 仍受 TTL 限制）
+     */
+    private void publishInvalidation(String stockCodes) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + stockCodes);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation for {}: {}", stockCodes, e.getMessage());
+        }
+    }
+    
+    private static Counter cacheCounter(MeterRegistry registry, String name, String tier, String tagKey, String tagValue) {
+        return Counter.builder(name)
+                .tag("tier", tier)
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+    
     /**
      * 檢查資料是否過時
      */
@@ -204,6 +463,13 @@ public class StockCacheService {
         return dayOfWeek >= 1 && dayOfWeek <= 5; // 週一到週五
     }
     
+    /**
+     * 生成股票索引集合鍵
+     */
+    private String getIndexKey(String stockCode) {
+        return getCacheKey("index", stockCode);
+    }
+    
     /**
      * 生成快取鍵
      */
@@ -215,16 +481,73 @@ public class StockCacheService {
      * 取得快取統計資訊
      */
     public CacheStats getCacheStats() {
-        // 計算快取命中率等統計資訊
-        long totalKeys = redisTemplate.keys("kanban:*").size();
+        // 鍵數取自寫入與清除時維護的計數鍵（單次 GET），其餘統計取自本節點維護的計數器；
+        // 計數鍵以原始位元組讀取，INCRBY 寫入的是純數字而非 JSON 序列化的值
+        Long keyCount = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            byte[] value = connection.stringCommands().get(KEY_COUNT_KEY.getBytes(StandardCharsets.UTF_8));
+            return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0L;
+        });
+        long totalKeys = keyCount != null ? Math.max(keyCount, 0L) : 0L;
         
         return CacheStats.builder()
                 .totalKeys(totalKeys)
                 .marketHours(isMarketHours(LocalTime.now()) && isWeekday())
                 .currentTtl(getTtlForMarketHours())
+                .localEntries(localSnapshots.estimatedSize())
+                .l1Hits((long) l1Hits.count())
+                .l1Misses((long) l1Misses.count())
+                .l1Evictions((long) l1Evictions.count())
+                .l2Hits((long) l2Hits.count())
+                .l2Misses((long) l2Misses.count())
+                .l2Evictions((long) l2Evictions.count())
+                .l2Writes((long) l2Writes.count())
                 .build();
     }
     
+    /**
+     * 待寫入的快取項目與其所屬股票
+     */
+    private static class CacheEntry {
+        private final String stockCode;
+        private final String cacheKey;
+        private final Object value;
+        
+        private CacheEntry(String stockCode, String cacheKey, Object value) {
+            this.stockCode = stockCode;
+            this.cacheKey = cacheKey;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * L1 依快照更新時間與交易時段 TTL 計算剩餘存活時間，與 Redis 過時判斷一致
+     */
+    private class MarketHoursExpiry implements Expiry<String, StockSnapshot> {
+        
+        @Override
+        public long expireAfterCreate(String key, StockSnapshot value, long currentTime) {
+            return remainingNanos(value);
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, StockSnapshot value, long currentTime, long currentDuration) {
+            return remainingNanos(value);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, StockSnapshot value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+        
+        private long remainingNanos(StockSnapshot value) {
+            Duration ttl = getTtlForMarketHours();
+            if (value.getUpdatedAt() != null) {
+                ttl = ttl.minus(Duration.between(value.getUpdatedAt(), LocalDateTime.now()));
+            }
+            return Math.max(0, ttl.toNanos());
+        }
+    }
+    
     /**
      * 快取統計資訊
      */
@@ -232,11 +555,27 @@ public class StockCacheService {
         private final long totalKeys;
         private final boolean marketHours;
         private final Duration currentTtl;
+        private final long localEntries;
+        private final long l1Hits;
+        private final long l1Misses;
+        private final long l1Evictions;
+        private final long l2Hits;
+        private final long l2Misses;
+        private final long l2Evictions;
+        private final long l2Writes;
         
-        private CacheStats(long totalKeys, boolean marketHours, Duration currentTtl) {
-            this.totalKeys = totalKeys;
-            this.marketHours = marketHours;
-            this.currentTtl = currentTtl;
+        private CacheStats(CacheStatsBuilder builder) {
+            this.totalKeys = builder.totalKeys;
+            this.marketHours = builder.marketHours;
+            this.currentTtl = builder.currentTtl;
+            this.localEntries = builder.localEntries;
+            this.l1Hits = builder.l1Hits;
+            this.l1Misses = builder.l1Misses;
+            this.l1Evictions = builder.l1Evictions;
+            this.l2Hits = builder.l2Hits;
+            this.l2Misses = builder.l2Misses;
+            this.l2Evictions = builder.l2Evictions;
+            this.l2Writes = builder.l2Writes;
         }
         
         public static CacheStatsBuilder builder() {
@@ -246,11 +585,27 @@ public class StockCacheService {
         public long getTotalKeys() { return totalKeys; }
         public boolean isMarketHours() { return marketHours; }
         public Duration getCurrentTtl() { return currentTtl; }
+        public long getLocalEntries() { return localEntries; }
+        public long getL1Hits() { return l1Hits; }
+        public long getL1Misses() { return l1Misses; }
+        public long getL1Evictions() { return l1Evictions; }
+        public long getL2Hits() { return l2Hits; }
+        public long getL2Misses() { return l2Misses; }
+        public long getL2Evictions() { return l2Evictions; }
+        public long getL2Writes() { return l2Writes; }
         
         public static class CacheStatsBuilder {
             private long totalKeys;
             private boolean marketHours;
             private Duration currentTtl;
+            private long localEntries;
+            private long l1Hits;
+            private long l1Misses;
+            private long l1Evictions;
+            private long l2Hits;
+            private long l2Misses;
+            private long l2Evictions;
+            private long l2Writes;
             
             public CacheStatsBuilder totalKeys(long totalKeys) {
                 this.totalKeys = totalKeys;
@@ -267,8 +622,48 @@ public class StockCacheService {
                 return this;
             }
             
+            public CacheStatsBuilder localEntries(long localEntries) {
+                this.localEntries = localEntries;
+                return this;
+            }
+            
+            public CacheStatsBuilder l1Hits(long l1Hits) {
+                this.l1Hits = l1Hits;
+                return this;
+            }
+            
+            public CacheStatsBuilder l1Misses(long l1Misses) {
+                this.l1Misses = l1Misses;
+                return this;
+            }
+            
+            public CacheStatsBuilder l1Evictions(long l1Evictions) {
+                this.l1Evictions = l1Evictions;
+                return this;
+            }
+            
+            public CacheStatsBuilder l2Hits(long l2Hits) {
+                this.l2Hits = l2Hits;
+                return this;
+            }
+            
+            public CacheStatsBuilder l2Misses(long l2Misses) {
+                this.l2Misses = l2Misses;
+                return this;
+            }
+            
+            public CacheStatsBuilder l2Evictions(long l2Evictions) {
+                this.l2Evictions = l2Evictions;
+                return this;
+            }
+            
+            public CacheStatsBuilder l2Writes(long l2Writes) {
+                this.l2Writes = l2Writes;
+                return this;
+            }
+            
             public CacheStats build() {
-                return new CacheStats(totalKeys, marketHours, currentTtl);
+                return new CacheStats(this);
             }
         }
     }
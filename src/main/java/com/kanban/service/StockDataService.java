@@ -3,6 +3,9 @@ package com.kanban.service;
 import com.kanban.client.MockTwseMcpClient;
 import com.kanban.client.TwseMcpClient;
 import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
 import com.kanban.dto.twse.TwseStockData;
 import com.kanban.exception.StockNotFoundException;
 import com.kanban.exception.TwseMcpException;
@@ -10,16 +13,23 @@ import com.kanban.repository.StockSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * 股票資料服務
- * 整合 TWSE-MCP 客戶端、快取策略與資料轉換
+ * 整合 TWSE-MCP 客戶端、快取策略與資料轉換；
+ * 快照與技術指標寫入後逐檔發布 StockSnapshotChangedEvent / TechnicalIndicatorChangedEvent
  */
 @Slf4j
 @Service
@@ -34,6 +44,7 @@ public class StockDataService {
     private final TechnicalIndicatorService technicalIndicatorService;
     private final HistoricalDataService historicalDataService;
     private final InfluxDBService influxDBService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Value("${twse.mcp.mock.enabled:false}")
     private boolean mockEnabled;
@@ -70,6 +81,7 @@ public class StockDataService {
                 
                 // 4. 儲存到資料庫
                 saveSnapshotToDatabase(snapshot);
+                publishSnapshotChanged(snapshot);
                 
                 // 5. 儲存到 InfluxDB 時序資料庫
                 influxDBService.writeStockSnapshot(snapshot);
@@ -87,6 +99,41 @@ public class StockDataService {
         }
     }
     
+    /**
+     * 批次取得股票快照（快取以單次批次查詢，未命中者以單次批次請求補齊）
+     * 回傳依請求順序排列、以股票代碼為鍵的 Map，無法取得的代碼不包含在內
+     */
+    public Map<String, StockSnapshot> getSnapshots(Collection<String> stockCodes) {
+        Map<String, StockSnapshot> result = new LinkedHashMap<>();
+        if (stockCodes == null || stockCodes.isEmpty()) {
+            return result;
+        }
+        
+        List<String> distinctCodes = stockCodes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        
+        // 1. 批次從快取取得
+        Map<String, StockSnapshot> cachedSnapshots = stockCacheService.getCachedStockSnapshots(distinctCodes);
+        List<String> missingCodes = distinctCodes.stream()
+                .filter(stockCode -> !cachedSnapshots.containsKey(stockCode))
+                .toList();
+        
+        // 2. 未命中者批次取得
+        Map<String, StockSnapshot> fetchedSnapshots = missingCodes.isEmpty() ?
+                Map.of() : fetchSnapshots(missingCodes);
+        
+        for (String stockCode : distinctCodes) {
+            StockSnapshot snapshot = cachedSnapshots.getOrDefault(stockCode, fetchedSnapshots.get(stockCode));
+            if (snapshot != null) {
+                result.put(stockCode, snapshot);
+            }
+        }
+        
+        return result;
+    }
+    
     /**
      * 批次更新所有股票快照
      */
@@ -123,6 +170,7 @@ public class StockDataService {
                 
                 // 批次儲存到資料庫
                 stockSnapshotRepository.saveAll(snapshots);
+                snapshots.forEach(this::publishSnapshotChanged);
                 
                 // 批次儲存到 InfluxDB
                 influxDBService.writeBatchStockSnapshots(snapshots);
@@ -131,10 +179,8 @@ public class StockDataService {
                 historicalDataService.saveBatchHistoricalPrices(snapshots);
                 
                 // 批次更新技術指標
-                List<String> updatedStockCodes = snapshots.stream()
-                        .map(StockSnapshot::getCode)
-                        .toList();
-                technicalIndicatorService.calculateBatchIndicators(updatedStockCodes);
+                technicalIndicatorService.calculateBatchIndicators(snapshots)
+                        .thenAccept(indicators -> indicators.forEach(this::publishIndicatorChanged));
                 
                 log.info("Successfully updated {} stock snapshots", snapshots.size());
             }
@@ -198,6 +244,59 @@ public class StockDataService {
         return stockCacheService.getCacheStats();
     }
     
+    /**
+     * 批次從 TWSE-MCP 取得快照，失敗或缺少者從資料庫備援
+     */
+    private Map<String, StockSnapshot> fetchSnapshots(List<String> stockCodes) {
+        Map<String, StockSnapshot> fetched = new HashMap<>();
+        
+        try {
+            CompletableFuture<List<TwseStockData>> future = mockEnabled ?
+                mockTwseMcpClient.getBatchStockData(stockCodes) :
+                twseMcpClient.getBatchStockData(stockCodes);
+            
+            List<StockSnapshot> snapshots = future.get().stream()
+                    .filter(stockDataConverter::isValidStockData)
+                    .map(stockDataConverter::convertToStockSnapshot)
+                    .filter(Objects::nonNull)
+                    .toList();
+            
+            if (!snapshots.isEmpty()) {
+                stockCacheService.cacheBatchStockSnapshots(snapshots);
+                
+                try {
+                    stockSnapshotRepository.saveAll(snapshots);
+                    snapshots.forEach(this::publishSnapshotChanged);
+                } catch (Exception e) {
+                    log.error("Error saving {} snapshots to database: {}", snapshots.size(), e.getMessage());
+                }
+                
+                influxDBService.writeBatchStockSnapshots(snapshots);
+                historicalDataService.saveBatchHistoricalPrices(snapshots);
+                technicalIndicatorService.calculateBatchIndicators(snapshots)
+                        .thenAccept(indicators -> indicators.forEach(this::publishIndicatorChanged));
+                
+                snapshots.forEach(snapshot -> fetched.put(snapshot.getCode(), snapshot));
+            }
+        } catch (Exception e) {
+            log.error("Error fetching batch stock data for {} codes: {}", stockCodes.size(), e.getMessage());
+        }
+        
+        List<String> unresolvedCodes = stockCodes.stream()
+                .filter(stockCode -> !fetched.containsKey(stockCode))
+                .toList();
+        if (!unresolvedCodes.isEmpty()) {
+            stockSnapshotRepository.findByCodeIn(unresolvedCodes).forEach(snapshot -> {
+                // 標記為過時資料
+                snapshot.setDataSource("DATABASE_FALLBACK");
+                snapshot.setDelayMinutes(null);
+                fetched.put(snapshot.getCode(), snapshot);
+            });
+        }
+        
+        return fetched;
+    }
+    
     /**
      * 取得備援快照資料（從資料庫）
      */
@@ -231,17 +330,38 @@ public class StockDataService {
      */
     private void updateTechnicalIndicators(String stockCode, StockSnapshot snapshot) {
         try {
-            // 檢查是否有足夠的歷史資料
-            if (historicalDataService.hasSufficientData(stockCode, 20)) {
-                technicalIndicatorService.calculateIndicators(stockCode);
-            } else {
-                log.debug("Insufficient historical data for technical indicators: {}", stockCode);
+            // 以最新快照增量更新，資料不足時不會寫入
+            TechnicalIndicator indicator = technicalIndicatorService.calculateIndicators(snapshot);
+            if (indicator != null && !"INSUFFICIENT_DATA".equals(indicator.getCalculationSource())) {
+                publishIndicatorChanged(indicator);
             }
         } catch (Exception e) {
             log.error("Error updating technical indicators for {}: {}", stockCode, e.getMessage());
         }
     }
     
+    /**
+     * 發布快照更新事件
+     */
+    private void publishSnapshotChanged(StockSnapshot snapshot) {
+        eventPublisher.publishEvent(StockSnapshotChangedEvent.builder()
+                .stockCode(snapshot.getCode())
+                .snapshot(snapshot)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+    
+    /**
+     * 發布技術指標更新事件
+     */
+    private void publishIndicatorChanged(TechnicalIndicator indicator) {
+        eventPublisher.publishEvent(TechnicalIndicatorChangedEvent.builder()
+                .stockCode(indicator.getStockCode())
+                .indicator(indicator)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+    
     /**
      * 取得所有活躍的股票代碼
      */
@@ -0,0 +1,77 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+
+/**
+ * 單一股票在一次規則評估週期內的市場資料
+ * 快照與技術指標只載入一次，當期與前一期評估框架預先建立，
+ * 由引用該股票的所有 (規則, 卡片) 組合共用
+ */
+public final class StockEvaluationContext {
+
+    private final StockSnapshot stockSnapshot;
+    private final TechnicalIndicator technicalIndicator;
+    private final TechnicalIndicator previousIndicator;
+    private final double[] frame;
+    private final double[] previousFrame;
+
+    private StockEvaluationContext(StockSnapshot stockSnapshot,
+                                   TechnicalIndicator technicalIndicator,
+                                   TechnicalIndicator previousIndicator) {
+        this.stockSnapshot = stockSnapshot;
+        this.technicalIndicator = technicalIndicator;
+        this.previousIndicator = previousIndicator;
+        this.frame = RuleField.frame(null, stockSnapshot, technicalIndicator);
+        this.previousFrame = RuleField.previousFrame(stockSnapshot, previousIndicator);
+    }
+
+    /**
+     * @param stockSnapshot 股票快照，可為 null
+     * @param technicalIndicator 最新技術指標，可為 null
+     * @param previousIndicator 前一個交易日的技術指標，可為 null
+     */
+    public static StockEvaluationContext of(StockSnapshot stockSnapshot,
+                                            TechnicalIndicator technicalIndicator,
+                                            TechnicalIndicator previousIndicator) {
+        return new StockEvaluationContext(stockSnapshot, technicalIndicator, previousIndicator);
+    }
+
+    public StockSnapshot getStockSnapshot() {
+        return stockSnapshot;
+    }
+
+    public TechnicalIndicator getTechnicalIndicator() {
+        return technicalIndicator;
+    }
+
+    public TechnicalIndicator getPreviousIndicator() {
+        return previousIndicator;
+    }
+
+    /**
+     * 共用的當期框架（不含卡片狀態），呼叫端不得修改
+     */
+    double[] getFrame() {
+        return frame;
+    }
+
+    /**
+     * 共用的前一期框架，沒有前一期指標時為 null
+     */
+    double[] getPreviousFrame() {
+        return previousFrame;
+    }
+
+    /**
+     * 帶入卡片狀態的當期框架副本，只有條件引用 cardStatus 時需要
+     */
+    double[] frameFor(Card card) {
+        double[] copy = frame.clone();
+        if (card != null && card.getStatus() != null) {
+            copy[RuleField.CARD_STATUS.ordinal()] = card.getStatus().ordinal();
+        }
+        return copy;
+    }
+}
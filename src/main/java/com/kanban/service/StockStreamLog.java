@@ -0,0 +1,265 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.StockSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 股票增量串流紀錄
+ * 每檔股票保存目前的欄位值與遞增序號，第一次收到快照時產生完整快照（snapshot），
+ * 之後只產生有變動欄位的增量（delta）；事件 id 為 {stockCode}:{seq}。
+ * 序號自串流建立時的毫秒時間起算，服務重啟或回收後的新串流不會與舊的序號重疊。
+ * 環狀緩衝保留最近幾次變動的欄位名稱，斷線重連（Last-Event-ID）或合併未送達的事件時，
+ * 由此算出自任一基準到目前狀態的累積增量；基準已超出緩衝範圍時改送完整快照。
+ * 客戶端只在 delta 的 base 等於本地序號時套用，收到 snapshot 時整份取代本地狀態
+ */
+@Slf4j
+final class StockStreamLog {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String DELTA_EVENT = "delta";
+
+    private static final TypeReference<LinkedHashMap<String, Object>> FIELDS = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, StockStream> streams = new ConcurrentHashMap<>();
+    private volatile int ringSize = 64;
+
+    StockStreamLog(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 設定每檔股票保留的變動筆數，超出後最舊的變動只能以完整快照補齊
+     */
+    void configure(int ringSize) {
+        this.ringSize = Math.max(1, ringSize);
+    }
+
+    /**
+     * 套用新快照，有變動時在該股票的鎖內把事件交給 publish，確保各連線收到的事件依序號排列
+     * @return 產生事件時為 true；沒有任何欄位變動時為 false
+     */
+    boolean append(StockSnapshot snapshot, String updateType, Consumer<SseFrame> publish) {
+        Map<String, Object> fields = objectMapper.convertValue(snapshot, FIELDS);
+        StockStream stream = streams.computeIfAbsent(snapshot.getCode(), StockStream::new);
+        synchronized (stream) {
+            SseFrame frame = stream.append(fields, updateType);
+            if (frame == null) {
+                return false;
+            }
+            publish.accept(frame);
+            return true;
+        }
+    }
+
+    /**
+     * 把客戶端自 Last-Event-ID 補齊到目前狀態所需的事件交給 deliver；
+     * id 屬於其他股票或無法解析時視為沒有先前狀態，送出完整快照
+     * @param lastEventId 客戶端最後收到的事件 id，null 表示新的訂閱
+     * @return 交付事件時為 true；尚無資料或客戶端已是最新狀態時為 false
+     */
+    boolean resume(String stockCode, String lastEventId, Consumer<SseFrame> deliver) {
+        StockStream stream = streams.get(stockCode);
+        if (stream == null) {
+            return false;
+        }
+        synchronized (stream) {
+            SseFrame frame = stream.since(baseOf(stockCode, lastEventId));
+            if (frame == null) {
+                return false;
+            }
+            deliver.accept(frame);
+            return true;
+        }
+    }
+
+    /**
+     * 目前序號，尚無資料時為 0
+     */
+    long sequence(String stockCode) {
+        StockStream stream = streams.get(stockCode);
+        if (stream == null) {
+            return 0;
+        }
+        synchronized (stream) {
+            return stream.state != null ? stream.seq : 0;
+        }
+    }
+
+    /**
+     * 移除無人訂閱且在指定時間之後未再更新的股票
+     * @return 移除的股票數
+     */
+    int evictIdle(Predicate<String> subscribed, long idleSinceMillis) {
+        int before = streams.size();
+        streams.entrySet().removeIf(entry ->
+                entry.getValue().touchedAt < idleSinceMillis && !subscribed.test(entry.getKey()));
+        return before - streams.size();
+    }
+
+    int size() {
+        return streams.size();
+    }
+
+    /**
+     * 事件 id
+     */
+    static String eventId(String stockCode, long seq) {
+        return stockCode + ":" + seq;
+    }
+
+    /**
+     * 解析 {stockCode}:{seq} 格式的 Last-Event-ID，不屬於該股票或格式錯誤時回傳 FULL
+     */
+    static long baseOf(String stockCode, String lastEventId) {
+        if (lastEventId == null) {
+            return SseFrame.FULL;
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator <= 0 || !lastEventId.substring(0, separator).equals(stockCode)) {
+            return SseFrame.FULL;
+        }
+        try {
+            long seq = Long.parseLong(lastEventId.substring(separator + 1));
+            return seq > 0 ? seq : SseFrame.FULL;
+        } catch (NumberFormatException e) {
+            return SseFrame.FULL;
+        }
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof BigDecimal x && b instanceof BigDecimal y) {
+            return x.compareTo(y) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * 單一股票的串流狀態，所有方法都在該實例的鎖內呼叫
+     */
+    private final class StockStream {
+        private final String stockCode;
+        private final ArrayDeque<Change> ring = new ArrayDeque<>();
+        /** 目前序號下依基準序號建立的事件，序號前進時清空 */
+        private final Map<Long, SseFrame> framesByBase = new HashMap<>();
+        private Map<String, Object> state;
+        private long seq;
+        private String updateType;
+        private volatile long touchedAt = System.currentTimeMillis();
+
+        private StockStream(String stockCode) {
+            this.stockCode = stockCode;
+            this.seq = touchedAt;
+        }
+
+        private SseFrame append(Map<String, Object> fields, String type) {
+            touchedAt = System.currentTimeMillis();
+            if (state == null) {
+                state = new LinkedHashMap<>(fields);
+                advance(type);
+                return since(SseFrame.FULL);
+            }
+
+            Map<String, Object> changed = new LinkedHashMap<>();
+            fields.forEach((name, value) -> {
+                if (!state.containsKey(name) || !sameValue(state.get(name), value)) {
+                    changed.put(name, value);
+                }
+            });
+            if (changed.isEmpty()) {
+                return null;
+            }
+
+            state.putAll(changed);
+            advance(type);
+            ring.addLast(new Change(seq, new LinkedHashSet<>(changed.keySet())));
+            while (ring.size() > ringSize) {
+                ring.pollFirst();
+            }
+            return since(seq - 1);
+        }
+
+        private void advance(String type) {
+            seq++;
+            updateType = type;
+            framesByBase.clear();
+        }
+
+        /**
+         * 自指定序號到目前狀態的事件：緩衝涵蓋時為累積增量，否則為完整快照
+         * @return 已是最新狀態時為 null
+         */
+        private SseFrame since(long base) {
+            if (state == null || base == seq) {
+                return null;
+            }
+            long oldestBase = ring.isEmpty() ? seq : ring.peekFirst().seq - 1;
+            long effectiveBase = base < oldestBase || base > seq ? SseFrame.FULL : base;
+            SseFrame cached = framesByBase.get(effectiveBase);
+            if (cached != null) {
+                return cached;
+            }
+
+            SseFrame frame = build(effectiveBase);
+            if (frame != null) {
+                framesByBase.put(effectiveBase, frame);
+            }
+            return frame;
+        }
+
+        private SseFrame build(long base) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("stockCode", stockCode);
+            data.put("seq", seq);
+            String event;
+            if (base == SseFrame.FULL) {
+                event = SNAPSHOT_EVENT;
+                data.put("data", new LinkedHashMap<>(state));
+            } else {
+                Set<String> names = new LinkedHashSet<>();
+                for (Change change : ring) {
+                    if (change.seq > base) {
+                        names.addAll(change.fields);
+                    }
+                }
+                Map<String, Object> changed = new LinkedHashMap<>();
+                names.forEach(name -> changed.put(name, state.get(name)));
+                event = DELTA_EVENT;
+                data.put("base", base);
+                data.put("fields", changed);
+            }
+            data.put("updateType", updateType);
+
+            try {
+                return SseFrame.of(objectMapper, event, eventId(stockCode, seq), data, base, this::rebase);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize {} for stock {}: {}", event, stockCode, e.getMessage());
+                return null;
+            }
+        }
+
+        private SseFrame rebase(long base) {
+            synchronized (this) {
+                return since(base);
+            }
+        }
+    }
+
+    private record Change(long seq, Set<String> fields) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.StockSnapshot;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SSE 股票訂閱登記
+ * 以訂閱人數與交易活躍度（每分鐘報價變動次數）把有人訂閱的股票分成 HOT / REGULAR / COLD 三層，
+ * 只保存有人訂閱的股票；報價與上次推送相同的快照不會排入推送，無人訂閱時完全不保留狀態
+ */
+final class StockSubscriptionRegistry {
+
+    /**
+     * 推送分層，決定同一檔股票兩次推送的最短間隔
+     */
+    enum Tier {
+        HOT, REGULAR, COLD
+    }
+
+    private final Map<String, StockDemand> demands = new ConcurrentHashMap<>();
+    private volatile int hotSubscribers = 10;
+    private volatile int hotChangesPerMinute = 20;
+    private volatile int coldChangesPerMinute = 2;
+
+    /**
+     * 設定分層門檻，下次訂閱變動或重新分層時生效
+     * @param hotSubscribers 訂閱人數達此值即列為 HOT
+     * @param hotChangesPerMinute 每分鐘報價變動達此值即列為 HOT
+     * @param coldChangesPerMinute 每分鐘報價變動低於此值列為 COLD
+     */
+    void configure(int hotSubscribers, int hotChangesPerMinute, int coldChangesPerMinute) {
+        this.hotSubscribers = hotSubscribers;
+        this.hotChangesPerMinute = hotChangesPerMinute;
+        this.coldChangesPerMinute = coldChangesPerMinute;
+    }
+
+    void subscribe(String stockCode) {
+        demands.compute(stockCode, (code, demand) -> {
+            StockDemand current = demand != null ? demand : new StockDemand();
+            current.subscribers++;
+            current.tier = classify(current.subscribers, current.changesPerMinute);
+            return current;
+        });
+    }
+
+    void unsubscribe(String stockCode) {
+        demands.computeIfPresent(stockCode, (code, demand) -> {
+            demand.subscribers--;
+            if (demand.subscribers <= 0) {
+                return null;
+            }
+            demand.tier = classify(demand.subscribers, demand.changesPerMinute);
+            return demand;
+        });
+    }
+
+    /**
+     * 收到新快照；無人訂閱或報價與上次推送相同時忽略
+     * @return 快照已排入推送時為 true
+     */
+    boolean offer(StockSnapshot snapshot) {
+        StockDemand demand = demands.get(snapshot.getCode());
+        if (demand == null) {
+            return false;
+        }
+        synchronized (demand) {
+            StockSnapshot reference = demand.pending != null ? demand.pending : demand.lastPushed;
+            if (reference != null && sameQuote(reference, snapshot)) {
+                return false;
+            }
+            demand.pending = snapshot;
+            demand.changesInWindow++;
+            return true;
+        }
+    }
+
+    /**
+     * 指定分層目前訂閱中的股票代碼
+     */
+    List<String> codes(Tier tier) {
+        List<String> codes = new ArrayList<>();
+        demands.forEach((stockCode, demand) -> {
+            if (demand.tier == tier) {
+                codes.add(stockCode);
+            }
+        });
+        return codes;
+    }
+
+    /**
+     * 取出指定分層中待推送的快照
+     */
+    Map<String, StockSnapshot> drain(Tier tier) {
+        Map<String, StockSnapshot> changed = new LinkedHashMap<>();
+        demands.forEach((stockCode, demand) -> {
+            if (demand.tier != tier) {
+                return;
+            }
+            synchronized (demand) {
+                if (demand.pending != null) {
+                    changed.put(stockCode, demand.pending);
+                    demand.lastPushed = demand.pending;
+                    demand.pending = null;
+                }
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * 以上一個統計區間的報價變動次數重新分層
+     * @param windowMillis 距上次分層的時間
+     */
+    void reclassify(long windowMillis) {
+        double minutes = Math.max(windowMillis, 1) / 60_000.0;
+        for (String stockCode : demands.keySet()) {
+            demands.computeIfPresent(stockCode, (code, demand) -> {
+                synchronized (demand) {
+                    demand.changesPerMinute = (int) Math.round(demand.changesInWindow / minutes);
+                    demand.changesInWindow = 0;
+                }
+                demand.tier = classify(demand.subscribers, demand.changesPerMinute);
+                return demand;
+            });
+        }
+    }
+
+    int subscribers(String stockCode) {
+        StockDemand demand = demands.get(stockCode);
+        return demand != null ? demand.subscribers : 0;
+    }
+
+    Tier tierOf(String stockCode) {
+        StockDemand demand = demands.get(stockCode);
+        return demand != null ? demand.tier : null;
+    }
+
+    int size() {
+        return demands.size();
+    }
+
+    /**
+     * 各分層的股票數
+     */
+    Map<Tier, Integer> tierCounts() {
+        Map<Tier, Integer> counts = new EnumMap<>(Tier.class);
+        for (Tier tier : Tier.values()) {
+            counts.put(tier, 0);
+        }
+        demands.values().forEach(demand -> counts.merge(demand.tier, 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * 剛訂閱、尚無活躍度資料的股票列為 REGULAR，除非訂閱人數已達 HOT 門檻
+     */
+    private Tier classify(int subscribers, int changesPerMinute) {
+        if (subscribers >= hotSubscribers || changesPerMinute >= hotChangesPerMinute) {
+            return Tier.HOT;
+        }
+        if (changesPerMinute >= 0 && changesPerMinute < coldChangesPerMinute) {
+            return Tier.COLD;
+        }
+        return Tier.REGULAR;
+    }
+
+    private static boolean sameQuote(StockSnapshot a, StockSnapshot b) {
+        return sameValue(a.getCurrentPrice(), b.getCurrentPrice())
+                && sameValue(a.getChangePercent(), b.getChangePercent())
+                && sameValue(a.getOpenPrice(), b.getOpenPrice())
+                && sameValue(a.getHighPrice(), b.getHighPrice())
+                && sameValue(a.getLowPrice(), b.getLowPrice())
+                && Objects.equals(a.getVolume(), b.getVolume());
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static final class StockDemand {
+        /** 訂閱人數與分層只在 ConcurrentHashMap.compute 中修改 */
+        private volatile int subscribers;
+        private volatile Tier tier = Tier.REGULAR;
+        /** 上一個統計區間的每分鐘報價變動次數，尚無資料時為 -1 */
+        private int changesPerMinute = -1;
+        private int changesInWindow;
+        private StockSnapshot pending;
+        private StockSnapshot lastPushed;
+    }
+}
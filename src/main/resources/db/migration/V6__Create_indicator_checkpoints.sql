@@ -0,0 +1,14 @@
+-- 建立技術指標滾動狀態檢查點表
+CREATE TABLE IF NOT EXISTS indicator_checkpoints (
+    stock_code VARCHAR(10) PRIMARY KEY,
+    last_trade_date DATE,
+    bar_count INTEGER NOT NULL,
+    state_version INTEGER NOT NULL,
+    state_data BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 建立註釋
+COMMENT ON TABLE indicator_checkpoints IS '技術指標增量計算狀態檢查點';
+COMMENT ON COLUMN indicator_checkpoints.state_data IS '滾動狀態編碼內容（環狀緩衝、累計值與 EMA/KD 前值）';
+COMMENT ON COLUMN indicator_checkpoints.state_version IS '狀態編碼版本，版本不符時改由歷史價格回補';
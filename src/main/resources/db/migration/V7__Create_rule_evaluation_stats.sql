@@ -0,0 +1,19 @@
+-- 建立規則評估統計表（每條規則每小時彙總）
+CREATE TABLE IF NOT EXISTS rule_evaluation_stats (
+    rule_id VARCHAR(36) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    evaluation_count BIGINT NOT NULL DEFAULT 0,
+    success_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    skipped_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (rule_id, bucket_start),
+    CONSTRAINT fk_evaluation_stats_rule FOREIGN KEY (rule_id) REFERENCES rules(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_evaluation_stats_bucket ON rule_evaluation_stats(bucket_start);
+
+-- 建立註釋
+COMMENT ON TABLE rule_evaluation_stats IS '規則評估統計 - 未寫入 rule_executions 的跳過結果只在此計數';
+COMMENT ON COLUMN rule_evaluation_stats.bucket_start IS '統計時段起點（整點）';
+COMMENT ON COLUMN rule_evaluation_stats.skipped_count IS '條件不匹配或狀態已是目標狀態等跳過次數';
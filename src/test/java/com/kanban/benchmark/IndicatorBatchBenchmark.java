@@ -0,0 +1,240 @@
+package com.kanban.benchmark;
+
+import com.kanban.domain.entity.HistoricalPrice;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.service.BarSeries;
+import com.kanban.service.IndicatorSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全市場技術指標批次計算比較（每檔 100 根 K 棒）
+ * entityStream：原 TechnicalIndicatorService 以 List&lt;HistoricalPrice&gt; 串流與 BigDecimal 逐項計算最新一筆
+ * columnar：轉為 BarSeries 後以 IndicatorKernels 算出整段序列，只在輸出時轉為 BigDecimal
+ * columnarKernels：序列已在記憶體中（重播或圖表快取情境），只量測核心運算
+ *
+ * 執行方式：mvn test-compile 後以 main 方法啟動
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndicatorBatchBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 3, 13, 30);
+
+    @Param({"1000"})
+    private int stocks;
+
+    @Param({"100"})
+    private int bars;
+
+    private List<List<HistoricalPrice>> prices;
+    private List<BarSeries> series;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.of(2024, 6, 3);
+        prices = new ArrayList<>(stocks);
+        series = new ArrayList<>(stocks);
+
+        for (int s = 0; s < stocks; s++) {
+            String code = String.valueOf(1000 + s);
+            double close = 20 + random.nextDouble() * 800;
+            List<HistoricalPrice> history = new ArrayList<>(bars);
+            // repository 回傳新到舊
+            for (int i = 0; i < bars; i++) {
+                close = Math.max(1, close + (random.nextDouble() - 0.5) * close * 0.04);
+                history.add(HistoricalPrice.builder()
+                        .stockCode(code)
+                        .tradeDate(today.minusDays(i))
+                        .openPrice(price(close))
+                        .highPrice(price(close * 1.01))
+                        .lowPrice(price(close * 0.99))
+                        .closePrice(price(close))
+                        .volume(1_000_000L + random.nextInt(5_000_000))
+                        .build());
+            }
+            prices.add(history);
+            series.add(BarSeries.fromHistoricalPrices(code, history));
+        }
+    }
+
+    @Benchmark
+    public void entityStream(Blackhole blackhole) {
+        for (List<HistoricalPrice> history : prices) {
+            blackhole.consume(LegacyIndicatorCalculator.calculate(history.get(0).getStockCode(), history));
+        }
+    }
+
+    @Benchmark
+    public void columnar(Blackhole blackhole) {
+        for (List<HistoricalPrice> history : prices) {
+            BarSeries bars = BarSeries.fromHistoricalPrices(history.get(0).getStockCode(), history);
+            blackhole.consume(IndicatorSeries.compute(bars).latest(NOW));
+        }
+    }
+
+    @Benchmark
+    public void columnarKernels(Blackhole blackhole) {
+        for (BarSeries bars : series) {
+            blackhole.consume(IndicatorSeries.compute(bars));
+        }
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 原 entity-stream 計算方式（輸入為新到舊），保留作為比較基準
+     */
+    static final class LegacyIndicatorCalculator {
+
+        static TechnicalIndicator calculate(String stockCode, List<HistoricalPrice> prices) {
+            TechnicalIndicator indicator = TechnicalIndicator.builder()
+                    .stockCode(stockCode)
+                    .calculationDate(NOW)
+                    .dataPointsCount(prices.size())
+                    .build();
+            indicator.setMa5(sma(prices, 5));
+            indicator.setMa10(sma(prices, 10));
+            indicator.setMa20(sma(prices, 20));
+            indicator.setMa60(sma(prices, 60));
+            rsi(indicator, prices);
+            kd(indicator, prices);
+            macd(indicator, prices);
+            volume(indicator, prices);
+            return indicator;
+        }
+
+        private static BigDecimal sma(List<HistoricalPrice> prices, int period) {
+            if (prices.size() < period) {
+                return null;
+            }
+            BigDecimal sum = prices.stream()
+                    .limit(period)
+                    .map(HistoricalPrice::getClosePrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            return sum.divide(BigDecimal.valueOf(period), 2, RoundingMode.HALF_UP);
+        }
+
+        private static void rsi(TechnicalIndicator indicator, List<HistoricalPrice> prices) {
+            if (prices.size() < 15) {
+                return;
+            }
+            BigDecimal avgGain = BigDecimal.ZERO;
+            BigDecimal avgLoss = BigDecimal.ZERO;
+            for (int i = 1; i < 15; i++) {
+                BigDecimal change = prices.get(i - 1).getClosePrice().subtract(prices.get(i).getClosePrice());
+                if (change.compareTo(BigDecimal.ZERO) > 0) {
+                    avgGain = avgGain.add(change);
+                } else {
+                    avgLoss = avgLoss.add(change.abs());
+                }
+            }
+            avgGain = avgGain.divide(BigDecimal.valueOf(14), 4, RoundingMode.HALF_UP);
+            avgLoss = avgLoss.divide(BigDecimal.valueOf(14), 4, RoundingMode.HALF_UP);
+            if (avgLoss.compareTo(BigDecimal.ZERO) == 0) {
+                indicator.setRsi14(BigDecimal.valueOf(100));
+                return;
+            }
+            BigDecimal rs = avgGain.divide(avgLoss, 4, RoundingMode.HALF_UP);
+            indicator.setRsi14(BigDecimal.valueOf(100).subtract(
+                    BigDecimal.valueOf(100).divide(BigDecimal.ONE.add(rs), 2, RoundingMode.HALF_UP)));
+        }
+
+        private static void kd(TechnicalIndicator indicator, List<HistoricalPrice> prices) {
+            if (prices.size() < 9) {
+                return;
+            }
+            BigDecimal highest = prices.stream().limit(9).map(HistoricalPrice::getHighPrice)
+                    .max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
+            BigDecimal lowest = prices.stream().limit(9).map(HistoricalPrice::getLowPrice)
+                    .min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
+            BigDecimal currentClose = prices.get(0).getClosePrice();
+            BigDecimal rsv = highest.equals(lowest)
+                    ? BigDecimal.valueOf(50)
+                    : currentClose.subtract(lowest).divide(highest.subtract(lowest), 4, RoundingMode.HALF_UP)
+                            .multiply(BigDecimal.valueOf(100));
+            BigDecimal kValue = rsv.multiply(BigDecimal.valueOf(0.33))
+                    .add(BigDecimal.valueOf(50).multiply(BigDecimal.valueOf(0.67)));
+            BigDecimal dValue = kValue.multiply(BigDecimal.valueOf(0.33))
+                    .add(BigDecimal.valueOf(50).multiply(BigDecimal.valueOf(0.67)));
+            indicator.setKdK(kValue.setScale(2, RoundingMode.HALF_UP));
+            indicator.setKdD(dValue.setScale(2, RoundingMode.HALF_UP));
+        }
+
+        private static void macd(TechnicalIndicator indicator, List<HistoricalPrice> prices) {
+            if (prices.size() < 26) {
+                return;
+            }
+            BigDecimal ema12 = ema(prices, 12);
+            BigDecimal ema26 = ema(prices, 26);
+            BigDecimal macdLine = ema12.subtract(ema26);
+            BigDecimal signal = macdLine.multiply(BigDecimal.valueOf(0.2));
+            indicator.setMacdLine(macdLine);
+            indicator.setMacdSignal(signal);
+            indicator.setMacdHistogram(macdLine.subtract(signal));
+        }
+
+        private static BigDecimal ema(List<HistoricalPrice> prices, int period) {
+            BigDecimal multiplier = BigDecimal.valueOf(2.0 / (period + 1));
+            BigDecimal ema = prices.get(period - 1).getClosePrice();
+            for (int i = period - 2; i >= 0; i--) {
+                BigDecimal price = prices.get(i).getClosePrice();
+                ema = price.multiply(multiplier).add(ema.multiply(BigDecimal.ONE.subtract(multiplier)));
+            }
+            return ema.setScale(4, RoundingMode.HALF_UP);
+        }
+
+        private static void volume(TechnicalIndicator indicator, List<HistoricalPrice> prices) {
+            if (prices.size() >= 5) {
+                indicator.setVolumeMa5(prices.stream().limit(5).mapToLong(HistoricalPrice::getVolume).sum() / 5);
+            }
+            if (prices.size() >= 20) {
+                long volumeMa20 = prices.stream().limit(20).mapToLong(HistoricalPrice::getVolume).sum() / 20;
+                indicator.setVolumeMa20(volumeMa20);
+                if (volumeMa20 > 0) {
+                    indicator.setVolumeRatio(BigDecimal.valueOf(prices.get(0).getVolume())
+                            .divide(BigDecimal.valueOf(volumeMa20), 2, RoundingMode.HALF_UP));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IndicatorBatchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,169 @@
+package com.kanban.benchmark;
+
+import com.kanban.config.CompactRedisSerializer;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 快取值序列化比較
+ * json：GenericJackson2JsonRedisSerializer（含類別名稱，BigDecimal 為文字）
+ * compact：CompactRedisSerializer（版本標頭 + 定點 long varint）
+ *
+ * 編碼測項以 encodedBytes、encodedEntries 輔助計數回報該次迭代的總位元組數與筆數，兩者相除即為每筆位元組數；預設 JSON 序列化器未註冊 JavaTimeModule，時間欄位留空以便兩者比較同一份資料。
+ * 執行方式：mvn test-compile 後以 main 方法啟動
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final CompactRedisSerializer compact = new CompactRedisSerializer();
+
+    private StockSnapshot snapshot;
+    private TechnicalIndicator indicator;
+
+    private byte[] snapshotJson;
+    private byte[] snapshotCompact;
+    private byte[] indicatorJson;
+    private byte[] indicatorCompact;
+
+    @Setup
+    public void setUp() {
+        snapshot = StockSnapshot.builder()
+                .code("2330")
+                .name("台積電")
+                .currentPrice(new BigDecimal("1080.00"))
+                .changePercent(new BigDecimal("0.93"))
+                .volume(25_431_220L)
+                .openPrice(new BigDecimal("1075.00"))
+                .highPrice(new BigDecimal("1085.00"))
+                .lowPrice(new BigDecimal("1070.00"))
+                .previousClose(new BigDecimal("1070.00"))
+                .ma5(new BigDecimal("1072.40"))
+                .ma10(new BigDecimal("1066.10"))
+                .ma20(new BigDecimal("1051.25"))
+                .ma60(new BigDecimal("1012.80"))
+                .rsi(new BigDecimal("63.12"))
+                .kdK(new BigDecimal("72.00"))
+                .kdD(new BigDecimal("68.50"))
+                .build();
+        indicator = TechnicalIndicator.builder()
+                .id("5b1f6c1e-9d3a-4a8e-8f0e-0d2d1c3b4a59")
+                .stockCode("2330")
+                .ma5(new BigDecimal("1072.40"))
+                .ma10(new BigDecimal("1066.10"))
+                .ma20(new BigDecimal("1051.25"))
+                .ma60(new BigDecimal("1012.80"))
+                .rsi14(new BigDecimal("63.12"))
+                .kdK(new BigDecimal("72.00"))
+                .kdD(new BigDecimal("68.50"))
+                .macdLine(new BigDecimal("8.1234"))
+                .macdSignal(new BigDecimal("6.5021"))
+                .macdHistogram(new BigDecimal("1.6213"))
+                .volumeMa5(24_880_000L)
+                .volumeMa20(22_140_000L)
+                .volumeRatio(new BigDecimal("1.15"))
+                .dataPointsCount(100)
+                .build();
+
+        snapshotJson = json.serialize(snapshot);
+        snapshotCompact = compact.serialize(snapshot);
+        indicatorJson = json.serialize(indicator);
+        indicatorCompact = compact.serialize(indicator);
+    }
+
+    /**
+     * 編碼結果的累計位元組數與筆數，EVENTS 計數器回報迭代內的總和，與平均時間一併列在結果中
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+        public long encodedBytes;
+        public long encodedEntries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            encodedBytes = 0;
+            encodedEntries = 0;
+        }
+
+        byte[] record(byte[] encoded) {
+            encodedBytes += encoded.length;
+            encodedEntries++;
+            return encoded;
+        }
+    }
+
+    @Benchmark
+    public byte[] snapshotEncodeJson(EncodedSize size) {
+        return size.record(json.serialize(snapshot));
+    }
+
+    @Benchmark
+    public byte[] snapshotEncodeCompact(EncodedSize size) {
+        return size.record(compact.serialize(snapshot));
+    }
+
+    @Benchmark
+    public Object snapshotDecodeJson() {
+        return json.deserialize(snapshotJson);
+    }
+
+    @Benchmark
+    public Object snapshotDecodeCompact() {
+        return compact.deserialize(snapshotCompact);
+    }
+
+    @Benchmark
+    public byte[] indicatorEncodeJson(EncodedSize size) {
+        return size.record(json.serialize(indicator));
+    }
+
+    @Benchmark
+    public byte[] indicatorEncodeCompact(EncodedSize size) {
+        return size.record(compact.serialize(indicator));
+    }
+
+    @Benchmark
+    public Object indicatorDecodeJson() {
+        return json.deserialize(indicatorJson);
+    }
+
+    @Benchmark
+    public Object indicatorDecodeCompact() {
+        return compact.deserialize(indicatorCompact);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RedisSerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
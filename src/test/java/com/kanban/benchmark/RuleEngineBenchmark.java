@@ -0,0 +1,179 @@
+package com.kanban.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.service.CompiledCondition;
+import com.kanban.service.RuleEvaluationService;
+import com.kanban.service.RuleField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 規則條件評估吞吐量比較（每秒評估次數，每次呼叫為規則數 × 股票數次評估）
+ * spel：關閉 DSL，以快取並經 MIXED 編譯的 SpEL 表達式評估
+ * dsl：以 RuleDslCompiler 編譯的節點樹評估，包含建立評估框架
+ * dslFrames：框架已建立（同一檔股票的多條規則共用框架），只量測條件節點
+ *
+ * 執行方式：mvn test-compile 後以 main 方法啟動
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleEngineBenchmark {
+
+    private static final int STOCKS = 200;
+
+    private static final String[] EXPRESSIONS = {
+        "price > 500",
+        "rsi < 30 || rsi > 70",
+        "ma5 > ma20 && volume > 40000000",
+        "(ma5 - ma20) / ma20 * 100 > 2 && kdK > kdD",
+        "macd_positive && macdHistogram > 0 && volumeRatio >= 1.5 && changePercent > 0"
+    };
+
+    private static final int EVALUATIONS = STOCKS * 5;
+
+    private RuleEvaluationService spelService;
+    private RuleEvaluationService dslService;
+    private List<Rule> rules;
+    private List<CompiledCondition> conditions;
+    private Card[] cards;
+    private StockSnapshot[] snapshots;
+    private TechnicalIndicator[] indicators;
+    private double[][] frames;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        spelService = new RuleEvaluationService(objectMapper, SpelCompilerMode.MIXED, 10_000, false);
+        dslService = new RuleEvaluationService(objectMapper, SpelCompilerMode.MIXED, 10_000, true);
+
+        rules = new ArrayList<>();
+        conditions = new ArrayList<>();
+        LocalDateTime version = LocalDateTime.of(2024, 6, 3, 9, 0);
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            rules.add(Rule.builder()
+                .id("rule-" + i)
+                .name("規則 " + i)
+                .conditionExpression(EXPRESSIONS[i])
+                .targetStatus(Card.CardStatus.ALERTS)
+                .updatedAt(version)
+                .build());
+            conditions.add(dslService.compileCondition(EXPRESSIONS[i]));
+        }
+
+        Random random = new Random(42);
+        cards = new Card[STOCKS];
+        snapshots = new StockSnapshot[STOCKS];
+        indicators = new TechnicalIndicator[STOCKS];
+        frames = new double[STOCKS][];
+        for (int s = 0; s < STOCKS; s++) {
+            String code = String.valueOf(1000 + s);
+            double close = 20 + random.nextDouble() * 800;
+            double ma20 = close * (0.9 + random.nextDouble() * 0.2);
+            double macd = random.nextGaussian();
+            cards[s] = Card.builder()
+                .id("card-" + s)
+                .stockCode(code)
+                .status(Card.CardStatus.WATCH)
+                .build();
+            snapshots[s] = StockSnapshot.builder()
+                .code(code)
+                .currentPrice(price(close))
+                .openPrice(price(close * 0.99))
+                .highPrice(price(close * 1.02))
+                .lowPrice(price(close * 0.98))
+                .previousClose(price(close * (0.97 + random.nextDouble() * 0.06)))
+                .changePercent(price(random.nextGaussian() * 2))
+                .volume((long) (random.nextDouble() * 80_000_000))
+                .build();
+            indicators[s] = TechnicalIndicator.builder()
+                .stockCode(code)
+                .ma5(price(close * (0.95 + random.nextDouble() * 0.1)))
+                .ma10(price(close))
+                .ma20(price(ma20))
+                .ma60(price(ma20 * 0.98))
+                .rsi14(price(random.nextDouble() * 100))
+                .kdK(price(random.nextDouble() * 100))
+                .kdD(price(random.nextDouble() * 100))
+                .macdLine(price(macd))
+                .macdSignal(price(macd * 0.8))
+                .macdHistogram(price(macd * 0.2))
+                .volumeRatio(price(random.nextDouble() * 3))
+                .build();
+            frames[s] = RuleField.frame(cards[s], snapshots[s], indicators[s]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVALUATIONS)
+    public void spel(Blackhole blackhole) {
+        evaluateAll(spelService, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVALUATIONS)
+    public void dsl(Blackhole blackhole) {
+        evaluateAll(dslService, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVALUATIONS)
+    public void dslFrames(Blackhole blackhole) {
+        for (double[] frame : frames) {
+            for (CompiledCondition condition : conditions) {
+                blackhole.consume(condition.test(frame, null));
+            }
+        }
+    }
+
+    private void evaluateAll(RuleEvaluationService service, Blackhole blackhole) {
+        for (int s = 0; s < STOCKS; s++) {
+            for (Rule rule : rules) {
+                blackhole.consume(service.evaluateRule(rule, cards[s], snapshots[s], indicators[s]).isMatched());
+            }
+        }
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RuleEngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
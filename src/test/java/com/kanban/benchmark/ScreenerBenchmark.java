@@ -0,0 +1,123 @@
+package com.kanban.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.dto.market.ScreenRequest;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
+import com.kanban.service.RuleEvaluationService;
+import com.kanban.service.ScreenerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全市場選股篩選延遲（每次呼叫掃描全部上市櫃股票）
+ * filter：只篩選，依股票代碼排序前 50 筆
+ * filterAndSort：篩選後依欄位排序
+ * crossover：使用前一期指標的交叉條件
+ *
+ * 執行方式：mvn test-compile 後以 main 方法啟動
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScreenerBenchmark {
+
+    private static final int STOCKS = 1700;
+
+    private ScreenerService screenerService;
+    private ScreenRequest filter;
+    private ScreenRequest filterAndSort;
+    private ScreenRequest crossover;
+
+    @Setup
+    public void setUp() {
+        screenerService = new ScreenerService(null, null, new RuleEvaluationService(new ObjectMapper()), null);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 6, 3, 13, 30);
+        for (int s = 0; s < STOCKS; s++) {
+            String code = String.valueOf(1000 + s);
+            double close = 20 + random.nextDouble() * 800;
+            StockSnapshot snapshot = StockSnapshot.builder()
+                .code(code)
+                .name("股票 " + s)
+                .currentPrice(price(close))
+                .previousClose(price(close * (0.97 + random.nextDouble() * 0.06)))
+                .changePercent(price(random.nextGaussian() * 2))
+                .volume((long) (random.nextDouble() * 80_000_000))
+                .build();
+            screenerService.onSnapshotChanged(new StockSnapshotChangedEvent(code, snapshot, now));
+            for (int day = 0; day < 2; day++) {
+                TechnicalIndicator indicator = TechnicalIndicator.builder()
+                    .stockCode(code)
+                    .calculationDate(now.minusDays(1 - day))
+                    .ma5(price(close * (0.95 + random.nextDouble() * 0.1)))
+                    .ma20(price(close))
+                    .rsi14(price(random.nextDouble() * 100))
+                    .kdK(price(random.nextDouble() * 100))
+                    .kdD(price(random.nextDouble() * 100))
+                    .volumeRatio(price(random.nextDouble() * 3))
+                    .build();
+                screenerService.onIndicatorChanged(new TechnicalIndicatorChangedEvent(code, indicator, now));
+            }
+        }
+
+        filter = ScreenRequest.builder().condition("rsi14 < 30 && volumeRatio > 2").build();
+        filterAndSort = ScreenRequest.builder()
+            .condition("rsi14 < 50 && changePercent > 0")
+            .sortBy("volume")
+            .build();
+        crossover = ScreenRequest.builder().condition("crossesAbove(kdK, kdD) && rsi < 70").build();
+    }
+
+    @Benchmark
+    public Object filter() {
+        return screenerService.screen(filter);
+    }
+
+    @Benchmark
+    public Object filterAndSort() {
+        return screenerService.screen(filterAndSort);
+    }
+
+    @Benchmark
+    public Object crossover() {
+        return screenerService.screen(crossover);
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ScreenerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.kanban.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.client.TwseStockDayAllParser;
+import com.kanban.dto.twse.TwseApiResponse;
+import com.kanban.dto.twse.TwseMarketSnapshot;
+import com.kanban.dto.twse.TwseStockData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOCK_DAY_ALL 全市場回應解析效能比較
+ * legacy：整份資料綁定為 TwseApiResponse 後逐格 replace(",", "") + new BigDecimal
+ * streaming：TwseStockDayAllParser 以 8KB 區塊串流解析
+ *
+ * 執行方式：mvn test-compile 後以 main 方法啟動，GC profiler 的 gc.alloc.rate.norm 即每次解析的配置量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockDayAllParseBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"1300"})
+    private int stockCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = buildPayload(stockCount).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Map<String, TwseStockData> legacyDatabind() throws Exception {
+        TwseApiResponse<List<String>> response = objectMapper.readValue(payload,
+                new TypeReference<TwseApiResponse<List<String>>>() {});
+        Map<String, TwseStockData> stocks = new HashMap<>();
+        for (List<String> row : response.getData()) {
+            if (row.size() >= 9) {
+                stocks.put(row.get(0), legacyBuildStockData(row));
+            }
+        }
+        return stocks;
+    }
+
+    @Benchmark
+    public TwseMarketSnapshot streamingParser() {
+        TwseStockDayAllParser parser = new TwseStockDayAllParser();
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            parser.feed(ByteBuffer.wrap(payload, offset, Math.min(CHUNK_SIZE, payload.length - offset)));
+        }
+        return parser.finish();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StockDayAllParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    private static String buildPayload(int stockCount) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(stockCount * 160);
+        json.append("{\"stat\":\"OK\",\"date\":\"20241115\",\"title\":\"每日收盤行情\",")
+            .append("\"fields\":[\"證券代號\",\"證券名稱\",\"成交股數\",\"成交筆數\",\"成交金額\",")
+            .append("\"開盤價\",\"最高價\",\"最低價\",\"收盤價\",\"漲跌(+/-)\",\"漲跌價差\"],\"data\":[");
+        for (int i = 0; i < stockCount; i++) {
+            double close = 10 + random.nextDouble() * 990;
+            long volume = 1_000 + random.nextInt(50_000_000);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("[\"").append(1101 + i).append("\",\"股票").append(i).append("\",\"")
+                .append(String.format(Locale.US, "%,d", volume)).append("\",\"")
+                .append(String.format(Locale.US, "%,d", random.nextInt(200_000))).append("\",\"")
+                .append(String.format(Locale.US, "%,d", (long) (volume * close))).append("\",\"")
+                .append(String.format(Locale.US, "%,.2f", close * 0.99)).append("\",\"")
+                .append(String.format(Locale.US, "%,.2f", close * 1.02)).append("\",\"")
+                .append(String.format(Locale.US, "%,.2f", close * 0.98)).append("\",\"")
+                .append(String.format(Locale.US, "%,.2f", close)).append("\",\"")
+                .append(random.nextBoolean() ? "+" : "-").append("\",\"")
+                .append(String.format(Locale.US, "%.2f", close * 0.01)).append("\"]");
+        }
+        json.append("],\"notes\":[]}");
+        return json.toString();
+    }
+
+    private static TwseStockData legacyBuildStockData(List<String> row) {
+        return TwseStockData.builder()
+                .code(row.get(0))
+                .name(row.get(1))
+                .tradeVolume(legacyParseLong(row.get(2)))
+                .transaction(legacyParseLong(row.get(3)))
+                .tradeValue(legacyParseBigDecimal(row.get(4)))
+                .openingPrice(legacyParseBigDecimal(row.get(5)))
+                .highestPrice(legacyParseBigDecimal(row.get(6)))
+                .lowestPrice(legacyParseBigDecimal(row.get(7)))
+                .closingPrice(legacyParseBigDecimal(row.get(8)))
+                .change(row.size() > 9 ? legacyParseBigDecimal(row.get(9)) : null)
+                .changePercent(row.size() > 10 ? legacyParseBigDecimal(row.get(10)) : null)
+                .tradeDate(LocalDateTime.now().toLocalDate().toString())
+                .tradeTime(LocalDateTime.now().toLocalTime().toString())
+                .build();
+    }
+
+    private static BigDecimal legacyParseBigDecimal(String value) {
+        if (value == null || value.trim().isEmpty() || "--".equals(value)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long legacyParseLong(String value) {
+        if (value == null || value.trim().isEmpty() || "--".equals(value)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -144,6 +145,44 @@ class TwseMcpClientTest {
         assertFalse(result);
     }
     
+    @Test
+    void concurrentRequests_ShareSingleMarketFetch() throws JsonProcessingException, ExecutionException, InterruptedException {
+        // Arrange
+        TwseApiResponse<List<String>> mockResponse = createMockResponse();
+        mockWebServer.enqueue(new MockResponse()
+                .setBody(objectMapper.writeValueAsString(mockResponse))
+                .addHeader("Content-Type", "application/json")
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        
+        // Act
+        CompletableFuture<TwseStockData> first = twseMcpClient.getStockData("2330");
+        CompletableFuture<List<TwseStockData>> batch = twseMcpClient.getBatchStockData(List.of("2317"));
+        CompletableFuture<Boolean> validation = twseMcpClient.validateStockCode("2317");
+        
+        // Assert
+        assertEquals("2330", first.get().getCode());
+        assertEquals(1, batch.get().size());
+        assertTrue(validation.get());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+    
+    @Test
+    void subsequentRequests_ServedFromCurrentGeneration() throws JsonProcessingException, ExecutionException, InterruptedException {
+        // Arrange
+        TwseApiResponse<List<String>> mockResponse = createMockResponse();
+        mockWebServer.enqueue(new MockResponse()
+                .setBody(objectMapper.writeValueAsString(mockResponse))
+                .addHeader("Content-Type", "application/json"));
+        
+        // Act
+        twseMcpClient.getStockData("2330").get();
+        TwseStockData second = twseMcpClient.getStockData("2317").get();
+        
+        // Assert
+        assertEquals("鴻海", second.getName());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+    
     private TwseApiResponse<List<String>> createMockResponse() {
         TwseApiResponse<List<String>> response = new TwseApiResponse<>();
         response.setStatus("OK");
@@ -0,0 +1,86 @@
+package com.kanban.client;
+
+import com.kanban.dto.twse.TwseMarketSnapshot;
+import com.kanban.dto.twse.TwseStockData;
+import com.kanban.exception.TwseMcpException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwseStockDayAllParserTest {
+    
+    private static final String PAYLOAD = "{\"stat\":\"OK\",\"date\":\"20241115\","
+            + "\"fields\":[\"證券代號\",\"證券名稱\"],\"data\":["
+            + "[\"2330\",\"台積電\",\"25,000,000\",\"15,000\",\"14,500,000,000\","
+            + "\"575.00\",\"585.00\",\"570.00\",\"1,080.00\",\"+\",\"5.00\"],"
+            + "[\"2317\",\"鴻海\",\"30000000\",\"--\",\"3300000000\","
+            + "\"108.00\",\"112.00\",\"107.00\",\"110.00\",\"-\",\"-2.50\"],"
+            + "[\"0000\",\"欄位不足\"]"
+            + "],\"notes\":[\"說明\"]}";
+    
+    @Test
+    void parse_DecodesCommaGroupedNumerics() {
+        // Act
+        TwseMarketSnapshot snapshot = TwseStockDayAllParser.parse(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        
+        // Assert
+        assertEquals(2, snapshot.size());
+        TwseStockData tsmc = snapshot.get("2330");
+        assertEquals("台積電", tsmc.getName());
+        assertEquals(25_000_000L, tsmc.getTradeVolume());
+        assertEquals(15_000L, tsmc.getTransaction());
+        assertEquals(new BigDecimal("14500000000"), tsmc.getTradeValue());
+        assertEquals(new BigDecimal("1080.00"), tsmc.getClosingPrice());
+        assertNull(tsmc.getChange());
+        assertEquals(new BigDecimal("5.00"), tsmc.getChangePercent());
+        
+        TwseStockData foxconn = snapshot.get("2317");
+        assertNull(foxconn.getTransaction());
+        assertEquals(new BigDecimal("-2.50"), foxconn.getChangePercent());
+        assertFalse(snapshot.contains("0000"));
+    }
+    
+    @Test
+    void feed_HandlesTokensSplitAcrossChunks() {
+        // Arrange
+        byte[] payload = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        TwseStockDayAllParser parser = new TwseStockDayAllParser();
+        
+        // Act
+        for (int offset = 0; offset < payload.length; offset += 5) {
+            parser.feed(ByteBuffer.wrap(payload, offset, Math.min(5, payload.length - offset)));
+        }
+        TwseMarketSnapshot snapshot = parser.finish();
+        
+        // Assert
+        assertEquals(2, snapshot.size());
+        assertEquals("台積電", snapshot.get("2330").getName());
+        assertEquals(new BigDecimal("575.00"), snapshot.get("2330").getOpeningPrice());
+    }
+    
+    @Test
+    void finish_InvalidStatus_ThrowsException() {
+        // Arrange
+        byte[] payload = "{\"stat\":\"很抱歉，沒有符合條件的資料!\"}".getBytes(StandardCharsets.UTF_8);
+        
+        // Act & Assert
+        TwseMcpException exception = assertThrows(TwseMcpException.class,
+                () -> TwseStockDayAllParser.parse(payload));
+        assertEquals("INVALID_RESPONSE", exception.getErrorCode());
+    }
+    
+    @Test
+    void finish_TruncatedPayload_ThrowsParseError() {
+        // Arrange
+        byte[] payload = "{\"stat\":\"OK\",\"data\":[[\"2330\"".getBytes(StandardCharsets.UTF_8);
+        
+        // Act & Assert
+        TwseMcpException exception = assertThrows(TwseMcpException.class,
+                () -> TwseStockDayAllParser.parse(payload));
+        assertEquals("DATA_PARSE_ERROR", exception.getErrorCode());
+    }
+}
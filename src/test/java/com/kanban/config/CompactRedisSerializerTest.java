@@ -0,0 +1,174 @@
+package com.kanban.config;
+
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer();
+
+    @Test
+    void stockSnapshot_RoundTripsAtColumnScale() {
+        // Arrange
+        StockSnapshot snapshot = createSnapshot();
+
+        // Act
+        byte[] bytes = serializer.serialize(snapshot);
+        StockSnapshot result = (StockSnapshot) serializer.deserialize(bytes);
+
+        // Assert
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(CompactRedisSerializer.SCHEMA_VERSION, bytes[1]);
+        assertEquals(snapshot, result);
+    }
+
+    @Test
+    void stockSnapshot_PreservesNullFieldsWithBuilderDefaults() {
+        // Arrange
+        StockSnapshot snapshot = StockSnapshot.builder()
+                .code("2330")
+                .name("台積電")
+                .dataSource(null)
+                .delayMinutes(null)
+                .build();
+
+        // Act
+        StockSnapshot result = (StockSnapshot) serializer.deserialize(serializer.serialize(snapshot));
+
+        // Assert
+        assertEquals("2330", result.getCode());
+        assertNull(result.getCurrentPrice());
+        assertNull(result.getUpdatedAt());
+        assertNull(result.getDataSource());
+        assertNull(result.getDelayMinutes());
+    }
+
+    @Test
+    void stockSnapshot_RoundsExtraDigitsHalfUp() {
+        // Arrange
+        StockSnapshot snapshot = createSnapshot();
+        snapshot.setChangePercent(new BigDecimal("-1.235"));
+
+        // Act
+        StockSnapshot result = (StockSnapshot) serializer.deserialize(serializer.serialize(snapshot));
+
+        // Assert
+        assertEquals(new BigDecimal("-1.24"), result.getChangePercent());
+    }
+
+    @Test
+    void technicalIndicator_RoundTripsMacdAtFourDecimals() {
+        // Arrange
+        TechnicalIndicator indicator = TechnicalIndicator.builder()
+                .id("5b1f6c1e-9d3a-4a8e-8f0e-0d2d1c3b4a59")
+                .stockCode("2330")
+                .calculationDate(LocalDateTime.of(2024, 11, 15, 13, 30))
+                .ma5(new BigDecimal("578.40"))
+                .ma20(new BigDecimal("571.25"))
+                .rsi14(new BigDecimal("63.12"))
+                .kdK(new BigDecimal("72.00"))
+                .kdD(new BigDecimal("68.50"))
+                .macdLine(new BigDecimal("-1.2345"))
+                .macdSignal(new BigDecimal("0.0001"))
+                .macdHistogram(new BigDecimal("-1.2346"))
+                .volumeMa5(25_000_000L)
+                .volumeRatio(new BigDecimal("1.20"))
+                .updatedAt(LocalDateTime.of(2024, 11, 15, 13, 30, 5, 123_456_000))
+                .dataPointsCount(100)
+                .build();
+
+        // Act
+        TechnicalIndicator result = (TechnicalIndicator) serializer.deserialize(serializer.serialize(indicator));
+
+        // Assert
+        assertEquals(indicator, result);
+        assertEquals("INTERNAL", result.getCalculationSource());
+    }
+
+    @Test
+    void compactEncoding_SmallerThanJson() {
+        // Arrange
+        StockSnapshot snapshot = createSnapshot();
+        snapshot.setUpdatedAt(null);
+
+        // Act
+        byte[] compact = serializer.serialize(snapshot);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(snapshot);
+
+        // Assert
+        assertTrue(compact.length * 4 < json.length,
+                "compact=" + compact.length + " json=" + json.length);
+    }
+
+    @Test
+    void otherTypes_DelegateToJson() {
+        // Act & Assert
+        assertEquals(Boolean.TRUE, serializer.deserialize(serializer.serialize(Boolean.TRUE)));
+        assertEquals("node|[2330]", serializer.deserialize(serializer.serialize("node|[2330]")));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    void legacyJsonEntries_StillReadable() {
+        // Arrange
+        StockSnapshot snapshot = createSnapshot();
+        snapshot.setUpdatedAt(null);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(snapshot);
+
+        // Act
+        StockSnapshot result = (StockSnapshot) serializer.deserialize(json);
+
+        // Assert
+        assertEquals("2330", result.getCode());
+        assertEquals(0, new BigDecimal("580.00").compareTo(result.getCurrentPrice()));
+    }
+
+    @Test
+    void unknownSchemaVersion_TreatedAsMiss() {
+        // Arrange
+        byte[] bytes = serializer.serialize(createSnapshot());
+        bytes[1] = (byte) (CompactRedisSerializer.SCHEMA_VERSION + 1);
+
+        // Act & Assert
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void truncatedPayload_ThrowsSerializationException() {
+        // Arrange
+        byte[] bytes = serializer.serialize(createSnapshot());
+
+        // Act & Assert
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+
+    private StockSnapshot createSnapshot() {
+        return StockSnapshot.builder()
+                .code("2330")
+                .name("台積電")
+                .currentPrice(new BigDecimal("580.00"))
+                .changePercent(new BigDecimal("0.87"))
+                .volume(25_000_000L)
+                .openPrice(new BigDecimal("575.00"))
+                .highPrice(new BigDecimal("585.00"))
+                .lowPrice(new BigDecimal("570.00"))
+                .previousClose(new BigDecimal("575.00"))
+                .ma5(new BigDecimal("578.40"))
+                .ma20(new BigDecimal("571.25"))
+                .rsi(new BigDecimal("63.12"))
+                .kdK(new BigDecimal("72.00"))
+                .kdD(new BigDecimal("68.50"))
+                .updatedAt(LocalDateTime.of(2024, 11, 15, 13, 30, 5, 123_456_789))
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package com.kanban.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kanban.dto.ChartDataDto;
 import com.kanban.dto.OhlcDataDto;
+import com.kanban.service.ChartIndicatorService;
 import com.kanban.service.HistoricalDataService;
 import com.kanban.service.InfluxDBService;
 import com.kanban.service.SseConnectionManager;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -34,6 +36,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ChartController.class)
+@Import(ChartIndicatorService.class)
 @DisplayName("圖表 API 控制器測試")
 public class ChartControllerTest {
 
@@ -238,6 +241,8 @@ public class ChartControllerTest {
 
             verify(sseConnectionManager).createConnection("testuser", "stock:2330", 5000);
             verify(stockDataService).getSnapshot("2330");
+            verify(sseConnectionManager).sendInitialSnapshots("testuser", "stock:2330",
+                    Map.of("2330", testStockSnapshot), null);
         }
 
         @Test
@@ -265,10 +270,10 @@ public class ChartControllerTest {
         void getBatchRealTimeData_ShouldCreateBatchConnection() throws Exception {
             // Given
             SseEmitter mockEmitter = mock(SseEmitter.class);
-            when(sseConnectionManager.createConnection("testuser", "batch-stocks", 5000))
+            when(sseConnectionManager.createConnection("testuser", "batch-stocks", 5000, List.of("2330", "2454", "2317")))
                     .thenReturn(mockEmitter);
-            when(stockDataService.getSnapshot(anyString()))
-                    .thenReturn(testStockSnapshot);
+            when(stockDataService.getSnapshots(anyCollection()))
+                    .thenReturn(Map.of("2330", testStockSnapshot, "2454", testStockSnapshot, "2317", testStockSnapshot));
 
             // When & Then
             mockMvc.perform(get("/api/chart/stocks/batch/realtime")
@@ -276,8 +281,10 @@ public class ChartControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(header().string("Content-Type", "text/event-stream"));
 
-            verify(sseConnectionManager).createConnection("testuser", "batch-stocks", 5000);
-            verify(stockDataService, times(3)).getSnapshot(anyString());
+            verify(sseConnectionManager).createConnection("testuser", "batch-stocks", 5000, List.of("2330", "2454", "2317"));
+            verify(stockDataService, times(1)).getSnapshots(List.of("2330", "2454", "2317"));
+            verify(stockDataService, never()).getSnapshot(anyString());
+            verify(sseConnectionManager).sendInitialSnapshots(eq("testuser"), eq("batch-stocks"), anyMap(), isNull());
         }
 
         @Test
@@ -313,8 +320,8 @@ public class ChartControllerTest {
         void postBatchRealTimeData_ShouldReturnBatchData() throws Exception {
             // Given
             List<String> stockCodes = List.of("2330", "2454", "2317");
-            when(stockDataService.getSnapshot(anyString()))
-                    .thenReturn(testStockSnapshot);
+            when(stockDataService.getSnapshots(anyCollection()))
+                    .thenReturn(Map.of("2330", testStockSnapshot, "2454", testStockSnapshot, "2317", testStockSnapshot));
 
             // When & Then
             mockMvc.perform(post("/api/chart/stocks/batch/realtime")
@@ -325,7 +332,7 @@ public class ChartControllerTest {
                     .andExpect(jsonPath("$.['2454']").exists())
                     .andExpect(jsonPath("$.['2317']").exists());
 
-            verify(stockDataService, times(3)).getSnapshot(anyString());
+            verify(stockDataService, times(1)).getSnapshots(stockCodes);
         }
     }
 
@@ -437,7 +444,14 @@ public class ChartControllerTest {
                             .param("indicators", "ma5,ma20,rsi,kd"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.stockCode").value("2330"))
-                    .andExpect(jsonPath("$.period").value("3M"));
+                    .andExpect(jsonPath("$.period").value("3M"))
+                    .andExpect(jsonPath("$.indicators.ma5.length()").value(testOhlcData.size()))
+                    .andExpect(jsonPath("$.indicators.ma5[3]").doesNotExist())
+                    .andExpect(jsonPath("$.indicators.ma5[4]").isNumber())
+                    .andExpect(jsonPath("$.indicators.ma20").isArray())
+                    .andExpect(jsonPath("$.indicators.rsi").isArray())
+                    .andExpect(jsonPath("$.indicators.kdK").isArray())
+                    .andExpect(jsonPath("$.indicators.kdD").isArray());
 
             verify(influxDBService).queryOHLCData("2330", "3m");
         }
@@ -0,0 +1,116 @@
+package com.kanban.controller;
+
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.User;
+import com.kanban.security.UserPrincipal;
+import com.kanban.service.ChartIndicatorService;
+import com.kanban.service.HistoricalDataService;
+import com.kanban.service.InfluxDBService;
+import com.kanban.service.SseConnectionManager;
+import com.kanban.service.StockDataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * ChartController 即時串流的單元測試，不載入 Web 與安全設定，直接以 UserPrincipal 呼叫
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("圖表控制器即時串流單元測試")
+class ChartControllerUnitTest {
+
+    @Mock
+    private HistoricalDataService historicalDataService;
+
+    @Mock
+    private StockDataService stockDataService;
+
+    @Mock
+    private InfluxDBService influxDBService;
+
+    @Mock
+    private SseConnectionManager sseConnectionManager;
+
+    @Mock
+    private ChartIndicatorService chartIndicatorService;
+
+    @InjectMocks
+    private ChartController chartController;
+
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        UserPrincipal principal = new UserPrincipal("user-1", "testuser", "test@example.com",
+                "password", User.UserRole.VIEWER, true);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    @DisplayName("重連時應該以 Last-Event-ID 補送遺漏的變動")
+    void getRealTimeData_WithLastEventId_ShouldResumeStream() {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        StockSnapshot snapshot = StockSnapshot.builder()
+                .code("2330")
+                .currentPrice(new BigDecimal("580.00"))
+                .build();
+        when(sseConnectionManager.createConnection("user-1", "stock:2330", 5000)).thenReturn(emitter);
+        when(stockDataService.getSnapshot("2330")).thenReturn(snapshot);
+
+        // When
+        SseEmitter result = chartController.getRealTimeData("2330", 5000, "2330:42", authentication);
+
+        // Then
+        assertThat(result).isSameAs(emitter);
+        verify(sseConnectionManager).sendInitialSnapshots("user-1", "stock:2330",
+                Map.of("2330", snapshot), "2330:42");
+    }
+
+    @Test
+    @DisplayName("新訂閱沒有 Last-Event-ID 時應該送出完整快照")
+    void getRealTimeData_WithoutLastEventId_ShouldSendSnapshot() {
+        // Given
+        when(sseConnectionManager.createConnection("user-1", "stock:2330", 5000)).thenReturn(new SseEmitter());
+        when(stockDataService.getSnapshot("2330")).thenReturn(null);
+
+        // When
+        chartController.getRealTimeData("2330", 5000, null, authentication);
+
+        // Then
+        verify(sseConnectionManager).sendInitialSnapshots("user-1", "stock:2330", Map.of(), null);
+    }
+
+    @Test
+    @DisplayName("批次訂閱重連時應該把 Last-Event-ID 交給初始快照")
+    void getBatchRealTimeData_WithLastEventId_ShouldResumeStream() {
+        // Given
+        List<String> stockCodes = List.of("2330", "2317");
+        Map<String, StockSnapshot> snapshots = Map.of(
+                "2330", StockSnapshot.builder().code("2330").build(),
+                "2317", StockSnapshot.builder().code("2317").build());
+        when(sseConnectionManager.createConnection("user-1", "batch-stocks", 5000, stockCodes))
+                .thenReturn(new SseEmitter());
+        when(stockDataService.getSnapshots(stockCodes)).thenReturn(snapshots);
+
+        // When
+        chartController.getBatchRealTimeData(stockCodes, 5000, "2317:7", authentication);
+
+        // Then
+        verify(sseConnectionManager).sendInitialSnapshots("user-1", "batch-stocks", snapshots, "2317:7");
+    }
+}
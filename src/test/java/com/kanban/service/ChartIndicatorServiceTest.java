@@ -0,0 +1,124 @@
+package com.kanban.service;
+
+import com.kanban.dto.OhlcDataDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartIndicatorServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private ChartIndicatorService chartIndicatorService;
+
+    @BeforeEach
+    void setUp() {
+        chartIndicatorService = new ChartIndicatorService();
+    }
+
+    @Test
+    void getIndicatorSeries_AlignsWithOhlcOrder() {
+        // Arrange
+        List<OhlcDataDto> ascending = createOhlcData(30);
+        List<OhlcDataDto> descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+
+        // Act
+        Map<String, List<BigDecimal>> up = chartIndicatorService.getIndicatorSeries("2330", "1M", null, ascending, "ma5,kd");
+        Map<String, List<BigDecimal>> down = chartIndicatorService.getIndicatorSeries("2317", "1M", null, descending, "kd,ma5");
+
+        // Assert
+        assertEquals(List.of("kdK", "kdD", "ma5"), List.copyOf(up.keySet()));
+        assertEquals(30, up.get("ma5").size());
+        assertNull(up.get("ma5").get(3));
+        assertEquals(new BigDecimal("102.00"), up.get("ma5").get(4));
+        for (int i = 0; i < 30; i++) {
+            assertEquals(up.get("ma5").get(i), down.get("ma5").get(29 - i));
+            assertEquals(up.get("kdK").get(i), down.get("kdK").get(29 - i));
+        }
+    }
+
+    @Test
+    void getIndicatorSeries_SameWindowIsServedFromCache() {
+        // Arrange
+        List<OhlcDataDto> ohlcData = createOhlcData(30);
+        Map<String, List<BigDecimal>> first = chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "rsi,ma20");
+
+        // Act
+        Map<String, List<BigDecimal>> second = chartIndicatorService.getIndicatorSeries("2330", "1m", null, ohlcData, "ma20, rsi,unknown");
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    void onNewBar_InvalidatesOnlyWhenTradeDateAdvances() {
+        // Arrange
+        List<OhlcDataDto> ohlcData = createOhlcData(30);
+        chartIndicatorService.onNewBar("2330", START.plusDays(29));
+        Map<String, List<BigDecimal>> cached = chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "ma5");
+        Map<String, List<BigDecimal>> other = chartIndicatorService.getIndicatorSeries("2317", "1M", null, ohlcData, "ma5");
+
+        // Act & Assert
+        chartIndicatorService.onNewBar("2330", START.plusDays(29));
+        assertSame(cached, chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "ma5"));
+
+        chartIndicatorService.onNewBar("2330", START.plusDays(30));
+        assertNotSame(cached, chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "ma5"));
+        assertSame(other, chartIndicatorService.getIndicatorSeries("2317", "1M", null, ohlcData, "ma5"));
+    }
+
+    @Test
+    void getIndicatorSeries_IntradayUpdateOfLatestBarRecomputes() {
+        // Arrange
+        List<OhlcDataDto> ohlcData = createOhlcData(30);
+        Map<String, List<BigDecimal>> before = chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "ma5");
+        OhlcDataDto latest = ohlcData.get(29);
+        latest.setClose(latest.getClose().add(BigDecimal.valueOf(5)));
+        latest.setVolume(latest.getVolume() + 500_000L);
+
+        // Act
+        Map<String, List<BigDecimal>> after = chartIndicatorService.getIndicatorSeries("2330", "1M", null, ohlcData, "ma5");
+
+        // Assert
+        assertNotSame(before, after);
+        assertEquals(new BigDecimal("127.00"), before.get("ma5").get(29));
+        assertEquals(new BigDecimal("128.00"), after.get("ma5").get(29));
+    }
+
+    @Test
+    void getIndicatorSeries_NullPeriodUsesDefault() {
+        // Arrange
+        List<OhlcDataDto> ohlcData = createOhlcData(30);
+
+        // Act
+        Map<String, List<BigDecimal>> series = chartIndicatorService.getIndicatorSeries("2330", null, null, ohlcData, "ma5");
+
+        // Assert
+        assertSame(series, chartIndicatorService.getIndicatorSeries("2330", "3M", null, ohlcData, "ma5"));
+    }
+
+    private List<OhlcDataDto> createOhlcData(int days) {
+        List<OhlcDataDto> ohlcData = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            BigDecimal close = BigDecimal.valueOf(100 + i).setScale(2);
+            ohlcData.add(OhlcDataDto.builder()
+                    .date(START.plusDays(i))
+                    .open(close)
+                    .high(close.add(BigDecimal.ONE))
+                    .low(close.subtract(BigDecimal.valueOf(i % 3)))
+                    .close(close)
+                    .volume(1_000_000L + i * 1000L)
+                    .build());
+        }
+        return ohlcData;
+    }
+}
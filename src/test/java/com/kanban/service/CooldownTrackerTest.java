@@ -0,0 +1,182 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.repository.RuleExecutionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CooldownTracker 單元測試")
+class CooldownTrackerTest {
+
+    @Mock
+    private RuleExecutionRepository executionRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private Rule rule;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        rule = Rule.builder()
+            .id("rule-1")
+            .cooldownSeconds(3600)
+            .build();
+        card = Card.builder()
+            .id("card-1")
+            .stockCode("2330")
+            .build();
+    }
+
+    @Test
+    @DisplayName("由成功執行記錄預熱，冷卻期內不可執行")
+    void warmUp_LoadsLastSuccessfulExecutions() {
+        // Given
+        LocalDateTime firedAt = LocalDateTime.now().minusMinutes(30);
+        when(executionRepository.findLastSuccessfulExecutions())
+            .thenReturn(List.of(lastSuccess("rule-1", "card-1", firedAt)));
+        CooldownTracker tracker = new CooldownTracker(executionRepository, redisTemplate, false);
+        long firedAtMillis = firedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // When
+        tracker.warmUp();
+
+        // Then
+        assertThat(tracker.size()).isEqualTo(1);
+        assertThat(tracker.isReady(rule, card, firedAtMillis + 1_800_000)).isFalse();
+        assertThat(tracker.isReady(rule, card, firedAtMillis + 3_600_000)).isTrue();
+        assertThat(tracker.isReady(rule, Card.builder().id("card-2").build(), firedAtMillis)).isTrue();
+        verify(executionRepository, times(1)).findLastSuccessfulExecutions();
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("觸發成功後更新冷卻時間")
+    void recordFire_UpdatesIndex() {
+        // Given
+        when(executionRepository.findLastSuccessfulExecutions()).thenReturn(List.of());
+        CooldownTracker tracker = new CooldownTracker(executionRepository, redisTemplate, false);
+        long now = System.currentTimeMillis();
+
+        // When
+        assertThat(tracker.isReady(rule, card, now)).isTrue();
+        tracker.recordFire(rule, card, now);
+
+        // Then
+        assertThat(tracker.isReady(rule, card, now + 1000)).isFalse();
+        assertThat(tracker.isReady(rule, card, now + 3_600_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("啟用 Redis 時以一次 MGET 取回整批組合的觸發時間")
+    void prefetch_FetchesLocallyReadyPairsInOneBatch() {
+        // Given
+        long now = System.currentTimeMillis();
+        Card card2 = Card.builder().id("card-2").build();
+        Card card3 = Card.builder().id("card-3").build();
+        when(executionRepository.findLastSuccessfulExecutions()).thenReturn(List.of());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("rule:cooldown:rule-1:card-1", "rule:cooldown:rule-1:card-2")))
+            .thenReturn(Arrays.asList(Long.toString(now - 60_000), null));
+        CooldownTracker tracker = new CooldownTracker(executionRepository, redisTemplate, true);
+        tracker.recordFire(rule, card3, now);
+
+        // When：card-3 本機仍在冷卻中，不需查詢
+        tracker.prefetch(List.of(rule), List.of(card, card2, card3), now);
+
+        // Then：isReady 只查詢本機索引
+        assertThat(tracker.isReady(rule, card, now)).isFalse();
+        assertThat(tracker.isReady(rule, card2, now)).isTrue();
+        assertThat(tracker.isReady(rule, card3, now)).isFalse();
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(valueOperations, never()).get(anyString());
+        verify(valueOperations).set("rule:cooldown:rule-1:card-3", Long.toString(now), Duration.ofSeconds(3600));
+    }
+
+    @Test
+    @DisplayName("移除已刪除規則與已過冷卻時間的記錄")
+    void prune_RemovesDeletedRulesAndExpiredCooldowns() {
+        // Given
+        long now = System.currentTimeMillis();
+        when(executionRepository.findLastSuccessfulExecutions()).thenReturn(List.of());
+        CooldownTracker tracker = new CooldownTracker(executionRepository, redisTemplate, false);
+        Rule deleted = Rule.builder().id("rule-2").cooldownSeconds(3600).build();
+        Card expired = Card.builder().id("card-2").build();
+        tracker.recordFire(rule, card, now - 60_000);
+        tracker.recordFire(rule, expired, now - 7_200_000);
+        tracker.recordFire(deleted, card, now - 60_000);
+
+        // When
+        int removed = tracker.prune(Map.of("rule-1", 3_600_000L), now);
+
+        // Then
+        assertThat(removed).isEqualTo(2);
+        assertThat(tracker.size()).isEqualTo(1);
+        assertThat(tracker.isReady(rule, card, now)).isFalse();
+        assertThat(tracker.isReady(rule, expired, now)).isTrue();
+    }
+
+    @Test
+    @DisplayName("大量 (規則, 卡片) 組合擴容後仍可查詢")
+    void cooldownIndex_GrowsAndKeepsLatestValue() {
+        CooldownIndex index = new CooldownIndex();
+        for (int r = 0; r < 50; r++) {
+            for (int c = 0; c < 200; c++) {
+                index.put("rule-" + r, "card-" + c, r * 1000L + c);
+            }
+        }
+        index.put("rule-3", "card-7", 1L);
+        index.put("rule-3", "card-7", 99_999L);
+
+        assertThat(index.size()).isEqualTo(10_000);
+        assertThat(index.get("rule-49", "card-199")).isEqualTo(49_199L);
+        assertThat(index.get("rule-3", "card-7")).isEqualTo(99_999L);
+        assertThat(index.get("rule-50", "card-0")).isEqualTo(CooldownIndex.MISSING);
+
+        assertThat(index.removeIf((ruleId, cardId, millis) -> !ruleId.equals("rule-3"))).isEqualTo(9_800);
+        assertThat(index.size()).isEqualTo(200);
+        assertThat(index.get("rule-3", "card-7")).isEqualTo(99_999L);
+        assertThat(index.get("rule-49", "card-199")).isEqualTo(CooldownIndex.MISSING);
+    }
+
+    private RuleExecutionRepository.LastSuccessfulExecution lastSuccess(String ruleId, String cardId, LocalDateTime firedAt) {
+        return new RuleExecutionRepository.LastSuccessfulExecution() {
+            @Override
+            public String getRuleId() {
+                return ruleId;
+            }
+
+            @Override
+            public String getCardId() {
+                return cardId;
+            }
+
+            @Override
+            public LocalDateTime getLastFiredAt() {
+                return firedAt;
+            }
+        };
+    }
+}
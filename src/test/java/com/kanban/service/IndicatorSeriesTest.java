@@ -0,0 +1,138 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.HistoricalPrice;
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorSeriesTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 13, 30);
+
+    @Test
+    void fromHistoricalPrices_OrdersOldestFirst() {
+        // Arrange
+        List<HistoricalPrice> prices = generatePrices(30);
+
+        // Act
+        BarSeries series = BarSeries.fromHistoricalPrices("2330", prices);
+
+        // Assert
+        assertEquals(30, series.size());
+        assertEquals(prices.get(29).getTradeDate(), series.getTradeDate(0));
+        assertEquals(prices.get(0).getTradeDate(), series.getTradeDate(29));
+        assertEquals(prices.get(0).getClosePrice().doubleValue(), series.getClose()[29]);
+        assertEquals(prices.get(0).getVolume(), series.getVolume()[29]);
+    }
+
+    @Test
+    void compute_MatchesIncrementalStateAtEveryBar() {
+        // Arrange
+        List<HistoricalPrice> prices = generatePrices(120);
+        BarSeries series = BarSeries.fromHistoricalPrices("2330", prices);
+        IndicatorState state = new IndicatorState("2330");
+
+        // Act
+        IndicatorSeries result = IndicatorSeries.compute(series);
+
+        // Assert
+        for (int i = 0; i < series.size(); i++) {
+            HistoricalPrice price = prices.get(prices.size() - 1 - i);
+            state.apply(price.getTradeDate(), price.getHighPrice(), price.getLowPrice(),
+                    price.getClosePrice(), price.getVolume());
+
+            TechnicalIndicator expected = state.toIndicator(NOW);
+            TechnicalIndicator actual = result.toIndicator(i, NOW);
+            assertEquals(expected.getDataPointsCount(), actual.getDataPointsCount());
+            assertClose(expected.getMa5(), actual.getMa5(), 0.01);
+            assertClose(expected.getMa60(), actual.getMa60(), 0.01);
+            assertClose(expected.getRsi14(), actual.getRsi14(), 0.01);
+            assertClose(expected.getKdK(), actual.getKdK(), 0.01);
+            assertClose(expected.getKdD(), actual.getKdD(), 0.01);
+            assertClose(expected.getMacdLine(), actual.getMacdLine(), 0.0001);
+            assertClose(expected.getMacdSignal(), actual.getMacdSignal(), 0.0001);
+            assertEquals(expected.getVolumeMa20(), actual.getVolumeMa20());
+        }
+    }
+
+    @Test
+    void rollingMax_MatchesWindowScan() {
+        // Arrange
+        double[] values = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5};
+
+        // Act
+        double[] max = IndicatorKernels.rollingMax(values, 3);
+        double[] min = IndicatorKernels.rollingMin(values, 3);
+
+        // Assert
+        assertTrue(Double.isNaN(max[1]));
+        for (int i = 2; i < values.length; i++) {
+            assertEquals(Math.max(values[i], Math.max(values[i - 1], values[i - 2])), max[i]);
+            assertEquals(Math.min(values[i], Math.min(values[i - 1], values[i - 2])), min[i]);
+        }
+    }
+
+    @Test
+    void replay_MatchesApplyingEntities() {
+        // Arrange
+        List<HistoricalPrice> prices = generatePrices(100);
+        IndicatorState replayed = new IndicatorState("2330");
+        IndicatorState applied = new IndicatorState("2330");
+
+        // Act
+        replayed.replay(BarSeries.fromHistoricalPrices("2330", prices));
+        for (int i = prices.size() - 1; i >= 0; i--) {
+            HistoricalPrice price = prices.get(i);
+            applied.apply(price.getTradeDate(), price.getHighPrice(), price.getLowPrice(),
+                    price.getClosePrice(), price.getVolume());
+        }
+
+        // Assert
+        assertEquals(applied.getLastTradeDate(), replayed.getLastTradeDate());
+        assertEquals(applied.toIndicator(NOW), replayed.toIndicator(NOW));
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual, double tolerance) {
+        if (expected == null || actual == null) {
+            assertEquals(expected, actual);
+            return;
+        }
+        assertEquals(expected.doubleValue(), actual.doubleValue(), tolerance);
+    }
+
+    /**
+     * 產生新到舊排序的歷史價格（與 repository 相同）
+     */
+    private static List<HistoricalPrice> generatePrices(int bars) {
+        Random random = new Random(11);
+        List<HistoricalPrice> prices = new ArrayList<>(bars);
+        double close = 580;
+        for (int i = 0; i < bars; i++) {
+            close = close + (random.nextDouble() - 0.5) * 12;
+            prices.add(0, HistoricalPrice.builder()
+                    .stockCode("2330")
+                    .tradeDate(START.plusDays(i))
+                    .openPrice(price(close))
+                    .highPrice(price(close + random.nextDouble() * 5))
+                    .lowPrice(price(close - random.nextDouble() * 5))
+                    .closePrice(price(close))
+                    .volume(20_000_000L + random.nextInt(10_000_000))
+                    .build());
+        }
+        return prices;
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
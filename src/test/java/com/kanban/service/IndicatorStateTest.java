@@ -0,0 +1,215 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorStateTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 13, 30);
+
+    @Test
+    void toIndicator_MatchesFullRecomputation() {
+        // Arrange
+        int bars = 120;
+        double[] closes = new double[bars];
+        double[] highs = new double[bars];
+        double[] lows = new double[bars];
+        long[] volumes = new long[bars];
+        generateBars(closes, highs, lows, volumes);
+
+        IndicatorState state = new IndicatorState("2330");
+
+        // Act
+        for (int i = 0; i < bars; i++) {
+            state.apply(START.plusDays(i), price(highs[i]), price(lows[i]), price(closes[i]), volumes[i]);
+        }
+        TechnicalIndicator result = state.toIndicator(NOW);
+
+        // Assert
+        assertEquals(bars, result.getDataPointsCount());
+        assertEquals(sma(closes, 5), result.getMa5());
+        assertEquals(sma(closes, 20), result.getMa20());
+        assertEquals(sma(closes, 60), result.getMa60());
+        assertEquals(scale(wilderRsi(closes), 2), result.getRsi14());
+
+        double[] kd = recursiveKd(closes, highs, lows);
+        assertEquals(scale(kd[0], 2), result.getKdK());
+        assertEquals(scale(kd[1], 2), result.getKdD());
+
+        double[] macd = macd(closes);
+        assertEquals(scale(macd[0], 4), result.getMacdLine());
+        assertEquals(scale(macd[1], 4), result.getMacdSignal());
+
+        long volumeMa20 = 0;
+        for (int i = bars - 20; i < bars; i++) {
+            volumeMa20 += volumes[i];
+        }
+        assertEquals(volumeMa20 / 20, result.getVolumeMa20());
+    }
+
+    @Test
+    void apply_SameTradeDateReplacesCurrentBar() {
+        // Arrange
+        IndicatorState intraday = new IndicatorState("2330");
+        IndicatorState closed = new IndicatorState("2330");
+        for (int i = 0; i < 30; i++) {
+            BigDecimal close = BigDecimal.valueOf(500 + i);
+            intraday.apply(START.plusDays(i), close, close, close, 1000L);
+            closed.apply(START.plusDays(i), close, close, close, 1000L);
+        }
+
+        // Act
+        LocalDate today = START.plusDays(30);
+        intraday.apply(today, new BigDecimal("520"), new BigDecimal("520"), new BigDecimal("520"), 10L);
+        intraday.apply(today, new BigDecimal("535"), new BigDecimal("535"), new BigDecimal("535"), 2000L);
+        closed.apply(today, new BigDecimal("535"), new BigDecimal("535"), new BigDecimal("535"), 2000L);
+
+        // Assert
+        assertEquals(31, intraday.getBarCount());
+        assertEquals(closed.toIndicator(NOW), intraday.toIndicator(NOW));
+    }
+
+    @Test
+    void apply_IgnoresOlderTradeDate() {
+        // Arrange
+        IndicatorState state = new IndicatorState("2330");
+        state.apply(START.plusDays(1), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN, 1L);
+
+        // Act
+        boolean applied = state.apply(START, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L);
+
+        // Assert
+        assertFalse(applied);
+        assertEquals(1, state.getBarCount());
+    }
+
+    @Test
+    void fromBytes_RestoresEquivalentState() {
+        // Arrange
+        IndicatorState state = new IndicatorState("2330");
+        for (int i = 0; i < 80; i++) {
+            BigDecimal close = BigDecimal.valueOf(500 + (i % 7) * 3.25);
+            state.apply(START.plusDays(i), close.add(BigDecimal.ONE), close.subtract(BigDecimal.ONE), close, 1000L + i);
+        }
+
+        // Act
+        IndicatorState restored = IndicatorState.fromBytes("2330", state.toBytes());
+
+        // Assert
+        assertNotNull(restored);
+        assertEquals(state.getLastTradeDate(), restored.getLastTradeDate());
+        assertEquals(state.toIndicator(NOW), restored.toIndicator(NOW));
+
+        BigDecimal next = new BigDecimal("512.30");
+        state.apply(START.plusDays(80), next, next, next, 5000L);
+        restored.apply(START.plusDays(80), next, next, next, 5000L);
+        assertEquals(state.toIndicator(NOW), restored.toIndicator(NOW));
+    }
+
+    @Test
+    void fromBytes_RejectsOtherVersions() {
+        // Arrange
+        byte[] data = new IndicatorState("2330").toBytes();
+        data[3] = (byte) (IndicatorState.SCHEMA_VERSION + 1);
+
+        // Act & Assert
+        assertNull(IndicatorState.fromBytes("2330", data));
+        assertNull(IndicatorState.fromBytes("2330", new byte[8]));
+    }
+
+    private static void generateBars(double[] closes, double[] highs, double[] lows, long[] volumes) {
+        Random random = new Random(7);
+        double close = 580;
+        for (int i = 0; i < closes.length; i++) {
+            close = Math.round((close + (random.nextDouble() - 0.5) * 12) * 100) / 100.0;
+            closes[i] = close;
+            highs[i] = Math.round((close + random.nextDouble() * 5) * 100) / 100.0;
+            lows[i] = Math.round((close - random.nextDouble() * 5) * 100) / 100.0;
+            volumes[i] = 20_000_000L + random.nextInt(10_000_000);
+        }
+    }
+
+    private static BigDecimal sma(double[] closes, int period) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = closes.length - period; i < closes.length; i++) {
+            sum = sum.add(price(closes[i]));
+        }
+        return sum.divide(BigDecimal.valueOf(period), 2, RoundingMode.HALF_UP);
+    }
+
+    private static double wilderRsi(double[] closes) {
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= 14; i++) {
+            double change = closes[i] - closes[i - 1];
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= 14;
+        loss /= 14;
+        for (int i = 15; i < closes.length; i++) {
+            double change = closes[i] - closes[i - 1];
+            gain = (gain * 13 + Math.max(change, 0)) / 14;
+            loss = (loss * 13 + Math.max(-change, 0)) / 14;
+        }
+        return 100 - 100 / (1 + gain / loss);
+    }
+
+    private static double[] recursiveKd(double[] closes, double[] highs, double[] lows) {
+        double k = 50;
+        double d = 50;
+        for (int i = 8; i < closes.length; i++) {
+            double highest = Double.NEGATIVE_INFINITY;
+            double lowest = Double.POSITIVE_INFINITY;
+            for (int j = i - 8; j <= i; j++) {
+                highest = Math.max(highest, highs[j]);
+                lowest = Math.min(lowest, lows[j]);
+            }
+            double rsv = (closes[i] - lowest) / (highest - lowest) * 100;
+            k = k * 2 / 3 + rsv / 3;
+            d = d * 2 / 3 + k / 3;
+        }
+        return new double[] {k, d};
+    }
+
+    private static double[] macd(double[] closes) {
+        double[] fast = ema(closes, 12);
+        double[] slow = ema(closes, 26);
+        double[] line = new double[closes.length - 25];
+        for (int i = 25; i < closes.length; i++) {
+            line[i - 25] = fast[i] - slow[i];
+        }
+        double[] signal = ema(line, 9);
+        return new double[] {line[line.length - 1], signal[signal.length - 1]};
+    }
+
+    private static double[] ema(double[] values, int period) {
+        double[] result = new double[values.length];
+        double sum = 0;
+        for (int i = 0; i < period; i++) {
+            sum += values[i];
+        }
+        result[period - 1] = sum / period;
+        for (int i = period; i < values.length; i++) {
+            result[i] = result[i - 1] + (values[i] - result[i - 1]) * 2 / (period + 1);
+        }
+        return result;
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal scale(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -25,7 +25,10 @@ import org.springframework.data.domain.Sort;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -107,11 +110,8 @@ public class KanbanPaginationSearchTest {
             when(cardRepository.findByUserIdAndStatusNot(eq("user1"), eq(Card.CardStatus.ARCHIVED), any(Pageable.class)))
                     .thenReturn(cardPage);
             
-            // Mock stock data for each card
-            firstPageCards.forEach(card -> 
-                when(stockDataService.getSnapshot(card.getStockCode()))
-                    .thenReturn(getSnapshotForCode(card.getStockCode()))
-            );
+            // Mock stock data for the page
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -145,10 +145,7 @@ public class KanbanPaginationSearchTest {
                     .thenReturn(cardPage);
             
             // Mock stock data
-            lastPageCards.forEach(card -> 
-                when(stockDataService.getSnapshot(card.getStockCode()))
-                    .thenReturn(getSnapshotForCode(card.getStockCode()))
-            );
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -237,7 +234,7 @@ public class KanbanPaginationSearchTest {
             
             when(cardRepository.findByUserIdAndQuery(eq("user1"), eq("2330"), any(Pageable.class)))
                     .thenReturn(cardPage);
-            when(stockDataService.getSnapshot("2330")).thenReturn(getSnapshotForCode("2330"));
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -268,7 +265,7 @@ public class KanbanPaginationSearchTest {
             
             when(cardRepository.findByUserIdAndQuery(eq("user1"), eq("台積電"), any(Pageable.class)))
                     .thenReturn(cardPage);
-            when(stockDataService.getSnapshot("2330")).thenReturn(getSnapshotForCode("2330"));
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -298,7 +295,7 @@ public class KanbanPaginationSearchTest {
             
             when(cardRepository.findByUserIdAndQuery(eq("user1"), eq("半導體"), any(Pageable.class)))
                     .thenReturn(cardPage);
-            when(stockDataService.getSnapshot("2330")).thenReturn(getSnapshotForCode("2330"));
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -351,10 +348,7 @@ public class KanbanPaginationSearchTest {
                     .thenReturn(cardPage);
             
             // Mock all stock data
-            testCards.forEach(card -> 
-                when(stockDataService.getSnapshot(card.getStockCode()))
-                    .thenReturn(getSnapshotForCode(card.getStockCode()))
-            );
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -390,7 +384,7 @@ public class KanbanPaginationSearchTest {
             
             when(cardRepository.findByUserIdAndStatus(eq("user1"), eq(Card.CardStatus.WATCH), any(Pageable.class)))
                     .thenReturn(cardPage);
-            when(stockDataService.getSnapshot("2330")).thenReturn(getSnapshotForCode("2330"));
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -430,11 +424,8 @@ public class KanbanPaginationSearchTest {
                 when(cardRepository.findByUserIdAndStatus(eq("user1"), eq(status), any(Pageable.class)))
                         .thenReturn(cardPage);
                 
-                // Mock stock data for matching cards
-                statusCards.forEach(card -> 
-                    when(stockDataService.getSnapshot(card.getStockCode()))
-                        .thenReturn(getSnapshotForCode(card.getStockCode()))
-                );
+                // Mock stock data for the page
+                stubSnapshots();
                 
                 // When
                 PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -469,7 +460,7 @@ public class KanbanPaginationSearchTest {
             
             when(cardRepository.findByUserIdAndStatusAndQuery(eq("user1"), eq(Card.CardStatus.WATCH), eq("2330"), any(Pageable.class)))
                     .thenReturn(cardPage);
-            when(stockDataService.getSnapshot("2330")).thenReturn(getSnapshotForCode("2330"));
+            stubSnapshots();
             
             // When
             PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -527,10 +518,7 @@ public class KanbanPaginationSearchTest {
                     .thenReturn(cardPage);
             
             // Mock stock data
-            testCards.forEach(card -> 
-                when(stockDataService.getSnapshot(card.getStockCode()))
-                    .thenReturn(getSnapshotForCode(card.getStockCode()))
-            );
+            stubSnapshots();
             
             // When
             kanbanService.getCards("user1", request);
@@ -635,6 +623,20 @@ public class KanbanPaginationSearchTest {
                 .build();
     }
     
+    private void stubSnapshots() {
+        when(stockDataService.getSnapshots(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> stockCodes = invocation.getArgument(0);
+            Map<String, StockSnapshot> snapshots = new HashMap<>();
+            stockCodes.forEach(stockCode -> {
+                StockSnapshot snapshot = getSnapshotForCode(stockCode);
+                if (snapshot != null) {
+                    snapshots.put(stockCode, snapshot);
+                }
+            });
+            return snapshots;
+        });
+    }
+    
     private StockSnapshot getSnapshotForCode(String stockCode) {
         return testSnapshots.stream()
                 .filter(snapshot -> snapshot.getCode().equals(stockCode))
@@ -22,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -90,7 +91,7 @@ public class KanbanServiceTest {
         Page<Card> cardPage = new PageImpl<>(List.of(testCard));
         when(cardRepository.findByUserIdAndStatusNot(eq("user1"), eq(Card.CardStatus.ARCHIVED), any(Pageable.class)))
                 .thenReturn(cardPage);
-        when(stockDataService.getSnapshot("2330")).thenReturn(testSnapshot);
+        when(stockDataService.getSnapshots(List.of("2330"))).thenReturn(Map.of("2330", testSnapshot));
         
         // When
         PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -115,7 +116,7 @@ public class KanbanServiceTest {
         Page<Card> cardPage = new PageImpl<>(List.of(testCard));
         when(cardRepository.findByUserIdAndQuery(eq("user1"), eq("台積電"), any(Pageable.class)))
                 .thenReturn(cardPage);
-        when(stockDataService.getSnapshot("2330")).thenReturn(testSnapshot);
+        when(stockDataService.getSnapshots(List.of("2330"))).thenReturn(Map.of("2330", testSnapshot));
         
         // When
         PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -137,7 +138,7 @@ public class KanbanServiceTest {
         Page<Card> cardPage = new PageImpl<>(List.of(testCard));
         when(cardRepository.findByUserIdAndStatus(eq("user1"), eq(Card.CardStatus.WATCH), any(Pageable.class)))
                 .thenReturn(cardPage);
-        when(stockDataService.getSnapshot("2330")).thenReturn(testSnapshot);
+        when(stockDataService.getSnapshots(List.of("2330"))).thenReturn(Map.of("2330", testSnapshot));
         
         // When
         PagedResponse<CardDto> result = kanbanService.getCards("user1", request);
@@ -105,6 +105,29 @@ class NotificationServiceTest {
         verify(webSocketService).sendNotificationToUser(eq("user-1"), any(NotificationDto.class));
     }
 
+    @Test
+    @DisplayName("批次建立規則觸發通知 - 使用者一次查詢、通知一次寫入")
+    void createRuleTriggeredNotifications_SavesInOneBatch() throws Exception {
+        // Given
+        List<RuleNotificationEvent> events = List.of(
+            ruleEvent("user-1", "card-1", "2330"),
+            ruleEvent("user-1", "card-2", "2317"),
+            ruleEvent("user-missing", "card-3", "2454"));
+
+        when(userRepository.findAllById(any())).thenReturn(List.of(testUser));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        notificationService.createRuleTriggeredNotifications(events);
+
+        // Then
+        verify(userRepository, never()).findById(any());
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(notificationRepository).saveAll(argThat(notifications -> ((List<?>) notifications).size() == 2));
+        verify(webSocketService, times(2)).sendNotificationToUser(eq("user-1"), any(NotificationDto.class));
+    }
+
     @Test
     @DisplayName("建立一般通知 - 成功")
     void createNotification_Success() {
@@ -273,4 +296,17 @@ class NotificationServiceTest {
             .isInstanceOf(IllegalArgumentException.class)
             .hasMessage("無權限刪除此通知");
     }
+
+    private static RuleNotificationEvent ruleEvent(String userId, String cardId, String stockCode) {
+        return RuleNotificationEvent.builder()
+            .userId(userId)
+            .ruleId("rule-1")
+            .ruleName("價格警示")
+            .cardId(cardId)
+            .stockCode(stockCode)
+            .previousStatus(Card.CardStatus.WATCH)
+            .newStatus(Card.CardStatus.ALERTS)
+            .triggeredAt(LocalDateTime.now())
+            .build();
+    }
 }
@@ -0,0 +1,183 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.User;
+import com.kanban.dto.rule.RuleBacktestRequest;
+import com.kanban.dto.rule.RuleBacktestStockResult;
+import com.kanban.repository.RuleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RuleBacktestService 單元測試")
+class RuleBacktestServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private RuleRepository ruleRepository;
+
+    @Mock
+    private DataSource dataSource;
+
+    private ForkJoinPool pool;
+    private RuleBacktestService backtestService;
+    private Rule rule;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        backtestService = new RuleBacktestService(ruleRepository, new RuleEvaluationService(new ObjectMapper()),
+                pool, dataSource, 1000, 180, 100);
+        rule = Rule.builder()
+            .id("rule-1")
+            .user(User.builder().id("user-1").build())
+            .name("突破 104")
+            .conditionExpression("price > 104")
+            .targetStatus(Card.CardStatus.HOLD)
+            .cooldownSeconds(2 * 86_400)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("條件成立時移動卡片並開始冷卻，卡片未移動的訊號不重新開始冷卻")
+    void simulate_MovesCardOnFirstSignalAndRespectsCooldown() {
+        // Given
+        BarSeries bars = bars("2330", 100, 101, 102, 103, 104, 105, 106, 107, 108, 109);
+        CompiledCondition condition = RuleDslCompiler.compile(rule.getConditionExpression());
+
+        // When
+        RuleBacktestStockResult result = backtestService.simulate(condition, rule, bars,
+                START.toEpochDay(), Card.CardStatus.WATCH);
+
+        // Then
+        assertThat(result.getBarCount()).isEqualTo(10);
+        assertThat(result.getMatchCount()).isEqualTo(5);
+        assertThat(result.getFirstMatchDate()).isEqualTo(START.plusDays(5));
+        assertThat(result.getSignalCount()).isEqualTo(4);
+        assertThat(result.getMoveCount()).isEqualTo(1);
+        assertThat(result.getFinalStatus()).isEqualTo(Card.CardStatus.HOLD);
+        assertThat(result.getSignals()).extracting(signal -> signal.getTradeDate())
+            .containsExactly(START.plusDays(5), START.plusDays(7), START.plusDays(8), START.plusDays(9));
+        assertThat(result.getSignals().get(0).isMoved()).isTrue();
+        assertThat(result.getSignals().get(0).getPreviousStatus()).isEqualTo(Card.CardStatus.WATCH);
+        assertThat(result.getSignals().get(1).isMoved()).isFalse();
+    }
+
+    @Test
+    @DisplayName("冷卻時間以 K 棒日期相差的日曆天數計算，休市日也計入")
+    void simulate_CooldownCountsCalendarDays() {
+        // Given：兩根相鄰 K 棒間隔三個日曆天（例如週五與週一）
+        long[] epochDays = {START.toEpochDay(), START.plusDays(3).toEpochDay()};
+        double[] closes = {105, 105};
+        BarSeries bars = new BarSeries("2330", epochDays, closes.clone(), closes.clone(), closes.clone(), closes,
+                new long[] {1000L, 1000L});
+        rule.setCooldownSeconds(3 * 86_400);
+        CompiledCondition condition = RuleDslCompiler.compile(rule.getConditionExpression());
+
+        // When
+        RuleBacktestStockResult result = backtestService.simulate(condition, rule, bars,
+                START.toEpochDay(), Card.CardStatus.WATCH);
+
+        // Then：第二根 K 棒雖只隔一個交易日，但已過三天冷卻
+        assertThat(result.getSignals()).extracting(signal -> signal.getTradeDate())
+            .containsExactly(START, START.plusDays(3));
+        assertThat(result.getMoveCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("只評估開始日期之後的 K 棒，交叉判斷使用前一根 K 棒")
+    void simulate_SkipsWarmUpBarsAndUsesPreviousBar() {
+        // Given
+        BarSeries bars = bars("2330", 100, 106, 100, 106, 100, 106);
+        CompiledCondition condition = RuleDslCompiler.compile("crossesAbove(price, 104)");
+
+        // When
+        RuleBacktestStockResult result = backtestService.simulate(condition, rule, bars,
+                START.plusDays(2).toEpochDay(), Card.CardStatus.WATCH);
+
+        // Then
+        assertThat(result.getBarCount()).isEqualTo(4);
+        assertThat(result.getMatchCount()).isEqualTo(2);
+        assertThat(result.getFirstMatchDate()).isEqualTo(START.plusDays(3));
+        assertThat(result.getLastMatchDate()).isEqualTo(START.plusDays(5));
+    }
+
+    @Test
+    @DisplayName("依股票代碼排序的結果列切分為各檔股票的 K 棒序列")
+    void seriesReader_SplitsRowsByStock() throws Exception {
+        // Given
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("2317", "2317", "2330");
+        when(rs.getDate(2)).thenReturn(Date.valueOf(START), Date.valueOf(START.plusDays(1)), Date.valueOf(START));
+        when(rs.getDouble(anyInt())).thenReturn(100.0);
+        when(rs.getLong(7)).thenReturn(1000L, 2000L, 3000L);
+        when(rs.wasNull()).thenReturn(false);
+        List<BarSeries> emitted = new ArrayList<>();
+        RuleBacktestService.SeriesReader reader = new RuleBacktestService.SeriesReader(emitted::add);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            reader.processRow(rs);
+        }
+        reader.emit();
+
+        // Then
+        assertThat(emitted).extracting(BarSeries::getStockCode).containsExactly("2317", "2330");
+        assertThat(emitted.get(0).size()).isEqualTo(2);
+        assertThat(emitted.get(0).getVolume()).containsExactly(1000L, 2000L);
+        assertThat(emitted.get(1).getTradeDate(0)).isEqualTo(START);
+    }
+
+    @Test
+    @DisplayName("回測他人的規則應拋出 AccessDeniedException")
+    void backtest_RejectsOtherUsersRule() {
+        // Given
+        when(ruleRepository.findById("rule-1")).thenReturn(Optional.of(rule));
+        RuleBacktestRequest request = RuleBacktestRequest.builder()
+            .startDate(START)
+            .endDate(START.plusYears(1))
+            .build();
+
+        // When & Then
+        assertThatThrownBy(() -> backtestService.backtest("user-2", "rule-1", request))
+            .isInstanceOf(AccessDeniedException.class);
+    }
+
+    private static BarSeries bars(String stockCode, double... closes) {
+        int size = closes.length;
+        long[] epochDays = new long[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            epochDays[i] = START.plusDays(i).toEpochDay();
+            volume[i] = 1000L;
+        }
+        return new BarSeries(stockCode, epochDays, closes.clone(), closes.clone(), closes.clone(), closes, volume);
+    }
+}
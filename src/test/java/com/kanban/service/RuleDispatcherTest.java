@@ -0,0 +1,169 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
+import com.kanban.repository.RuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RuleDispatcher 單元測試")
+class RuleDispatcherTest {
+
+    @Mock
+    private RuleRepository ruleRepository;
+
+    @Mock
+    private RuleEvaluationService evaluationService;
+
+    @Mock
+    private RuleExecutionService ruleExecutionService;
+
+    @InjectMocks
+    private RuleDispatcher ruleDispatcher;
+
+    private Rule priceRule;
+    private Rule rsiRule;
+    private Rule maRule;
+    private Rule spelRule;
+
+    @BeforeEach
+    void setUp() {
+        priceRule = rule("rule-price", "price > 500", Rule.TriggerEvent.PRICE_CHANGE);
+        rsiRule = rule("rule-rsi", "rsi < 30", Rule.TriggerEvent.TECHNICAL_INDICATOR);
+        maRule = rule("rule-ma", "crossesAbove(ma5, ma20)", Rule.TriggerEvent.TECHNICAL_INDICATOR);
+        spelRule = rule("rule-spel", "stockCode == '2330' && price > 500", Rule.TriggerEvent.PRICE_ALERT);
+
+        when(ruleRepository.findByEnabledTrue()).thenReturn(List.of(
+            priceRule, rsiRule, maRule, spelRule,
+            rule("rule-time", "price > 0", Rule.TriggerEvent.TIME_BASED)));
+        when(evaluationService.getReferencedFields(priceRule)).thenReturn(EnumSet.of(RuleField.PRICE));
+        when(evaluationService.getReferencedFields(rsiRule)).thenReturn(EnumSet.of(RuleField.RSI));
+        when(evaluationService.getReferencedFields(maRule)).thenReturn(EnumSet.of(RuleField.MA5, RuleField.MA20));
+        when(evaluationService.getReferencedFields(spelRule)).thenReturn(null);
+    }
+
+    @Test
+    @DisplayName("快照變動只觸發價格類規則，未變動時不評估")
+    void onSnapshotChanged_DispatchesPriceRulesOnlyWhenChanged() {
+        // When
+        ruleDispatcher.onSnapshotChanged(snapshotEvent("550"));
+        ruleDispatcher.dispatchPending();
+        ruleDispatcher.onSnapshotChanged(snapshotEvent("550"));
+        ruleDispatcher.dispatchPending();
+
+        // Then
+        verify(ruleExecutionService, times(1)).executeRulesForStocks(any());
+        verify(ruleExecutionService).executeRulesForStocks(Map.of("2330", Set.of("rule-price", "rule-spel")));
+    }
+
+    @Test
+    @DisplayName("技術指標變動只觸發引用變動欄位的規則")
+    void onIndicatorChanged_DispatchesRulesReferencingChangedFields() {
+        // Given
+        ruleDispatcher.onIndicatorChanged(indicatorEvent("545", "28"));
+        ruleDispatcher.dispatchPending();
+
+        // When：只有 RSI 變動
+        ruleDispatcher.onIndicatorChanged(indicatorEvent("545", "25"));
+        ruleDispatcher.dispatchPending();
+
+        // Then
+        verify(ruleExecutionService).executeRulesForStocks(Map.of("2330", Set.of("rule-rsi", "rule-ma")));
+        verify(ruleExecutionService).executeRulesForStocks(Map.of("2330", Set.of("rule-rsi")));
+        verify(ruleRepository, times(1)).findByEnabledTrue();
+    }
+
+    @Test
+    @DisplayName("規則異動後重建索引")
+    void invalidateIndex_RebuildsOnNextEvent() {
+        // Given
+        ruleDispatcher.onSnapshotChanged(snapshotEvent("550"));
+        ruleDispatcher.dispatchPending();
+        when(ruleRepository.findByEnabledTrue()).thenReturn(List.of(priceRule));
+
+        // When
+        ruleDispatcher.invalidateIndex();
+        ruleDispatcher.onSnapshotChanged(snapshotEvent("560"));
+        ruleDispatcher.dispatchPending();
+
+        // Then
+        verify(ruleRepository, times(2)).findByEnabledTrue();
+        verify(ruleExecutionService).executeRulesForStocks(Map.of("2330", Set.of("rule-price")));
+    }
+
+    @Test
+    @DisplayName("評估失敗的批次於下次分派重試")
+    void dispatchPending_RequeuesFailedBatch() {
+        // Given
+        doThrow(new RuntimeException("資料庫連線中斷"))
+            .doNothing()
+            .when(ruleExecutionService).executeRulesForStocks(any());
+        ruleDispatcher.onSnapshotChanged(snapshotEvent("550"));
+
+        // When
+        ruleDispatcher.dispatchPending();
+        ruleDispatcher.dispatchPending();
+        ruleDispatcher.dispatchPending();
+
+        // Then
+        verify(ruleExecutionService, times(2)).executeRulesForStocks(Map.of("2330", Set.of("rule-price", "rule-spel")));
+    }
+
+    private Rule rule(String id, String condition, Rule.TriggerEvent triggerEvent) {
+        return Rule.builder()
+            .id(id)
+            .name(id)
+            .conditionExpression(condition)
+            .triggerEvent(triggerEvent)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .enabled(true)
+            .updatedAt(LocalDateTime.now())
+            .build();
+    }
+
+    private StockSnapshotChangedEvent snapshotEvent(String price) {
+        return StockSnapshotChangedEvent.builder()
+            .stockCode("2330")
+            .snapshot(StockSnapshot.builder()
+                .code("2330")
+                .currentPrice(new BigDecimal(price))
+                .previousClose(new BigDecimal("540"))
+                .volume(50000000L)
+                .build())
+            .occurredAt(LocalDateTime.now())
+            .build();
+    }
+
+    private TechnicalIndicatorChangedEvent indicatorEvent(String ma5, String rsi) {
+        return TechnicalIndicatorChangedEvent.builder()
+            .stockCode("2330")
+            .indicator(TechnicalIndicator.builder()
+                .stockCode("2330")
+                .ma5(new BigDecimal(ma5))
+                .ma20(new BigDecimal("530"))
+                .rsi14(new BigDecimal(rsi))
+                .build())
+            .occurredAt(LocalDateTime.now())
+            .build();
+    }
+}
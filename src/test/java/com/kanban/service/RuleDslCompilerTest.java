@@ -0,0 +1,157 @@
+package com.kanban.service;
+
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("RuleDslCompiler 單元測試")
+class RuleDslCompilerTest {
+
+    private Card card;
+    private StockSnapshot snapshot;
+    private TechnicalIndicator indicator;
+    private TechnicalIndicator previousIndicator;
+
+    @BeforeEach
+    void setUp() {
+        card = Card.builder()
+            .id("card-1")
+            .stockCode("2330")
+            .status(Card.CardStatus.WATCH)
+            .build();
+
+        snapshot = StockSnapshot.builder()
+            .code("2330")
+            .currentPrice(new BigDecimal("550"))
+            .previousClose(new BigDecimal("540"))
+            .volume(50000000L)
+            .changePercent(new BigDecimal("1.85"))
+            .build();
+
+        indicator = TechnicalIndicator.builder()
+            .stockCode("2330")
+            .ma5(new BigDecimal("545"))
+            .ma20(new BigDecimal("530"))
+            .rsi14(new BigDecimal("65"))
+            .macdLine(new BigDecimal("2.5"))
+            .macdSignal(new BigDecimal("-0.5"))
+            .kdK(new BigDecimal("75"))
+            .kdD(new BigDecimal("70"))
+            .build();
+
+        previousIndicator = TechnicalIndicator.builder()
+            .stockCode("2330")
+            .ma5(new BigDecimal("528"))
+            .ma20(new BigDecimal("529"))
+            .rsi14(new BigDecimal("60"))
+            .kdK(new BigDecimal("68"))
+            .kdD(new BigDecimal("71"))
+            .build();
+    }
+
+    @Test
+    @DisplayName("比較、布林運算與文字運算子")
+    void compile_ComparisonsAndBooleanLogic() {
+        assertThat(matches("price > 500 && volume > 40000000")).isTrue();
+        assertThat(matches("price > 600 || rsi14 < 70")).isTrue();
+        assertThat(matches("price gt 500 and not (rsi ge 70)")).isTrue();
+        assertThat(matches("!(kValue > dValue)")).isFalse();
+        assertThat(matches("macd_positive && !macd_signal_positive")).isTrue();
+        assertThat(matches("macd_positive == TRUE")).isTrue();
+        assertThat(matches("false || true")).isTrue();
+    }
+
+    @Test
+    @DisplayName("四則運算依優先順序計算")
+    void compile_ArithmeticPrecedence() {
+        assertThat(matches("ma5 - ma20 > 10 * 1.5")).isFalse();   // 15 > 15
+        assertThat(matches("ma5 - ma20 >= 10 * 1.5")).isTrue();
+        assertThat(matches("(ma5 - ma20) / ma20 * 100 > 2.5")).isTrue();
+        assertThat(matches("change == price - previousClose")).isTrue();
+        assertThat(matches("-change < -5")).isTrue();
+        assertThat(matches("volume % 2 == 0 && volume > 4e7L")).isTrue();
+    }
+
+    @Test
+    @DisplayName("缺值時比較不成立")
+    void compile_MissingValuesNeverMatch() {
+        CompiledCondition lowRsi = RuleDslCompiler.compile("rsi < 30");
+        CompiledCondition notThirty = RuleDslCompiler.compile("rsi != 30");
+        double[] frame = RuleField.frame(card, snapshot, null);
+
+        assertThat(lowRsi.test(frame, null)).isFalse();
+        assertThat(notThirty.test(frame, null)).isFalse();
+        assertThat(RuleDslCompiler.compile("macd_positive").test(frame, null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("crossesAbove / crossesBelow 使用前一期框架")
+    void compile_CrossesUsePreviousFrame() {
+        CompiledCondition goldenCross = RuleDslCompiler.compile("crossesAbove(ma5, ma20)");
+        CompiledCondition deathCross = RuleDslCompiler.compile("crossesBelow(ma5, ma20)");
+        CompiledCondition priceCross = RuleDslCompiler.compile("crossesAbove(price, 545)");
+        double[] current = RuleField.frame(card, snapshot, indicator);
+        double[] previous = RuleField.previousFrame(snapshot, previousIndicator);
+
+        assertThat(goldenCross.usesPrevious()).isTrue();
+        assertThat(goldenCross.test(current, previous)).isTrue();
+        assertThat(goldenCross.test(current, null)).isFalse();
+        assertThat(deathCross.test(current, previous)).isFalse();
+        assertThat(deathCross.test(previous, current)).isTrue();
+        assertThat(priceCross.test(current, previous)).isTrue();   // 前收 540 → 現價 550
+        assertThat(RuleDslCompiler.compile("crossesAbove(kdK, kdD) && rsi < 70").test(current, previous)).isTrue();
+    }
+
+    @Test
+    @DisplayName("卡片狀態與字串常數比較")
+    void compile_CardStatusComparison() {
+        assertThat(matches("cardStatus == 'WATCH' && rsi < 70")).isTrue();
+        assertThat(matches("cardStatus != \"WATCH\"")).isFalse();
+    }
+
+    @Test
+    @DisplayName("記錄引用欄位，別名共用同一欄位")
+    void compile_CollectsReferencedFields() {
+        CompiledCondition condition = RuleDslCompiler.compile("currentPrice > ma20 && rsi14 < 70 && rsi > 30");
+
+        assertThat(condition.getReferencedFields())
+            .containsExactlyInAnyOrder(RuleField.PRICE, RuleField.MA20, RuleField.RSI);
+        assertThat(condition.usesPrevious()).isFalse();
+        assertThat(condition.getSource()).isEqualTo("currentPrice > ma20 && rsi14 < 70 && rsi > 30");
+    }
+
+    @Test
+    @DisplayName("不在 DSL 語法內的表達式拋出例外")
+    void compile_RejectsUnsupportedExpressions() {
+        assertThatThrownBy(() -> RuleDslCompiler.compile("ma5Previous <= ma20Previous"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("ma5Previous");
+        assertThatThrownBy(() -> RuleDslCompiler.compile("T(java.lang.System).currentTimeMillis() > 0"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("(price = 1) > 0"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("price > 500 &&"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("price + 1"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("stockCode == '2330'"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("cardStatus == 'UNKNOWN'"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDslCompiler.compile("cardStatus > 1"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean matches(String expression) {
+        CompiledCondition condition = RuleDslCompiler.compile(expression);
+        return condition.test(RuleField.frame(card, snapshot, indicator), RuleField.previousFrame(snapshot, previousIndicator));
+    }
+}
@@ -2,6 +2,7 @@ package com.kanban.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
 import com.kanban.domain.entity.StockSnapshot;
 import com.kanban.domain.entity.TechnicalIndicator;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("RuleEvaluationService 單元測試")
 class RuleEvaluationServiceTest {
@@ -331,4 +333,130 @@ class RuleEvaluationServiceTest {
             "kdK", "kdD"
         );
     }
+
+    @Test
+    @DisplayName("評估規則 - 重複評估結果一致（MIXED 編譯後）")
+    void evaluateRule_RepeatedEvaluationStaysConsistent() {
+        // Given
+        Rule rule = createRule("rule-1", "volume > 40000000 && ma5 > ma20 && kValue > dValue", LocalDateTime.now());
+
+        // When & Then
+        for (int i = 0; i < 300; i++) {
+            RuleEvaluationService.EvaluationResult result =
+                evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator);
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.isMatched()).isTrue();
+        }
+        testSnapshot.setVolume(1000L);
+        assertThat(evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator).isMatched()).isFalse();
+    }
+
+    @Test
+    @DisplayName("評估規則 - 規則版本變更時重新解析")
+    void evaluateRule_NewVersionReparsesExpression() {
+        // Given
+        LocalDateTime version = LocalDateTime.now();
+        Rule rule = createRule("rule-1", "price > 500", version);
+        evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator);
+
+        // When
+        rule.setConditionExpression("price > 600");
+        rule.setUpdatedAt(version.plusSeconds(1));
+        RuleEvaluationService.EvaluationResult result =
+            evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator);
+
+        // Then
+        assertThat(result.isMatched()).isFalse();
+        assertThat(result.getExpression()).isEqualTo("price > 600");
+    }
+
+    @Test
+    @DisplayName("評估規則 - 快取失效後重新解析")
+    void evaluateRule_InvalidateDropsCachedExpression() {
+        // Given
+        LocalDateTime version = LocalDateTime.now();
+        Rule rule = createRule("rule-1", "rsi < 70", version);
+        assertThat(evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator).isMatched()).isTrue();
+
+        // When
+        evaluationService.invalidate("rule-1");
+        rule.setConditionExpression("rsi > 70");
+
+        // Then
+        assertThat(evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator).isMatched()).isFalse();
+    }
+
+    @Test
+    @DisplayName("評估規則 - 唯讀上下文不允許型別參照與賦值")
+    void evaluateRule_ReadOnlyContextRejectsTypesAndAssignment() {
+        // Given
+        Rule typeReference = createRule("rule-1", "T(java.lang.System).currentTimeMillis() > 0", null);
+        Rule assignment = createRule("rule-2", "(price = 1) > 0", null);
+
+        // When & Then
+        assertThat(evaluationService.evaluateRule(typeReference, testCard, testSnapshot, testIndicator).isSuccess()).isFalse();
+        assertThat(evaluationService.evaluateRule(assignment, testCard, testSnapshot, testIndicator).isSuccess()).isFalse();
+    }
+
+    @Test
+    @DisplayName("評估規則 - DSL 交叉條件使用前一期指標")
+    void evaluateRule_CrossesAboveUsesPreviousIndicator() {
+        // Given
+        Rule rule = createRule("rule-1", "crossesAbove(ma5, ma20) && cardStatus == 'WATCH'", LocalDateTime.now());
+        TechnicalIndicator previousIndicator = TechnicalIndicator.builder()
+            .stockCode("2330")
+            .ma5(new BigDecimal("528"))
+            .ma20(new BigDecimal("529"))
+            .build();
+
+        // When
+        RuleEvaluationService.EvaluationResult crossed =
+            evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator, previousIndicator);
+        RuleEvaluationService.EvaluationResult noHistory =
+            evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator);
+
+        // Then
+        assertThat(crossed.isSuccess()).isTrue();
+        assertThat(crossed.isMatched()).isTrue();
+        assertThat(crossed.getVariables()).containsEntry("ma5", new BigDecimal("545"));
+        assertThat(noHistory.isSuccess()).isTrue();
+        assertThat(noHistory.isMatched()).isFalse();
+    }
+
+    @Test
+    @DisplayName("評估規則 - DSL 語法外的表達式改用 SpEL")
+    void evaluateRule_FallsBackToSpelOutsideDsl() {
+        // Given
+        Rule rule = createRule("rule-1", "stockCode == '2330' && price > 500", LocalDateTime.now());
+
+        // When
+        evaluationService.compile(rule);
+        RuleEvaluationService.EvaluationResult result =
+            evaluationService.evaluateRule(rule, testCard, testSnapshot, testIndicator);
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.isMatched()).isTrue();
+    }
+
+    @Test
+    @DisplayName("編譯規則 - DSL 與 SpEL 皆無法解析時拋出例外")
+    void compile_RejectsUnparsableExpression() {
+        // Given
+        Rule rule = createRule("rule-1", "price >>> 1", LocalDateTime.now());
+
+        // When & Then
+        assertThatThrownBy(() -> evaluationService.compile(rule))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Rule createRule(String id, String expression, LocalDateTime updatedAt) {
+        return Rule.builder()
+            .id(id)
+            .name("測試規則")
+            .conditionExpression(expression)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .updatedAt(updatedAt)
+            .build();
+    }
 }
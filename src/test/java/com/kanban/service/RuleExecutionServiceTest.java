@@ -1,10 +1,11 @@
 package com.kanban.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kanban.domain.entity.*;
 import com.kanban.dto.PagedResponse;
 import com.kanban.dto.rule.RuleExecutionDto;
 import com.kanban.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,19 +13,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,7 +71,22 @@ class RuleExecutionServiceTest {
     private NotificationService notificationService;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private RuleExecutionWriter executionWriter;
+
+    private final ThreadPoolExecutor ruleExecutionPool =
+        new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private CooldownTracker cooldownTracker;
+
+    @Captor
+    private ArgumentCaptor<List<AuditLogService.CardStatusChange>> auditCaptor;
+
+    @Spy
+    private RulePartitionExecutor partitionExecutor =
+        new RulePartitionExecutor(ruleExecutionPool, transactionManager, meterRegistry);
 
     @InjectMocks
     private RuleExecutionService executionService;
@@ -119,8 +149,11 @@ class RuleExecutionServiceTest {
             .rsi14(new BigDecimal("65"))
             .calculationDate(LocalDateTime.now())
             .build();
+    }
 
-        lenient().when(objectMapper.writeValueAsString(any())).thenReturn("{\"snapshot\":true}");
+    @AfterEach
+    void tearDown() {
+        ruleExecutionPool.shutdown();
     }
 
     @Test
@@ -138,47 +171,37 @@ class RuleExecutionServiceTest {
                 .matched(true)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
-
-        when(executionRepository.save(any(RuleExecution.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
-
-        when(ruleRepository.save(any(Rule.class)))
-            .thenReturn(testRule);
-
-        when(cardRepository.save(any(Card.class)))
-            .thenReturn(testCard);
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.SUCCESS);
-        verify(cardRepository).save(any(Card.class));
-        verify(ruleRepository).save(any(Rule.class));
-
-        ArgumentCaptor<RuleExecution> executionCaptor = ArgumentCaptor.forClass(RuleExecution.class);
-        verify(executionRepository, times(1)).save(executionCaptor.capture());
-        RuleExecution savedExecution = executionCaptor.getValue();
-        assertThat(savedExecution.getStatus()).isEqualTo(RuleExecution.ExecutionStatus.SUCCESS);
-        assertThat(savedExecution.getPreviousStatus()).isEqualTo(Card.CardStatus.WATCH);
-        assertThat(savedExecution.getNewStatus()).isEqualTo(Card.CardStatus.ALERTS);
-        assertThat(savedExecution.getConditionResult()).isNotNull();
-        assertThat(savedExecution.getStockSnapshot()).isEqualTo("{\"snapshot\":true}");
-        assertThat(savedExecution.getMessage()).contains("規則觸發成功").contains("警示");
-        assertThat(savedExecution.getNotificationSent()).isFalse();
-
-        verify(notificationService).createRuleTriggeredNotification(any());
+        verify(cardRepository).saveAll(List.of(testCard));
+        verify(ruleRepository).incrementTriggerCount(eq("rule-1"), eq(1L), any(LocalDateTime.class));
+        assertThat(testRule.getTriggerCount()).isEqualTo(1L);
+        assertThat(testCard.getStatus()).isEqualTo(Card.CardStatus.ALERTS);
+        verify(cooldownTracker).recordFire(eq(testRule), eq(testCard), anyLong());
+
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(executionWriter, times(1)).record(eq(testRule), eq(testCard),
+            eq(RuleExecution.ExecutionStatus.SUCCESS), eq(evalResult), eq(testSnapshot),
+            messageCaptor.capture(), anyLong(), eq(Card.CardStatus.WATCH), eq(Card.CardStatus.ALERTS));
+        assertThat(messageCaptor.getValue()).contains("規則觸發成功").contains("警示");
+
+        verify(auditLogService).logCardStatusChanges(anyList());
+        verify(notificationService).createRuleTriggeredNotifications(anyList());
     }
 
     @Test
     @DisplayName("執行規則對單一卡片 - 找不到股票資料")
     void executeRuleForCard_NoStockData() {
         // Given
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
         when(stockSnapshotRepository.findLatestByCode("2330"))
             .thenReturn(Optional.empty());
 
@@ -187,8 +210,8 @@ class RuleExecutionServiceTest {
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.SKIPPED);
-        verify(executionRepository).save(any(RuleExecution.class));
-        verify(cardRepository, never()).save(any());
+        verify(executionWriter).record(any(), any(), any(), any(), any(), any(), anyLong(), any(), any());
+        verify(cardRepository, never()).saveAll(any());
     }
 
     @Test
@@ -206,18 +229,17 @@ class RuleExecutionServiceTest {
                 .matched(false)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.SKIPPED);
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).saveAll(any());
     }
 
     @Test
@@ -235,18 +257,17 @@ class RuleExecutionServiceTest {
                 .errorMessage("評估失敗")
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.FAILED);
-        verify(executionRepository).save(any(RuleExecution.class));
+        verify(executionWriter).record(any(), any(), any(), any(), any(), any(), anyLong(), any(), any());
     }
 
     @Test
@@ -266,34 +287,24 @@ class RuleExecutionServiceTest {
                 .matched(true)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.SKIPPED);
-        verify(cardRepository, never()).save(any());
+        verify(cardRepository, never()).saveAll(any());
     }
 
     @Test
     @DisplayName("執行規則對單一卡片 - 冷卻期內")
     void executeRuleForCard_InCooldown() {
         // Given
-        RuleExecution lastExecution = RuleExecution.builder()
-            .id("exec-1")
-            .rule(testRule)
-            .card(testCard)
-            .status(RuleExecution.ExecutionStatus.SUCCESS)
-            .executedAt(LocalDateTime.now().minusMinutes(30))  // 30分鐘前執行過
-            .build();
-
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.of(lastExecution));
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(false);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
@@ -308,12 +319,12 @@ class RuleExecutionServiceTest {
     void executeRuleForAllCards_Success() {
         // Given
         List<Card> cards = Arrays.asList(testCard);
-        when(cardRepository.findByUser(testUser)).thenReturn(cards);
+        when(cardRepository.findByUserIdIn(any())).thenReturn(cards);
 
-        when(stockSnapshotRepository.findLatestByCode("2330"))
-            .thenReturn(Optional.of(testSnapshot));
-        when(technicalIndicatorRepository.findLatestByStockCode("2330"))
-            .thenReturn(Optional.of(testIndicator));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330")))
+            .thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330")))
+            .thenReturn(List.of(testIndicator));
 
         RuleEvaluationService.EvaluationResult evalResult =
             RuleEvaluationService.EvaluationResult.builder()
@@ -321,27 +332,18 @@ class RuleExecutionServiceTest {
                 .matched(true)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
-
-        when(executionRepository.save(any(RuleExecution.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
-
-        when(ruleRepository.save(any(Rule.class)))
-            .thenReturn(testRule);
-
-        when(cardRepository.save(any(Card.class)))
-            .thenReturn(testCard);
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         executionService.executeRuleForAllCards(testRule);
 
         // Then
-        verify(cardRepository).findByUser(testUser);
-        verify(cardRepository, atLeastOnce()).save(any(Card.class));
+        verify(cardRepository).findByUserIdIn(any());
+        verify(cardRepository, atLeastOnce()).saveAll(anyList());
+        verify(stockSnapshotRepository, never()).findLatestByCode(any());
     }
 
     @Test
@@ -361,31 +363,21 @@ class RuleExecutionServiceTest {
                 .matched(true)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(testRule, testCard))
-            .thenReturn(Optional.empty());
-
-        when(executionRepository.save(any(RuleExecution.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
-
-        when(ruleRepository.save(any(Rule.class)))
-            .thenReturn(testRule);
-
-        when(cardRepository.save(any(Card.class)))
-            .thenReturn(testCard);
+        when(cooldownTracker.isReady(eq(testRule), eq(testCard), anyLong())).thenReturn(true);
 
         // When
         RuleExecution.ExecutionStatus status = executionService.executeRuleForCard(testRule, testCard);
 
         // Then
         assertThat(status).isEqualTo(RuleExecution.ExecutionStatus.SUCCESS);
-        verify(notificationService, never()).createRuleTriggeredNotification(any());
+        verify(notificationService, never()).createRuleTriggeredNotifications(any());
     }
 
     @Test
-    @DisplayName("定時執行僅處理啟用且過冷卻的規則")
+    @DisplayName("定時執行處理啟用且過冷卻的規則，包含事件觸發的規則")
     void executeAllActiveRules_FiltersReadyRules() {
         // Given
         Rule readyRule = Rule.builder()
@@ -394,7 +386,7 @@ class RuleExecutionServiceTest {
             .name("Ready Rule")
             .description("過冷卻的規則")
             .conditionExpression("price > 100")
-            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .triggerEvent(Rule.TriggerEvent.TIME_BASED)
             .targetStatus(Card.CardStatus.ALERTS)
             .enabled(true)
             .cooldownSeconds(300)
@@ -406,7 +398,7 @@ class RuleExecutionServiceTest {
             .user(testUser)
             .name("Cooldown Rule")
             .conditionExpression("price > 100")
-            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .triggerEvent(Rule.TriggerEvent.TIME_BASED)
             .targetStatus(Card.CardStatus.ALERTS)
             .enabled(true)
             .cooldownSeconds(600)
@@ -418,21 +410,33 @@ class RuleExecutionServiceTest {
             .user(testUser)
             .name("Disabled Rule")
             .conditionExpression("price > 100")
-            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .triggerEvent(Rule.TriggerEvent.TIME_BASED)
             .targetStatus(Card.CardStatus.ALERTS)
             .enabled(false)
             .cooldownSeconds(600)
             .lastExecutedAt(LocalDateTime.now().minusHours(2))
             .build();
 
-        when(ruleRepository.findAll()).thenReturn(List.of(readyRule, cooldownRule, disabledRule));
-        when(cardRepository.findByUser(testUser)).thenReturn(List.of(testCard));
-        when(stockSnapshotRepository.findLatestByCode("2330"))
-            .thenReturn(Optional.of(testSnapshot));
-        when(technicalIndicatorRepository.findLatestByStockCode("2330"))
-            .thenReturn(Optional.of(testIndicator));
-        when(executionRepository.findFirstByRuleAndCardOrderByExecutedAtDesc(readyRule, testCard))
-            .thenReturn(Optional.empty());
+        Rule eventRule = Rule.builder()
+            .id("rule-event")
+            .user(testUser)
+            .name("Event Rule")
+            .conditionExpression("price > 100")
+            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .enabled(true)
+            .cooldownSeconds(300)
+            .lastExecutedAt(LocalDateTime.now().minusMinutes(10))
+            .build();
+
+        when(ruleRepository.findAll()).thenReturn(List.of(readyRule, cooldownRule, disabledRule, eventRule));
+        when(cardRepository.findByUserIdIn(any())).thenReturn(List.of(testCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330")))
+            .thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330")))
+            .thenReturn(List.of(testIndicator));
+        when(cooldownTracker.isReady(eq(readyRule), eq(testCard), anyLong())).thenReturn(true);
+        when(cooldownTracker.isReady(eq(eventRule), eq(testCard), anyLong())).thenReturn(false);
 
         RuleEvaluationService.EvaluationResult evalResult =
             RuleEvaluationService.EvaluationResult.builder()
@@ -440,35 +444,290 @@ class RuleExecutionServiceTest {
                 .matched(true)
                 .build();
 
-        when(evaluationService.evaluate(any(), any(), any(), any()))
+        when(evaluationService.evaluateRule(any(), any(), any()))
             .thenReturn(evalResult);
 
-        when(executionRepository.save(any(RuleExecution.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+        // When
+        executionService.executeAllActiveRules();
 
-        when(ruleRepository.save(any(Rule.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+        // Then
+        verify(ruleRepository).findAll();
+        verify(cardRepository, times(1)).findByUserIdIn(any());
+        verify(stockSnapshotRepository, times(1)).findByCodeIn(List.of("2330"));
+        verify(technicalIndicatorRepository, times(1)).findLatestByStockCodes(List.of("2330"));
+        verify(technicalIndicatorRepository, never()).findPreviousDayByLatest(any());
+        verify(cooldownTracker, times(1)).isReady(eq(readyRule), eq(testCard), anyLong());
+        verify(cooldownTracker, never()).isReady(eq(cooldownRule), eq(testCard), anyLong());
+        verify(cooldownTracker, never()).isReady(eq(disabledRule), eq(testCard), anyLong());
+        verify(cooldownTracker, times(1)).isReady(eq(eventRule), eq(testCard), anyLong());
+        verify(notificationService, times(1)).createRuleTriggeredNotifications(anyList());
+        verify(executionWriter, times(1)).record(any(), any(), any(), any(), any(), any(), anyLong(), any(), any());
+        verify(evaluationService, times(1)).evaluateRule(any(), any(), any());
+    }
 
-        when(cardRepository.save(any(Card.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    @DisplayName("批次執行規則 - 每檔股票只載入一次市場資料")
+    void executeRules_LoadsMarketDataOncePerStock() {
+        // Given
+        User otherUser = User.builder()
+            .id("user-2")
+            .username("other")
+            .email("other@example.com")
+            .build();
+        Rule otherRule = Rule.builder()
+            .id("rule-2")
+            .user(otherUser)
+            .name("RSI 超賣")
+            .conditionExpression("crossesAbove(rsi, 30)")
+            .triggerEvent(Rule.TriggerEvent.TECHNICAL_INDICATOR)
+            .targetStatus(Card.CardStatus.READY_TO_BUY)
+            .enabled(true)
+            .cooldownSeconds(3600)
+            .sendNotification(false)
+            .triggerCount(0L)
+            .build();
+        Card otherCard = Card.builder()
+            .id("card-2")
+            .user(otherUser)
+            .stockCode("2330")
+            .stockName("台積電")
+            .status(Card.CardStatus.WATCH)
+            .build();
+        Card missingCard = Card.builder()
+            .id("card-3")
+            .user(otherUser)
+            .stockCode("9999")
+            .status(Card.CardStatus.WATCH)
+            .build();
+        TechnicalIndicator previousIndicator = TechnicalIndicator.builder()
+            .stockCode("2330")
+            .rsi14(new BigDecimal("28"))
+            .build();
+
+        when(evaluationService.requiresPreviousIndicator(testRule)).thenReturn(false);
+        when(evaluationService.requiresPreviousIndicator(otherRule)).thenReturn(true);
+        when(cardRepository.findByUserIdIn(any())).thenReturn(List.of(testCard, otherCard, missingCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330", "9999")))
+            .thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330", "9999")))
+            .thenReturn(List.of(testIndicator));
+        when(technicalIndicatorRepository.findPreviousDayByLatest(any())).thenCallRealMethod();
+        when(technicalIndicatorRepository.findLatestBeforeByStockCodes(
+                List.of("2330"), testIndicator.getCalculationDate().toLocalDate().atStartOfDay()))
+            .thenReturn(List.of(previousIndicator));
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
+
+        RuleEvaluationService.EvaluationResult notMatched =
+            RuleEvaluationService.EvaluationResult.builder()
+                .success(true)
+                .matched(false)
+                .build();
+        ArgumentCaptor<StockEvaluationContext> stockCaptor = ArgumentCaptor.forClass(StockEvaluationContext.class);
+        when(evaluationService.evaluateRule(any(), any(), stockCaptor.capture())).thenReturn(notMatched);
 
         // When
-        executionService.executeAllActiveRules();
+        executionService.executeRules(List.of(testRule, otherRule));
 
         // Then
-        verify(ruleRepository).findAll();
-        verify(cardRepository, times(1)).findByUser(testUser);
-        verify(stockSnapshotRepository, times(1)).findLatestByCode("2330");
-        verify(technicalIndicatorRepository, times(1)).findLatestByStockCode("2330");
-        verify(executionRepository, times(1))
-            .findFirstByRuleAndCardOrderByExecutedAtDesc(readyRule, testCard);
-        verify(executionRepository, never())
-            .findFirstByRuleAndCardOrderByExecutedAtDesc(cooldownRule, testCard);
-        verify(executionRepository, never())
-            .findFirstByRuleAndCardOrderByExecutedAtDesc(disabledRule, testCard);
-        verify(notificationService, times(1)).createRuleTriggeredNotification(any());
-        verify(executionRepository, times(1)).save(any(RuleExecution.class));
-        verify(evaluationService, times(1)).evaluate(any(), any(), any(), any());
+        verify(cardRepository, times(1)).findByUserIdIn(any());
+        verify(stockSnapshotRepository, times(1)).findByCodeIn(any());
+        verify(technicalIndicatorRepository, times(1)).findLatestByStockCodes(any());
+        verify(technicalIndicatorRepository, times(1)).findPreviousDayByLatest(any());
+        verify(technicalIndicatorRepository, times(1)).findLatestBeforeByStockCodes(any(), any());
+        verify(stockSnapshotRepository, never()).findLatestByCode(any());
+        verify(technicalIndicatorRepository, never()).findLatestByStockCode(any());
+
+        // card-1 × rule-1、card-2 × rule-2 共用同一份 2330 評估資料；9999 沒有快照而跳過
+        assertThat(stockCaptor.getAllValues()).hasSize(2);
+        assertThat(stockCaptor.getAllValues().get(0)).isSameAs(stockCaptor.getAllValues().get(1));
+        assertThat(stockCaptor.getValue().getPreviousIndicator()).isSameAs(previousIndicator);
+        verify(evaluationService).evaluateRule(testRule, testCard, stockCaptor.getValue());
+        verify(evaluationService).evaluateRule(otherRule, otherCard, stockCaptor.getValue());
+        verify(executionWriter, times(3)).record(any(), any(), any(), any(), any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("批次執行規則 - 依使用者分區，各自一個交易並依優先級執行")
+    void executeRules_PartitionsByUserInPriorityOrder() {
+        // Given
+        User otherUser = User.builder()
+            .id("user-2")
+            .username("other")
+            .email("other@example.com")
+            .build();
+        Rule urgentRule = Rule.builder()
+            .id("rule-urgent")
+            .user(testUser)
+            .name("急跌警示")
+            .conditionExpression("changePercent < -5")
+            .triggerEvent(Rule.TriggerEvent.PRICE_ALERT)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .enabled(true)
+            .priority(1)
+            .sendNotification(false)
+            .triggerCount(0L)
+            .build();
+        Rule otherRule = Rule.builder()
+            .id("rule-other")
+            .user(otherUser)
+            .name("價格警示")
+            .conditionExpression("price > 100")
+            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .enabled(true)
+            .sendNotification(false)
+            .triggerCount(0L)
+            .build();
+        Card otherCard = Card.builder()
+            .id("card-2")
+            .user(otherUser)
+            .stockCode("2330")
+            .status(Card.CardStatus.WATCH)
+            .build();
+
+        when(cardRepository.findByUserIdIn(any())).thenReturn(List.of(testCard, otherCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330"))).thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330"))).thenReturn(List.of(testIndicator));
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
+        when(evaluationService.evaluateRule(any(), any(), any()))
+            .thenReturn(RuleEvaluationService.EvaluationResult.builder()
+                .success(true)
+                .matched(false)
+                .build());
+
+        // When
+        executionService.executeRules(List.of(testRule, otherRule, urgentRule));
+
+        // Then
+        InOrder inOrder = inOrder(evaluationService);
+        inOrder.verify(evaluationService).evaluateRule(eq(urgentRule), eq(testCard), any());
+        inOrder.verify(evaluationService).evaluateRule(eq(testRule), eq(testCard), any());
+        verify(evaluationService).evaluateRule(eq(otherRule), eq(otherCard), any());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(meterRegistry.get("kanban.rules.evaluations").tag("status", "skipped").counter().count())
+            .isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("批次執行規則 - 同一張卡片多條規則成立時由優先級最高者決定狀態，並一次寫入")
+    void executeRules_ResolvesConflictsByPriority() {
+        // Given
+        Rule sellRule = Rule.builder()
+            .id("rule-sell")
+            .user(testUser)
+            .name("跌破月線")
+            .conditionExpression("price < ma20")
+            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .targetStatus(Card.CardStatus.SELL)
+            .enabled(true)
+            .cooldownSeconds(3600)
+            .priority(1)
+            .sendNotification(false)
+            .triggerCount(0L)
+            .build();
+
+        when(cardRepository.findByUserIdIn(any())).thenReturn(List.of(testCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330"))).thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330"))).thenReturn(List.of(testIndicator));
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
+        when(evaluationService.evaluateRule(any(), any(), any()))
+            .thenReturn(RuleEvaluationService.EvaluationResult.builder()
+                .success(true)
+                .matched(true)
+                .build());
+
+        // When
+        executionService.executeRules(List.of(testRule, sellRule));
+
+        // Then：兩條規則都以原狀態評估，卡片只移動一次
+        assertThat(testCard.getStatus()).isEqualTo(Card.CardStatus.SELL);
+        verify(evaluationService).evaluateRule(eq(testRule), eq(testCard), any());
+        verify(cardRepository, times(1)).saveAll(List.of(testCard));
+        verify(ruleRepository).incrementTriggerCount(eq("rule-sell"), eq(1L), any(LocalDateTime.class));
+        verify(ruleRepository, never()).incrementTriggerCount(eq("rule-1"), anyLong(), any());
+        verify(cooldownTracker, never()).recordFire(eq(testRule), any(), anyLong());
+
+        verify(auditLogService).logCardStatusChanges(auditCaptor.capture());
+        assertThat(auditCaptor.getValue()).extracting(AuditLogService.CardStatusChange::toStatus)
+            .containsExactly(Card.CardStatus.SELL);
+
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(executionWriter).record(eq(testRule), eq(testCard), eq(RuleExecution.ExecutionStatus.SKIPPED),
+            any(), any(), messageCaptor.capture(), anyLong(), any(), any());
+        assertThat(messageCaptor.getValue()).contains("跌破月線");
+        verify(notificationService, never()).createRuleTriggeredNotifications(any());
+    }
+
+    @Test
+    @DisplayName("批次執行規則 - 分區交易未提交時不發送規則觸發通知")
+    void executeRules_FailedCommit_SendsNoNotifications() {
+        // Given：分區交易啟用同步，提交失敗
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.initSynchronization();
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(invocation -> {
+            TransactionSynchronizationManager.clearSynchronization();
+            throw new TransactionSystemException("提交失敗");
+        }).when(transactionManager).commit(any());
+
+        when(cardRepository.findByUserIdIn(any())).thenReturn(List.of(testCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330"))).thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330"))).thenReturn(List.of(testIndicator));
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
+        when(evaluationService.evaluateRule(any(), any(), any()))
+            .thenReturn(RuleEvaluationService.EvaluationResult.builder()
+                .success(true)
+                .matched(true)
+                .build());
+
+        // When
+        executionService.executeRules(List.of(testRule));
+
+        // Then
+        verify(cardRepository).saveAll(List.of(testCard));
+        verify(notificationService, never()).createRuleTriggeredNotifications(any());
+    }
+
+    @Test
+    @DisplayName("事件觸發執行 - 只評估受影響股票列出的規則")
+    void executeRulesForStocks_EvaluatesOnlyListedRules() {
+        // Given
+        Rule volumeRule = Rule.builder()
+            .id("rule-2")
+            .user(testUser)
+            .name("成交量異常")
+            .conditionExpression("volumeRatio > 2")
+            .triggerEvent(Rule.TriggerEvent.VOLUME_SPIKE)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .enabled(true)
+            .cooldownSeconds(3600)
+            .sendNotification(false)
+            .triggerCount(0L)
+            .build();
+
+        when(ruleRepository.findAllById(Set.of("rule-1", "rule-2"))).thenReturn(List.of(testRule, volumeRule));
+        when(cardRepository.findByUserIdInAndStockCodeIn(any(), eq(Set.of("2330", "2317"))))
+            .thenReturn(List.of(testCard));
+        when(stockSnapshotRepository.findByCodeIn(List.of("2330"))).thenReturn(List.of(testSnapshot));
+        when(technicalIndicatorRepository.findLatestByStockCodes(List.of("2330"))).thenReturn(List.of(testIndicator));
+        when(cooldownTracker.isReady(any(), any(), anyLong())).thenReturn(true);
+        when(evaluationService.evaluateRule(any(), any(), any()))
+            .thenReturn(RuleEvaluationService.EvaluationResult.builder()
+                .success(true)
+                .matched(false)
+                .build());
+
+        // When
+        executionService.executeRulesForStocks(Map.of(
+            "2330", Set.of("rule-1"),
+            "2317", Set.of("rule-2")));
+
+        // Then：rule-2 只受 2317 影響，不對 2330 的卡片評估
+        verify(evaluationService).evaluateRule(eq(testRule), eq(testCard), any());
+        verify(evaluationService, never()).evaluateRule(eq(volumeRule), any(), any());
+        verify(cardRepository, never()).findByUserIdIn(any());
     }
 
     @Test
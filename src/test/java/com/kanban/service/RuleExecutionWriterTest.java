@@ -0,0 +1,246 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.RuleExecution;
+import com.kanban.domain.entity.StockSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RuleExecutionWriter 單元測試")
+class RuleExecutionWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Rule rule;
+    private Card card;
+    private StockSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rule = Rule.builder().id("rule-1").build();
+        card = Card.builder().id("card-1").stockCode("2330").build();
+        snapshot = StockSnapshot.builder()
+            .code("2330")
+            .name("台積電")
+            .currentPrice(new BigDecimal("550"))
+            .build();
+    }
+
+    @Test
+    @DisplayName("SKIPPED 依取樣間隔寫入明細，全部計入每小時統計")
+    @SuppressWarnings("unchecked")
+    void flush_SamplesSkippedAndAggregatesStats() {
+        // Given
+        RuleExecutionWriter writer = writer(100, 3);
+        for (int i = 0; i < 5; i++) {
+            writer.record(rule, card, RuleExecution.ExecutionStatus.SKIPPED, null, snapshot,
+                "條件不匹配", 1L, null, null);
+        }
+        writer.record(rule, card, RuleExecution.ExecutionStatus.SUCCESS, null, snapshot,
+            "規則觸發成功", 2L, Card.CardStatus.WATCH, Card.CardStatus.ALERTS);
+
+        // When
+        writer.flush();
+
+        // Then：第 1、4 次 SKIPPED 與 SUCCESS 寫入明細
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO rule_executions"),
+            rows.capture(), eq(3), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(3);
+
+        ArgumentCaptor<List<Object[]>> stats = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO rule_evaluation_stats"), stats.capture());
+        Object[] row = stats.getValue().get(0);
+        assertThat(row[0]).isEqualTo("rule-1");
+        assertThat(row[2]).isEqualTo(6L);
+        assertThat(row[3]).isEqualTo(1L);
+        assertThat(row[5]).isEqualTo(5L);
+        assertThat(meterRegistry.get("kanban.rules.history.rows").tag("result", "sampled_out").counter().count())
+            .isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("寫入時才序列化評估結果與股票快照")
+    @SuppressWarnings("unchecked")
+    void flush_SerializesSnapshotWhenWriting() throws Exception {
+        // Given
+        RuleExecutionWriter writer = writer(100, 0);
+        writer.record(rule, card, RuleExecution.ExecutionStatus.SUCCESS, null, snapshot,
+            "規則觸發成功", 2L, Card.CardStatus.WATCH, Card.CardStatus.ALERTS);
+
+        // When
+        writer.flush();
+
+        // Then
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+            ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO rule_executions"),
+            rows.capture(), anyInt(), setter.capture());
+        setter.getValue().setValues(preparedStatement, rows.getValue().iterator().next());
+
+        verify(preparedStatement).setString(2, "rule-1");
+        verify(preparedStatement).setString(4, "SUCCESS");
+        verify(preparedStatement).setString(5, "WATCH");
+        verify(preparedStatement).setString(6, "ALERTS");
+        verify(preparedStatement).setString(7, null);
+        verify(preparedStatement).setString(eq(8), contains("\"stockCode\":\"2330\""));
+        verify(preparedStatement).setBoolean(10, false);
+    }
+
+    @Test
+    @DisplayName("佇列已滿時由呼叫端先寫入一批")
+    void record_FlushesInlineWhenQueueIsFull() {
+        // Given
+        RuleExecutionWriter writer = writer(1, 0);
+
+        // When
+        writer.record(rule, card, RuleExecution.ExecutionStatus.FAILED, null, null, "評估失敗", 1L, null, null);
+        writer.record(rule, card, RuleExecution.ExecutionStatus.FAILED, null, null, "評估失敗", 1L, null, null);
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO rule_executions"),
+            any(Collection.class), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(meterRegistry.get("kanban.rules.history.rows").tag("result", "dropped").counter().count())
+            .isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("交易中的記錄於提交後才放入佇列")
+    void record_InTransaction_EnqueuesAfterCommit() {
+        // Given
+        RuleExecutionWriter writer = writer(100, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.record(rule, card, RuleExecution.ExecutionStatus.SUCCESS, null, snapshot,
+                "規則觸發成功", 2L, Card.CardStatus.WATCH, Card.CardStatus.ALERTS);
+
+            // When：提交前寫入
+            writer.flush();
+
+            // Then
+            verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO rule_executions"),
+                anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+            // When：提交後寫入
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.flush();
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO rule_executions"),
+            anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("批次寫入失敗時逐筆重試，只捨棄失敗的記錄")
+    void flush_BatchFailure_RetriesRowByRow() {
+        // Given
+        RuleExecutionWriter writer = writer(100, 0);
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO rule_executions"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new DataIntegrityViolationException("violates foreign key constraint"));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+            .thenReturn(1)
+            .thenThrow(new DataIntegrityViolationException("violates foreign key constraint"))
+            .thenReturn(1);
+        for (int i = 0; i < 3; i++) {
+            writer.record(rule, card, RuleExecution.ExecutionStatus.FAILED, null, null, "評估失敗", 1L, null, null);
+        }
+
+        // When
+        writer.flush();
+
+        // Then：批次與每筆各自在新交易中執行
+        verify(jdbcTemplate, times(3)).update(startsWith("INSERT INTO rule_executions"), any(PreparedStatementSetter.class));
+        verify(transactionManager, times(5)).getTransaction(any());
+        assertThat(meterRegistry.get("kanban.rules.history.rows").tag("result", "written").counter().count())
+            .isEqualTo(2.0);
+        assertThat(meterRegistry.get("kanban.rules.history.rows").tag("result", "failed").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("統計寫入失敗時計數併回，下次 flush 寫入累加後的計數")
+    @SuppressWarnings("unchecked")
+    void flush_StatsFailure_RetriesMergedCountsOnNextFlush() {
+        // Given
+        RuleExecutionWriter writer = writer(100, 0);
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO rule_evaluation_stats"), anyList()))
+            .thenThrow(new TransientDataAccessResourceException("connection reset"))
+            .thenReturn(new int[]{1});
+        for (int i = 0; i < 2; i++) {
+            writer.record(rule, card, RuleExecution.ExecutionStatus.SKIPPED, null, snapshot,
+                "條件不匹配", 1L, null, null);
+        }
+        writer.flush();
+
+        writer.record(rule, card, RuleExecution.ExecutionStatus.SKIPPED, null, snapshot,
+            "條件不匹配", 1L, null, null);
+        writer.record(rule, card, RuleExecution.ExecutionStatus.FAILED, null, null, "評估失敗", 1L, null, null);
+
+        // When
+        writer.flush();
+
+        // Then：第二次寫入包含第一次失敗的計數
+        ArgumentCaptor<List<Object[]>> stats = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO rule_evaluation_stats"), stats.capture());
+        List<Object[]> retried = stats.getAllValues().get(1);
+        assertThat(retried).hasSize(1);
+        Object[] row = retried.get(0);
+        assertThat(row[0]).isEqualTo("rule-1");
+        assertThat(row[2]).isEqualTo(4L);
+        assertThat(row[3]).isEqualTo(0L);
+        assertThat(row[4]).isEqualTo(1L);
+        assertThat(row[5]).isEqualTo(3L);
+    }
+
+    private RuleExecutionWriter writer(int queueCapacity, int skippedSampleEvery) {
+        return new RuleExecutionWriter(jdbcTemplate, transactionManager, new ObjectMapper(), meterRegistry,
+            queueCapacity, 500, skippedSampleEvery, 90, 7);
+    }
+}
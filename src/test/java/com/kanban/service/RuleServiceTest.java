@@ -43,6 +43,12 @@ class RuleServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RuleEvaluationService ruleEvaluationService;
+
+    @Mock
+    private RuleDispatcher ruleDispatcher;
+
     @InjectMocks
     private RuleService ruleService;
 
@@ -104,6 +110,8 @@ class RuleServiceTest {
         assertThat(result.getName()).isEqualTo("價格警示");
         assertThat(result.getConditionExpression()).isEqualTo("price > 100");
         verify(ruleRepository).save(any(Rule.class));
+        verify(ruleEvaluationService).compile(testRule);
+        verify(ruleDispatcher).invalidateIndex();
     }
 
     @Test
@@ -150,6 +158,31 @@ class RuleServiceTest {
             .hasMessage("規則名稱已存在");
     }
 
+    @Test
+    @DisplayName("建立規則 - 條件表達式無法編譯")
+    void createRule_InvalidCondition() {
+        // Given
+        RuleCreateRequest request = RuleCreateRequest.builder()
+            .name("價格警示")
+            .conditionExpression("price >>> 1")
+            .triggerEvent(Rule.TriggerEvent.PRICE_CHANGE)
+            .targetStatus(Card.CardStatus.ALERTS)
+            .ruleType(Rule.RuleType.CUSTOM)
+            .cooldownSeconds(3600)
+            .build();
+
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(testUser));
+        when(ruleRepository.findByUserAndName(testUser, "價格警示")).thenReturn(Optional.empty());
+        when(ruleRepository.save(any(Rule.class))).thenReturn(testRule);
+        doThrow(new IllegalArgumentException("規則條件語法錯誤"))
+            .when(ruleEvaluationService).compile(testRule);
+
+        // When & Then
+        assertThatThrownBy(() -> ruleService.createRule("user-1", request))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("規則條件語法錯誤");
+    }
+
     @Test
     @DisplayName("更新規則 - 成功")
     void updateRule_Success() {
@@ -168,6 +201,8 @@ class RuleServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(ruleRepository).save(any(Rule.class));
+        verify(ruleEvaluationService).compile(testRule);
+        verify(ruleDispatcher).invalidateIndex();
     }
 
     @Test
@@ -181,6 +216,8 @@ class RuleServiceTest {
 
         // Then
         verify(ruleRepository).delete(testRule);
+        verify(ruleEvaluationService).invalidate("rule-1");
+        verify(ruleDispatcher).invalidateIndex();
     }
 
     @Test
@@ -0,0 +1,164 @@
+package com.kanban.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.Card;
+import com.kanban.domain.entity.Rule;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.domain.entity.TechnicalIndicator;
+import com.kanban.dto.market.ScreenRequest;
+import com.kanban.dto.market.ScreenResult;
+import com.kanban.dto.market.ScreenRow;
+import com.kanban.dto.market.ScreenRuleRequest;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
+import com.kanban.dto.market.TechnicalIndicatorChangedEvent;
+import com.kanban.dto.rule.RuleCreateRequest;
+import com.kanban.repository.StockSnapshotRepository;
+import com.kanban.repository.TechnicalIndicatorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScreenerService 單元測試")
+class ScreenerServiceTest {
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private TechnicalIndicatorRepository technicalIndicatorRepository;
+
+    @Spy
+    private RuleEvaluationService evaluationService = new RuleEvaluationService(new ObjectMapper());
+
+    @Mock
+    private RuleService ruleService;
+
+    @InjectMocks
+    private ScreenerService screenerService;
+
+    private static final LocalDateTime TODAY = LocalDate.now().atTime(10, 0);
+
+    @BeforeEach
+    void setUp() {
+        publish(snapshot("2330", "台積電", "580.00", 30_000_000L), indicator("2330", "25.00", "3.10", "575", "570"));
+        publish(snapshot("2317", "鴻海", "105.50", 50_000_000L), indicator("2317", "28.00", "2.40", "104", "106"));
+        publish(snapshot("2454", "聯發科", "1200.00", 5_000_000L), indicator("2454", "45.00", "3.50", "1190", "1180"));
+    }
+
+    @Test
+    @DisplayName("依 DSL 條件篩選並依欄位排序")
+    void screen_FiltersAndSortsByColumn() {
+        // When
+        ScreenResult result = screenerService.screen(ScreenRequest.builder()
+            .condition("rsi14 < 30 && volumeRatio > 2")
+            .sortBy("volumeRatio")
+            .build());
+
+        // Then
+        assertThat(result.getTotalStocks()).isEqualTo(3);
+        assertThat(result.getMatchCount()).isEqualTo(2);
+        assertThat(result.getRows()).extracting(ScreenRow::getStockCode).containsExactly("2330", "2317");
+        ScreenRow first = result.getRows().get(0);
+        assertThat(first.getStockName()).isEqualTo("台積電");
+        assertThat(first.getValues()).containsEntry("price", 580.0).containsEntry("rsi", 25.0)
+            .containsEntry("volumeRatio", 3.1);
+    }
+
+    @Test
+    @DisplayName("交叉條件以前一個交易日的指標判斷")
+    void screen_CrossUsesPreviousIndicator() {
+        // Given：鴻海的 ma5 由前一交易日低於 ma20 轉為今日高於 ma20，今日再更新一次
+        screenerService.onIndicatorChanged(new TechnicalIndicatorChangedEvent(
+            "2317", indicator("2317", "30.00", "2.40", "107", "106", TODAY), LocalDateTime.now()));
+        screenerService.onIndicatorChanged(new TechnicalIndicatorChangedEvent(
+            "2317", indicator("2317", "31.00", "2.40", "108", "106", TODAY.plusMinutes(5)), LocalDateTime.now()));
+
+        // When
+        ScreenResult result = screenerService.screen(ScreenRequest.builder()
+            .condition("crossesAbove(ma5, ma20)")
+            .limit(10)
+            .build());
+
+        // Then
+        assertThat(result.getRows()).extracting(ScreenRow::getStockCode).containsExactly("2317");
+    }
+
+    @Test
+    @DisplayName("不存在的排序欄位應拋出 IllegalArgumentException")
+    void screen_RejectsUnknownSortField() {
+        assertThatThrownBy(() -> screenerService.screen(ScreenRequest.builder()
+            .condition("price > 100")
+            .sortBy("marketCap")
+            .build()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("篩選條件轉為規則時依引用欄位決定觸發事件")
+    void createRuleFromScreen_DerivesTriggerEvent() {
+        // When
+        screenerService.createRuleFromScreen("user-1", ScreenRuleRequest.builder()
+            .name("超賣爆量")
+            .condition("rsi14 < 30 && volumeRatio > 2")
+            .targetStatus(Card.CardStatus.READY_TO_BUY)
+            .build());
+
+        // Then
+        ArgumentCaptor<RuleCreateRequest> captor = ArgumentCaptor.forClass(RuleCreateRequest.class);
+        verify(ruleService).createRule(eq("user-1"), captor.capture());
+        assertThat(captor.getValue().getConditionExpression()).isEqualTo("rsi14 < 30 && volumeRatio > 2");
+        assertThat(captor.getValue().getTriggerEvent()).isEqualTo(Rule.TriggerEvent.TECHNICAL_INDICATOR);
+        assertThat(captor.getValue().getRuleType()).isEqualTo(Rule.RuleType.CUSTOM);
+        assertThat(captor.getValue().getCooldownSeconds()).isEqualTo(3600);
+    }
+
+    private void publish(StockSnapshot snapshot, TechnicalIndicator indicator) {
+        screenerService.onSnapshotChanged(new StockSnapshotChangedEvent(
+            snapshot.getCode(), snapshot, LocalDateTime.now()));
+        screenerService.onIndicatorChanged(new TechnicalIndicatorChangedEvent(
+            indicator.getStockCode(), indicator, LocalDateTime.now()));
+    }
+
+    private static StockSnapshot snapshot(String code, String name, String price, long volume) {
+        return StockSnapshot.builder()
+            .code(code)
+            .name(name)
+            .currentPrice(new BigDecimal(price))
+            .previousClose(new BigDecimal(price))
+            .changePercent(BigDecimal.ZERO)
+            .volume(volume)
+            .build();
+    }
+
+    private static TechnicalIndicator indicator(String code, String rsi, String volumeRatio, String ma5, String ma20) {
+        return indicator(code, rsi, volumeRatio, ma5, ma20, TODAY.minusDays(1));
+    }
+
+    private static TechnicalIndicator indicator(String code, String rsi, String volumeRatio, String ma5, String ma20,
+                                                LocalDateTime calculationDate) {
+        return TechnicalIndicator.builder()
+            .stockCode(code)
+            .calculationDate(calculationDate)
+            .rsi14(new BigDecimal(rsi))
+            .volumeRatio(new BigDecimal(volumeRatio))
+            .ma5(new BigDecimal(ma5))
+            .ma20(new BigDecimal(ma20))
+            .build();
+    }
+}
@@ -1,21 +1,34 @@
 package com.kanban.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kanban.domain.entity.StockSnapshot;
+import com.kanban.dto.market.StockSnapshotChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,6 +38,12 @@ import static org.mockito.Mockito.*;
 @DisplayName("SSE 連線管理服務測試")
 public class SseConnectionManagerTest {
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private Executor sseWriterPool = new SyncTaskExecutor();
+
     @Mock
     private StockDataService stockDataService;
 
@@ -38,6 +57,9 @@ public class SseConnectionManagerTest {
         ReflectionTestUtils.setField(sseConnectionManager, "autoScaleEnabled", true);
         ReflectionTestUtils.setField(sseConnectionManager, "scaleThreshold", 0.8);
         ReflectionTestUtils.setField(sseConnectionManager, "heartbeatInterval", 30000L);
+        ReflectionTestUtils.setField(sseConnectionManager, "queueCapacity", 64);
+        ReflectionTestUtils.setField(sseConnectionManager, "maxLagMs", 10000L);
+        ReflectionTestUtils.setField(sseConnectionManager, "maxDrops", 256L);
     }
 
     @Nested
@@ -132,14 +154,9 @@ public class SseConnectionManagerTest {
             SseEmitter mockEmitter1 = mock(SseEmitter.class);
             SseEmitter mockEmitter2 = mock(SseEmitter.class);
             
-            // 手動設定連線到內部 Map（模擬已建立的連線）
-            Map<String, Set<SseEmitter>> topicConnections = new ConcurrentHashMap<>();
-            Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
-            emitters.add(mockEmitter1);
-            emitters.add(mockEmitter2);
-            topicConnections.put("test-topic", emitters);
-            
-            ReflectionTestUtils.setField(sseConnectionManager, "topicConnections", topicConnections);
+            // 直接登記連線（模擬已建立的連線）
+            sseConnectionManager.register("user1", "test-topic", mockEmitter1);
+            sseConnectionManager.register("user2", "test-topic", mockEmitter2);
 
             // When
             sseConnectionManager.broadcastToTopic("test-topic", "test-data");
@@ -149,6 +166,50 @@ public class SseConnectionManagerTest {
             verify(mockEmitter2).send(any(SseEmitter.SseEventBuilder.class));
         }
 
+        @Test
+        @DisplayName("廣播只序列化一次，所有連線寫入同一份事件")
+        void broadcastToTopic_ShouldSerializeOnceAndShareFrame() throws IOException {
+            // Given
+            SseEmitter mockEmitter1 = mock(SseEmitter.class);
+            SseEmitter mockEmitter2 = mock(SseEmitter.class);
+            SseEmitter mockEmitter3 = mock(SseEmitter.class);
+            
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter1);
+            sseConnectionManager.register("user2", "stock:2330", mockEmitter2);
+            sseConnectionManager.register("user3", "stock:2330", mockEmitter3);
+
+            // When
+            sseConnectionManager.broadcastToTopic("stock:2330", Map.of("stockCode", "2330"));
+
+            // Then
+            verify(objectMapper, times(1)).writeValueAsBytes(any());
+            
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor1 = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor2 = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            verify(mockEmitter1).send(captor1.capture());
+            verify(mockEmitter2).send(captor2.capture());
+            verify(mockEmitter3).send(any(SseEmitter.SseEventBuilder.class));
+            assertThat(captor1.getValue()).isSameAs(captor2.getValue());
+            
+            String frame = ((SseFrame) captor1.getValue()).asString();
+            assertThat(frame).startsWith("event:data-update\ndata:")
+                    .endsWith("\ndata:{\"stockCode\":\"2330\"}\n\n");
+        }
+
+        @Test
+        @DisplayName("預先序列化的事件不可再修改")
+        void sseFrame_ShouldBeImmutable() throws IOException {
+            // Given
+            SseFrame frame = SseFrame.of(objectMapper, "data-update", "1", "line1\nline2");
+
+            // Then
+            assertThat(frame.asString()).isEqualTo("event:data-update\nid:1\ndata:line1\ndata:line2\n\n");
+            assertThat(frame.build()).hasSize(1);
+            assertThat(frame.build().iterator().next().getData()).isInstanceOf(byte[].class);
+            assertThatThrownBy(() -> frame.data("other"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        }
+
         @Test
         @DisplayName("應該移除發送失敗的連線")
         void broadcastToTopic_FailedConnection_ShouldRemoveConnection() throws IOException {
@@ -160,16 +221,8 @@ public class SseConnectionManagerTest {
             doThrow(new IOException("Connection failed"))
                     .when(mockEmitter1).send(any(SseEmitter.SseEventBuilder.class));
             
-            Map<String, Set<SseEmitter>> topicConnections = new ConcurrentHashMap<>();
-            Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
-            emitters.add(mockEmitter1);
-            emitters.add(mockEmitter2);
-            topicConnections.put("test-topic", emitters);
-            
-            ReflectionTestUtils.setField(sseConnectionManager, "topicConnections", topicConnections);
-            
-            AtomicInteger activeConnections = new AtomicInteger(2);
-            ReflectionTestUtils.setField(sseConnectionManager, "activeConnections", activeConnections);
+            sseConnectionManager.register("user1", "test-topic", mockEmitter1);
+            sseConnectionManager.register("user2", "test-topic", mockEmitter2);
 
             // When
             sseConnectionManager.broadcastToTopic("test-topic", "test-data");
@@ -179,8 +232,9 @@ public class SseConnectionManagerTest {
             verify(mockEmitter2).send(any(SseEmitter.SseEventBuilder.class));
             
             // 失敗的連線應該被移除
-            assertThat(topicConnections.get("test-topic")).doesNotContain(mockEmitter1);
-            assertThat(topicConnections.get("test-topic")).contains(mockEmitter2);
+            assertThat(topicEmitters("test-topic")).doesNotContain(mockEmitter1);
+            assertThat(topicEmitters("test-topic")).contains(mockEmitter2);
+            assertThat(sseConnectionManager.getConnectionStats().getActiveConnections()).isEqualTo(1);
         }
 
         @Test
@@ -198,10 +252,7 @@ public class SseConnectionManagerTest {
             // Given
             SseEmitter mockEmitter = mock(SseEmitter.class);
             
-            Map<String, SseEmitter> userConnections = new ConcurrentHashMap<>();
-            userConnections.put("user1:stock:2330", mockEmitter);
-            
-            ReflectionTestUtils.setField(sseConnectionManager, "userConnections", userConnections);
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter);
 
             // When
             sseConnectionManager.sendToUser("user1", "stock:2330", "test-data");
@@ -229,21 +280,299 @@ public class SseConnectionManagerTest {
         void startMultiTopicBroadcast_ShouldInitializeBroadcastStrategy() {
             // When & Then - 應該不拋出異常
             assertThatCode(() -> 
-                sseConnectionManager.startMultiTopicBroadcast(stockDataService))
+                sseConnectionManager.startMultiTopicBroadcast())
                     .doesNotThrowAnyException();
         }
 
         @Test
-        @DisplayName("應該處理股票資料服務異常")
-        void broadcastStocks_ServiceException_ShouldHandleGracefully() {
+        @DisplayName("無人訂閱的股票不推送")
+        void broadcastTier_NoSubscribers_ShouldPushNothing() throws IOException {
             // Given
-            when(stockDataService.getSnapshot(anyString()))
-                    .thenThrow(new RuntimeException("Service unavailable"));
+            sseConnectionManager.onSnapshotChanged(snapshotChanged("2330", "580.00", 1000L));
 
-            // When & Then - 廣播方法應該能處理異常而不中斷
-            assertThatCode(() -> 
-                sseConnectionManager.startMultiTopicBroadcast(stockDataService))
-                    .doesNotThrowAnyException();
+            // When
+            for (StockSubscriptionRegistry.Tier tier : StockSubscriptionRegistry.Tier.values()) {
+                ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", tier);
+            }
+
+            // Then
+            verify(objectMapper, never()).writeValueAsBytes(any());
+            assertThat(sseConnectionManager.getConnectionStats().getSubscribedStocks()).isZero();
+        }
+
+        @Test
+        @DisplayName("只推送訂閱股票有變動的快照")
+        void broadcastTier_ShouldPushOnlyChangedSnapshots() throws IOException {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter);
+
+            // When - 第一筆快照、報價相同的快照、報價變動的快照
+            sseConnectionManager.onSnapshotChanged(snapshotChanged("2330", "580.00", 1000L));
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", StockSubscriptionRegistry.Tier.REGULAR);
+            sseConnectionManager.onSnapshotChanged(snapshotChanged("2330", "580.0", 1000L));
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", StockSubscriptionRegistry.Tier.REGULAR);
+            sseConnectionManager.onSnapshotChanged(snapshotChanged("2330", "581.00", 1200L));
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", StockSubscriptionRegistry.Tier.REGULAR);
+
+            // Then
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            verify(mockEmitter, times(2)).send(captor.capture());
+            assertThat(((SseFrame) captor.getAllValues().get(0)).asString()).startsWith("event:snapshot\nid:2330:");
+            assertThat(((SseFrame) captor.getAllValues().get(1)).asString())
+                    .startsWith("event:delta\nid:2330:")
+                    .contains("\"stockCode\":\"2330\"")
+                    .contains("\"currentPrice\":581")
+                    .contains("\"updateType\":\"regular\"");
+        }
+
+        @Test
+        @DisplayName("訂閱中的股票由分層推送自行更新，不依賴外部請求")
+        void broadcastTier_ShouldRefreshSubscribedStocksWithoutOutsideFetch() throws IOException {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter);
+            when(stockDataService.getSnapshots(List.of("2330"))).thenReturn(
+                    Map.of("2330", snapshotChanged("2330", "580.00", 1000L).getSnapshot()),
+                    Map.of("2330", snapshotChanged("2330", "580.00", 1000L).getSnapshot()),
+                    Map.of("2330", snapshotChanged("2330", "582.00", 1500L).getSnapshot()));
+
+            // When - 三次分層推送之間沒有任何快照更新事件
+            for (int i = 0; i < 3; i++) {
+                ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", StockSubscriptionRegistry.Tier.REGULAR);
+            }
+
+            // Then - 每次都重新取得訂閱股票，只推送初次快照與報價變動
+            verify(stockDataService, times(3)).getSnapshots(List.of("2330"));
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            verify(mockEmitter, times(2)).send(captor.capture());
+            assertThat(((SseFrame) captor.getAllValues().get(0)).asString()).startsWith("event:snapshot\nid:2330:");
+            assertThat(((SseFrame) captor.getAllValues().get(1)).asString())
+                    .startsWith("event:delta\nid:2330:")
+                    .contains("\"currentPrice\":582");
+        }
+
+        @Test
+        @DisplayName("其他分層的股票不在本分層更新")
+        void broadcastTier_OtherTier_ShouldNotFetch() {
+            // Given - 剛訂閱的股票列為 REGULAR
+            sseConnectionManager.register("user1", "stock:2330", mock(SseEmitter.class));
+
+            // When
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "broadcastTier", StockSubscriptionRegistry.Tier.COLD);
+
+            // Then
+            verifyNoInteractions(stockDataService);
+        }
+
+        @Test
+        @DisplayName("批次連線訂閱多檔股票，關閉後取消訂閱")
+        void register_BatchConnection_ShouldSubscribeEachStock() {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            SseConnection connection = sseConnectionManager.register("user1", "batch-stocks",
+                    List.of("2330", "2454"), mockEmitter);
+
+            // Then
+            assertThat(topicEmitters("stock:2330")).containsExactly(mockEmitter);
+            assertThat(topicEmitters("stock:2454")).containsExactly(mockEmitter);
+            assertThat(sseConnectionManager.getConnectionStats().getSubscribedStocks()).isEqualTo(2);
+
+            // When
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "removeConnection", connection);
+
+            // Then
+            assertThat(topicEmitters("stock:2330")).isEmpty();
+            assertThat(topicEmitters("batch-stocks")).isEmpty();
+            assertThat(sseConnectionManager.getConnectionStats().getSubscribedStocks()).isZero();
+        }
+
+        @Test
+        @DisplayName("依訂閱人數與報價變動次數分層")
+        void subscriptionRegistry_ShouldClassifyByDemandAndActivity() {
+            // Given
+            StockSubscriptionRegistry registry = new StockSubscriptionRegistry();
+            registry.configure(2, 20, 2);
+
+            // When - 2330 有兩位訂閱者，2454 只有一位
+            registry.subscribe("2330");
+            registry.subscribe("2330");
+            registry.subscribe("2454");
+
+            // Then
+            assertThat(registry.tierOf("2330")).isEqualTo(StockSubscriptionRegistry.Tier.HOT);
+            assertThat(registry.tierOf("2454")).isEqualTo(StockSubscriptionRegistry.Tier.REGULAR);
+
+            // When - 一分鐘內 2454 沒有變動
+            registry.reclassify(60_000);
+
+            // Then
+            assertThat(registry.tierOf("2454")).isEqualTo(StockSubscriptionRegistry.Tier.COLD);
+
+            // When - 下一分鐘 2454 報價變動 30 次
+            for (int i = 0; i < 30; i++) {
+                registry.offer(snapshotChanged("2454", String.valueOf(1000 + i), 100L + i).getSnapshot());
+            }
+            registry.reclassify(60_000);
+
+            // Then
+            assertThat(registry.tierOf("2454")).isEqualTo(StockSubscriptionRegistry.Tier.HOT);
+            assertThat(registry.drain(StockSubscriptionRegistry.Tier.HOT)).containsOnlyKeys("2454");
+
+            // When - 訂閱者全部離開
+            registry.unsubscribe("2330");
+            registry.unsubscribe("2330");
+            registry.unsubscribe("2454");
+
+            // Then
+            assertThat(registry.size()).isZero();
+            assertThat(registry.offer(snapshotChanged("2330", "600", 1L).getSnapshot())).isFalse();
+        }
+
+        private StockSnapshotChangedEvent snapshotChanged(String stockCode, String price, long volume) {
+            StockSnapshot snapshot = StockSnapshot.builder()
+                    .code(stockCode)
+                    .name(stockCode)
+                    .currentPrice(new BigDecimal(price))
+                    .volume(volume)
+                    .build();
+            return new StockSnapshotChangedEvent(stockCode, snapshot, LocalDateTime.now());
+        }
+    }
+
+    @Nested
+    @DisplayName("增量串流與斷線續傳測試")
+    class DeltaStreamTests {
+
+        @Test
+        @DisplayName("訂閱後先收到完整快照，之後只收到有變動的欄位")
+        void publishSnapshot_ShouldSendOnlyChangedFields() throws IOException {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter);
+
+            // When
+            publish(quote("580.00", 1000L));
+            long first = streamLog().sequence("2330");
+            publish(quote("581.00", 1000L));
+
+            // Then
+            List<String> frames = sentFrames(mockEmitter, 2);
+            assertThat(frames.get(0))
+                    .startsWith("event:snapshot\nid:2330:" + first + "\n")
+                    .contains("\"name\":\"台積電\"");
+            assertThat(frames.get(1))
+                    .startsWith("event:delta\nid:2330:" + (first + 1) + "\n")
+                    .contains("\"base\":" + first)
+                    .contains("\"fields\":{\"currentPrice\":581.00}")
+                    .doesNotContain("\"name\"");
+        }
+
+        @Test
+        @DisplayName("重連時自環狀緩衝補送累積增量，已是最新狀態時不送")
+        void sendInitialSnapshots_LastEventIdInRing_ShouldResumeWithCumulativeDelta() throws IOException {
+            // Given - 客戶端斷線前收到第一筆快照
+            publish(quote("580.00", 1000L));
+            long lastSeen = streamLog().sequence("2330");
+            publish(quote("581.00", 1000L));
+            publish(quote("581.00", 1500L));
+            SseEmitter resumed = mock(SseEmitter.class);
+            SseEmitter upToDate = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", resumed);
+            sseConnectionManager.register("user2", "stock:2330", upToDate);
+
+            // When
+            sseConnectionManager.sendInitialSnapshots("user1", "stock:2330", Map.of(), "2330:" + lastSeen);
+            sseConnectionManager.sendInitialSnapshots("user2", "stock:2330", Map.of(), "2330:" + (lastSeen + 2));
+
+            // Then
+            assertThat(sentFrames(resumed, 1).get(0))
+                    .startsWith("event:delta\nid:2330:" + (lastSeen + 2) + "\n")
+                    .contains("\"base\":" + lastSeen)
+                    .contains("\"fields\":{\"currentPrice\":581.00,\"volume\":1500}");
+            verify(upToDate, never()).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        @Test
+        @DisplayName("Last-Event-ID 超出緩衝或不屬於該股票時送完整快照")
+        void sendInitialSnapshots_LastEventIdOutsideRing_ShouldSendSnapshot() throws IOException {
+            // Given - 每檔股票只保留一筆變動
+            streamLog().configure(1);
+            publish(quote("580.00", 1000L));
+            long lastSeen = streamLog().sequence("2330");
+            publish(quote("581.00", 1000L));
+            publish(quote("582.00", 1000L));
+            SseEmitter expired = mock(SseEmitter.class);
+            SseEmitter otherStock = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", expired);
+            sseConnectionManager.register("user2", "stock:2330", otherStock);
+
+            // When
+            sseConnectionManager.sendInitialSnapshots("user1", "stock:2330", Map.of(), "2330:" + lastSeen);
+            sseConnectionManager.sendInitialSnapshots("user2", "stock:2330", Map.of(), "2454:" + lastSeen);
+
+            // Then
+            for (SseEmitter emitter : List.of(expired, otherStock)) {
+                assertThat(sentFrames(emitter, 1).get(0))
+                        .startsWith("event:snapshot\nid:2330:" + (lastSeen + 2) + "\n")
+                        .contains("\"currentPrice\":582.00")
+                        .contains("\"name\":\"台積電\"");
+            }
+        }
+
+        @Test
+        @DisplayName("合併或丟棄的增量應以客戶端仍持有的基準重建")
+        void offer_CoalescedAndDroppedDeltas_ShouldRebase() throws IOException {
+            // Given
+            List<Runnable> pendingWrites = new ArrayList<>();
+            ReflectionTestUtils.setField(sseConnectionManager, "sseWriterPool", (Executor) pendingWrites::add);
+            ReflectionTestUtils.setField(sseConnectionManager, "queueCapacity", 1);
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "stock:2330", mockEmitter);
+            publish(quote("580.00", 1000L));
+            long delivered = streamLog().sequence("2330");
+            pendingWrites.remove(0).run();
+
+            // When - 兩筆增量合併，接著被其他事件擠出佇列，再來一筆增量
+            publish(quote("581.00", 1000L));
+            publish(quote("581.00", 1200L));
+            sseConnectionManager.broadcastToTopic("stock:2330", "notice");
+            publish(quote("582.00", 1200L));
+            while (!pendingWrites.isEmpty()) {
+                pendingWrites.remove(0).run();
+            }
+
+            // Then
+            List<String> frames = sentFrames(mockEmitter, 2);
+            assertThat(frames.get(1))
+                    .startsWith("event:delta\nid:2330:" + (delivered + 3) + "\n")
+                    .contains("\"base\":" + delivered)
+                    .contains("\"fields\":{\"currentPrice\":582.00,\"volume\":1200}");
+        }
+
+        private void publish(StockSnapshot snapshot) {
+            ReflectionTestUtils.invokeMethod(sseConnectionManager, "publishSnapshot", snapshot, "regular");
+        }
+
+        private StockSnapshot quote(String price, long volume) {
+            return StockSnapshot.builder()
+                    .code("2330")
+                    .name("台積電")
+                    .currentPrice(new BigDecimal(price))
+                    .volume(volume)
+                    .build();
+        }
+
+        private StockStreamLog streamLog() {
+            return (StockStreamLog) ReflectionTestUtils.getField(sseConnectionManager, "streamLog");
+        }
+
+        private List<String> sentFrames(SseEmitter emitter, int expected) throws IOException {
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            verify(emitter, times(expected)).send(captor.capture());
+            return captor.getAllValues().stream()
+                    .map(builder -> ((SseFrame) builder).asString())
+                    .toList();
         }
     }
 
@@ -262,30 +591,18 @@ public class SseConnectionManagerTest {
             doThrow(new IOException("Connection closed"))
                     .when(invalidEmitter).send(any(SseEmitter.SseEventBuilder.class));
             
-            Map<String, Set<SseEmitter>> topicConnections = new ConcurrentHashMap<>();
-            Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
-            emitters.add(validEmitter);
-            emitters.add(invalidEmitter);
-            topicConnections.put("test-topic", emitters);
-            
-            Map<String, SseEmitter> userConnections = new ConcurrentHashMap<>();
-            userConnections.put("user1:topic1", validEmitter);
-            userConnections.put("user2:topic2", invalidEmitter);
-            
-            ReflectionTestUtils.setField(sseConnectionManager, "topicConnections", topicConnections);
-            ReflectionTestUtils.setField(sseConnectionManager, "userConnections", userConnections);
-            
-            AtomicInteger activeConnections = new AtomicInteger(2);
-            ReflectionTestUtils.setField(sseConnectionManager, "activeConnections", activeConnections);
+            sseConnectionManager.register("user1", "test-topic", validEmitter);
+            sseConnectionManager.register("user2", "test-topic", invalidEmitter);
 
             // When - 通過反射調用私有清理方法
             Object result = ReflectionTestUtils.invokeMethod(sseConnectionManager, "cleanupConnections");
 
             // Then
-            assertThat(topicConnections.get("test-topic")).contains(validEmitter);
-            assertThat(topicConnections.get("test-topic")).doesNotContain(invalidEmitter);
-            assertThat(userConnections).containsKey("user1:topic1");
-            assertThat(userConnections).doesNotContainKey("user2:topic2");
+            Map<String, SseConnection> userConnections = userConnections();
+            assertThat(topicEmitters("test-topic")).contains(validEmitter);
+            assertThat(topicEmitters("test-topic")).doesNotContain(invalidEmitter);
+            assertThat(userConnections).containsKey("user1:test-topic");
+            assertThat(userConnections).doesNotContainKey("user2:test-topic");
         }
 
         @Test
@@ -307,7 +624,7 @@ public class SseConnectionManagerTest {
         @DisplayName("應該移除空的 Topic")
         void cleanupConnections_EmptyTopic_ShouldRemoveTopic() {
             // Given
-            Map<String, Set<SseEmitter>> topicConnections = new ConcurrentHashMap<>();
+            Map<String, Set<SseConnection>> topicConnections = new ConcurrentHashMap<>();
             topicConnections.put("empty-topic", ConcurrentHashMap.newKeySet());
             
             ReflectionTestUtils.setField(sseConnectionManager, "topicConnections", topicConnections);
@@ -329,10 +646,10 @@ public class SseConnectionManagerTest {
         void sendHeartbeat_ShouldSendPingMessage() throws IOException {
             // Given
             SseEmitter mockEmitter = mock(SseEmitter.class);
+            SseConnection connection = sseConnectionManager.register("user1", "test-topic", mockEmitter);
 
             // When - 通過反射調用私有方法
-            Object result = ReflectionTestUtils.invokeMethod(sseConnectionManager, "sendHeartbeat", 
-                    mockEmitter, "test-connection");
+            Object result = ReflectionTestUtils.invokeMethod(sseConnectionManager, "sendHeartbeat", connection);
 
             // Then
             verify(mockEmitter).send(any(SseEmitter.SseEventBuilder.class));
@@ -345,12 +662,186 @@ public class SseConnectionManagerTest {
             SseEmitter mockEmitter = mock(SseEmitter.class);
             doThrow(new IOException("Heartbeat failed"))
                     .when(mockEmitter).send(any(SseEmitter.SseEventBuilder.class));
+            SseConnection connection = sseConnectionManager.register("user1", "test-topic", mockEmitter);
 
-            // When & Then - 應該不拋出異常
+            // When & Then - 應該不拋出異常，失敗的連線被移除
             assertThatCode(() -> {
-                Object result = ReflectionTestUtils.invokeMethod(sseConnectionManager, "sendHeartbeat", 
-                        mockEmitter, "test-connection");
+                Object result = ReflectionTestUtils.invokeMethod(sseConnectionManager, "sendHeartbeat", connection);
             }).doesNotThrowAnyException();
+            assertThat(connection.isClosed()).isTrue();
+        }
+
+        @Test
+        @DisplayName("10k 連線的心跳由共用時間輪分批送出，不會為每條連線建立排程任務")
+        void heartbeatWheel_TenThousandConnections_ShouldHeartbeatEachOncePerRotation() {
+            // Given
+            int connectionCount = 10_000;
+            ReflectionTestUtils.setField(sseConnectionManager, "maxConnections", connectionCount);
+            ScheduledThreadPoolExecutor scheduler =
+                    (ScheduledThreadPoolExecutor) ReflectionTestUtils.getField(sseConnectionManager, "scheduler");
+            SseHeartbeatWheel wheel =
+                    (SseHeartbeatWheel) ReflectionTestUtils.getField(sseConnectionManager, "heartbeatWheel");
+
+            for (int i = 0; i < connectionCount; i++) {
+                sseConnectionManager.createConnection("user" + i, "stock:" + (1000 + i % 50), 5000);
+            }
+            assertThat(scheduler.getQueue()).isEmpty();
+            assertThat(wheel.size()).isEqualTo(connectionCount);
+
+            // When - 時間輪轉一圈
+            for (int tick = 0; tick < wheel.slotCount(); tick++) {
+                ReflectionTestUtils.invokeMethod(sseConnectionManager, "tickHeartbeat");
+            }
+
+            // Then - 每條連線剛好多收到一次心跳（另一次為建立時的初始心跳）
+            assertThat(sseConnectionManager.getConnectionStats().getConnections())
+                    .hasSize(connectionCount)
+                    .allSatisfy(lag -> assertThat(lag.sent()).isEqualTo(2));
+
+            // When - 關閉一半連線後再轉一圈
+            List<SseConnection> closing = userConnections().values().stream()
+                    .limit(connectionCount / 2)
+                    .toList();
+            closing.forEach(connection ->
+                    ReflectionTestUtils.invokeMethod(sseConnectionManager, "removeConnection", connection));
+            for (int tick = 0; tick < wheel.slotCount(); tick++) {
+                ReflectionTestUtils.invokeMethod(sseConnectionManager, "tickHeartbeat");
+            }
+
+            // Then - 已關閉的連線不再被處理
+            assertThat(wheel.size()).isEqualTo(connectionCount / 2);
+            assertThat(closing).allSatisfy(connection -> assertThat(connection.lag(0).sent()).isEqualTo(2));
+            assertThat(sseConnectionManager.getConnectionStats().getConnections())
+                    .hasSize(connectionCount / 2)
+                    .allSatisfy(lag -> assertThat(lag.sent()).isEqualTo(3));
+            assertThat(scheduler.getQueue()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("送出佇列與慢速連線測試")
+    class SendQueueTests {
+
+        private final List<Runnable> pendingWrites = new ArrayList<>();
+        private final Executor manualWriter = pendingWrites::add;
+
+        @Test
+        @DisplayName("同一檔股票尚未送出的更新以最新值取代")
+        void offer_SameStock_ShouldCoalesceToLatest() throws IOException {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            SseConnection connection = new SseConnection("user1:hot-stocks", "hot-stocks", Set.of(), mockEmitter,
+                    manualWriter, 8, (c, e) -> { });
+            SseFrame first = frame("2330-v1");
+            SseFrame latest = frame("2330-v2");
+            SseFrame other = frame("2454-v1");
+
+            // When
+            connection.offer("2330", first, 1000L);
+            connection.offer("2454", other, 1000L);
+            connection.offer("2330", latest, 1500L);
+
+            // Then
+            SseConnectionManager.ConnectionLag lag = connection.lag(2000L);
+            assertThat(lag.queued()).isEqualTo(2);
+            assertThat(lag.coalesced()).isEqualTo(1);
+            assertThat(lag.lagMs()).isEqualTo(1000L);
+            assertThat(pendingWrites).hasSize(1);
+
+            runPendingWrites();
+            verify(mockEmitter, never()).send(first);
+            var order = inOrder(mockEmitter);
+            order.verify(mockEmitter).send(latest);
+            order.verify(mockEmitter).send(other);
+            assertThat(connection.lag(2000L).sent()).isEqualTo(2);
+            assertThat(connection.lag(2000L).lagMs()).isZero();
+        }
+
+        @Test
+        @DisplayName("佇列滿時丟棄最舊的事件")
+        void offer_FullQueue_ShouldDropOldest() throws IOException {
+            // Given
+            SseEmitter mockEmitter = mock(SseEmitter.class);
+            SseConnection connection = new SseConnection("user1:test-topic", "test-topic", Set.of(), mockEmitter,
+                    manualWriter, 2, (c, e) -> { });
+            SseFrame oldest = frame("1");
+
+            // When
+            connection.offer(null, oldest, 1000L);
+            connection.offer(null, frame("2"), 1000L);
+            connection.offer(null, frame("3"), 1000L);
+            runPendingWrites();
+
+            // Then
+            verify(mockEmitter, never()).send(oldest);
+            verify(mockEmitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+            assertThat(connection.getDropped()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("落後過多的連線應被斷開並送出原因")
+        void broadcastToTopic_SlowConsumer_ShouldDisconnectWithReason() throws IOException {
+            // Given
+            ReflectionTestUtils.setField(sseConnectionManager, "sseWriterPool", manualWriter);
+            ReflectionTestUtils.setField(sseConnectionManager, "queueCapacity", 1);
+            ReflectionTestUtils.setField(sseConnectionManager, "maxDrops", 2L);
+            SseEmitter slowEmitter = mock(SseEmitter.class);
+            sseConnectionManager.register("user1", "hot-stocks", slowEmitter);
+
+            // When - writer 尚未送出任何事件
+            for (int i = 0; i < 3; i++) {
+                sseConnectionManager.broadcastToTopic("hot-stocks", "message-" + i);
+            }
+
+            // Then
+            SseConnectionManager.ConnectionStats stats = sseConnectionManager.getConnectionStats();
+            assertThat(stats.getActiveConnections()).isZero();
+            assertThat(stats.getSlowConsumerDisconnects()).isEqualTo(1);
+            assertThat(stats.getTotalDropped()).isEqualTo(2);
+            assertThat(topicEmitters("hot-stocks")).isEmpty();
+
+            runPendingWrites();
+            ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+            verify(slowEmitter).send(captor.capture());
+            assertThat(((SseFrame) captor.getValue()).asString())
+                    .startsWith("event:disconnect")
+                    .contains("frames dropped since last write");
+            verify(slowEmitter).complete();
+        }
+
+        @Test
+        @DisplayName("連線統計應包含每條連線的落後與丟棄數")
+        void getConnectionStats_ShouldExposePerConnectionLag() {
+            // Given
+            ReflectionTestUtils.setField(sseConnectionManager, "sseWriterPool", manualWriter);
+            sseConnectionManager.register("user1", "hot-stocks", mock(SseEmitter.class));
+            sseConnectionManager.register("user2", "cold-stocks", mock(SseEmitter.class));
+
+            // When
+            sseConnectionManager.broadcastToTopic("hot-stocks", "2330", "tick-1");
+            sseConnectionManager.broadcastToTopic("hot-stocks", "2330", "tick-2");
+            SseConnectionManager.ConnectionStats stats = sseConnectionManager.getConnectionStats();
+
+            // Then
+            assertThat(stats.getConnections()).hasSize(2);
+            SseConnectionManager.ConnectionLag hot = stats.getConnections().stream()
+                    .filter(lag -> lag.connectionKey().equals("user1:hot-stocks"))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(hot.queued()).isEqualTo(1);
+            assertThat(hot.coalesced()).isEqualTo(1);
+            assertThat(hot.dropped()).isZero();
+            assertThat(stats.getTotalDropped()).isZero();
+        }
+
+        private SseFrame frame(String data) throws IOException {
+            return SseFrame.of(objectMapper, "data-update", "1", data);
+        }
+
+        private void runPendingWrites() {
+            while (!pendingWrites.isEmpty()) {
+                pendingWrites.remove(0).run();
+            }
         }
     }
 
@@ -407,4 +898,18 @@ public class SseConnectionManagerTest {
             assertThat(stats.getUtilizationRate()).isEqualTo(0.25); // 250/1000 = 0.25
         }
     }
-}
\ No newline at end of file
+
+    @SuppressWarnings("unchecked")
+    private Set<SseEmitter> topicEmitters(String topic) {
+        Map<String, Set<SseConnection>> topicConnections = (Map<String, Set<SseConnection>>)
+                ReflectionTestUtils.getField(sseConnectionManager, "topicConnections");
+        return topicConnections.getOrDefault(topic, Set.of()).stream()
+                .map(SseConnection::getEmitter)
+                .collect(Collectors.toSet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, SseConnection> userConnections() {
+        return (Map<String, SseConnection>) ReflectionTestUtils.getField(sseConnectionManager, "userConnections");
+    }
+}
@@ -1,17 +1,31 @@
 package com.kanban.service;
 
 import com.kanban.domain.entity.StockSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -28,12 +42,16 @@ class StockCacheServiceTest {
     @Mock
     private ValueOperations<String, Object> valueOperations;
     
+    @Mock
+    private SetOperations<String, Object> setOperations;
+    
     private StockCacheService stockCacheService;
     
     @BeforeEach
     void setUp() {
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        stockCacheService = new StockCacheService(redisTemplate);
+        lenient().when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        stockCacheService = new StockCacheService(redisTemplate, new SimpleMeterRegistry());
     }
     
     @Test
@@ -84,6 +102,51 @@ class StockCacheServiceTest {
         verify(redisTemplate).delete("kanban:snapshot:" + stockCode);
     }
     
+    @Test
+    void getCachedStockSnapshot_SecondRead_ServedFromLocalCache() {
+        // Arrange
+        String stockCode = "2330";
+        when(valueOperations.get("kanban:snapshot:" + stockCode)).thenReturn(createTestSnapshot(stockCode));
+        
+        // Act
+        stockCacheService.getCachedStockSnapshot(stockCode);
+        StockSnapshot result = stockCacheService.getCachedStockSnapshot(stockCode);
+        
+        // Assert
+        assertNotNull(result);
+        verify(valueOperations, times(1)).get("kanban:snapshot:" + stockCode);
+        StockCacheService.CacheStats stats = stockCacheService.getCacheStats();
+        assertEquals(1, stats.getL1Hits());
+        assertEquals(1, stats.getL2Hits());
+    }
+    
+    @Test
+    void onMessage_RemoteInvalidation_EvictsLocalEntry() {
+        // Arrange
+        String stockCode = "2330";
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(valueOperations.get("kanban:snapshot:" + stockCode)).thenReturn(createTestSnapshot(stockCode));
+        stockCacheService.getCachedStockSnapshot(stockCode);
+        
+        // Act
+        byte[] body = serializer.serialize("other-node|2330,2317");
+        stockCacheService.onMessage(new DefaultMessage(StockCacheService.INVALIDATION_CHANNEL.getBytes(), body), null);
+        stockCacheService.getCachedStockSnapshot(stockCode);
+        
+        // Assert
+        verify(valueOperations, times(2)).get("kanban:snapshot:" + stockCode);
+    }
+    
+    @Test
+    void cacheStockSnapshot_PublishesInvalidation() {
+        // Act
+        stockCacheService.cacheStockSnapshot(createTestSnapshot("2330"));
+        
+        // Assert
+        verify(redisTemplate).convertAndSend(eq(StockCacheService.INVALIDATION_CHANNEL), contains("|2330"));
+    }
+    
     @Test
     void cacheStockSnapshot_ValidSnapshot_CachesWithCorrectTtl() {
         // Arrange
@@ -91,8 +154,10 @@ class StockCacheServiceTest {
         
         // Act
         stockCacheService.cacheStockSnapshot(snapshot);
+        runPipelinedCallbacks();
         
         // Assert
+        verify(setOperations).add("kanban:index:2330", "kanban:snapshot:2330");
         verify(valueOperations).set(
             eq("kanban:snapshot:2330"), 
             eq(snapshot), 
@@ -121,7 +186,12 @@ class StockCacheServiceTest {
         // Act
         stockCacheService.cacheBatchStockSnapshots(snapshots);
         
-        // Assert
+        // Assert - 所有寫入在同一個 pipeline 內完成
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(valueOperations, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        
+        runPipelinedCallbacks();
+        verify(setOperations, times(2)).add(startsWith("kanban:index:"), any());
         verify(valueOperations, times(2)).set(
             anyString(), 
             any(StockSnapshot.class), 
@@ -130,6 +200,24 @@ class StockCacheServiceTest {
         );
     }
     
+    @Test
+    void getCachedStockSnapshots_UsesSingleMultiGet() {
+        // Arrange
+        StockSnapshot staleSnapshot = createTestSnapshot("2454");
+        staleSnapshot.setUpdatedAt(LocalDateTime.now().minusMinutes(10));
+        when(valueOperations.multiGet(List.of("kanban:snapshot:2330", "kanban:snapshot:2317", "kanban:snapshot:2454")))
+                .thenReturn(Arrays.asList(createTestSnapshot("2330"), null, staleSnapshot));
+        
+        // Act
+        Map<String, StockSnapshot> result = stockCacheService.getCachedStockSnapshots(List.of("2330", "2317", "2454"));
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey("2330"));
+        verify(valueOperations, never()).get(anyString());
+        verify(redisTemplate).delete(List.of("kanban:snapshot:2454"));
+    }
+    
     @Test
     void getCachedStockValidation_CacheHit_ReturnsBoolean() {
         // Arrange
@@ -153,8 +241,10 @@ class StockCacheServiceTest {
         
         // Act
         stockCacheService.cacheHistoricalData(stockCode, period, data);
+        runPipelinedCallbacks();
         
         // Assert
+        verify(setOperations).add("kanban:index:2330", "kanban:historical:2330:1M");
         verify(valueOperations).set(
             eq("kanban:historical:2330:1M"), 
             eq(data), 
@@ -167,29 +257,73 @@ class StockCacheServiceTest {
     void evictStockCache_ValidStockCode_DeletesRelatedKeys() {
         // Arrange
         String stockCode = "2330";
-        Set<String> keys = Set.of("kanban:snapshot:2330", "kanban:validation:2330");
-        when(redisTemplate.keys("*:2330:*")).thenReturn(keys);
+        Set<Object> keys = Set.of("kanban:snapshot:2330", "kanban:historical:2330:1M");
+        when(setOperations.members("kanban:index:2330")).thenReturn(keys);
         
         // Act
         stockCacheService.evictStockCache(stockCode);
         
         // Assert
-        verify(redisTemplate).delete(keys);
+        verify(redisTemplate).delete(argThat((Collection<String> deleted) -> deleted.size() == 3
+                && deleted.containsAll(List.of("kanban:index:2330", "kanban:snapshot:2330", "kanban:historical:2330:1M"))));
+        verify(valueOperations).decrement("kanban:stats:keys", 2L);
+        verify(redisTemplate, never()).keys(anyString());
     }
     
     @Test
-    void getCacheStats_ReturnsValidStats() {
+    @SuppressWarnings("unchecked")
+    void getCacheStats_ReadsMaintainedKeyCounter() {
         // Arrange
-        Set<String> keys = Set.of("kanban:snapshot:2330", "kanban:validation:2317");
-        when(redisTemplate.keys("kanban:*")).thenReturn(keys);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(stringCommands.get("kanban:stats:keys".getBytes(StandardCharsets.UTF_8)))
+                .thenReturn("42".getBytes(StandardCharsets.UTF_8));
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<Long>) invocation.getArgument(0)).doInRedis(connection));
         
         // Act
         StockCacheService.CacheStats stats = stockCacheService.getCacheStats();
         
         // Assert
         assertNotNull(stats);
-        assertEquals(2, stats.getTotalKeys());
+        assertEquals(42, stats.getTotalKeys());
         assertNotNull(stats.getCurrentTtl());
+        verify(connection, never()).keyCommands();
+        verify(connection, never()).serverCommands();
+        verify(redisTemplate, never()).scan(any(ScanOptions.class));
+        verify(redisTemplate, never()).keys(anyString());
+    }
+    
+    @Test
+    void cacheStockSnapshot_NewIndexEntry_IncrementsKeyCounter() {
+        // Arrange：pipeline 第一筆結果為 SADD 新增的成員數
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(1L, true, true));
+        
+        // Act
+        stockCacheService.cacheStockSnapshot(createTestSnapshot("2330"));
+        
+        // Assert
+        verify(valueOperations).increment("kanban:stats:keys", 1L);
+    }
+    
+    @Test
+    void cacheStockSnapshot_ExistingIndexEntry_KeepsKeyCounter() {
+        // Arrange
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(0L, true, true));
+        
+        // Act
+        stockCacheService.cacheStockSnapshot(createTestSnapshot("2330"));
+        
+        // Assert
+        verify(valueOperations, never()).increment(anyString(), anyLong());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void runPipelinedCallbacks() {
+        ArgumentCaptor<SessionCallback<Object>> captor = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(redisTemplate, atLeastOnce()).executePipelined(captor.capture());
+        captor.getAllValues().forEach(callback -> callback.execute(redisTemplate));
     }
     
     private StockSnapshot createTestSnapshot(String stockCode) {
@@ -1,12 +1,17 @@
 package com.kanban.service;
 
 import com.kanban.domain.entity.HistoricalPrice;
+import com.kanban.domain.entity.IndicatorCheckpoint;
+import com.kanban.domain.entity.StockSnapshot;
 import com.kanban.domain.entity.TechnicalIndicator;
 import com.kanban.repository.HistoricalPriceRepository;
+import com.kanban.repository.IndicatorCheckpointRepository;
 import com.kanban.repository.TechnicalIndicatorRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -16,9 +21,11 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -31,20 +38,38 @@ class TechnicalIndicatorServiceTest {
     @Mock
     private HistoricalPriceRepository historicalPriceRepository;
     
+    @Mock
+    private IndicatorCheckpointRepository indicatorCheckpointRepository;
+    
     @Mock
     private StockCacheService stockCacheService;
     
+    private ForkJoinPool indicatorComputePool;
+    
+    private IncrementalIndicatorEngine indicatorEngine;
+    
     private TechnicalIndicatorService technicalIndicatorService;
     
     @BeforeEach
     void setUp() {
+        indicatorComputePool = new ForkJoinPool(2);
+        indicatorEngine = new IncrementalIndicatorEngine(
+                historicalPriceRepository,
+                indicatorCheckpointRepository,
+                indicatorComputePool
+        );
         technicalIndicatorService = new TechnicalIndicatorService(
                 technicalIndicatorRepository,
-                historicalPriceRepository,
+                indicatorEngine,
                 stockCacheService
         );
     }
     
+    @AfterEach
+    void tearDown() {
+        indicatorComputePool.shutdownNow();
+    }
+    
     @Test
     void calculateIndicators_SufficientData_ReturnsCalculatedIndicators() {
         // Arrange
@@ -94,6 +119,192 @@ class TechnicalIndicatorServiceTest {
         verify(technicalIndicatorRepository, never()).save(any(TechnicalIndicator.class));
     }
     
+    @Test
+    void calculateIndicators_SecondCall_ReusesStateWithoutReloadingHistory() {
+        // Arrange
+        String stockCode = "2330";
+        when(historicalPriceRepository.findRecentByStockCode(stockCode, 100))
+                .thenReturn(createMockHistoricalPrices(stockCode, 30));
+        when(technicalIndicatorRepository.save(any(TechnicalIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        technicalIndicatorService.calculateIndicators(stockCode);
+        TechnicalIndicator result = technicalIndicatorService.calculateIndicators(createSnapshot(stockCode, "600.00"));
+        
+        // Assert
+        assertEquals(30, result.getDataPointsCount());
+        verify(historicalPriceRepository, times(1)).findRecentByStockCode(stockCode, 100);
+        verify(indicatorCheckpointRepository, times(1)).findById(stockCode);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void calculateBatchIndicators_RestoresCheckpointsInSingleQueryAndSavesOnce() {
+        // Arrange
+        IndicatorState state = new IndicatorState("2330");
+        List<HistoricalPrice> prices = createMockHistoricalPrices("2330", 30);
+        for (int i = prices.size() - 1; i > 0; i--) {
+            HistoricalPrice price = prices.get(i);
+            state.apply(price.getTradeDate(), price.getHighPrice(), price.getLowPrice(),
+                    price.getClosePrice(), price.getVolume());
+        }
+        IndicatorCheckpoint checkpoint = IndicatorCheckpoint.builder()
+                .stockCode("2330")
+                .barCount(state.getBarCount())
+                .stateVersion(IndicatorState.SCHEMA_VERSION)
+                .stateData(state.toBytes())
+                .build();
+        
+        when(indicatorCheckpointRepository.findAllById(List.of("2330", "2317")))
+                .thenReturn(List.of(checkpoint));
+        when(historicalPriceRepository.findRecentByStockCode("2317", 100))
+                .thenReturn(createMockHistoricalPrices("2317", 5));
+        
+        // Act
+        technicalIndicatorService.calculateBatchIndicators(List.of(
+                createSnapshot("2330", "600.00"), createSnapshot("2317", "110.00"))).join();
+        
+        // Assert
+        ArgumentCaptor<List<TechnicalIndicator>> captor = ArgumentCaptor.forClass(List.class);
+        verify(technicalIndicatorRepository).saveAll(captor.capture());
+        List<TechnicalIndicator> saved = captor.getValue();
+        assertEquals(1, saved.size());
+        assertEquals("2330", saved.get(0).getStockCode());
+        assertEquals(30, saved.get(0).getDataPointsCount());
+        verify(historicalPriceRepository, never()).findRecentByStockCode(eq("2330"), anyInt());
+        verify(stockCacheService).evictStockCache("2330");
+    }
+    
+    @Test
+    void getState_StaleCheckpoint_ReplaysNewerHistoricalPrices() {
+        // Arrange
+        List<HistoricalPrice> prices = createMockHistoricalPrices("2330", 30);
+        IndicatorState state = new IndicatorState("2330");
+        for (int i = prices.size() - 1; i >= 10; i--) {
+            HistoricalPrice price = prices.get(i);
+            state.apply(price.getTradeDate(), price.getHighPrice(), price.getLowPrice(),
+                    price.getClosePrice(), price.getVolume());
+        }
+        LocalDate checkpointDate = prices.get(10).getTradeDate();
+        when(indicatorCheckpointRepository.findById("2330")).thenReturn(Optional.of(IndicatorCheckpoint.builder()
+                .stockCode("2330")
+                .lastTradeDate(checkpointDate)
+                .barCount(state.getBarCount())
+                .stateVersion(IndicatorState.SCHEMA_VERSION)
+                .stateData(state.toBytes())
+                .build()));
+        when(historicalPriceRepository.findSinceByStockCode("2330", checkpointDate, 101))
+                .thenReturn(new ArrayList<>(prices.subList(1, 11)));
+        
+        // Act
+        IndicatorState resumed = indicatorEngine.getState("2330");
+        
+        // Assert
+        assertEquals(29, resumed.getBarCount());
+        assertEquals(prices.get(1).getTradeDate(), resumed.getLastTradeDate());
+        verify(historicalPriceRepository, never()).findRecentByStockCode(eq("2330"), anyInt());
+    }
+    
+    @Test
+    void getState_CheckpointBehindByMoreThanWarmUp_FallsBackToWarmUp() {
+        // Arrange
+        List<HistoricalPrice> prices = createMockHistoricalPrices("2330", 130);
+        IndicatorState state = new IndicatorState("2330");
+        for (int i = prices.size() - 1; i >= 120; i--) {
+            HistoricalPrice price = prices.get(i);
+            state.apply(price.getTradeDate(), price.getHighPrice(), price.getLowPrice(),
+                    price.getClosePrice(), price.getVolume());
+        }
+        LocalDate checkpointDate = prices.get(120).getTradeDate();
+        when(indicatorCheckpointRepository.findById("2330")).thenReturn(Optional.of(IndicatorCheckpoint.builder()
+                .stockCode("2330")
+                .lastTradeDate(checkpointDate)
+                .barCount(state.getBarCount())
+                .stateVersion(IndicatorState.SCHEMA_VERSION)
+                .stateData(state.toBytes())
+                .build()));
+        when(historicalPriceRepository.findSinceByStockCode("2330", checkpointDate, 101))
+                .thenReturn(new ArrayList<>(prices.subList(19, 120)));
+        when(historicalPriceRepository.findRecentByStockCode("2330", 100))
+                .thenReturn(new ArrayList<>(prices.subList(1, 101)));
+        
+        // Act
+        IndicatorState resumed = indicatorEngine.getState("2330");
+        
+        // Assert
+        assertEquals(100, resumed.getBarCount());
+        assertEquals(prices.get(1).getTradeDate(), resumed.getLastTradeDate());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void recalculateFullHistory_UsesTrueSignalLineAndReseedsState() {
+        // Arrange
+        List<HistoricalPrice> prices = createMockHistoricalPrices("2330", 250);
+        when(historicalPriceRepository.findByStockCodeOrderByTradeDateDesc("2330")).thenReturn(prices);
+        when(historicalPriceRepository.findByStockCodeOrderByTradeDateDesc("2317"))
+                .thenReturn(createMockHistoricalPrices("2317", 5));
+        
+        // Act
+        Integer saved = technicalIndicatorService.recalculateFullHistory(List.of("2330", "2317")).join();
+        
+        // Assert
+        assertEquals(1, saved);
+        ArgumentCaptor<List<TechnicalIndicator>> captor = ArgumentCaptor.forClass(List.class);
+        verify(technicalIndicatorRepository).saveAll(captor.capture());
+        TechnicalIndicator indicator = captor.getValue().get(0);
+        assertEquals(250, indicator.getDataPointsCount());
+        
+        BarSeries bars = BarSeries.fromHistoricalPrices("2330", prices);
+        double[][] macd = IndicatorKernels.macd(bars.getClose(), 12, 26, 9);
+        assertEquals(macd[1][249], indicator.getMacdSignal().doubleValue(), 0.0001);
+        assertEquals(indicator.getMacdLine().subtract(indicator.getMacdSignal()).doubleValue(),
+                indicator.getMacdHistogram().doubleValue(), 0.0002);
+        
+        IndicatorState state = indicatorEngine.getState("2330");
+        assertEquals(250, state.getBarCount());
+        verify(historicalPriceRepository, never()).findRecentByStockCode(eq("2330"), anyInt());
+    }
+    
+    @Test
+    void recompute_KeepsTicksAppliedThroughReplacedState() {
+        // Arrange：歷史價格只到昨日，今日報價套用在重算前取得的狀態上
+        List<HistoricalPrice> prices = createMockHistoricalPrices("2330", 31).subList(1, 31);
+        when(historicalPriceRepository.findRecentByStockCode("2330", 100)).thenReturn(prices);
+        when(historicalPriceRepository.findByStockCodeOrderByTradeDateDesc("2330")).thenReturn(prices);
+        IndicatorState stale = indicatorEngine.getState("2330");
+        indicatorEngine.apply(stale, createSnapshot("2330", "600"));
+        
+        // Act
+        indicatorEngine.recompute("2330");
+        TechnicalIndicator applied = indicatorEngine.apply(stale, createSnapshot("2330", "610"));
+        
+        // Assert：重算帶入今日 K 棒，之後經舊狀態套用的報價落在新狀態
+        IndicatorState current = indicatorEngine.getState("2330");
+        assertNotSame(stale, current);
+        assertEquals(31, current.getBarCount());
+        assertEquals(LocalDate.now(), current.getLastTradeDate());
+        assertEquals(applied.getMa5(), indicatorEngine.currentIndicator(current).getMa5());
+        assertEquals(31, applied.getDataPointsCount());
+    }
+    
+    @Test
+    void checkpoint_WritesOnlyChangedStates() {
+        // Arrange
+        when(historicalPriceRepository.findRecentByStockCode("2330", 100))
+                .thenReturn(createMockHistoricalPrices("2330", 30));
+        indicatorEngine.getState("2330");
+        
+        // Act
+        indicatorEngine.checkpoint();
+        indicatorEngine.checkpoint();
+        
+        // Assert
+        verify(indicatorCheckpointRepository, times(1)).upsert(eq("2330"), any(LocalDate.class), eq(30),
+                eq(IndicatorState.SCHEMA_VERSION), any(byte[].class), any(LocalDateTime.class));
+    }
+    
     @Test
     void getLatestIndicators_ExistingData_ReturnsIndicator() {
         // Arrange
@@ -154,6 +365,17 @@ class TechnicalIndicatorServiceTest {
         return prices;
     }
     
+    private StockSnapshot createSnapshot(String stockCode, String price) {
+        return StockSnapshot.builder()
+                .code(stockCode)
+                .currentPrice(new BigDecimal(price))
+                .highPrice(new BigDecimal(price))
+                .lowPrice(new BigDecimal(price))
+                .volume(25000000L)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+    
     private TechnicalIndicator createMockTechnicalIndicator(String stockCode) {
         return TechnicalIndicator.builder()
                 .stockCode(stockCode)